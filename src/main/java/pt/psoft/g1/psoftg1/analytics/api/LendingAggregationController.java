@@ -0,0 +1,87 @@
+package pt.psoft.g1.psoftg1.analytics.api;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import pt.psoft.g1.psoftg1.analytics.model.LendingAggregation;
+import pt.psoft.g1.psoftg1.analytics.services.LendingAggregationRequest;
+import pt.psoft.g1.psoftg1.analytics.services.LendingAggregationRequest.Measure;
+import pt.psoft.g1.psoftg1.analytics.services.LendingSnapshotService;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+@Tag(name = "Lending analytics", description = "Ad-hoc aggregations over the lending history")
+@RestController
+@RequestMapping("/api/lendings/aggregate")
+public class LendingAggregationController {
+    private final LendingSnapshotService lendingSnapshotService;
+    private final int maxRows;
+
+    public LendingAggregationController(final LendingSnapshotService lendingSnapshotService,
+                                        @Value("${analytics.aggregation.max-rows:1000}") final int maxRows) {
+        this.lendingSnapshotService = lendingSnapshotService;
+        this.maxRows = maxRows;
+    }
+
+    @Operation(summary = "Groups lendings by genre, author, reader, book, year, month or weekday and computes the requested measures")
+    @PostMapping
+    public LendingAggregationView aggregate(@Valid @RequestBody final LendingAggregationRequest request,
+                                            @RequestParam(value = "page", defaultValue = "1") final int page,
+                                            @RequestParam(value = "limit", required = false) final Integer limit) {
+        final int pageSize = limit == null ? maxRows : limit;
+        if (page < 1 || pageSize < 1 || pageSize > maxRows) {
+            throw new IllegalArgumentException("Page number must be at least 1 and limit between 1 and " + maxRows);
+        }
+        if (!lendingSnapshotService.isReady()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Lending history is still loading");
+        }
+        final LendingAggregation.Result result = lendingSnapshotService.aggregate(request.getGroupBy(), request.toFilter());
+
+        // groups come largest first, so a page holds the next largest ones
+        final var view = new LendingAggregationView();
+        view.setRows(result.groups().stream()
+                .skip((long) (page - 1) * pageSize)
+                .limit(pageSize)
+                .map(group -> toRow(request, group))
+                .toList());
+        view.setTotalGroups(result.groups().size());
+        view.setScannedRows(result.scannedRows());
+        view.setPartitions(result.partitions());
+        view.setElapsedMillis(result.elapsedNanos() / 1_000_000.0);
+        return view;
+    }
+
+    private static LendingAggregationView.Row toRow(final LendingAggregationRequest request,
+                                                     final LendingAggregation.Group group) {
+        final List<LendingAggregation.Dimension> groupBy = request.getGroupBy();
+        final Map<String, Object> key = new LinkedHashMap<>();
+        for (int i = 0; i < groupBy.size(); i++) {
+            key.put(groupBy.get(i).name().toLowerCase(Locale.ROOT), group.key().get(i));
+        }
+
+        final var row = new LendingAggregationView.Row();
+        row.setGroup(key);
+        final LendingAggregation.Totals totals = group.totals();
+        if (request.getMeasures().contains(Measure.COUNT)) {
+            row.setCount(totals.count());
+        }
+        if (request.getMeasures().contains(Measure.AVERAGE_DURATION) && totals.averageDuration().isPresent()) {
+            row.setAverageDuration(totals.averageDuration().getAsDouble());
+        }
+        if (request.getMeasures().contains(Measure.OVERDUE_RATE)) {
+            row.setOverdueRate(totals.overdueRate());
+        }
+        return row;
+    }
+}
@@ -0,0 +1,28 @@
+package pt.psoft.g1.psoftg1.analytics.api;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Schema(description = "The groups of an ad-hoc lending aggregation and how long it took.")
+public class LendingAggregationView {
+    private List<Row> rows;
+    @Schema(description = "Number of groups over all pages")
+    private int totalGroups;
+    private int scannedRows;
+    private int partitions;
+    private double elapsedMillis;
+
+    @Data
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Row {
+        private Map<String, Object> group;
+        private Long count;
+        private Double averageDuration;
+        private Double overdueRate;
+    }
+}
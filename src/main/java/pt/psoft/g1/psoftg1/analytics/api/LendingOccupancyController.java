@@ -0,0 +1,69 @@
+package pt.psoft.g1.psoftg1.analytics.api;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import pt.psoft.g1.psoftg1.analytics.services.LendingIntervalService;
+import pt.psoft.g1.psoftg1.shared.api.ListResponse;
+import pt.psoft.g1.psoftg1.shared.services.Page;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+@Tag(name = "Lending analytics", description = "Ad-hoc aggregations over the lending history")
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/lendings")
+public class LendingOccupancyController {
+    private final LendingIntervalService lendingIntervalService;
+
+    @Operation(summary = "Gets the number of books out on a day")
+    @GetMapping("/occupancy")
+    public OccupancyView getOccupancy(
+            @RequestParam("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) final LocalDate date) {
+        checkReady();
+        return new OccupancyView(date, lendingIntervalService.occupancy(date));
+    }
+
+    @Operation(summary = "Gets the number of books out on each day of a period")
+    @GetMapping("/occupancy/daily")
+    public ListResponse<OccupancyView> getDailyOccupancy(
+            @RequestParam("startDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) final LocalDate startDate,
+            @RequestParam("endDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) final LocalDate endDate) {
+        checkReady();
+        final long[] series = lendingIntervalService.dailyOccupancy(startDate, endDate);
+        final List<OccupancyView> views = new ArrayList<>(series.length);
+        for (int i = 0; i < series.length; i++) {
+            views.add(new OccupancyView(startDate.plusDays(i), series[i]));
+        }
+        return new ListResponse<>(views);
+    }
+
+    @Operation(summary = "Gets the lendings out on at least one day of a period, by start date")
+    @GetMapping("/overlapping")
+    public ListResponse<LendingPeriodView> getOverlapping(
+            @RequestParam("startDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) final LocalDate startDate,
+            @RequestParam("endDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) final LocalDate endDate,
+            @RequestParam(value = "page", defaultValue = "1") final int page,
+            @RequestParam(value = "limit", defaultValue = "10") final int limit) {
+        checkReady();
+        return new ListResponse<>(lendingIntervalService.overlapping(startDate, endDate, new Page(page, limit)).stream()
+                .map(period -> new LendingPeriodView(period.lendingNumber(), period.isbn(), period.readerNumber(),
+                        period.startDate(), period.limitDate(), period.returnedDate()))
+                .toList());
+    }
+
+    private void checkReady() {
+        if (!lendingIntervalService.isReady()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Lending history is still loading");
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package pt.psoft.g1.psoftg1.analytics.api;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "When a lending was out; returnedDate is absent while the book has not been returned.")
+public class LendingPeriodView {
+    private String lendingNumber;
+    private String isbn;
+    private String readerNumber;
+    private LocalDate startDate;
+    private LocalDate limitDate;
+    private LocalDate returnedDate;
+}
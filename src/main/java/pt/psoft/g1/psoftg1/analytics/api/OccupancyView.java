@@ -0,0 +1,17 @@
+package pt.psoft.g1.psoftg1.analytics.api;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "The number of books out on a day.")
+public class OccupancyView {
+    private LocalDate date;
+    private long booksOut;
+}
@@ -0,0 +1,30 @@
+package pt.psoft.g1.psoftg1.analytics.infrastructure.repositories.impl;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import pt.psoft.g1.psoftg1.analytics.model.GenreLendingStats;
+import pt.psoft.g1.psoftg1.analytics.repositories.GenreLendingStatsRepository;
+
+@Profile("!mongodb-redis & !mongotest")
+public interface SpringDataGenreLendingStatsRepository extends GenreLendingStatsRepository, CrudRepository<GenreLendingStats, Long> {
+
+    @Override
+    @Transactional
+    @Modifying
+    @Query("UPDATE GenreLendingStats s SET s.lendingCount = s.lendingCount + 1 " +
+            "WHERE s.genre = :genre AND s.period = :period")
+    int addLending(@Param("genre") String genre, @Param("period") int period);
+
+    @Override
+    @Transactional
+    @Modifying
+    @Query("UPDATE GenreLendingStats s SET s.returnedCount = s.returnedCount + 1, " +
+            "s.durationDaysSum = s.durationDaysSum + :durationDays " +
+            "WHERE s.genre = :genre AND s.period = :period")
+    int addReturn(@Param("genre") String genre, @Param("period") int period,
+                  @Param("durationDays") long durationDays);
+}
@@ -0,0 +1,32 @@
+package pt.psoft.g1.psoftg1.analytics.infrastructure.repositories.mongo;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
+import org.springframework.stereotype.Repository;
+import pt.psoft.g1.psoftg1.analytics.model.GenreLendingStats;
+import pt.psoft.g1.psoftg1.analytics.repositories.GenreLendingStatsRepository;
+
+@Repository
+@Profile({"mongodb-redis", "mongotest"})
+public interface SpringMongoGenreLendingStatsRepository extends GenreLendingStatsRepository, MongoRepository<GenreLendingStats, Long> {
+
+    @Query("{ 'genre': ?0, 'period': ?1 }")
+    @Update("{ '$inc': { 'lendingCount': 1 } }")
+    long incrementLendingCount(String genre, int period);
+
+    @Query("{ 'genre': ?0, 'period': ?1 }")
+    @Update("{ '$inc': { 'returnedCount': 1, 'durationDaysSum': ?2 } }")
+    long incrementReturnedCount(String genre, int period, long durationDays);
+
+    @Override
+    default int addLending(String genre, int period) {
+        return (int) incrementLendingCount(genre, period);
+    }
+
+    @Override
+    default int addReturn(String genre, int period, long durationDays) {
+        return (int) incrementReturnedCount(genre, period, durationDays);
+    }
+}
@@ -0,0 +1,95 @@
+package pt.psoft.g1.psoftg1.analytics.model;
+
+import java.time.LocalDate;
+import java.time.Year;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Counts per key rolled up per day, per month and per year, to rank keys over any date range.
+ * <p>A range is read from the whole years and whole months it covers plus the loose days at its
+ * ends, i.e. at most about 60 day, 22 month and one bucket per whole year, however long it is.
+ * Only the top N are kept while ranking, in a heap of size N. Ties are broken by the natural order
+ * of the key, as in {@link RankedCounter}.
+ * <p>Not thread-safe; callers synchronize.
+ */
+public class CalendarBuckets<K extends Comparable<K>> {
+
+    private final NavigableMap<LocalDate, Map<K, Long>> days = new TreeMap<>();
+    private final NavigableMap<YearMonth, Map<K, Long>> months = new TreeMap<>();
+    private final NavigableMap<Year, Map<K, Long>> years = new TreeMap<>();
+
+    public void add(K key, LocalDate day, long delta) {
+        add(days, day, key, delta);
+        add(months, YearMonth.from(day), key, delta);
+        add(years, Year.from(day), key, delta);
+    }
+
+    /**
+     * The {@code n} keys with the highest counts between both dates, inclusive.
+     */
+    public List<Map.Entry<K, Long>> top(LocalDate from, LocalDate to, int n) {
+        final Map<K, Long> totals = new HashMap<>();
+        LocalDate cursor = from;
+        while (!cursor.isAfter(to)) {
+            final LocalDate yearEnd = cursor.withDayOfYear(cursor.lengthOfYear());
+            final LocalDate monthEnd = cursor.withDayOfMonth(cursor.lengthOfMonth());
+            if (cursor.getDayOfYear() == 1 && !yearEnd.isAfter(to)) {
+                merge(totals, years.get(Year.from(cursor)));
+                cursor = yearEnd.plusDays(1);
+            } else if (cursor.getDayOfMonth() == 1 && !monthEnd.isAfter(to)) {
+                merge(totals, months.get(YearMonth.from(cursor)));
+                cursor = monthEnd.plusDays(1);
+            } else {
+                merge(totals, days.get(cursor));
+                cursor = cursor.plusDays(1);
+            }
+        }
+
+        final Comparator<Map.Entry<K, Long>> ranking = Map.Entry.<K, Long>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey());
+        // the heap head is the weakest of the best n seen so far
+        final PriorityQueue<Map.Entry<K, Long>> best = new PriorityQueue<>(ranking.reversed());
+        for (Map.Entry<K, Long> entry : totals.entrySet()) {
+            best.add(Map.entry(entry.getKey(), entry.getValue()));
+            if (best.size() > n) {
+                best.poll();
+            }
+        }
+        final List<Map.Entry<K, Long>> result = new ArrayList<>(best);
+        result.sort(ranking);
+        return result;
+    }
+
+    public void clear() {
+        days.clear();
+        months.clear();
+        years.clear();
+    }
+
+    private static <T, K> void add(NavigableMap<T, Map<K, Long>> level, T bucket, K key, long delta) {
+        final Map<K, Long> counts = level.computeIfAbsent(bucket, b -> new HashMap<>());
+        final long updated = counts.getOrDefault(key, 0L) + delta;
+        if (updated <= 0) {
+            counts.remove(key);
+            if (counts.isEmpty()) {
+                level.remove(bucket);
+            }
+        } else {
+            counts.put(key, updated);
+        }
+    }
+
+    private static <K> void merge(Map<K, Long> totals, Map<K, Long> bucket) {
+        if (bucket != null) {
+            bucket.forEach((key, count) -> totals.merge(key, count, Long::sum));
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package pt.psoft.g1.psoftg1.analytics.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Undirected co-authorship graph, weighted by the number of books two authors share.
+ * <p>Authors are mapped to dense indices and every index keeps its neighbours and the matching
+ * weights in two parallel int arrays, so listing the co-authors of an author costs O(degree)
+ * and a breadth-first search touches only primitive arrays. An edge whose weight drops to zero is
+ * removed by moving the last neighbour into its slot.
+ * <p>Not thread-safe; callers synchronize.
+ */
+public class CoAuthorshipGraph {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final Map<Long, Integer> indices = new HashMap<>();
+    private long[] authorNumbers = new long[16];
+    private int[][] neighbours = new int[16][];
+    private int[][] weights = new int[16][];
+    private int[] degrees = new int[16];
+    private int size;
+
+    public void clear() {
+        indices.clear();
+        Arrays.fill(neighbours, 0, size, null);
+        Arrays.fill(weights, 0, size, null);
+        Arrays.fill(degrees, 0, size, 0);
+        size = 0;
+    }
+
+    /**
+     * Links every pair of the given authors, who wrote one more book together.
+     */
+    public void addBook(Collection<Long> authors) {
+        link(authors, 1);
+    }
+
+    /**
+     * Reverts {@link #addBook} for a book that no longer has these authors.
+     */
+    public void removeBook(Collection<Long> authors) {
+        link(authors, -1);
+    }
+
+    /**
+     * @return the co-authors of the author and the number of books shared with each, most shared first
+     */
+    public Map<Long, Integer> coAuthors(Long authorNumber) {
+        Integer index = indices.get(authorNumber);
+        if (index == null) {
+            return Map.of();
+        }
+        int degree = degrees[index];
+        Integer[] order = new Integer[degree];
+        for (int i = 0; i < degree; i++) {
+            order[i] = i;
+        }
+        int[] adjacent = neighbours[index];
+        int[] weight = weights[index];
+        Arrays.sort(order, (a, b) -> weight[a] != weight[b]
+                ? Integer.compare(weight[b], weight[a])
+                : Long.compare(authorNumbers[adjacent[a]], authorNumbers[adjacent[b]]));
+        Map<Long, Integer> result = new LinkedHashMap<>();
+        for (int i : order) {
+            result.put(authorNumbers[adjacent[i]], weight[i]);
+        }
+        return result;
+    }
+
+    public int degree(Long authorNumber) {
+        Integer index = indices.get(authorNumber);
+        return index == null ? 0 : degrees[index];
+    }
+
+    /**
+     * Breadth-first search from the author, up to {@code maxHops} edges away.
+     *
+     * @return the reachable authors, excluding the author itself, mapped to their distance in hops,
+     * nearest first
+     */
+    public Map<Long, Integer> collaborators(Long authorNumber, int maxHops) {
+        Integer source = indices.get(authorNumber);
+        if (source == null || maxHops <= 0) {
+            return Map.of();
+        }
+        int[] distance = new int[size];
+        Arrays.fill(distance, -1);
+        int[] queue = new int[size];
+        int head = 0;
+        int tail = 0;
+        distance[source] = 0;
+        queue[tail++] = source;
+
+        Map<Long, Integer> result = new LinkedHashMap<>();
+        while (head < tail) {
+            int current = queue[head++];
+            int hops = distance[current] + 1;
+            if (hops > maxHops) {
+                break;
+            }
+            int[] adjacent = neighbours[current];
+            for (int i = 0; i < degrees[current]; i++) {
+                int next = adjacent[i];
+                if (distance[next] < 0) {
+                    distance[next] = hops;
+                    queue[tail++] = next;
+                    result.put(authorNumbers[next], hops);
+                }
+            }
+        }
+        return result;
+    }
+
+    private void link(Collection<Long> authors, int delta) {
+        List<Integer> distinct = new ArrayList<>(authors.size());
+        for (Long authorNumber : authors) {
+            int index = index(authorNumber);
+            if (!distinct.contains(index)) {
+                distinct.add(index);
+            }
+        }
+        for (int i = 0; i < distinct.size(); i++) {
+            for (int j = i + 1; j < distinct.size(); j++) {
+                addWeight(distinct.get(i), distinct.get(j), delta);
+                addWeight(distinct.get(j), distinct.get(i), delta);
+            }
+        }
+    }
+
+    private int index(Long authorNumber) {
+        Integer existing = indices.get(authorNumber);
+        if (existing != null) {
+            return existing;
+        }
+        if (size == authorNumbers.length) {
+            int capacity = size * 2;
+            authorNumbers = Arrays.copyOf(authorNumbers, capacity);
+            neighbours = Arrays.copyOf(neighbours, capacity);
+            weights = Arrays.copyOf(weights, capacity);
+            degrees = Arrays.copyOf(degrees, capacity);
+        }
+        int index = size++;
+        authorNumbers[index] = authorNumber;
+        neighbours[index] = EMPTY;
+        weights[index] = EMPTY;
+        indices.put(authorNumber, index);
+        return index;
+    }
+
+    private void addWeight(int from, int to, int delta) {
+        int[] adjacent = neighbours[from];
+        int degree = degrees[from];
+        for (int i = 0; i < degree; i++) {
+            if (adjacent[i] == to) {
+                weights[from][i] += delta;
+                if (weights[from][i] <= 0) {
+                    adjacent[i] = adjacent[degree - 1];
+                    weights[from][i] = weights[from][degree - 1];
+                    degrees[from]--;
+                }
+                return;
+            }
+        }
+        if (delta <= 0) {
+            return;
+        }
+        if (degree == adjacent.length) {
+            int capacity = Math.max(4, degree * 2);
+            neighbours[from] = Arrays.copyOf(adjacent, capacity);
+            weights[from] = Arrays.copyOf(weights[from], capacity);
+        }
+        neighbours[from][degree] = to;
+        weights[from][degree] = delta;
+        degrees[from]++;
+    }
+}
@@ -0,0 +1,45 @@
+package pt.psoft.g1.psoftg1.analytics.model;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Per-day counts per key, evicted oldest first.
+ * <p>Not thread-safe; callers synchronize.
+ */
+public class DailyBuckets<K> {
+
+    private final NavigableMap<LocalDate, Map<K, Long>> buckets = new TreeMap<>();
+
+    public void add(K key, LocalDate day, long delta) {
+        Map<K, Long> bucket = buckets.computeIfAbsent(day, d -> new HashMap<>());
+        long updated = bucket.getOrDefault(key, 0L) + delta;
+        if (updated <= 0) {
+            bucket.remove(key);
+            if (bucket.isEmpty()) {
+                buckets.remove(day);
+            }
+        } else {
+            bucket.put(key, updated);
+        }
+    }
+
+    /**
+     * Removes and returns every bucket dated on or before {@code day}.
+     */
+    public List<Map<K, Long>> evictUpTo(LocalDate day) {
+        NavigableMap<LocalDate, Map<K, Long>> expired = buckets.headMap(day, true);
+        List<Map<K, Long>> evicted = new ArrayList<>(expired.values());
+        expired.clear();
+        return evicted;
+    }
+
+    public void clear() {
+        buckets.clear();
+    }
+}
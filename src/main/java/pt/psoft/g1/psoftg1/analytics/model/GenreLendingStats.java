@@ -0,0 +1,81 @@
+package pt.psoft.g1.psoftg1.analytics.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import org.hibernate.annotations.GenericGenerator;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * One cell of the genre analytics cube: the lendings of books of one genre that started in one
+ * month, with how many of them were returned and their summed duration in days.
+ * <p>{@code period} is the month as {@code year * 12 + month - 1}, so a range of months is a
+ * range of one indexed column.
+ */
+@Entity
+@Document("genre_lending_stats")
+@CompoundIndex(name = "genre_period", def = "{ 'genre': 1, 'period': 1 }", unique = true)
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"genre", "period"}),
+        indexes = @Index(columnList = "period"))
+public class GenreLendingStats {
+    @Id
+    @org.springframework.data.annotation.Id
+    @GeneratedValue(generator = "custom-id-generator")
+    @GenericGenerator(name = "custom-id-generator",
+                      strategy = "pt.psoft.g1.psoftg1.shared.model.CustomIdGenerator")
+    long pk;
+
+    @Getter
+    @Column(nullable = false, length = 100)
+    private String genre;
+
+    @Getter
+    @Column(nullable = false)
+    private int period;
+
+    @Getter
+    private long lendingCount;
+
+    @Getter
+    private long returnedCount;
+
+    @Getter
+    private long durationDaysSum;
+
+    protected GenreLendingStats() {
+        // for ORM only
+    }
+
+    public GenreLendingStats(final String genre, final int period) {
+        this.genre = genre;
+        this.period = period;
+    }
+
+    public static int period(final LocalDate date) {
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+
+    public static int period(final YearMonth month) {
+        return month.getYear() * 12 + month.getMonthValue() - 1;
+    }
+
+    public int getYear() {
+        return period / 12;
+    }
+
+    public int getMonth() {
+        return period % 12 + 1;
+    }
+
+    public void addLending() {
+        lendingCount++;
+    }
+
+    public void addReturn(final long durationDays) {
+        returnedCount++;
+        durationDaysSum += durationDays;
+    }
+}
@@ -0,0 +1,177 @@
+package pt.psoft.g1.psoftg1.analytics.model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Closed intervals of days with a value each, answering which intervals overlap a range in
+ * O(log n + k) for k results.
+ * <p>A treap ordered by first day (then by value) where every node also keeps the latest last day
+ * of its subtree, so searches skip every subtree that ends before the range starts.
+ * <p>Not thread-safe; callers synchronize.
+ */
+public class IntervalTree<T> {
+
+    public record Interval<T>(long first, long last, T value) {
+    }
+
+    private static final class Node<T> {
+        final Interval<T> interval;
+        final int priority;
+        long maxLast;
+        Node<T> left;
+        Node<T> right;
+
+        Node(Interval<T> interval, int priority) {
+            this.interval = interval;
+            this.priority = priority;
+            this.maxLast = interval.last();
+        }
+    }
+
+    private final Comparator<Interval<T>> order;
+    private final SplittableRandom random = new SplittableRandom(42);
+    private Node<T> root;
+    private int size;
+
+    public IntervalTree(Comparator<? super T> valueOrder) {
+        this.order = Comparator.<Interval<T>>comparingLong(Interval::first)
+                .thenComparing(Interval::value, valueOrder);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+
+    public void insert(long first, long last, T value) {
+        if (last < first) {
+            throw new IllegalArgumentException("last must not be before first");
+        }
+        root = insert(root, new Node<>(new Interval<>(first, last, value), random.nextInt()));
+        size++;
+    }
+
+    /**
+     * Removes the interval starting on {@code first} with the given value.
+     *
+     * @return whether it was there
+     */
+    public boolean remove(long first, T value) {
+        int before = size;
+        root = remove(root, new Interval<>(first, first, value));
+        return size < before;
+    }
+
+    /**
+     * @return the intervals with at least one day between both days, inclusive, ordered by first day
+     */
+    public List<Interval<T>> overlapping(long from, long to) {
+        List<Interval<T>> result = new ArrayList<>();
+        collect(root, from, to, result);
+        return result;
+    }
+
+    private void collect(Node<T> node, long from, long to, List<Interval<T>> result) {
+        if (node == null || node.maxLast < from) {
+            return;
+        }
+        collect(node.left, from, to, result);
+        if (node.interval.first() > to) {
+            // the node and everything right of it start after the range
+            return;
+        }
+        if (node.interval.last() >= from) {
+            result.add(node.interval);
+        }
+        collect(node.right, from, to, result);
+    }
+
+    private Node<T> insert(Node<T> node, Node<T> added) {
+        if (node == null) {
+            return added;
+        }
+        if (order.compare(added.interval, node.interval) < 0) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private Node<T> remove(Node<T> node, Interval<T> key) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = order.compare(key, node.interval);
+        if (cmp < 0) {
+            node.left = remove(node.left, key);
+        } else if (cmp > 0) {
+            node.right = remove(node.right, key);
+        } else {
+            size--;
+            return merge(node.left, node.right);
+        }
+        update(node);
+        return node;
+    }
+
+    private Node<T> merge(Node<T> left, Node<T> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private Node<T> rotateRight(Node<T> node) {
+        Node<T> pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private Node<T> rotateLeft(Node<T> node) {
+        Node<T> pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static <T> void update(Node<T> node) {
+        long maxLast = node.interval.last();
+        if (node.left != null) {
+            maxLast = Math.max(maxLast, node.left.maxLast);
+        }
+        if (node.right != null) {
+            maxLast = Math.max(maxLast, node.right.maxLast);
+        }
+        node.maxLast = maxLast;
+    }
+}
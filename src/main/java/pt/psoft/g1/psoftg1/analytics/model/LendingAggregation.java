@@ -0,0 +1,294 @@
+package pt.psoft.g1.psoftg1.analytics.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Ad-hoc group-by over {@link LendingColumns}, run as a fork/join scan.
+ * <p>The rows are split into one range per partition; every range is aggregated into its own map
+ * and the partial maps are merged pairwise as the tasks join, so no state is shared while
+ * scanning. A group is packed into a single {@code long} using the cardinality of each dimension
+ * as its radix, which keeps the hot loop free of allocations.
+ * <p>The columns must not change while a query runs; callers hold their read lock.
+ */
+public final class LendingAggregation {
+
+    /** Lendings grouped by author are counted once for every author of the book. */
+    public enum Dimension { GENRE, AUTHOR, READER, BOOK, YEAR, MONTH, WEEKDAY }
+
+    /**
+     * Restricts the lendings taken into account; {@code null} fields do not filter. The date range
+     * applies to the start date and is inclusive.
+     */
+    public record Filter(LocalDate startDate, LocalDate endDate, String genre, Long authorNumber,
+                         String readerNumber, String isbn, Boolean returned) {
+        public static final Filter NONE = new Filter(null, null, null, null, null, null, null);
+    }
+
+    public record Group(List<Object> key, Totals totals) {
+    }
+
+    public record Result(List<Group> groups, int scannedRows, int partitions, long elapsedNanos) {
+    }
+
+    public static final class Totals {
+        private long count;
+        private long returned;
+        private long durationDays;
+        private long overdue;
+
+        public long count() {
+            return count;
+        }
+
+        /** Average days between start and return, over the returned lendings only. */
+        public OptionalDouble averageDuration() {
+            return returned == 0 ? OptionalDouble.empty() : OptionalDouble.of((double) durationDays / returned);
+        }
+
+        /** Share of lendings returned late or still open past their limit date. */
+        public double overdueRate() {
+            return count == 0 ? 0 : (double) overdue / count;
+        }
+
+        private void merge(Totals other) {
+            count += other.count;
+            returned += other.returned;
+            durationDays += other.durationDays;
+            overdue += other.overdue;
+        }
+    }
+
+    private static final int MIN_ROWS_PER_PARTITION = 4096;
+    private static final int YEAR_RADIX = 10_000;
+    private static final int NO_FILTER = -2;
+    // what Dictionary.find returns for values that never occur
+    private static final int UNKNOWN = -1;
+
+    private final LendingColumns columns;
+    private final Dimension[] dimensions;
+    private final long[] radix;
+    private final long[] multiplier;
+    private final int authorDimension;
+    private final boolean needsDate;
+
+    private final int fromDay;
+    private final int toDay;
+    private final int genreCode;
+    private final int authorCode;
+    private final int readerCode;
+    private final int bookCode;
+    private final Boolean returned;
+    private final int today;
+
+    private LendingAggregation(LendingColumns columns, List<Dimension> groupBy, Filter filter, LocalDate today) {
+        this.columns = columns;
+        this.dimensions = groupBy.toArray(new Dimension[0]);
+        this.radix = new long[dimensions.length];
+        this.multiplier = new long[dimensions.length];
+        int author = -1;
+        boolean date = false;
+        long next = 1;
+        for (int i = 0; i < dimensions.length; i++) {
+            radix[i] = switch (dimensions[i]) {
+                case GENRE -> columns.genres().size();
+                case AUTHOR -> columns.authors().size();
+                case READER -> columns.readers().size();
+                case BOOK -> columns.books().size();
+                case YEAR -> YEAR_RADIX;
+                case MONTH -> 12;
+                case WEEKDAY -> 7;
+            };
+            multiplier[i] = next;
+            try {
+                next = Math.multiplyExact(next, Math.max(1, radix[i]));
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Too many distinct groups for dimensions " + groupBy);
+            }
+            if (dimensions[i] == Dimension.AUTHOR) {
+                author = i;
+            }
+            date |= dimensions[i] == Dimension.YEAR || dimensions[i] == Dimension.MONTH;
+        }
+        this.authorDimension = author;
+        this.needsDate = date;
+
+        this.fromDay = filter.startDate() == null ? Integer.MIN_VALUE : (int) filter.startDate().toEpochDay();
+        this.toDay = filter.endDate() == null ? Integer.MAX_VALUE : (int) filter.endDate().toEpochDay();
+        this.genreCode = filter.genre() == null ? NO_FILTER : columns.genres().find(filter.genre());
+        this.authorCode = filter.authorNumber() == null ? NO_FILTER : columns.authors().find(filter.authorNumber());
+        this.readerCode = filter.readerNumber() == null ? NO_FILTER : columns.readers().find(filter.readerNumber());
+        this.bookCode = filter.isbn() == null ? NO_FILTER : columns.books().find(filter.isbn());
+        this.returned = filter.returned();
+        this.today = (int) today.toEpochDay();
+    }
+
+    /**
+     * Groups the lendings by the given dimensions, in order, on the given pool.
+     *
+     * @return the groups, largest first
+     * @throws IllegalArgumentException if a dimension is repeated or the groups cannot be packed
+     */
+    public static Result run(LendingColumns columns, List<Dimension> groupBy, Filter filter, LocalDate today,
+                             ForkJoinPool pool) {
+        if (groupBy.stream().distinct().count() != groupBy.size()) {
+            throw new IllegalArgumentException("Repeated group-by dimension in " + groupBy);
+        }
+        long started = System.nanoTime();
+        LendingAggregation aggregation = new LendingAggregation(columns, groupBy, filter, today);
+        int rows = columns.size();
+        int partitions = Math.max(1, Math.min(pool.getParallelism(), rows / MIN_ROWS_PER_PARTITION));
+        Map<Long, Totals> totals = aggregation.isEmpty()
+                ? Map.of()
+                : pool.invoke(aggregation.new Scan(0, rows, Math.max(1, (rows + partitions - 1) / partitions)));
+
+        List<Group> groups = new ArrayList<>(totals.size());
+        totals.forEach((key, value) -> groups.add(new Group(aggregation.decode(key), value)));
+        groups.sort(Comparator.comparingLong((Group group) -> group.totals().count()).reversed()
+                .thenComparing(group -> group.key().toString()));
+        return new Result(groups, rows, partitions, System.nanoTime() - started);
+    }
+
+    // a filter on a value that never occurs matches nothing
+    private boolean isEmpty() {
+        return genreCode == UNKNOWN || authorCode == UNKNOWN || readerCode == UNKNOWN || bookCode == UNKNOWN;
+    }
+
+    private final class Scan extends RecursiveTask<Map<Long, Totals>> {
+        private final int from;
+        private final int to;
+        private final int rowsPerPartition;
+
+        private Scan(int from, int to, int rowsPerPartition) {
+            this.from = from;
+            this.to = to;
+            this.rowsPerPartition = rowsPerPartition;
+        }
+
+        @Override
+        protected Map<Long, Totals> compute() {
+            if (to - from <= rowsPerPartition) {
+                return scan(from, to);
+            }
+            int middle = (from + to) >>> 1;
+            Scan left = new Scan(from, middle, rowsPerPartition);
+            left.fork();
+            Map<Long, Totals> right = new Scan(middle, to, rowsPerPartition).compute();
+            Map<Long, Totals> merged = left.join();
+            if (merged.size() < right.size()) {
+                Map<Long, Totals> swap = merged;
+                merged = right;
+                right = swap;
+            }
+            for (Map.Entry<Long, Totals> entry : right.entrySet()) {
+                Totals existing = merged.putIfAbsent(entry.getKey(), entry.getValue());
+                if (existing != null) {
+                    existing.merge(entry.getValue());
+                }
+            }
+            return merged;
+        }
+    }
+
+    private Map<Long, Totals> scan(int from, int to) {
+        int[] startDays = columns.startDays();
+        int[] limitDays = columns.limitDays();
+        int[] returnedDays = columns.returnedDays();
+        int[] bookCodes = columns.bookCodes();
+        int[] readerCodes = columns.readerCodes();
+        int[] bookGenres = columns.bookGenres();
+        int[][] bookAuthors = columns.bookAuthors();
+
+        Map<Long, Totals> totals = new HashMap<>();
+        for (int row = from; row < to; row++) {
+            int start = startDays[row];
+            if (start < fromDay || start > toDay) {
+                continue;
+            }
+            int book = bookCodes[row];
+            if ((bookCode != NO_FILTER && book != bookCode)
+                    || (readerCode != NO_FILTER && readerCodes[row] != readerCode)
+                    || (genreCode != NO_FILTER && bookGenres[book] != genreCode)
+                    || (authorCode != NO_FILTER && !contains(bookAuthors[book], authorCode))) {
+                continue;
+            }
+            int returnedDay = returnedDays[row];
+            boolean isReturned = returnedDay != LendingColumns.NOT_RETURNED;
+            if (returned != null && returned != isReturned) {
+                continue;
+            }
+
+            long key = 0;
+            LocalDate date = needsDate ? LocalDate.ofEpochDay(start) : null;
+            for (int i = 0; i < dimensions.length; i++) {
+                long code = switch (dimensions[i]) {
+                    case GENRE -> bookGenres[book];
+                    case READER -> readerCodes[row];
+                    case BOOK -> book;
+                    case YEAR -> date.getYear();
+                    case MONTH -> date.getMonthValue() - 1;
+                    // 1970-01-01, epoch day 0, was a Thursday
+                    case WEEKDAY -> Math.floorMod(start + 3, 7);
+                    case AUTHOR -> 0;
+                };
+                key += code * multiplier[i];
+            }
+            boolean overdue = isReturned ? returnedDay > limitDays[row] : today > limitDays[row];
+            if (authorDimension < 0) {
+                add(totals, key, start, returnedDay, isReturned, overdue);
+            } else {
+                for (int author : bookAuthors[book]) {
+                    add(totals, key + author * multiplier[authorDimension], start, returnedDay, isReturned, overdue);
+                }
+            }
+        }
+        return totals;
+    }
+
+    private static void add(Map<Long, Totals> totals, long key, int start, int returnedDay, boolean isReturned,
+                            boolean overdue) {
+        Totals group = totals.computeIfAbsent(key, k -> new Totals());
+        group.count++;
+        if (isReturned) {
+            group.returned++;
+            group.durationDays += returnedDay - start;
+        }
+        if (overdue) {
+            group.overdue++;
+        }
+    }
+
+    private static boolean contains(int[] codes, int code) {
+        for (int candidate : codes) {
+            if (candidate == code) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<Object> decode(long key) {
+        List<Object> values = new ArrayList<>(dimensions.length);
+        for (int i = 0; i < dimensions.length; i++) {
+            int code = (int) (key / multiplier[i] % Math.max(1, radix[i]));
+            values.add(switch (dimensions[i]) {
+                case GENRE -> columns.genres().decode(code);
+                case AUTHOR -> columns.authors().decode(code);
+                case READER -> columns.readers().decode(code);
+                case BOOK -> columns.books().decode(code);
+                case YEAR -> code;
+                case MONTH -> code + 1;
+                case WEEKDAY -> DayOfWeek.of(code + 1);
+            });
+        }
+        return values;
+    }
+}
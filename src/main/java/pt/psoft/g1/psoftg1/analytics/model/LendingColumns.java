@@ -0,0 +1,265 @@
+package pt.psoft.g1.psoftg1.analytics.model;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+
+/**
+ * Column-oriented copy of the lendings table, one primitive array per attribute.
+ * <p>Dates are stored as epoch days and books, readers, genres and authors are dictionary encoded
+ * as dense int codes, so an analytic query is a single pass over a few int arrays instead of a
+ * scan over entity objects. Genre and authors are attributes of the book, so they live in per-book
+ * columns and a catalogue edit touches one cell instead of every lending of that book.
+ * <p>Not thread-safe; callers synchronize.
+ */
+public class LendingColumns {
+
+    /** Value of the returned column for lendings that are still open. */
+    public static final int NOT_RETURNED = Integer.MIN_VALUE;
+
+    private static final int[] NO_AUTHORS = new int[0];
+
+    /** One lending, decoded, for the services that build their own structures from the snapshot. */
+    public record Row(String lendingNumber, String isbn, String readerNumber, String genre,
+                      LocalDate startDate, LocalDate limitDate, LocalDate returnedDate) {
+    }
+
+    private final Dictionary<String> books = new Dictionary<>();
+    private final Dictionary<String> readers = new Dictionary<>();
+    private final Dictionary<String> genres = new Dictionary<>();
+    private final Dictionary<Long> authors = new Dictionary<>();
+    private final Map<String, Integer> rowsByLendingNumber = new HashMap<>();
+
+    private int size;
+    private int[] startDays = new int[16];
+    private int[] limitDays = new int[16];
+    private int[] returnedDays = new int[16];
+    private int[] bookCodes = new int[16];
+    private int[] readerCodes = new int[16];
+    private String[] lendingNumbers = new String[16];
+
+    // indexed by book code
+    private int[] bookGenres = new int[16];
+    private int[][] bookAuthors = new int[16][];
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Records the genre and authors of a book, replacing what was known about it.
+     */
+    public void describeBook(String isbn, String genre, Collection<Long> authorNumbers) {
+        int book = books.encode(isbn);
+        if (book >= bookGenres.length) {
+            int capacity = Math.max(bookGenres.length * 2, book + 1);
+            bookGenres = Arrays.copyOf(bookGenres, capacity);
+            bookAuthors = Arrays.copyOf(bookAuthors, capacity);
+        }
+        bookGenres[book] = genres.encode(genre);
+        int[] codes = new int[authorNumbers.size()];
+        int i = 0;
+        for (Long authorNumber : authorNumbers) {
+            codes[i++] = authors.encode(authorNumber);
+        }
+        bookAuthors[book] = codes;
+    }
+
+    /**
+     * Appends a lending; the book must have been described first.
+     *
+     * @return the row of the lending, or its existing row if it was already appended
+     */
+    public int append(String lendingNumber, String isbn, String readerNumber,
+                      LocalDate startDate, LocalDate limitDate, LocalDate returnedDate) {
+        Integer existing = rowsByLendingNumber.get(lendingNumber);
+        if (existing != null) {
+            return existing;
+        }
+        int book = books.find(isbn);
+        if (book < 0 || book >= bookGenres.length || bookAuthors[book] == null) {
+            throw new IllegalStateException("Book " + isbn + " has not been described");
+        }
+        if (size == startDays.length) {
+            int capacity = size * 2;
+            startDays = Arrays.copyOf(startDays, capacity);
+            limitDays = Arrays.copyOf(limitDays, capacity);
+            returnedDays = Arrays.copyOf(returnedDays, capacity);
+            bookCodes = Arrays.copyOf(bookCodes, capacity);
+            readerCodes = Arrays.copyOf(readerCodes, capacity);
+            lendingNumbers = Arrays.copyOf(lendingNumbers, capacity);
+        }
+        int row = size++;
+        startDays[row] = (int) startDate.toEpochDay();
+        limitDays[row] = (int) limitDate.toEpochDay();
+        returnedDays[row] = returnedDate == null ? NOT_RETURNED : (int) returnedDate.toEpochDay();
+        bookCodes[row] = book;
+        readerCodes[row] = readers.encode(readerNumber);
+        lendingNumbers[row] = lendingNumber;
+        rowsByLendingNumber.put(lendingNumber, row);
+        return row;
+    }
+
+    /**
+     * @return {@code false} if the lending is not in the snapshot
+     */
+    public boolean markReturned(String lendingNumber, LocalDate returnedDate) {
+        Integer row = rowsByLendingNumber.get(lendingNumber);
+        if (row == null) {
+            return false;
+        }
+        returnedDays[row] = (int) returnedDate.toEpochDay();
+        return true;
+    }
+
+    public boolean contains(String lendingNumber) {
+        return rowsByLendingNumber.containsKey(lendingNumber);
+    }
+
+    /**
+     * @return the row of the lending, or -1 if it is not in the snapshot
+     */
+    public int rowOf(String lendingNumber) {
+        return rowsByLendingNumber.getOrDefault(lendingNumber, -1);
+    }
+
+    public Row row(int row) {
+        int returned = returnedDays[row];
+        return new Row(lendingNumbers[row], books.decode(bookCodes[row]), readers.decode(readerCodes[row]),
+                genres.decode(bookGenres[bookCodes[row]]), LocalDate.ofEpochDay(startDays[row]),
+                LocalDate.ofEpochDay(limitDays[row]), returned == NOT_RETURNED ? null : LocalDate.ofEpochDay(returned));
+    }
+
+    /**
+     * Average number of days between start and return over the returned lendings.
+     */
+    public OptionalDouble averageDuration() {
+        long days = 0;
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            int returned = returnedDays[row];
+            if (returned != NOT_RETURNED) {
+                days += returned - startDays[row];
+                count++;
+            }
+        }
+        return count == 0 ? OptionalDouble.empty() : OptionalDouble.of((double) days / count);
+    }
+
+    /**
+     * Average number of days between start and return over the returned lendings of a book.
+     */
+    public OptionalDouble averageDuration(String isbn) {
+        int book = books.find(isbn);
+        if (book < 0) {
+            return OptionalDouble.empty();
+        }
+        long days = 0;
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            int returned = returnedDays[row];
+            if (bookCodes[row] == book && returned != NOT_RETURNED) {
+                days += returned - startDays[row];
+                count++;
+            }
+        }
+        return count == 0 ? OptionalDouble.empty() : OptionalDouble.of((double) days / count);
+    }
+
+    public String genreOf(String isbn) {
+        int book = books.find(isbn);
+        return book < 0 || bookAuthors[book] == null ? null : genres.decode(bookGenres[book]);
+    }
+
+    public List<Long> authorsOf(String isbn) {
+        int book = books.find(isbn);
+        int[] codes = book < 0 || bookAuthors[book] == null ? NO_AUTHORS : bookAuthors[book];
+        List<Long> result = new ArrayList<>(codes.length);
+        for (int code : codes) {
+            result.add(authors.decode(code));
+        }
+        return result;
+    }
+
+    // raw columns for the scans in this package; only the first size() rows are valid
+
+    int[] startDays() {
+        return startDays;
+    }
+
+    int[] limitDays() {
+        return limitDays;
+    }
+
+    int[] returnedDays() {
+        return returnedDays;
+    }
+
+    int[] bookCodes() {
+        return bookCodes;
+    }
+
+    int[] readerCodes() {
+        return readerCodes;
+    }
+
+    int[] bookGenres() {
+        return bookGenres;
+    }
+
+    int[][] bookAuthors() {
+        return bookAuthors;
+    }
+
+    Dictionary<String> books() {
+        return books;
+    }
+
+    Dictionary<String> readers() {
+        return readers;
+    }
+
+    Dictionary<String> genres() {
+        return genres;
+    }
+
+    Dictionary<Long> authors() {
+        return authors;
+    }
+
+    /**
+     * Maps values to dense codes in order of first appearance and back.
+     */
+    static final class Dictionary<T> {
+
+        private final Map<T, Integer> codes = new HashMap<>();
+        private final List<T> values = new ArrayList<>();
+
+        int encode(T value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        int find(T value) {
+            return codes.getOrDefault(value, -1);
+        }
+
+        T decode(int code) {
+            return values.get(code);
+        }
+
+        int size() {
+            return values.size();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package pt.psoft.g1.psoftg1.analytics.model;
+
+import java.time.YearMonth;
+import java.util.Arrays;
+
+/**
+ * Counts per calendar month, stored as one int per month between the first and the last month
+ * seen. A reader who borrows for a few years costs a few dozen ints, and summing a range only
+ * reads the months inside it.
+ * <p>Not thread-safe; callers synchronize.
+ */
+public class MonthlyHistogram {
+
+    private static final int[] EMPTY = new int[0];
+
+    // months since year 0 of counts[0]
+    private int first;
+    private int[] counts = EMPTY;
+
+    public void increment(YearMonth month) {
+        int index = index(month);
+        if (counts.length == 0) {
+            first = index;
+            counts = new int[1];
+        } else if (index < first) {
+            int[] grown = new int[counts.length + first - index];
+            System.arraycopy(counts, 0, grown, first - index, counts.length);
+            counts = grown;
+            first = index;
+        } else if (index >= first + counts.length) {
+            counts = Arrays.copyOf(counts, index - first + 1);
+        }
+        counts[index - first]++;
+    }
+
+    public int count(YearMonth month) {
+        int offset = index(month) - first;
+        return offset < 0 || offset >= counts.length ? 0 : counts[offset];
+    }
+
+    /**
+     * Sums the months between both months, inclusive.
+     */
+    public long sum(YearMonth from, YearMonth to) {
+        int start = Math.max(index(from) - first, 0);
+        int end = Math.min(index(to) - first, counts.length - 1);
+        long total = 0;
+        for (int i = start; i <= end; i++) {
+            total += counts[i];
+        }
+        return total;
+    }
+
+    private static int index(YearMonth month) {
+        return month.getYear() * 12 + month.getMonthValue() - 1;
+    }
+}
@@ -0,0 +1,119 @@
+package pt.psoft.g1.psoftg1.analytics.model;
+
+import java.time.LocalDate;
+
+/**
+ * Number of intervals covering each day, e.g. how many books were out on a date.
+ * <p>Intervals are stored as a difference array (+1 on the first day, -1 on the day after the
+ * last) indexed by a Fenwick tree, so adding an interval and reading the count on a day are both
+ * O(log days). A series of consecutive days costs one prefix sum plus one step per day.
+ * <p>The covered days grow as needed in both directions.
+ * <p>Not thread-safe; callers synchronize.
+ */
+public class OccupancyTimeline {
+
+    /** Last day of an interval that has not ended yet. */
+    public static final LocalDate OPEN = LocalDate.MAX;
+
+    private static final int INITIAL_DAYS = 1024;
+
+    // epoch day of delta[0]
+    private long first;
+    private int[] delta = new int[0];
+    // Fenwick tree over delta, 1-based
+    private long[] tree = new long[1];
+
+    /**
+     * Adds {@code amount} to every day between both days, inclusive; {@link #OPEN} never ends.
+     */
+    public void add(LocalDate firstDay, LocalDate lastDay, int amount) {
+        if (lastDay.isBefore(firstDay)) {
+            throw new IllegalArgumentException("lastDay must not be before firstDay");
+        }
+        long start = firstDay.toEpochDay();
+        ensureCovers(start);
+        addDelta(start, amount);
+        if (!lastDay.equals(OPEN)) {
+            long end = lastDay.toEpochDay() + 1;
+            ensureCovers(end);
+            addDelta(end, -amount);
+        }
+    }
+
+    public long at(LocalDate day) {
+        return prefix(day.toEpochDay());
+    }
+
+    /**
+     * @return one count per day between both days, inclusive
+     */
+    public long[] series(LocalDate from, LocalDate to) {
+        long start = from.toEpochDay();
+        int days = (int) (to.toEpochDay() - start + 1);
+        long[] series = new long[Math.max(days, 0)];
+        long count = prefix(start - 1);
+        for (int i = 0; i < series.length; i++) {
+            long index = start + i - first;
+            if (index >= 0 && index < delta.length) {
+                count += delta[(int) index];
+            }
+            series[i] = count;
+        }
+        return series;
+    }
+
+    public void clear() {
+        delta = new int[0];
+        tree = new long[1];
+    }
+
+    // sum of delta for every day up to and including the given epoch day
+    private long prefix(long day) {
+        long index = Math.min(day - first, delta.length - 1L);
+        long sum = 0;
+        for (int i = (int) index + 1; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    private void addDelta(long day, int amount) {
+        int index = (int) (day - first);
+        delta[index] += amount;
+        for (int i = index + 1; i < tree.length; i += i & -i) {
+            tree[i] += amount;
+        }
+    }
+
+    private void ensureCovers(long day) {
+        if (delta.length == 0) {
+            first = day - INITIAL_DAYS / 2;
+            delta = new int[INITIAL_DAYS];
+            tree = new long[INITIAL_DAYS + 1];
+            return;
+        }
+        if (day >= first && day < first + delta.length) {
+            return;
+        }
+        // double past the missing day so that repeated growth stays amortized O(1) per day
+        long newFirst = Math.min(first, day - delta.length);
+        long newEnd = Math.max(first + delta.length, day + delta.length + 1);
+        int[] grown = new int[Math.toIntExact(newEnd - newFirst)];
+        System.arraycopy(delta, 0, grown, (int) (first - newFirst), delta.length);
+        first = newFirst;
+        delta = grown;
+        rebuild();
+    }
+
+    // linear-time Fenwick construction
+    private void rebuild() {
+        tree = new long[delta.length + 1];
+        for (int i = 1; i <= delta.length; i++) {
+            tree[i] += delta[i - 1];
+            int parent = i + (i & -i);
+            if (parent <= delta.length) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+}
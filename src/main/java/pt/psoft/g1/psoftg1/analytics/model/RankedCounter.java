@@ -0,0 +1,64 @@
+package pt.psoft.g1.psoftg1.analytics.model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Counter per key that keeps its keys ordered by count, so the top N can be read without sorting.
+ * <p>Updates cost O(log n) and reading the top N costs O(N + log n). Ties are broken by the natural
+ * order of the key so the ranking is deterministic. Keys whose count drops to zero are forgotten.
+ * <p>Not thread-safe; callers synchronize.
+ */
+public class RankedCounter<K extends Comparable<K>> {
+
+    private final Map<K, Long> counts = new HashMap<>();
+    private final TreeSet<K> ranking = new TreeSet<>(
+            Comparator.<K>comparingLong(this::count).reversed().thenComparing(Comparator.naturalOrder()));
+
+    public void add(K key, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        // the comparator reads the current count, so the key has to leave the tree before it changes
+        ranking.remove(key);
+        long updated = counts.getOrDefault(key, 0L) + delta;
+        if (updated <= 0) {
+            counts.remove(key);
+            return;
+        }
+        counts.put(key, updated);
+        ranking.add(key);
+    }
+
+    public void increment(K key) {
+        add(key, 1);
+    }
+
+    public long count(K key) {
+        return counts.getOrDefault(key, 0L);
+    }
+
+    public List<Map.Entry<K, Long>> top(int n) {
+        List<Map.Entry<K, Long>> result = new ArrayList<>(Math.min(n, ranking.size()));
+        Iterator<K> it = ranking.iterator();
+        while (result.size() < n && it.hasNext()) {
+            K key = it.next();
+            result.add(Map.entry(key, counts.get(key)));
+        }
+        return result;
+    }
+
+    public int size() {
+        return counts.size();
+    }
+
+    public void clear() {
+        ranking.clear();
+        counts.clear();
+    }
+}
@@ -0,0 +1,178 @@
+package pt.psoft.g1.psoftg1.analytics.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Book recommendations from two precomputed sources: books ranked by popularity within each genre,
+ * and item-to-item similarity from co-borrowing.
+ * <p>Co-borrowing is a sparse symmetric matrix counting the readers who borrowed both books, and
+ * similarity is its cosine, {@code readers(a, b) / sqrt(readers(a) * readers(b))}. Every borrow
+ * only touches the rows of the books the reader had already borrowed; those rows are marked dirty
+ * and their top-K list is recomputed the next time it is read, so repeated reads cost O(K).
+ * <p>A book's popularity is one plus the number of distinct readers who borrowed it, so books
+ * that were never lent still appear in their genre's ranking.
+ * <p>Not thread-safe; callers synchronize.
+ */
+public class RecommendationIndex {
+
+    private final int topK;
+
+    private final Map<String, String> genres = new HashMap<>();
+    private final Map<String, RankedCounter<String>> rankingsByGenre = new HashMap<>();
+    private final Map<String, LinkedHashSet<String>> historyByReader = new HashMap<>();
+    private final Map<String, Map<String, Integer>> coBorrows = new HashMap<>();
+    private final Map<String, List<String>> similar = new HashMap<>();
+    private final Set<String> dirty = new HashSet<>();
+
+    public RecommendationIndex(int topK) {
+        this.topK = topK;
+    }
+
+    public void clear() {
+        genres.clear();
+        rankingsByGenre.clear();
+        historyByReader.clear();
+        coBorrows.clear();
+        similar.clear();
+        dirty.clear();
+    }
+
+    /**
+     * Adds a book to the ranking of its genre, or moves it there if its genre changed.
+     */
+    public void putBook(String isbn, String genre) {
+        String previous = genres.put(isbn, genre);
+        if (genre.equals(previous)) {
+            return;
+        }
+        long popularity = 1;
+        if (previous != null) {
+            RankedCounter<String> ranking = rankingsByGenre.get(previous);
+            popularity = ranking.count(isbn);
+            ranking.add(isbn, -popularity);
+        }
+        rankingsByGenre.computeIfAbsent(genre, g -> new RankedCounter<>()).add(isbn, popularity);
+    }
+
+    /**
+     * Records that a reader borrowed a book; borrowing the same book again changes nothing.
+     */
+    public void borrow(String readerNumber, String isbn) {
+        LinkedHashSet<String> history = historyByReader.computeIfAbsent(readerNumber, r -> new LinkedHashSet<>());
+        if (!history.add(isbn)) {
+            return;
+        }
+        String genre = genres.get(isbn);
+        if (genre != null) {
+            rankingsByGenre.get(genre).increment(isbn);
+        }
+        Map<String, Integer> row = coBorrows.computeIfAbsent(isbn, b -> new HashMap<>());
+        for (String other : history) {
+            if (!other.equals(isbn)) {
+                row.merge(other, 1, Integer::sum);
+                coBorrows.computeIfAbsent(other, b -> new HashMap<>()).merge(isbn, 1, Integer::sum);
+                dirty.add(other);
+            }
+        }
+        dirty.add(isbn);
+    }
+
+    public Set<String> history(String readerNumber) {
+        return historyByReader.getOrDefault(readerNumber, new LinkedHashSet<>());
+    }
+
+    /**
+     * @return up to K books most often borrowed by the readers of the given book, most similar first
+     */
+    public List<String> similarBooks(String isbn) {
+        if (dirty.remove(isbn)) {
+            similar.put(isbn, rankSimilar(isbn));
+        }
+        return similar.getOrDefault(isbn, List.of());
+    }
+
+    /**
+     * Suggests books of each genre the reader has not borrowed yet. Within a genre, books similar to
+     * the reader's most recent borrows come first and the genre's most popular books fill the rest.
+     *
+     * @param seeds how many of the reader's most recent borrows are used to find similar books
+     */
+    public List<String> suggest(String readerNumber, Collection<String> genresOfInterest, int limitPerGenre, int seeds) {
+        Set<String> history = history(readerNumber);
+
+        Map<String, Double> scores = new HashMap<>();
+        List<String> recent = new ArrayList<>(history);
+        for (String seed : recent.subList(Math.max(0, recent.size() - seeds), recent.size())) {
+            List<String> neighbours = similarBooks(seed);
+            for (int rank = 0; rank < neighbours.size(); rank++) {
+                String candidate = neighbours.get(rank);
+                if (!history.contains(candidate)) {
+                    // earlier neighbours weigh more; summing rewards books close to several seeds
+                    scores.merge(candidate, 1.0 / (rank + 1), Double::sum);
+                }
+            }
+        }
+        Map<String, List<String>> similarByGenre = new HashMap<>();
+        scores.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .forEach(entry -> similarByGenre
+                        .computeIfAbsent(genres.get(entry.getKey()), g -> new ArrayList<>()).add(entry.getKey()));
+
+        Set<String> result = new LinkedHashSet<>();
+        for (String genre : genresOfInterest) {
+            int taken = 0;
+            for (String isbn : similarByGenre.getOrDefault(genre, List.of())) {
+                if (taken >= limitPerGenre) {
+                    break;
+                }
+                if (result.add(isbn)) {
+                    taken++;
+                }
+            }
+            RankedCounter<String> ranking = rankingsByGenre.get(genre);
+            if (ranking == null || taken >= limitPerGenre) {
+                continue;
+            }
+            // enough to skip every book the reader already has plus the ones taken above
+            for (Map.Entry<String, Long> entry : ranking.top(limitPerGenre + history.size() + taken)) {
+                if (taken >= limitPerGenre) {
+                    break;
+                }
+                if (!history.contains(entry.getKey()) && result.add(entry.getKey())) {
+                    taken++;
+                }
+            }
+        }
+        return List.copyOf(result);
+    }
+
+    private List<String> rankSimilar(String isbn) {
+        Map<String, Integer> row = coBorrows.getOrDefault(isbn, Map.of());
+        double readers = popularity(isbn);
+        Map<String, Double> similarity = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> cell : row.entrySet()) {
+            similarity.put(cell.getKey(), cell.getValue() / Math.sqrt(readers * popularity(cell.getKey())));
+        }
+        return similarity.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(topK)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private double popularity(String isbn) {
+        String genre = genres.get(isbn);
+        // the ranking stores 1 + readers; books of unknown genre only count their co-borrows
+        return genre == null ? 1 : Math.max(1, rankingsByGenre.get(genre).count(isbn) - 1);
+    }
+}
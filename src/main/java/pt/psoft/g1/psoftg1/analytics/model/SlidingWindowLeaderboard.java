@@ -0,0 +1,57 @@
+package pt.psoft.g1.psoftg1.analytics.model;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Leaderboard over a trailing time window (e.g. "the last year"), made of per-day buckets.
+ * <p>Counts dated inside the window are added both to their day bucket and to a {@link RankedCounter}
+ * holding the window total. When the window moves forward, expired buckets are subtracted from the
+ * total, so reading the ranking never rescans the history.
+ * <p>A day belongs to the window when it is strictly after {@code today - window}.
+ * Not thread-safe; callers synchronize.
+ */
+public class SlidingWindowLeaderboard<K extends Comparable<K>> {
+
+    private final Period window;
+    private final DailyBuckets<K> buckets = new DailyBuckets<>();
+    private final RankedCounter<K> total = new RankedCounter<>();
+    private LocalDate cutoff;
+
+    public SlidingWindowLeaderboard(Period window) {
+        this.window = window;
+    }
+
+    public void add(K key, LocalDate day, long delta, LocalDate today) {
+        advanceTo(today);
+        if (!day.isAfter(cutoff)) {
+            return;
+        }
+        buckets.add(key, day, delta);
+        total.add(key, delta);
+    }
+
+    public List<Map.Entry<K, Long>> top(int n, LocalDate today) {
+        advanceTo(today);
+        return total.top(n);
+    }
+
+    public void clear() {
+        buckets.clear();
+        total.clear();
+        cutoff = null;
+    }
+
+    private void advanceTo(LocalDate today) {
+        LocalDate newCutoff = today.minus(window);
+        if (cutoff != null && !newCutoff.isAfter(cutoff)) {
+            return;
+        }
+        cutoff = newCutoff;
+        for (Map<K, Long> expired : buckets.evictUpTo(cutoff)) {
+            expired.forEach((key, count) -> total.add(key, -count));
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package pt.psoft.g1.psoftg1.analytics.repositories;
+
+import org.springframework.data.domain.Pageable;
+import pt.psoft.g1.psoftg1.analytics.model.GenreLendingStats;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface GenreLendingStatsRepository {
+
+    Optional<GenreLendingStats> findByGenreAndPeriod(String genre, int period);
+    List<GenreLendingStats> findByPeriodOrderByGenreAsc(int period, Pageable pageable);
+    List<GenreLendingStats> findByPeriodBetweenOrderByPeriodAscGenreAsc(int fromPeriod, int toPeriod);
+    Iterable<GenreLendingStats> findAll();
+
+    GenreLendingStats save(GenreLendingStats stats);
+    <S extends GenreLendingStats> Iterable<S> saveAll(Iterable<S> stats);
+    void deleteAll();
+
+    /** Atomically adds one lending to a cell. @return the number of cells updated, 0 if there is none yet */
+    int addLending(String genre, int period);
+    /** Atomically adds one returned lending to a cell. @return the number of cells updated, 0 if there is none yet */
+    int addReturn(String genre, int period, long durationDays);
+}
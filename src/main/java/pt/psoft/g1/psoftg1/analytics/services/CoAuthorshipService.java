@@ -0,0 +1,86 @@
+package pt.psoft.g1.psoftg1.analytics.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pt.psoft.g1.psoftg1.analytics.model.CoAuthorshipGraph;
+import pt.psoft.g1.psoftg1.authormanagement.model.Author;
+import pt.psoft.g1.psoftg1.bookmanagement.model.Book;
+import pt.psoft.g1.psoftg1.bookmanagement.repositories.BookRepository;
+import pt.psoft.g1.psoftg1.bookmanagement.services.BookEvent;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory co-authorship graph backing the co-author endpoints.
+ * <p>The graph is built from the catalogue once the application is ready and is then kept up to
+ * date from {@link BookEvent}s once their transaction commits, so listing the co-authors of an author no longer needs a join
+ * over every book's authors.
+ * <p>Until the first rebuild finishes {@link #isReady()} is {@code false} and the services keep
+ * using the repository queries.
+ */
+@Service
+@RequiredArgsConstructor
+public class CoAuthorshipService {
+
+    private final BookRepository bookRepository;
+
+    private final CoAuthorshipGraph graph = new CoAuthorshipGraph();
+
+    private volatile boolean ready = false;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public synchronized void rebuild() {
+        graph.clear();
+        for (Book book : bookRepository.findAll()) {
+            graph.addBook(authorNumbers(book.getAuthors()));
+        }
+        ready = true;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onBook(BookEvent event) {
+        if (!ready) {
+            return;
+        }
+        Set<Long> after = authorNumbers(event.getBook().getAuthors());
+        if (event.isCreated()) {
+            graph.addBook(after);
+            return;
+        }
+        Set<Long> before = authorNumbers(event.getPreviousAuthors());
+        if (!before.equals(after)) {
+            graph.removeBook(before);
+            graph.addBook(after);
+        }
+    }
+
+    /**
+     * @return the author numbers of the co-authors and the number of books shared with each, most shared first
+     */
+    public synchronized Map<Long, Integer> coAuthors(Long authorNumber) {
+        return graph.coAuthors(authorNumber);
+    }
+
+    /**
+     * @return the author numbers reachable within {@code maxHops} co-authorships, mapped to their distance
+     */
+    public synchronized Map<Long, Integer> collaborators(Long authorNumber, int maxHops) {
+        return graph.collaborators(authorNumber, maxHops);
+    }
+
+    private static Set<Long> authorNumbers(List<Author> authors) {
+        return authors.stream().map(Author::getAuthorNumber).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,255 @@
+package pt.psoft.g1.psoftg1.analytics.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import pt.psoft.g1.psoftg1.analytics.model.GenreLendingStats;
+import pt.psoft.g1.psoftg1.analytics.repositories.GenreLendingStatsRepository;
+import pt.psoft.g1.psoftg1.bookmanagement.services.BookEvent;
+import pt.psoft.g1.psoftg1.genremanagement.services.GenreLendingsDTO;
+import pt.psoft.g1.psoftg1.genremanagement.services.GenreLendingsPerMonthDTO;
+import pt.psoft.g1.psoftg1.lendingmanagement.model.Lending;
+import pt.psoft.g1.psoftg1.lendingmanagement.services.LendingEvent;
+import pt.psoft.g1.psoftg1.shared.services.Page;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Genre analytics cube: lending count, returned count and summed duration per (genre, month),
+ * stored in {@link GenreLendingStats} and updated from {@link LendingEvent}s once their transaction
+ * commits, so the genre statistics endpoints read a few rows instead of grouping the
+ * lending × book × genre join. Each event is one atomic increment of its cell.
+ * <p>Lendings are counted in the month they started, as the repository queries do. The cube
+ * answers whole months; {@link #coversWholeMonths} tells whether a date range can be served from it.
+ * <p>Once the application is ready every stored cell is checked against the
+ * {@link LendingSnapshotService} and the cube is rebuilt if any disagrees (lendings saved without
+ * events, e.g. by the bootstrapper), and it is rebuilt when a book changes genre. Until then {@link #isReady()} is {@code false} and the
+ * services keep using the repository queries.
+ */
+@Slf4j
+@Service
+public class GenreAnalyticsService {
+
+    private final GenreLendingStatsRepository statsRepository;
+    private final LendingSnapshotService snapshot;
+    // null without a transaction manager (the MongoDB profiles)
+    private final TransactionTemplate transactions;
+
+    private volatile boolean ready = false;
+
+    @Autowired
+    public GenreAnalyticsService(final GenreLendingStatsRepository statsRepository,
+                                 final LendingSnapshotService snapshot,
+                                 final ObjectProvider<PlatformTransactionManager> transactionManager) {
+        this(statsRepository, snapshot, transactionManager.getIfAvailable());
+    }
+
+    GenreAnalyticsService(final GenreLendingStatsRepository statsRepository,
+                          final LendingSnapshotService snapshot,
+                          final PlatformTransactionManager transactionManager) {
+        this.statsRepository = statsRepository;
+        this.snapshot = snapshot;
+        if (transactionManager == null) {
+            this.transactions = null;
+        } else {
+            // after commit the publisher's transaction is over, so each write runs in its own
+            this.transactions = new TransactionTemplate(transactionManager);
+            this.transactions.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void verify() {
+        Map<CellKey, GenreLendingStats> expected = cellsFromLendings();
+        int stored = 0;
+        boolean matches = true;
+        for (GenreLendingStats stats : statsRepository.findAll()) {
+            stored++;
+            GenreLendingStats cell = expected.get(new CellKey(stats.getGenre(), stats.getPeriod()));
+            if (cell == null || cell.getLendingCount() != stats.getLendingCount()
+                    || cell.getReturnedCount() != stats.getReturnedCount()
+                    || cell.getDurationDaysSum() != stats.getDurationDaysSum()) {
+                matches = false;
+                break;
+            }
+        }
+        if (!matches || stored != expected.size()) {
+            log.info("Genre analytics cube disagrees with the lending snapshot, rebuilding");
+            store(expected);
+        }
+        ready = true;
+    }
+
+    @Transactional
+    public void rebuild() {
+        store(cellsFromLendings());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLending(LendingEvent event) {
+        if (!ready) {
+            return;
+        }
+        Lending lending = event.getLending();
+        String genre = genreOf(lending);
+        int period = GenreLendingStats.period(lending.getStartDate());
+        switch (event.getType()) {
+            case CREATED -> increment(genre, period, () -> statsRepository.addLending(genre, period),
+                    GenreLendingStats::addLending);
+            case RETURNED -> {
+                long days = durationDays(lending);
+                increment(genre, period, () -> statsRepository.addReturn(genre, period, days),
+                        stats -> stats.addReturn(days));
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onBook(BookEvent event) {
+        // The cube is keyed by each book's current genre; a genre change is a rare catalogue edit
+        if (ready && !event.isCreated()
+                && !event.getPreviousGenre().getGenre().equals(event.getBook().getGenre().getGenre())) {
+            rebuild();
+        }
+    }
+
+    /**
+     * @return true if the range starts on the first and ends on the last day of a month
+     */
+    public static boolean coversWholeMonths(LocalDate startDate, LocalDate endDate) {
+        return startDate.getDayOfMonth() == 1 && endDate.equals(YearMonth.from(endDate).atEndOfMonth());
+    }
+
+    /**
+     * Lendings per genre for each month from {@code from} to {@code to}, both included.
+     */
+    public List<GenreLendingsPerMonthDTO> lendingsPerMonth(YearMonth from, YearMonth to) {
+        return perMonth(from, to, stats -> true, stats -> new GenreLendingsDTO(stats.getGenre(), stats.getLendingCount()));
+    }
+
+    /**
+     * Average lending duration in days per genre for each month from {@code from} to {@code to},
+     * counting returned lendings only.
+     */
+    public List<GenreLendingsPerMonthDTO> averageDurationPerMonth(YearMonth from, YearMonth to) {
+        return perMonth(from, to, stats -> stats.getReturnedCount() > 0, stats -> new GenreLendingsDTO(stats.getGenre(),
+                (double) stats.getDurationDaysSum() / stats.getReturnedCount()));
+    }
+
+    /**
+     * Average lendings per day of the month, per genre, ordered by genre.
+     */
+    public List<GenreLendingsDTO> averageLendingsPerDay(YearMonth month, Page page) {
+        int days = month.lengthOfMonth();
+        return statsRepository.findByPeriodOrderByGenreAsc(GenreLendingStats.period(month),
+                        PageRequest.of(page.getNumber() - 1, page.getLimit()))
+                .stream()
+                .map(stats -> new GenreLendingsDTO(stats.getGenre(), (double) stats.getLendingCount() / days))
+                .toList();
+    }
+
+    private List<GenreLendingsPerMonthDTO> perMonth(YearMonth from, YearMonth to, Predicate<GenreLendingStats> include,
+                                                    Function<GenreLendingStats, GenreLendingsDTO> value) {
+        List<GenreLendingsPerMonthDTO> months = new ArrayList<>();
+        GenreLendingsPerMonthDTO current = null;
+        // Rows come ordered by period, so each month's genres are contiguous
+        for (GenreLendingStats stats : statsRepository.findByPeriodBetweenOrderByPeriodAscGenreAsc(
+                GenreLendingStats.period(from), GenreLendingStats.period(to))) {
+            if (!include.test(stats)) {
+                continue;
+            }
+            if (current == null || current.getYear() != stats.getYear() || current.getMonth() != stats.getMonth()) {
+                current = new GenreLendingsPerMonthDTO(stats.getYear(), stats.getMonth(), new ArrayList<>());
+                months.add(current);
+            }
+            current.getValues().add(value.apply(stats));
+        }
+        return months;
+    }
+
+    /**
+     * Applies an increment as one atomic UPDATE of the cell, so concurrent events never overwrite
+     * each other's counts. A missing cell is inserted instead; if a concurrent event inserted it
+     * first, the unique (genre, period) constraint rejects this insert and the UPDATE is retried.
+     */
+    private void increment(String genre, int period, IntSupplier update, Consumer<GenreLendingStats> firstValue) {
+        if (inOwnTransaction(update) > 0) {
+            return;
+        }
+        GenreLendingStats stats = new GenreLendingStats(genre, period);
+        firstValue.accept(stats);
+        try {
+            inOwnTransaction(() -> {
+                statsRepository.save(stats);
+                return 1;
+            });
+        } catch (DataIntegrityViolationException e) {
+            inOwnTransaction(update);
+        }
+    }
+
+    private int inOwnTransaction(IntSupplier work) {
+        if (transactions == null) {
+            return work.getAsInt();
+        }
+        Integer result = transactions.execute(status -> work.getAsInt());
+        return result == null ? 0 : result;
+    }
+
+    private Map<CellKey, GenreLendingStats> cellsFromLendings() {
+        Map<CellKey, GenreLendingStats> cells = new HashMap<>();
+        snapshot.scan(row -> {
+            int period = GenreLendingStats.period(row.startDate());
+            GenreLendingStats stats = cells.computeIfAbsent(new CellKey(row.genre(), period),
+                    key -> new GenreLendingStats(row.genre(), period));
+            stats.addLending();
+            if (row.returnedDate() != null) {
+                stats.addReturn(ChronoUnit.DAYS.between(row.startDate(), row.returnedDate()));
+            }
+        });
+        return cells;
+    }
+
+    private void store(Map<CellKey, GenreLendingStats> cells) {
+        statsRepository.deleteAll();
+        statsRepository.saveAll(cells.values());
+    }
+
+    private record CellKey(String genre, int period) {
+    }
+
+    private static String genreOf(Lending lending) {
+        return lending.getBook().getGenre().getGenre();
+    }
+
+    private static long durationDays(Lending lending) {
+        return ChronoUnit.DAYS.between(lending.getStartDate(), lending.getReturnedDate());
+    }
+}
@@ -0,0 +1,215 @@
+package pt.psoft.g1.psoftg1.analytics.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pt.psoft.g1.psoftg1.analytics.model.CalendarBuckets;
+import pt.psoft.g1.psoftg1.analytics.model.RankedCounter;
+import pt.psoft.g1.psoftg1.analytics.model.SlidingWindowLeaderboard;
+import pt.psoft.g1.psoftg1.authormanagement.model.Author;
+import pt.psoft.g1.psoftg1.authormanagement.services.AuthorEvent;
+import pt.psoft.g1.psoftg1.bookmanagement.model.Book;
+import pt.psoft.g1.psoftg1.bookmanagement.repositories.BookRepository;
+import pt.psoft.g1.psoftg1.bookmanagement.services.BookEvent;
+import pt.psoft.g1.psoftg1.lendingmanagement.model.Lending;
+import pt.psoft.g1.psoftg1.lendingmanagement.services.LendingEvent;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Incrementally maintained leaderboards backing the "top" endpoints.
+ * <p>The leaderboards are rebuilt from the catalogue and the {@link LendingSnapshotService} once
+ * the application is ready and are then kept up to date from {@link LendingEvent}s, {@link BookEvent}s and {@link AuthorEvent}s
+ * once their transaction commits, so reading a ranking costs O(log n) instead of a GROUP BY over
+ * the whole lendings table. Top readers per genre cover any date range, so they are ranked from
+ * {@link CalendarBuckets} instead, whose cost depends on the calendar units in the range and not
+ * on the number of days. Events of lendings the rebuild already counted are skipped.
+ * <p>The readers and start dates of each book's lendings are kept too, so that a book changing
+ * genre moves exactly its own counts.
+ * <p>Until the first rebuild finishes {@link #isReady()} is {@code false} and the services keep
+ * using the repository queries.
+ */
+@Service
+@RequiredArgsConstructor
+public class LeaderboardService {
+
+    private record LentCopy(String readerNumber, LocalDate startDate) {
+    }
+
+    private final LendingSnapshotService snapshot;
+    private final BookRepository bookRepository;
+
+    private final SlidingWindowLeaderboard<String> booksLastYear = new SlidingWindowLeaderboard<>(Period.ofYears(1));
+    private final RankedCounter<String> books = new RankedCounter<>();
+    // ranked by name, as the repository query groups them
+    private final RankedCounter<String> authorsByName = new RankedCounter<>();
+    private final Map<Long, String> authorNames = new HashMap<>();
+    private final Map<Long, Long> authorLendings = new HashMap<>();
+    private final RankedCounter<String> readers = new RankedCounter<>();
+    private final RankedCounter<String> genresByBookCount = new RankedCounter<>();
+    private final Map<String, CalendarBuckets<String>> readersByGenre = new HashMap<>();
+    private final Map<String, List<LentCopy>> lendingsByBook = new HashMap<>();
+    // lendings in the first scanned rows of the snapshot are already counted
+    private int scanned;
+
+    private volatile boolean ready = false;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public synchronized void rebuild() {
+        booksLastYear.clear();
+        books.clear();
+        authorsByName.clear();
+        authorNames.clear();
+        authorLendings.clear();
+        readers.clear();
+        genresByBookCount.clear();
+        readersByGenre.clear();
+        lendingsByBook.clear();
+
+        Map<String, Book> booksByIsbn = new HashMap<>();
+        for (Book book : bookRepository.findAll()) {
+            genresByBookCount.increment(book.getGenre().getGenre());
+            booksByIsbn.put(book.getIsbn(), book);
+        }
+        scanned = snapshot.scan(row -> {
+            Book book = booksByIsbn.get(row.isbn());
+            if (book != null) {
+                addLending(book, new LentCopy(row.readerNumber(), row.startDate()));
+            }
+        });
+        ready = true;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onLending(LendingEvent event) {
+        Lending lending = event.getLending();
+        if (ready && event.getType() == LendingEvent.Type.CREATED
+                && !snapshot.wasScanned(lending.getLendingNumber(), scanned)) {
+            addLending(lending.getBook(), new LentCopy(lending.getReaderDetails().getReaderNumber(), lending.getStartDate()));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onBook(BookEvent event) {
+        if (!ready) {
+            return;
+        }
+        Book book = event.getBook();
+        String genre = book.getGenre().getGenre();
+        if (event.isCreated()) {
+            genresByBookCount.increment(genre);
+            return;
+        }
+
+        long lendingCount = books.count(book.getIsbn());
+        Map<Long, Author> before = byAuthorNumber(event.getPreviousAuthors());
+        Map<Long, Author> after = byAuthorNumber(book.getAuthors());
+        before.forEach((authorNumber, author) -> {
+            if (!after.containsKey(authorNumber)) {
+                addAuthorLendings(author, -lendingCount);
+            }
+        });
+        after.forEach((authorNumber, author) -> {
+            if (!before.containsKey(authorNumber)) {
+                addAuthorLendings(author, lendingCount);
+            }
+        });
+
+        String previousGenre = event.getPreviousGenre().getGenre();
+        if (!previousGenre.equals(genre)) {
+            genresByBookCount.add(previousGenre, -1);
+            genresByBookCount.increment(genre);
+            for (LentCopy copy : lendingsByBook.getOrDefault(book.getIsbn(), List.of())) {
+                addReaderInGenre(previousGenre, copy, -1);
+                addReaderInGenre(genre, copy, 1);
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onAuthor(AuthorEvent event) {
+        Author author = event.getAuthor();
+        String countedAs = authorNames.get(author.getAuthorNumber());
+        if (!ready || countedAs == null || countedAs.equals(author.getName())) {
+            return;
+        }
+        long lendingCount = authorLendings.getOrDefault(author.getAuthorNumber(), 0L);
+        authorsByName.add(countedAs, -lendingCount);
+        authorsByName.add(author.getName(), lendingCount);
+        authorNames.put(author.getAuthorNumber(), author.getName());
+    }
+
+    public synchronized List<Map.Entry<String, Long>> topBooksLentLastYear(int n) {
+        return booksLastYear.top(n, LocalDate.now());
+    }
+
+    public synchronized List<Map.Entry<String, Long>> topAuthors(int n) {
+        return authorsByName.top(n);
+    }
+
+    public synchronized List<Map.Entry<String, Long>> topReaders(int n) {
+        return readers.top(n);
+    }
+
+    public synchronized List<Map.Entry<String, Long>> topGenresByBookCount(int n) {
+        return genresByBookCount.top(n);
+    }
+
+    public synchronized List<Map.Entry<String, Long>> topReadersByGenre(String genre, LocalDate startDate, LocalDate endDate, int n) {
+        CalendarBuckets<String> buckets = readersByGenre.get(genre);
+        if (buckets == null) {
+            return List.of();
+        }
+        return buckets.top(startDate, endDate, n);
+    }
+
+    private void addLending(Book book, LentCopy copy) {
+        String isbn = book.getIsbn();
+
+        booksLastYear.add(isbn, copy.startDate(), 1, LocalDate.now());
+        books.increment(isbn);
+        for (Author author : byAuthorNumber(book.getAuthors()).values()) {
+            addAuthorLendings(author, 1);
+        }
+        readers.increment(copy.readerNumber());
+        addReaderInGenre(book.getGenre().getGenre(), copy, 1);
+        lendingsByBook.computeIfAbsent(isbn, i -> new ArrayList<>()).add(copy);
+    }
+
+    private void addAuthorLendings(Author author, long delta) {
+        String name = authorNames.computeIfAbsent(author.getAuthorNumber(), authorNumber -> author.getName());
+        long updated = authorLendings.merge(author.getAuthorNumber(), delta, Long::sum);
+        if (updated <= 0) {
+            authorLendings.remove(author.getAuthorNumber());
+            authorNames.remove(author.getAuthorNumber());
+        }
+        authorsByName.add(name, delta);
+    }
+
+    private void addReaderInGenre(String genre, LentCopy copy, long delta) {
+        readersByGenre.computeIfAbsent(genre, g -> new CalendarBuckets<>())
+                .add(copy.readerNumber(), copy.startDate(), delta);
+    }
+
+    private static Map<Long, Author> byAuthorNumber(List<Author> authors) {
+        return authors.stream()
+                .filter(author -> Objects.nonNull(author.getAuthorNumber()))
+                .collect(Collectors.toMap(Author::getAuthorNumber, Function.identity(), (first, second) -> first));
+    }
+}
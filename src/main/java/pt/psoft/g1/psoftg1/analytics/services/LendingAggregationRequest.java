@@ -0,0 +1,41 @@
+package pt.psoft.g1.psoftg1.analytics.services;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import pt.psoft.g1.psoftg1.analytics.model.LendingAggregation;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "An ad-hoc aggregation over the lending history")
+public class LendingAggregationRequest {
+
+    public enum Measure { COUNT, AVERAGE_DURATION, OVERDUE_RATE }
+
+    @NotNull
+    @Schema(description = "Dimensions to group by, in order; an empty list aggregates all matching lendings")
+    private List<LendingAggregation.Dimension> groupBy = List.of();
+
+    @NotNull
+    private List<Measure> measures = List.of(Measure.COUNT);
+
+    @Schema(description = "Only lendings started on or after this date")
+    private LocalDate startDate;
+    @Schema(description = "Only lendings started on or before this date")
+    private LocalDate endDate;
+    private String genre;
+    private Long authorNumber;
+    private String readerNumber;
+    private String isbn;
+    private Boolean returned;
+
+    public LendingAggregation.Filter toFilter() {
+        return new LendingAggregation.Filter(startDate, endDate, genre, authorNumber, readerNumber, isbn, returned);
+    }
+}
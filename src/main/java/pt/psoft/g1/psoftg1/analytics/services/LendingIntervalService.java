@@ -0,0 +1,135 @@
+package pt.psoft.g1.psoftg1.analytics.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pt.psoft.g1.psoftg1.analytics.model.IntervalTree;
+import pt.psoft.g1.psoftg1.analytics.model.OccupancyTimeline;
+import pt.psoft.g1.psoftg1.lendingmanagement.model.Lending;
+import pt.psoft.g1.psoftg1.lendingmanagement.services.LendingEvent;
+import pt.psoft.g1.psoftg1.shared.services.Page;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interval index over lending periods, backing the occupancy and overlap endpoints.
+ * <p>A lending is out from its start date through its returned date, inclusive, or indefinitely
+ * while it has not been returned. The periods are kept in an {@link OccupancyTimeline} for
+ * per-day counts and in an {@link IntervalTree} for overlap queries, both built from the
+ * {@link LendingSnapshotService} once the application is ready and then kept up to date from
+ * {@link LendingEvent}s. A lending's period is keyed by its number, so an event for a lending
+ * the build already saw changes nothing.
+ * <p>Until the first rebuild finishes {@link #isReady()} is {@code false}.
+ */
+@Service
+@RequiredArgsConstructor
+public class LendingIntervalService {
+
+    /** Longest daily series served at once. */
+    public static final int MAX_SERIES_DAYS = 3660;
+
+    public record Period(String lendingNumber, String isbn, String readerNumber,
+                         LocalDate startDate, LocalDate limitDate, LocalDate returnedDate) {
+
+        private LocalDate lastDay() {
+            return returnedDate == null ? OccupancyTimeline.OPEN : returnedDate;
+        }
+
+        private long lastEpochDay() {
+            return returnedDate == null ? Long.MAX_VALUE : returnedDate.toEpochDay();
+        }
+    }
+
+    private final LendingSnapshotService snapshot;
+
+    private final OccupancyTimeline timeline = new OccupancyTimeline();
+    private final IntervalTree<String> intervals = new IntervalTree<>(Comparator.naturalOrder());
+    private final Map<String, Period> periods = new HashMap<>();
+
+    private volatile boolean ready = false;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        timeline.clear();
+        intervals.clear();
+        periods.clear();
+        snapshot.scan(row -> put(new Period(row.lendingNumber(), row.isbn(), row.readerNumber(),
+                row.startDate(), row.limitDate(), row.returnedDate())));
+        ready = true;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onLending(LendingEvent event) {
+        if (ready) {
+            Lending lending = event.getLending();
+            put(new Period(lending.getLendingNumber(), lending.getBook().getIsbn(),
+                    lending.getReaderDetails().getReaderNumber(), lending.getStartDate(),
+                    lending.getLimitDate(), lending.getReturnedDate()));
+        }
+    }
+
+    /**
+     * @return the number of books out on the given day
+     */
+    public synchronized long occupancy(LocalDate day) {
+        return timeline.at(day);
+    }
+
+    /**
+     * @return the number of books out on each day between both days, inclusive
+     */
+    public synchronized long[] dailyOccupancy(LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_SERIES_DAYS) {
+            throw new IllegalArgumentException("At most " + MAX_SERIES_DAYS + " days can be requested at once");
+        }
+        return timeline.series(from, to);
+    }
+
+    /**
+     * @return one page of the lendings out on at least one day between both days, inclusive,
+     * ordered by start date and lending number
+     */
+    public synchronized List<Period> overlapping(LocalDate from, LocalDate to, Page page) {
+        checkRange(from, to);
+        if (page.getNumber() < 1 || page.getLimit() < 1 || page.getLimit() > 100) {
+            throw new IllegalArgumentException("Page number must be at least 1 and limit between 1 and 100");
+        }
+        return intervals.overlapping(from.toEpochDay(), to.toEpochDay()).stream()
+                .skip((long) (page.getNumber() - 1) * page.getLimit())
+                .limit(page.getLimit())
+                .map(interval -> periods.get(interval.value()))
+                .toList();
+    }
+
+    private static void checkRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Start date cannot be after end date");
+        }
+    }
+
+    // adds a lending, or replaces its period if it changed (e.g. once returned)
+    private void put(Period period) {
+        Period previous = periods.put(period.lendingNumber(), period);
+        if (period.equals(previous)) {
+            return;
+        }
+        if (previous != null) {
+            timeline.add(previous.startDate(), previous.lastDay(), -1);
+            intervals.remove(previous.startDate().toEpochDay(), previous.lendingNumber());
+        }
+        timeline.add(period.startDate(), period.lastDay(), 1);
+        intervals.insert(period.startDate().toEpochDay(), period.lastEpochDay(), period.lendingNumber());
+    }
+}
@@ -0,0 +1,191 @@
+package pt.psoft.g1.psoftg1.analytics.services;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pt.psoft.g1.psoftg1.analytics.model.LendingAggregation;
+import pt.psoft.g1.psoftg1.analytics.model.LendingColumns;
+import pt.psoft.g1.psoftg1.authormanagement.model.Author;
+import pt.psoft.g1.psoftg1.bookmanagement.model.Book;
+import pt.psoft.g1.psoftg1.bookmanagement.services.BookEvent;
+import pt.psoft.g1.psoftg1.lendingmanagement.model.Lending;
+import pt.psoft.g1.psoftg1.lendingmanagement.repositories.LendingRepository;
+import pt.psoft.g1.psoftg1.lendingmanagement.services.LendingEvent;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.OptionalDouble;
+import java.util.function.Consumer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory columnar snapshot of all lendings, used for the statistics that scan the whole table.
+ * <p>The snapshot is loaded once the application is ready and is then appended to from
+ * {@link LendingEvent}s once their transaction commits; {@link BookEvent}s keep the per-book genre
+ * and authors current. Queries share a read lock, so concurrent statistics requests do not
+ * serialize on each other.
+ * <p>It is the only copy of the lending history loaded at startup: the other analytics services
+ * build their structures with {@link #scan} once it is loaded. Its listeners run before theirs,
+ * so by the time they see an event the snapshot already holds the lending.
+ * <p>Until the load finishes {@link #isReady()} is {@code false} and the services keep using the
+ * repository queries.
+ */
+@Service
+public class LendingSnapshotService {
+
+    private final LendingRepository lendingRepository;
+    private final ForkJoinPool aggregationPool;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private LendingColumns columns = new LendingColumns();
+
+    private volatile boolean ready = false;
+
+    public LendingSnapshotService(final LendingRepository lendingRepository,
+                                  @Value("${analytics.aggregation.parallelism:0}") final int parallelism) {
+        this.lendingRepository = lendingRepository;
+        // a dedicated pool, so long scans do not starve parallel streams on the common pool
+        this.aggregationPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional(readOnly = true)
+    public void load() {
+        lock.writeLock().lock();
+        try {
+            columns = new LendingColumns();
+            for (Lending lending : lendingRepository.findAll()) {
+                append(lending);
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // not gated on ready: the load holds the lock while it reads the table, and append skips what it already has
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onLending(LendingEvent event) {
+        Lending lending = event.getLending();
+        lock.writeLock().lock();
+        try {
+            if (event.getType() == LendingEvent.Type.RETURNED
+                    && columns.markReturned(lending.getLendingNumber(), lending.getReturnedDate())) {
+                return;
+            }
+            append(lending);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onBook(BookEvent event) {
+        if (event.isCreated()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            describe(event.getBook());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Visits every lending of the snapshot in the order they were added, under the read lock.
+     *
+     * @return the number of lendings visited, to pass to {@link #wasScanned}
+     */
+    public int scan(Consumer<LendingColumns.Row> visitor) {
+        lock.readLock().lock();
+        try {
+            int size = columns.size();
+            for (int row = 0; row < size; row++) {
+                visitor.accept(columns.row(row));
+            }
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Whether a lending was visited by a {@link #scan} that returned {@code scanned}, so a service
+     * built from that scan can skip the event of a lending it already counted.
+     */
+    public boolean wasScanned(String lendingNumber, int scanned) {
+        lock.readLock().lock();
+        try {
+            int row = columns.rowOf(lendingNumber);
+            return row >= 0 && row < scanned;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public OptionalDouble averageDuration() {
+        lock.readLock().lock();
+        try {
+            return columns.averageDuration();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public OptionalDouble averageDuration(String isbn) {
+        lock.readLock().lock();
+        try {
+            return columns.averageDuration(isbn);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Runs an ad-hoc group-by over the snapshot, one partition per core of the aggregation pool.
+     */
+    public LendingAggregation.Result aggregate(List<LendingAggregation.Dimension> groupBy,
+                                               LendingAggregation.Filter filter) {
+        lock.readLock().lock();
+        try {
+            return LendingAggregation.run(columns, groupBy, filter, LocalDate.now(), aggregationPool);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        aggregationPool.shutdownNow();
+    }
+
+    private void append(Lending lending) {
+        Book book = lending.getBook();
+        if (columns.genreOf(book.getIsbn()) == null) {
+            describe(book);
+        }
+        columns.append(lending.getLendingNumber(), book.getIsbn(), lending.getReaderDetails().getReaderNumber(),
+                lending.getStartDate(), lending.getLimitDate(), lending.getReturnedDate());
+    }
+
+    private void describe(Book book) {
+        columns.describeBook(book.getIsbn(), book.getGenre().getGenre(),
+                book.getAuthors().stream().map(Author::getAuthorNumber).toList());
+    }
+}
@@ -0,0 +1,90 @@
+package pt.psoft.g1.psoftg1.analytics.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pt.psoft.g1.psoftg1.analytics.model.MonthlyHistogram;
+import pt.psoft.g1.psoftg1.lendingmanagement.model.Lending;
+import pt.psoft.g1.psoftg1.lendingmanagement.services.LendingEvent;
+import pt.psoft.g1.psoftg1.shared.services.Page;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-reader histograms of lendings per month, backing the monthly average per reader.
+ * <p>The histograms are built from the {@link LendingSnapshotService} once the application is
+ * ready and are then kept up to date from {@link LendingEvent}s, so a range query reads a few ints
+ * per reader instead of the lendings table. Events of lendings the build already counted are
+ * skipped.
+ * <p>Until the first rebuild finishes {@link #isReady()} is {@code false} and the services keep
+ * using the repository queries.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReaderActivityService {
+
+    private final LendingSnapshotService snapshot;
+
+    private final Map<String, MonthlyHistogram> histograms = new HashMap<>();
+    // lendings in the first scanned rows of the snapshot are already counted
+    private int scanned;
+
+    private volatile boolean ready = false;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        histograms.clear();
+        scanned = snapshot.scan(row -> addLending(row.readerNumber(), row.startDate()));
+        ready = true;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onLending(LendingEvent event) {
+        Lending lending = event.getLending();
+        if (ready && event.getType() == LendingEvent.Type.CREATED
+                && !snapshot.wasScanned(lending.getLendingNumber(), scanned)) {
+            addLending(lending.getReaderDetails().getReaderNumber(), lending.getStartDate());
+        }
+    }
+
+    /**
+     * Lendings started by each reader between both months, inclusive; readers without any are left out.
+     *
+     * @return one page of reader numbers and counts, most lendings first
+     */
+    public synchronized List<Map.Entry<String, Long>> lendingsPerReader(YearMonth from, YearMonth to, Page page) {
+        Map<String, Long> counts = new HashMap<>();
+        histograms.forEach((readerNumber, histogram) -> {
+            long count = histogram.sum(from, to);
+            if (count > 0) {
+                counts.put(readerNumber, count);
+            }
+        });
+        return page(counts, page);
+    }
+
+    /**
+     * Orders counts per reader, most lendings first and then by reader number, and cuts one page.
+     */
+    private static List<Map.Entry<String, Long>> page(Map<String, Long> counts, Page page) {
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .skip((long) (page.getNumber() - 1) * page.getLimit())
+                .limit(page.getLimit())
+                .toList();
+    }
+
+    private void addLending(String readerNumber, LocalDate startDate) {
+        histograms.computeIfAbsent(readerNumber, r -> new MonthlyHistogram()).increment(YearMonth.from(startDate));
+    }
+}
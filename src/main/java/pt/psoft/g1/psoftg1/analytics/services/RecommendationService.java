@@ -0,0 +1,83 @@
+package pt.psoft.g1.psoftg1.analytics.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pt.psoft.g1.psoftg1.analytics.model.RecommendationIndex;
+import pt.psoft.g1.psoftg1.bookmanagement.model.Book;
+import pt.psoft.g1.psoftg1.bookmanagement.repositories.BookRepository;
+import pt.psoft.g1.psoftg1.bookmanagement.services.BookEvent;
+import pt.psoft.g1.psoftg1.lendingmanagement.model.Lending;
+import pt.psoft.g1.psoftg1.lendingmanagement.services.LendingEvent;
+
+import java.util.List;
+
+/**
+ * Precomputed book recommendations backing {@code /api/books/suggestions}.
+ * <p>The index is built from the catalogue and the {@link LendingSnapshotService} once the
+ * application is ready and is then kept up to date from {@link BookEvent}s and
+ * {@link LendingEvent}s once their transaction commits. Borrowing a book again changes nothing,
+ * so an event for a lending the build already saw is harmless.
+ * <p>Until the first rebuild finishes {@link #isReady()} is {@code false} and the services keep
+ * using the repository queries.
+ */
+@Service
+public class RecommendationService {
+
+    private final BookRepository bookRepository;
+    private final LendingSnapshotService snapshot;
+    private final RecommendationIndex index;
+    private final int seeds;
+
+    private volatile boolean ready = false;
+
+    public RecommendationService(final BookRepository bookRepository,
+                                 final LendingSnapshotService snapshot,
+                                 @Value("${recommendations.similar-books:20}") final int similarBooks,
+                                 @Value("${recommendations.seeds:10}") final int seeds) {
+        this.bookRepository = bookRepository;
+        this.snapshot = snapshot;
+        this.index = new RecommendationIndex(similarBooks);
+        this.seeds = seeds;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public synchronized void rebuild() {
+        index.clear();
+        for (Book book : bookRepository.findAll()) {
+            index.putBook(book.getIsbn(), book.getGenre().getGenre());
+        }
+        snapshot.scan(row -> index.borrow(row.readerNumber(), row.isbn()));
+        ready = true;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onBook(BookEvent event) {
+        if (ready) {
+            index.putBook(event.getBook().getIsbn(), event.getBook().getGenre().getGenre());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onLending(LendingEvent event) {
+        if (ready && event.getType() == LendingEvent.Type.CREATED) {
+            Lending lending = event.getLending();
+            index.borrow(lending.getReaderDetails().getReaderNumber(), lending.getBook().getIsbn());
+        }
+    }
+
+    /**
+     * @return the ISBNs suggested to the reader, at most {@code limitPerGenre} per genre, none already borrowed
+     */
+    public synchronized List<String> suggest(String readerNumber, List<String> genres, int limitPerGenre) {
+        return index.suggest(readerNumber, genres, limitPerGenre, seeds);
+    }
+}
@@ -38,9 +38,12 @@ import org.springframework.security.oauth2.jwt.JwtEncoder;
 import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import pt.psoft.g1.psoftg1.auth.services.AuthenticatedPrincipalResolver;
+import pt.psoft.g1.psoftg1.auth.services.CachingJwtDecoder;
 import pt.psoft.g1.psoftg1.usermanagement.api.UserView;
 import pt.psoft.g1.psoftg1.usermanagement.api.UserViewMapper;
 import pt.psoft.g1.psoftg1.usermanagement.model.User;
@@ -61,6 +64,8 @@ import lombok.RequiredArgsConstructor;
 @RequestMapping(path = "api/public")
 public class AuthApi {
 
+	private static final String BEARER_PREFIX = "Bearer ";
+
 	private final AuthenticationManager authenticationManager;
 
 	private final JwtEncoder jwtEncoder;
@@ -69,6 +74,10 @@ public class AuthApi {
 
 	private final UserService userService;
 
+	private final AuthenticatedPrincipalResolver principalResolver;
+
+	private final CachingJwtDecoder jwtDecoder;
+
 	@PostMapping("login")
 	public ResponseEntity<UserView> login(@RequestBody @Valid final AuthRequest request) {
 		try {
@@ -85,9 +94,12 @@ public class AuthApi {
 			final String scope = authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority)
 					.collect(joining(" "));
 
+			// the user id, version and reader number let requests be authorized from the token alone
+			final var principal = principalResolver.issue(user);
+
 			final JwtClaimsSet claims = JwtClaimsSet.builder().issuer("example.io").issuedAt(now)
 					.expiresAt(now.plusSeconds(expiry)).subject(format("%s,%s", user.getId(), user.getUsername()))
-					.claim("roles", scope).build();
+					.claim("roles", scope).claims(principal::putClaims).build();
 
 			final String token = this.jwtEncoder.encode(JwtEncoderParameters.from(claims)).getTokenValue();
 
@@ -97,6 +109,22 @@ public class AuthApi {
 		}
 	}
 
+	/**
+	 * revokes the token sent in the Authorization header, which is rejected from then on by this
+	 * instance only; other instances keep accepting it until it expires (see {@link CachingJwtDecoder})
+	 *
+	 * @param authorization
+	 * @return
+	 */
+	@PostMapping("logout")
+	public ResponseEntity<Void> logout(@RequestHeader(HttpHeaders.AUTHORIZATION) final String authorization) {
+		final String token = authorization.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())
+				? authorization.substring(BEARER_PREFIX.length()).trim()
+				: authorization.trim();
+		jwtDecoder.revoke(token);
+		return ResponseEntity.noContent().build();
+	}
+
 	/**
 	 * signup to the service
 	 *
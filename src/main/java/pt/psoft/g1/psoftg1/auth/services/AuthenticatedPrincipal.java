@@ -0,0 +1,40 @@
+package pt.psoft.g1.psoftg1.auth.services;
+
+import pt.psoft.g1.psoftg1.usermanagement.model.Role;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The logged in user as carried by the access token: who they are, their roles and, for readers,
+ * their reader number.
+ * <p>{@code version} is the user's version when the token was issued (or when the principal was
+ * last read from the database), used to tell whether the rest is still current.
+ */
+public record AuthenticatedPrincipal(Long userId, String username, Set<String> roles,
+                                     String readerNumber, Long version) {
+
+    static final String USER_ID_CLAIM = "uid";
+    static final String READER_NUMBER_CLAIM = "readerNumber";
+    static final String VERSION_CLAIM = "ver";
+
+    public boolean hasRole(String role) {
+        return roles.contains(role);
+    }
+
+    public boolean isLibrarian() {
+        return hasRole(Role.LIBRARIAN);
+    }
+
+    /**
+     * Adds the claims {@link AuthenticatedPrincipalResolver} reads back; the username and roles
+     * travel in the {@code sub} and {@code roles} claims as before.
+     */
+    public void putClaims(Map<String, Object> claims) {
+        claims.put(USER_ID_CLAIM, userId);
+        claims.put(VERSION_CLAIM, version);
+        if (readerNumber != null) {
+            claims.put(READER_NUMBER_CLAIM, readerNumber);
+        }
+    }
+}
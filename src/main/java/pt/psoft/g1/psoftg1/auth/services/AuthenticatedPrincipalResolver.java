@@ -0,0 +1,180 @@
+package pt.psoft.g1.psoftg1.auth.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pt.psoft.g1.psoftg1.readermanagement.model.ReaderDetails;
+import pt.psoft.g1.psoftg1.readermanagement.repositories.ReaderRepository;
+import pt.psoft.g1.psoftg1.readermanagement.services.ReaderEvent;
+import pt.psoft.g1.psoftg1.usermanagement.model.Reader;
+import pt.psoft.g1.psoftg1.usermanagement.model.User;
+import pt.psoft.g1.psoftg1.usermanagement.repositories.UserRepository;
+import pt.psoft.g1.psoftg1.usermanagement.services.UserEvent;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Turns the verified access token of a request into an {@link AuthenticatedPrincipal}.
+ * <p>The principal is read from the token claims. The database is only hit when the token's user
+ * version cannot be confirmed as current: the first time a user is seen by this instance, after the
+ * user changed, once what was read has expired, and for tokens issued without these claims. What
+ * was read is remembered per user for {@code auth.principal-cache.ttl}, or until a
+ * {@link UserEvent} or {@link ReaderEvent} says the user changed, so tokens issued before a change
+ * keep resolving to the current data without further lookups.
+ * <p>The events are only published on the instance that made the change. Other instances keep what
+ * they remembered until it expires, so a change made elsewhere, e.g. disabling a user, is seen here
+ * within the TTL.
+ * <p>At most {@code auth.principal-cache.max-entries} users are remembered; inserting past that
+ * first drops the expired entries, then arbitrary ones until a tenth of the room is free.
+ */
+@Service
+public class AuthenticatedPrincipalResolver {
+
+    /**
+     * A principal read from the database, or with {@code principal == null} a user who changed.
+     * {@code sequence} orders them: a principal read before a change has a lower one than the change.
+     */
+    private record Remembered(AuthenticatedPrincipal principal, long sequence, Instant expiresAt) {
+    }
+
+    private final UserRepository userRepository;
+    private final ReaderRepository readerRepository;
+    private final Duration ttl;
+    private final int maxEntries;
+    private final Clock clock;
+
+    // by user id
+    private final Map<Long, Remembered> current = new ConcurrentHashMap<>();
+    private final AtomicLong changes = new AtomicLong();
+
+    @Autowired
+    public AuthenticatedPrincipalResolver(final UserRepository userRepository,
+                                          final ReaderRepository readerRepository,
+                                          @Value("${auth.principal-cache.ttl:60s}") final Duration ttl,
+                                          @Value("${auth.principal-cache.max-entries:10000}") final int maxEntries) {
+        this(userRepository, readerRepository, ttl, maxEntries, Clock.systemUTC());
+    }
+
+    AuthenticatedPrincipalResolver(final UserRepository userRepository, final ReaderRepository readerRepository,
+                                   final Duration ttl, final int maxEntries, final Clock clock) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be at least 1");
+        }
+        this.userRepository = userRepository;
+        this.readerRepository = readerRepository;
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    /**
+     * Builds the principal of a user who just logged in, to be put in their token.
+     */
+    public AuthenticatedPrincipal issue(User user) {
+        return remember(user, changes.get());
+    }
+
+    public AuthenticatedPrincipal resolve(Authentication authentication) {
+        if (authentication == null || !(authentication.getPrincipal() instanceof Jwt jwt)) {
+            throw new AccessDeniedException("User is not logged in");
+        }
+        // taken before reading, so that a change committed meanwhile wins over what is read
+        final long sequence = changes.get();
+        final Optional<AuthenticatedPrincipal> claimed = fromClaims(jwt);
+        if (claimed.isEmpty()) {
+            // split is present because jwt is storing the id before the username, separated by a comma
+            final String username = jwt.getSubject().split(",")[1];
+            return remember(userRepository.findByUsername(username), sequence);
+        }
+        final Remembered known = current.get(claimed.get().userId());
+        if (known == null || known.principal() == null || !clock.instant().isBefore(known.expiresAt())) {
+            return remember(userRepository.findById(claimed.get().userId()), sequence);
+        }
+        return Objects.equals(known.principal().version(), claimed.get().version()) ? claimed.get() : known.principal();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUser(UserEvent event) {
+        changed(event.getUser().getId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReader(ReaderEvent event) {
+        changed(event.getReaderDetails().getReader().getId());
+    }
+
+    private void changed(final Long userId) {
+        store(userId, new Remembered(null, changes.incrementAndGet(), clock.instant().plus(ttl)));
+    }
+
+    private AuthenticatedPrincipal remember(Optional<User> user, long sequence) {
+        return remember(user.filter(User::isEnabled)
+                .orElseThrow(() -> new AccessDeniedException("User is not logged in")), sequence);
+    }
+
+    private AuthenticatedPrincipal remember(User user, long sequence) {
+        final String readerNumber = user instanceof Reader
+                ? readerRepository.findByUsername(user.getUsername()).map(ReaderDetails::getReaderNumber).orElse(null)
+                : null;
+        final Set<String> roles = user.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toUnmodifiableSet());
+        final var principal = new AuthenticatedPrincipal(user.getId(), user.getUsername(), roles,
+                readerNumber, user.getVersion());
+        store(principal.userId(), new Remembered(principal, sequence, clock.instant().plus(ttl)));
+        return principal;
+    }
+
+    // keeps whichever of the entries was read or changed last
+    private void store(final Long userId, final Remembered entry) {
+        if (current.size() >= maxEntries) {
+            purge();
+        }
+        current.compute(userId, (id, existing) ->
+                existing == null || existing.sequence() <= entry.sequence() ? entry : existing);
+    }
+
+    private void purge() {
+        final Instant now = clock.instant();
+        current.values().removeIf(entry -> !now.isBefore(entry.expiresAt()));
+        final int target = maxEntries - Math.max(1, maxEntries / 10);
+        final Iterator<Long> ids = current.keySet().iterator();
+        while (current.size() > target && ids.hasNext()) {
+            ids.next();
+            ids.remove();
+        }
+    }
+
+    private static Optional<AuthenticatedPrincipal> fromClaims(Jwt jwt) {
+        final Object userId = jwt.getClaim(AuthenticatedPrincipal.USER_ID_CLAIM);
+        final Object version = jwt.getClaim(AuthenticatedPrincipal.VERSION_CLAIM);
+        if (!(userId instanceof Number) || !(version instanceof Number)) {
+            return Optional.empty();
+        }
+        final String roles = jwt.getClaimAsString("roles");
+        return Optional.of(new AuthenticatedPrincipal(
+                ((Number) userId).longValue(),
+                jwt.getSubject().split(",")[1],
+                roles == null ? Set.of() : Arrays.stream(roles.split(" "))
+                        .filter(role -> !role.isEmpty())
+                        .collect(Collectors.toUnmodifiableSet()),
+                jwt.getClaimAsString(AuthenticatedPrincipal.READER_NUMBER_CLAIM),
+                ((Number) version).longValue()));
+    }
+}
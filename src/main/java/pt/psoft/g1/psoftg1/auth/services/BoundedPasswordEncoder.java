@@ -0,0 +1,136 @@
+package pt.psoft.g1.psoftg1.auth.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import pt.psoft.g1.psoftg1.exceptions.ServiceUnavailableException;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs the hashing of its delegate on a dedicated pool, so that a burst of logins or sign-ups
+ * queues behind a few threads instead of taking the CPU away from every request thread.
+ * <p>Hashing runs on at most {@code workers} threads, never more than the available processors.
+ * Up to {@code queueCapacity} more calls wait; beyond that, or when a call is not done within
+ * {@code timeout} of being submitted, it fails at once with a {@link ServiceUnavailableException}.
+ * <p>Publishes the {@code password.hashing} and {@code password.hashing.wait} timers tagged
+ * {@code operation} (encode or matches), the {@code password.hashing.rejected} counter tagged
+ * {@code reason} (queue-full or timeout) and the {@code password.hashing.queue.size} and
+ * {@code password.hashing.active} gauges.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, MeterBinder {
+
+    private final PasswordEncoder delegate;
+    private final Duration timeout;
+    private final ThreadPoolExecutor workers;
+
+    // meters are registered here at once and reach the application registry once bound to it
+    private final CompositeMeterRegistry meters = new CompositeMeterRegistry();
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Timer encodeWait;
+    private final Timer matchesWait;
+    private final Counter queueFull;
+    private final Counter timedOut;
+
+    public BoundedPasswordEncoder(final PasswordEncoder delegate, final int workers, final int queueCapacity,
+                                  final Duration timeout) {
+        if (workers < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("workers and queueCapacity must be at least 1");
+        }
+        this.delegate = delegate;
+        this.timeout = timeout;
+        final int threads = Math.min(workers, Runtime.getRuntime().availableProcessors());
+        this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), daemonThreads("password-hashing"));
+
+        this.encodeTimer = meters.timer("password.hashing", "operation", "encode");
+        this.matchesTimer = meters.timer("password.hashing", "operation", "matches");
+        this.encodeWait = meters.timer("password.hashing.wait", "operation", "encode");
+        this.matchesWait = meters.timer("password.hashing.wait", "operation", "matches");
+        this.queueFull = meters.counter("password.hashing.rejected", "reason", "queue-full");
+        this.timedOut = meters.counter("password.hashing.rejected", "reason", "timeout");
+        Gauge.builder("password.hashing.queue.size", this.workers, pool -> pool.getQueue().size()).register(meters);
+        Gauge.builder("password.hashing.active", this.workers, ThreadPoolExecutor::getActiveCount).register(meters);
+    }
+
+    private static ThreadFactory daemonThreads(final String prefix) {
+        final AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @Override
+    public String encode(final CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword), encodeWait, encodeTimer);
+    }
+
+    @Override
+    public boolean matches(final CharSequence rawPassword, final String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword), matchesWait, matchesTimer);
+    }
+
+    // only compares the stored hash's settings, there is nothing to offload
+    @Override
+    public boolean upgradeEncoding(final String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        meters.add(registry);
+    }
+
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private <T> T run(final Supplier<T> hashing, final Timer wait, final Timer timer) {
+        final long submitted = System.nanoTime();
+        final FutureTask<T> task = new FutureTask<>(() -> {
+            wait.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+            return timer.record(hashing);
+        });
+        try {
+            workers.execute(task);
+        } catch (RejectedExecutionException e) {
+            queueFull.increment();
+            throw new ServiceUnavailableException("Too many password checks in progress, try again later");
+        }
+        try {
+            return task.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // a task still queued is dropped; one already hashing just finishes unobserved
+            task.cancel(false);
+            workers.remove(task);
+            timedOut.increment();
+            throw new ServiceUnavailableException("Password check took too long, try again later");
+        } catch (InterruptedException e) {
+            task.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package pt.psoft.g1.psoftg1.auth.services;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers the tokens its delegate verified, so a token sent again is not verified again.
+ * <p>Tokens are kept by the SHA-256 of their value until they expire, and only if they expire.
+ * Lookups never block: the entries live in a {@link ConcurrentHashMap}, and inserting past
+ * {@code maxEntries} first drops the expired tokens, then arbitrary ones until a tenth of the
+ * room is free, so that a full cache is not swept on every insert.
+ * <p>A revoked token is rejected without asking the delegate until the delegate would reject it
+ * anyway, i.e. past its expiry plus the usual clock skew. Revocations are kept in this instance's
+ * memory only: other instances behind the same load balancer keep accepting the token until it
+ * expires, and a restart forgets them. Revocation is therefore a best effort, and the token
+ * lifetime remains the bound on how long a logged-out token may still be used.
+ * <p>Publishes {@code jwt.decoder.cache} counters tagged {@code result} (hit or miss) and the
+ * {@code jwt.decoder.cache.size} and {@code jwt.decoder.revoked.size} gauges.
+ */
+public class CachingJwtDecoder implements JwtDecoder, MeterBinder {
+
+    // same allowance as the default JwtTimestampValidator of the delegate
+    private static final Duration CLOCK_SKEW = Duration.ofSeconds(60);
+
+    private final JwtDecoder delegate;
+    private final int maxEntries;
+    private final Clock clock;
+
+    private final Map<String, Jwt> verified = new ConcurrentHashMap<>();
+    // token hash -> when the delegate stops accepting the token by itself
+    private final Map<String, Instant> revoked = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public CachingJwtDecoder(final JwtDecoder delegate, final int maxEntries) {
+        this(delegate, maxEntries, Clock.systemUTC());
+    }
+
+    CachingJwtDecoder(final JwtDecoder delegate, final int maxEntries, final Clock clock) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be at least 1");
+        }
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    @Override
+    public Jwt decode(final String token) throws JwtException {
+        final String key = hash(token);
+        if (revoked.containsKey(key)) {
+            throw new BadJwtException("The token has been revoked");
+        }
+        final Jwt cached = verified.get(key);
+        if (cached != null) {
+            if (clock.instant().isBefore(cached.getExpiresAt())) {
+                hits.incrementAndGet();
+                return cached;
+            }
+            verified.remove(key, cached);
+        }
+        misses.incrementAndGet();
+
+        final Jwt jwt = delegate.decode(token);
+        // tokens in the clock skew past their expiry are accepted, but not worth keeping
+        if (jwt.getExpiresAt() != null && clock.instant().isBefore(jwt.getExpiresAt())) {
+            store(key, jwt);
+        }
+        return jwt;
+    }
+
+    /**
+     * Rejects the token from now on, e.g. on logout. Tokens that do not verify are ignored.
+     */
+    public void revoke(final String token) {
+        final String key = hash(token);
+        Jwt jwt = verified.remove(key);
+        if (jwt == null) {
+            try {
+                jwt = delegate.decode(token);
+            } catch (JwtException e) {
+                return;
+            }
+        }
+        final Instant now = clock.instant();
+        revoked.values().removeIf(until -> !now.isBefore(until));
+        revoked.put(key, jwt.getExpiresAt() == null ? Instant.MAX : jwt.getExpiresAt().plus(CLOCK_SKEW));
+        // a decode verifying the token concurrently may have stored it again
+        verified.remove(key);
+    }
+
+    public int size() {
+        return verified.size();
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        FunctionCounter.builder("jwt.decoder.cache", hits, AtomicLong::get)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("jwt.decoder.cache", misses, AtomicLong::get)
+                .tag("result", "miss")
+                .register(registry);
+        Gauge.builder("jwt.decoder.cache.size", verified, Map::size).register(registry);
+        Gauge.builder("jwt.decoder.revoked.size", revoked, Map::size).register(registry);
+    }
+
+    private void store(final String key, final Jwt jwt) {
+        if (verified.size() >= maxEntries) {
+            purge();
+        }
+        verified.put(key, jwt);
+        if (revoked.containsKey(key)) {
+            verified.remove(key);
+        }
+    }
+
+    // drops expired tokens, then arbitrary tokens until a tenth of the room is free
+    private void purge() {
+        final Instant now = clock.instant();
+        verified.values().removeIf(jwt -> !now.isBefore(jwt.getExpiresAt()));
+        final int target = maxEntries - Math.max(1, maxEntries / 10);
+        final Iterator<String> keys = verified.keySet().iterator();
+        while (verified.size() > target && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private static String hash(final String token) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -4,10 +4,9 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
-import jakarta.validation.ValidationException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
@@ -26,8 +25,11 @@ import pt.psoft.g1.psoftg1.bookmanagement.model.Book;
 import pt.psoft.g1.psoftg1.exceptions.NotFoundException;
 import pt.psoft.g1.psoftg1.readermanagement.model.ReaderDetails;
 import pt.psoft.g1.psoftg1.shared.api.ListResponse;
+import pt.psoft.g1.psoftg1.shared.api.PhotoResponseFactory;
 import pt.psoft.g1.psoftg1.shared.services.ConcurrencyService;
+import pt.psoft.g1.psoftg1.shared.services.EtagService;
 import pt.psoft.g1.psoftg1.shared.services.FileStorageService;
+import pt.psoft.g1.psoftg1.shared.services.PhotoSize;
 import pt.psoft.g1.psoftg1.usermanagement.model.User;
 
 import java.util.ArrayList;
@@ -43,7 +45,9 @@ public class AuthorController {
     private final AuthorService authorService;
     private final AuthorViewMapper authorViewMapper;
     private final ConcurrencyService concurrencyService;
+    private final EtagService etagService;
     private final FileStorageService fileStorageService;
+    private final PhotoResponseFactory photoResponseFactory;
     private final BookViewMapper bookViewMapper;
 
 
@@ -107,7 +111,16 @@ public class AuthorController {
     @GetMapping(value = "/{authorNumber}")
     public ResponseEntity<AuthorView> findByAuthorNumber(
             @PathVariable("authorNumber")
-            @Parameter(description = "The number of the Author to find") final Long authorNumber) {
+            @Parameter(description = "The number of the Author to find") final Long authorNumber,
+            final WebRequest request) {
+
+        final var currentVersion = authorService.findVersionByAuthorNumber(authorNumber);
+        if (currentVersion.isPresent()) {
+            final String etag = etagService.entityTag(currentVersion.get());
+            if (etagService.isNotModified(request, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+        }
 
         final var author = authorService.findByAuthorNumber(authorNumber)
                 .orElseThrow(() -> new NotFoundException(Author.class, authorNumber));
@@ -119,47 +132,69 @@ public class AuthorController {
 
     @Operation(summary = "Search authors by name")
     @GetMapping
-    public ListResponse<AuthorView> findByName(@RequestParam("name") final String name) {
+    public ResponseEntity<ListResponse<AuthorView>> findByName(@RequestParam("name") final String name,
+                                                               final WebRequest request) {
+
+        final String etag = etagService.collectionTag(EtagService.AUTHORS);
+        if (etagService.isNotModified(request, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
 
         final var authors = authorService.findByName(name);
-        return new ListResponse<>(authorViewMapper.toAuthorView(authors));
+        return ResponseEntity.ok().eTag(etag).body(new ListResponse<>(authorViewMapper.toAuthorView(authors)));
     }
 
 
     //Know the books of an Author
     @Operation(summary = "Know the books of an author")
     @GetMapping("/{authorNumber}/books")
-    public ListResponse<BookView> getBooksByAuthorNumber(
+    public ResponseEntity<ListResponse<BookView>> getBooksByAuthorNumber(
            @PathVariable("authorNumber")
              @Parameter(description = "The number of the Author to find")
-             final Long authorNumber) {
+             final Long authorNumber,
+           final WebRequest request) {
+
+        final String etag = etagService.collectionTag(EtagService.BOOKS, EtagService.AUTHORS);
+        if (etagService.isNotModified(request, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
 
         //Checking if author exists with this id
         authorService.findByAuthorNumber(authorNumber)
                 .orElseThrow(() -> new NotFoundException(Author.class, authorNumber));
 
-        return new ListResponse<>(bookViewMapper.toBookView(authorService.findBooksByAuthorNumber(authorNumber)));
+        return ResponseEntity.ok().eTag(etag)
+                .body(new ListResponse<>(bookViewMapper.toBookView(authorService.findBooksByAuthorNumber(authorNumber))));
     }
 
     //Know the Top 5 authors which have the most lent books
     @Operation(summary = "Know the Top 5 authors which have the most lent books")
     @GetMapping("/top5")
-    public ListResponse<AuthorLendingView> getTop5() {
+    public ResponseEntity<ListResponse<AuthorLendingView>> getTop5(final WebRequest request) {
+        final String etag = etagService.collectionTag(EtagService.AUTHORS, EtagService.BOOKS, EtagService.LENDINGS);
+        if (etagService.isNotModified(request, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
         final var list = authorService.findTopAuthorByLendings();
 
         if(list.isEmpty())
             throw new NotFoundException("No authors to show");
 
-        return new ListResponse<>(list);
+        return ResponseEntity.ok().eTag(etag).body(new ListResponse<>(list));
     }
 
     //get - Photo
     @Operation(summary= "Gets a author photo")
     @GetMapping("/{authorNumber}/photo")
     @ResponseStatus(HttpStatus.OK)
-    public ResponseEntity<byte[]> getSpecificAuthorPhoto(@PathVariable("authorNumber")
+    public ResponseEntity<Resource> getSpecificAuthorPhoto(@PathVariable("authorNumber")
                                                              @Parameter(description = "The number of the Author to find")
-                                                             final Long authorNumber) {
+                                                             final Long authorNumber,
+                                                           @RequestParam(value = "size", required = false)
+                                                           @Parameter(description = "thumb, small, medium or original (default)")
+                                                           final String size,
+                                                           final WebRequest request) {
 
         Author authorDetails = authorService.findByAuthorNumber(authorNumber)
                 .orElseThrow(() -> new NotFoundException(Author.class, authorNumber));
@@ -169,18 +204,7 @@ public class AuthorController {
             return ResponseEntity.ok().build();
         }
 
-        String photoFile = authorDetails.getPhoto().getPhotoFile();
-        byte[] image = this.fileStorageService.getFile(photoFile);
-        String fileFormat = this.fileStorageService.getExtension(authorDetails.getPhoto().getPhotoFile())
-                .orElseThrow(() -> new ValidationException("Unable to get file extension"));
-
-        if(image == null) {
-            return ResponseEntity.ok().build();
-        }
-
-        return ResponseEntity.ok()
-                .contentType(fileFormat.equals("png") ? MediaType.IMAGE_PNG : MediaType.IMAGE_JPEG)
-                .body(image);
+        return photoResponseFactory.photo(authorDetails.getPhoto().getPhotoFile(), PhotoSize.fromParam(size), request);
     }
     //Co-authors and their respective books
     @Operation(summary = "Get co-authors and their respective books for a specific author")
@@ -198,6 +222,25 @@ public class AuthorController {
         return authorViewMapper.toAuthorCoAuthorBooksView(author, coAuthorViews);
     }
 
+    @Operation(summary = "Get the co-authors of an author and how many books they wrote together")
+    @GetMapping("/{authorNumber}/coauthors/counts")
+    public ListResponse<CoAuthorCountView> getCoAuthorCounts(@PathVariable("authorNumber") final Long authorNumber) {
+        authorService.findByAuthorNumber(authorNumber)
+                .orElseThrow(() -> new NotFoundException(Author.class, authorNumber));
+        return new ListResponse<>(authorService.findCoAuthorCounts(authorNumber));
+    }
+
+    @Operation(summary = "Get the authors reachable from an author through up to a number of co-authorships")
+    @GetMapping("/{authorNumber}/collaborators")
+    public ListResponse<CollaboratorView> getCollaborators(@PathVariable("authorNumber") final Long authorNumber,
+                                                           @RequestParam(value = "hops", defaultValue = "2")
+                                                           @Parameter(description = "Maximum number of co-authorships between the authors, from 1 to 6")
+                                                           final int hops) {
+        authorService.findByAuthorNumber(authorNumber)
+                .orElseThrow(() -> new NotFoundException(Author.class, authorNumber));
+        return new ListResponse<>(authorService.findCollaborators(authorNumber, hops));
+    }
+
     //Delete a foto
     @Operation(summary = "Deletes a author photo")
     @DeleteMapping("/{authorNumber}/photo")
@@ -212,8 +255,9 @@ public class AuthorController {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
 
-        this.fileStorageService.deleteFile(author.getPhoto().getPhotoFile());
+        String photoFile = author.getPhoto().getPhotoFile();
         authorService.removeAuthorPhoto(author.getAuthorNumber(), author.getVersion());
+        this.fileStorageService.releaseFile(photoFile);
 
         return ResponseEntity.ok().build();
     }
@@ -0,0 +1,20 @@
+package pt.psoft.g1.psoftg1.authormanagement.api;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Schema(description = "A co-author and the number of books written together")
+@AllArgsConstructor
+@NoArgsConstructor
+public class CoAuthorCountView {
+    @NotNull
+    private Long authorNumber;
+    @NotNull
+    private String name;
+    @NotNull
+    private Integer sharedBooks;
+}
@@ -0,0 +1,20 @@
+package pt.psoft.g1.psoftg1.authormanagement.api;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Schema(description = "An author reachable through co-authorships and how many hops away")
+@AllArgsConstructor
+@NoArgsConstructor
+public class CollaboratorView {
+    @NotNull
+    private Long authorNumber;
+    @NotNull
+    private String name;
+    @NotNull
+    private Integer hops;
+}
@@ -16,6 +16,10 @@ public interface SpringDataAuthorRepository extends AuthorRepository, CrudReposi
     @Override
     Optional<Author> findByAuthorNumber(Long authorNumber);
 
+    @Override
+    @Query("SELECT a.version FROM Author a WHERE a.authorNumber = :authorNumber")
+    Optional<Long> findVersionByAuthorNumber(Long authorNumber);
+
     @Override
     @Query("SELECT new pt.psoft.g1.psoftg1.authormanagement.api.AuthorLendingView(a.name.name, COUNT(l.pk)) " +
             "FROM Book b " +
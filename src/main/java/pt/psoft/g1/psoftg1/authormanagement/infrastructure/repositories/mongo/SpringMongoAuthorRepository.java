@@ -20,6 +20,11 @@ public interface SpringMongoAuthorRepository extends AuthorRepository, MongoRepo
     @Override
     Optional<Author> findByAuthorNumber(Long authorNumber);
 
+    @Override
+    default Optional<Long> findVersionByAuthorNumber(Long authorNumber) {
+        return findByAuthorNumber(authorNumber).map(Author::getVersion);
+    }
+
     @Override
     List<Author> searchByNameNameStartsWith(String name);
 
@@ -5,14 +5,18 @@ import org.springframework.data.domain.Pageable;
 import pt.psoft.g1.psoftg1.authormanagement.api.AuthorLendingView;
 import pt.psoft.g1.psoftg1.authormanagement.model.Author;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface AuthorRepository {
 
     Optional<Author> findByAuthorNumber(Long authorNumber);
+    List<Author> findByAuthorNumberIn(Collection<Long> authorNumbers);
+    Optional<Long> findVersionByAuthorNumber(Long authorNumber);
     List<Author> searchByNameNameStartsWith(String name);
     List<Author> searchByNameName(String name);
+    List<Author> searchByNameNameIn(Collection<String> names);
     Author save(Author author);
     Iterable<Author> findAll();
     Page<AuthorLendingView> findTopAuthorByLendings (Pageable pageableRules);
@@ -0,0 +1,14 @@
+package pt.psoft.g1.psoftg1.authormanagement.services;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import pt.psoft.g1.psoftg1.authormanagement.model.Author;
+
+/**
+ * Application event published by {@link AuthorService} after an {@code Author} is created or changed.
+ */
+@Getter
+@RequiredArgsConstructor
+public class AuthorEvent {
+    private final Author author;
+}
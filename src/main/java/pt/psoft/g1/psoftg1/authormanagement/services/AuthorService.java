@@ -1,6 +1,8 @@
 package pt.psoft.g1.psoftg1.authormanagement.services;
 
 import pt.psoft.g1.psoftg1.authormanagement.api.AuthorLendingView;
+import pt.psoft.g1.psoftg1.authormanagement.api.CoAuthorCountView;
+import pt.psoft.g1.psoftg1.authormanagement.api.CollaboratorView;
 import pt.psoft.g1.psoftg1.authormanagement.model.Author;
 import pt.psoft.g1.psoftg1.bookmanagement.model.Book;
 
@@ -13,6 +15,8 @@ public interface AuthorService {
 
     Optional<Author> findByAuthorNumber(Long authorNumber);
 
+    Optional<Long> findVersionByAuthorNumber(Long authorNumber);
+
     List<Author> findByName(String name);
 
     Author create(CreateAuthorRequest resource);
@@ -25,5 +29,9 @@ public interface AuthorService {
 
     List<Author> findCoAuthorsByAuthorNumber(Long authorNumber);
 
+    List<CoAuthorCountView> findCoAuthorCounts(Long authorNumber);
+
+    List<CollaboratorView> findCollaborators(Long authorNumber, int maxHops);
+
     Optional<Author> removeAuthorPhoto(Long authorNumber, long desiredVersion);
 }
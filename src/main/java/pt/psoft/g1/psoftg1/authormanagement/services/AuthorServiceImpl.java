@@ -1,31 +1,61 @@
 package pt.psoft.g1.psoftg1.authormanagement.services;
 
-import lombok.RequiredArgsConstructor;
+import jakarta.validation.ValidationException;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import pt.psoft.g1.psoftg1.analytics.services.CoAuthorshipService;
+import pt.psoft.g1.psoftg1.analytics.services.LeaderboardService;
 import pt.psoft.g1.psoftg1.authormanagement.api.AuthorLendingView;
+import pt.psoft.g1.psoftg1.authormanagement.api.CoAuthorCountView;
+import pt.psoft.g1.psoftg1.authormanagement.api.CollaboratorView;
 import pt.psoft.g1.psoftg1.authormanagement.model.Author;
 import pt.psoft.g1.psoftg1.authormanagement.repositories.AuthorRepository;
 import pt.psoft.g1.psoftg1.bookmanagement.model.Book;
 import pt.psoft.g1.psoftg1.bookmanagement.repositories.BookRepository;
 import pt.psoft.g1.psoftg1.exceptions.NotFoundException;
+import pt.psoft.g1.psoftg1.shared.model.Photo;
 import pt.psoft.g1.psoftg1.shared.repositories.PhotoRepository;
+import pt.psoft.g1.psoftg1.shared.services.RequestScopedLoader;
+import pt.psoft.g1.psoftg1.shared.services.RequestScopedLoaders;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
-@RequiredArgsConstructor
 public class AuthorServiceImpl implements AuthorService {
+    private static final int MAX_COLLABORATOR_HOPS = 6;
+
     private final AuthorRepository authorRepository;
     private final BookRepository bookRepository;
     private final AuthorMapper mapper;
     private final PhotoRepository photoRepository;
+    private final LeaderboardService leaderboardService;
+    private final CoAuthorshipService coAuthorshipService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RequestScopedLoader<Long, Author> authorLoader;
+
+    public AuthorServiceImpl(AuthorRepository authorRepository, BookRepository bookRepository, AuthorMapper mapper,
+                             PhotoRepository photoRepository, LeaderboardService leaderboardService,
+                             CoAuthorshipService coAuthorshipService, ApplicationEventPublisher eventPublisher) {
+        this.authorRepository = authorRepository;
+        this.bookRepository = bookRepository;
+        this.mapper = mapper;
+        this.photoRepository = photoRepository;
+        this.leaderboardService = leaderboardService;
+        this.coAuthorshipService = coAuthorshipService;
+        this.eventPublisher = eventPublisher;
+        this.authorLoader = RequestScopedLoaders.authors(authorRepository);
+    }
 
     @Override
     public Iterable<Author> findAll() {
@@ -38,6 +68,11 @@ public class AuthorServiceImpl implements AuthorService {
         return authorRepository.findByAuthorNumber(authorNumber);
     }
 
+    @Override
+    public Optional<Long> findVersionByAuthorNumber(final Long authorNumber) {
+        return authorRepository.findVersionByAuthorNumber(authorNumber);
+    }
+
     @Override
     @Cacheable(value = "authorsList", key = "#name")
     public List<Author> findByName(String name) {
@@ -66,7 +101,9 @@ public class AuthorServiceImpl implements AuthorService {
             resource.setPhotoURI(null);
         }
         final Author author = mapper.create(resource);
-        return authorRepository.save(author);
+        final Author saved = authorRepository.save(author);
+        eventPublisher.publishEvent(new AuthorEvent(saved));
+        return saved;
     }
 
     @Override
@@ -101,11 +138,17 @@ public class AuthorServiceImpl implements AuthorService {
         // in the meantime some other user might have changed this object on the
         // database, so concurrency control will still be applied when we try to save
         // this updated object
-        return authorRepository.save(author);
+        final Author saved = authorRepository.save(author);
+        eventPublisher.publishEvent(new AuthorEvent(saved));
+        return saved;
     }
     @Override
-    @Cacheable(value = "top5Authors", key = "'all'")
     public List<AuthorLendingView> findTopAuthorByLendings() {
+        if (leaderboardService.isReady()) {
+            return leaderboardService.topAuthors(5).stream()
+                    .map(entry -> new AuthorLendingView(entry.getKey(), entry.getValue()))
+                    .toList();
+        }
         Pageable pageableRules = PageRequest.of(0,5);
         return authorRepository.findTopAuthorByLendings(pageableRules).getContent();
     }
@@ -118,20 +161,77 @@ public class AuthorServiceImpl implements AuthorService {
 
     @Override
     public List<Author> findCoAuthorsByAuthorNumber(Long authorNumber) {
+        if (coAuthorshipService.isReady()) {
+            return authorLoader.loadAll(coAuthorshipService.coAuthors(authorNumber).keySet());
+        }
         return authorRepository.findCoAuthorsByAuthorNumber(authorNumber);
     }
+
+    @Override
+    public List<CoAuthorCountView> findCoAuthorCounts(Long authorNumber) {
+        if (!coAuthorshipService.isReady()) {
+            // before the graph is built only the co-authors are known, not how many books they share
+            return authorRepository.findCoAuthorsByAuthorNumber(authorNumber).stream()
+                    .map(coAuthor -> new CoAuthorCountView(coAuthor.getAuthorNumber(), coAuthor.getName(),
+                            (int) bookRepository.findBooksByAuthorNumber(coAuthor.getAuthorNumber()).stream()
+                                    .filter(book -> book.getAuthors().stream()
+                                            .anyMatch(author -> author.getAuthorNumber().equals(authorNumber)))
+                                    .count()))
+                    .toList();
+        }
+        final Map<Long, Integer> coAuthors = coAuthorshipService.coAuthors(authorNumber);
+        return authorLoader.loadAll(coAuthors.keySet()).stream()
+                .map(coAuthor -> new CoAuthorCountView(coAuthor.getAuthorNumber(), coAuthor.getName(),
+                        coAuthors.get(coAuthor.getAuthorNumber())))
+                .toList();
+    }
+
+    @Override
+    public List<CollaboratorView> findCollaborators(Long authorNumber, int maxHops) {
+        if (maxHops < 1 || maxHops > MAX_COLLABORATOR_HOPS) {
+            throw new ValidationException("hops must be between 1 and " + MAX_COLLABORATOR_HOPS);
+        }
+        if (!coAuthorshipService.isReady()) {
+            return findCollaboratorsByQuery(authorNumber, maxHops);
+        }
+        final Map<Long, Integer> collaborators = coAuthorshipService.collaborators(authorNumber, maxHops);
+        return authorLoader.loadAll(collaborators.keySet()).stream()
+                .map(author -> new CollaboratorView(author.getAuthorNumber(), author.getName(),
+                        collaborators.get(author.getAuthorNumber())))
+                .toList();
+    }
+    // one co-author query per reached author; only used until the co-authorship graph is built
+    private List<CollaboratorView> findCollaboratorsByQuery(Long authorNumber, int maxHops) {
+        Set<Long> visited = new HashSet<>(Set.of(authorNumber));
+        List<CollaboratorView> result = new ArrayList<>();
+        List<Long> frontier = List.of(authorNumber);
+        for (int hops = 1; hops <= maxHops && !frontier.isEmpty(); hops++) {
+            List<Long> next = new ArrayList<>();
+            for (Long current : frontier) {
+                for (Author coAuthor : authorRepository.findCoAuthorsByAuthorNumber(current)) {
+                    if (visited.add(coAuthor.getAuthorNumber())) {
+                        next.add(coAuthor.getAuthorNumber());
+                        result.add(new CollaboratorView(coAuthor.getAuthorNumber(), coAuthor.getName(), hops));
+                    }
+                }
+            }
+            frontier = next;
+        }
+        return result;
+    }
+
     @Override
     @CacheEvict(value = "authors", key = "#authorNumber")
     public Optional<Author> removeAuthorPhoto(Long authorNumber, long desiredVersion) {
         Author author = authorRepository.findByAuthorNumber(authorNumber)
                 .orElseThrow(() -> new NotFoundException("Cannot find reader"));
 
-        String photoFile = author.getPhoto().getPhotoFile();
+        Photo photo = author.getPhoto();
         author.removePhoto(desiredVersion);
         Optional<Author> updatedAuthor = Optional.of(authorRepository.save(author));
-        photoRepository.deleteByPhotoFile(photoFile);
+        photoRepository.delete(photo);
+        eventPublisher.publishEvent(new AuthorEvent(updatedAuthor.get()));
         return updatedAuthor;
     }
 
 }
-
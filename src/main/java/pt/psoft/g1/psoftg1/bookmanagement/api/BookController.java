@@ -1,10 +1,11 @@
 package pt.psoft.g1.psoftg1.bookmanagement.api;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
-import jakarta.validation.ValidationException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -14,8 +15,11 @@ import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import pt.psoft.g1.psoftg1.auth.services.AuthenticatedPrincipal;
+import pt.psoft.g1.psoftg1.auth.services.AuthenticatedPrincipalResolver;
 import pt.psoft.g1.psoftg1.bookmanagement.model.Book;
 import pt.psoft.g1.psoftg1.bookmanagement.services.BookService;
+import pt.psoft.g1.psoftg1.bookmanagement.services.BookVersions;
 import pt.psoft.g1.psoftg1.bookmanagement.services.CreateBookRequest;
 import pt.psoft.g1.psoftg1.bookmanagement.services.ExternalIsbnService;
 import pt.psoft.g1.psoftg1.bookmanagement.services.IsbnSearchResult;
@@ -25,14 +29,16 @@ import pt.psoft.g1.psoftg1.exceptions.ConflictException;
 import pt.psoft.g1.psoftg1.exceptions.NotFoundException;
 import pt.psoft.g1.psoftg1.lendingmanagement.services.LendingService;
 import pt.psoft.g1.psoftg1.readermanagement.model.ReaderDetails;
-import pt.psoft.g1.psoftg1.readermanagement.services.ReaderService;
 import pt.psoft.g1.psoftg1.shared.api.ListResponse;
+import pt.psoft.g1.psoftg1.shared.api.PhotoResponseFactory;
 import pt.psoft.g1.psoftg1.shared.services.ConcurrencyService;
+import pt.psoft.g1.psoftg1.shared.services.EtagService;
 import pt.psoft.g1.psoftg1.shared.services.FileStorageService;
+import pt.psoft.g1.psoftg1.shared.services.PhotoSize;
 import pt.psoft.g1.psoftg1.shared.services.SearchRequest;
-import pt.psoft.g1.psoftg1.usermanagement.model.User;
-import pt.psoft.g1.psoftg1.usermanagement.services.UserService;
+import reactor.core.publisher.Flux;
 
+import java.time.LocalDate;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
@@ -47,9 +53,10 @@ public class BookController {
     private final BookService bookService;
     private final LendingService lendingService;
     private final ConcurrencyService concurrencyService;
+    private final EtagService etagService;
     private final FileStorageService fileStorageService;
-    private final UserService userService;
-    private final ReaderService readerService;
+    private final PhotoResponseFactory photoResponseFactory;
+    private final AuthenticatedPrincipalResolver principalResolver;
     private final ExternalIsbnService externalIsbnService;
 
     private final BookViewMapper bookViewMapper;
@@ -88,14 +95,25 @@ public class BookController {
 
     @Operation(summary = "Gets a specific Book by isbn")
     @GetMapping(value = "/{isbn}")
-    public ResponseEntity<BookView> findByIsbn(@PathVariable final String isbn) {
+    public ResponseEntity<BookView> findByIsbn(@PathVariable final String isbn, final WebRequest request) {
+
+        // the view shows author names, so their versions are part of the tag
+        final var currentVersions = bookService.findVersionsByIsbn(isbn);
+        if (currentVersions.isPresent()) {
+            final String etag = etagService.entityTag(currentVersions.get().version(),
+                    currentVersions.get().authorsVersion());
+            if (etagService.isNotModified(request, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+        }
 
         final var book = bookService.findByIsbn(isbn);
+        final var versions = BookVersions.of(book);
 
         BookView bookView = bookViewMapper.toBookView(book);
 
         return ResponseEntity.ok()
-                .eTag(Long.toString(book.getVersion()))
+                .eTag(etagService.entityTag(versions.version(), versions.authorsVersion()))
                 .body(bookView);
     }
 
@@ -108,8 +126,9 @@ public class BookController {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
 
-        fileStorageService.deleteFile(book.getPhoto().getPhotoFile());
+        String photoFile = book.getPhoto().getPhotoFile();
         bookService.removeBookPhoto(book.getIsbn(), book.getVersion());
+        fileStorageService.releaseFile(photoFile);
 
         return ResponseEntity.ok().build();
     }
@@ -117,7 +136,11 @@ public class BookController {
     @Operation(summary= "Gets a book photo")
     @GetMapping("/{isbn}/photo")
     @ResponseStatus(HttpStatus.OK)
-    public ResponseEntity<byte[]> getSpecificBookPhoto(@PathVariable("isbn") final String isbn){
+    public ResponseEntity<Resource> getSpecificBookPhoto(@PathVariable("isbn") final String isbn,
+                                                         @RequestParam(value = "size", required = false)
+                                                         @Parameter(description = "thumb, small, medium or original (default)")
+                                                         final String size,
+                                                         final WebRequest request){
 
         Book book = bookService.findByIsbn(isbn);
 
@@ -126,16 +149,7 @@ public class BookController {
             return ResponseEntity.ok().build();
         }
 
-        String photoFile = book.getPhoto().getPhotoFile();
-        byte[] image = fileStorageService.getFile(photoFile);
-        String fileFormat = fileStorageService.getExtension(book.getPhoto().getPhotoFile()).orElseThrow(() -> new ValidationException("Unable to get file extension"));
-
-        if(image == null) {
-            return ResponseEntity.ok().build();
-        }
-
-        return ResponseEntity.ok().contentType(fileFormat.equals("png") ? MediaType.IMAGE_PNG : MediaType.IMAGE_JPEG).body(image);
-
+        return photoResponseFactory.photo(book.getPhoto().getPhotoFile(), PhotoSize.fromParam(size), request);
     }
 
 
@@ -173,9 +187,15 @@ public class BookController {
 
     @Operation(summary = "Gets Books by title or genre")
     @GetMapping
-    public ListResponse<BookView> findBooks(@RequestParam(value = "title", required = false) final String title,
-                                            @RequestParam(value = "genre", required = false) final String genre,
-                                            @RequestParam(value = "authorName", required = false) final String authorName) {
+    public ResponseEntity<ListResponse<BookView>> findBooks(@RequestParam(value = "title", required = false) final String title,
+                                                            @RequestParam(value = "genre", required = false) final String genre,
+                                                            @RequestParam(value = "authorName", required = false) final String authorName,
+                                                            final WebRequest request) {
+
+        final String etag = etagService.collectionTag(EtagService.BOOKS, EtagService.AUTHORS);
+        if (etagService.isNotModified(request, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
 
         //Este método, como está, faz uma junção 'OR'.
         //Para uma junção 'AND', ver o "/search"
@@ -207,23 +227,30 @@ public class BookController {
         if(books.isEmpty())
             throw new NotFoundException("No books found with the provided criteria");
 
-        return new ListResponse<>(bookViewMapper.toBookView(books));
+        return ResponseEntity.ok().eTag(etag).body(new ListResponse<>(bookViewMapper.toBookView(books)));
     }
 
     @Operation(summary = "Gets the top 5 books lent")
     @GetMapping("top5")
-    public ListResponse<BookCountView> getTop5BooksLent() {
-        return new ListResponse<>(bookService.findTop5BooksLent());
+    public ResponseEntity<ListResponse<BookCountView>> getTop5BooksLent(final WebRequest request) {
+        // the ranking covers the last year, so it also changes when the day changes
+        final String etag = etagService.collectionTag(
+                new String[] { EtagService.BOOKS, EtagService.AUTHORS, EtagService.LENDINGS }, LocalDate.now());
+        if (etagService.isNotModified(request, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(new ListResponse<>(bookService.findTop5BooksLent()));
     }
 
     @Operation(summary = "Gets some books suggestions based on the reader's interests")
     @GetMapping("suggestions")
     public ListResponse<BookView> getBooksSuggestions(Authentication authentication) {
-        User loggedUser = userService.getAuthenticatedUser(authentication);
-        ReaderDetails readerDetails = readerService.findByUsername(loggedUser.getUsername())
-                .orElseThrow(() -> new NotFoundException(ReaderDetails.class, loggedUser.getUsername()));
+        AuthenticatedPrincipal principal = principalResolver.resolve(authentication);
+        if (principal.readerNumber() == null) {
+            throw new NotFoundException(ReaderDetails.class, principal.username());
+        }
 
-        return new ListResponse<>(bookViewMapper.toBookView(bookService.getBooksSuggestionsForReader(readerDetails.getReaderNumber())));
+        return new ListResponse<>(bookViewMapper.toBookView(bookService.getBooksSuggestionsForReader(principal.readerNumber())));
     }
 
     @Operation(summary = "Get average lendings duration")
@@ -260,5 +287,23 @@ public class BookController {
         
         return new ListResponse<>(results);
     }
+
+    @Operation(summary = "Streams book ISBNs found by title as Server-Sent Events, one source at a time as each answers")
+    @GetMapping(value = "/isbn/search/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<IsbnSearchResult> streamIsbnByTitle(@RequestParam("title") final String title) {
+
+        if (title == null || title.trim().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Title parameter is required");
+        }
+
+        return externalIsbnService.streamIsbnByTitle(title.trim());
+    }
+
+    @Operation(summary = "Look up a book's metadata by ISBN using external APIs (Google Books, Open Library)")
+    @GetMapping("/isbn/lookup")
+    public IsbnSearchResult lookupIsbn(@RequestParam("isbn") final String isbn) {
+        return externalIsbnService.findByIsbn(isbn)
+                .orElseThrow(() -> new NotFoundException("No book found for the given ISBN from any external source"));
+    }
 }
 
@@ -0,0 +1,54 @@
+package pt.psoft.g1.psoftg1.bookmanagement.api;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import pt.psoft.g1.psoftg1.bookmanagement.services.CatalogImportService;
+import pt.psoft.g1.psoftg1.bookmanagement.services.CatalogImportStatus;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@Tag(name = "Catalog import", description = "Endpoints for importing Books in bulk by title or ISBN")
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/books/import")
+public class CatalogImportController {
+    private final CatalogImportService catalogImportService;
+
+    @Operation(summary = "Starts importing the books of a text file, looked up in the external ISBN sources")
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<CatalogImportStatus> start(
+            @RequestParam("file")
+            @Parameter(description = "One title or ISBN per line, optionally followed by ';' and a genre. Lines starting with '#' are ignored")
+            final MultipartFile file) throws IOException {
+
+        final CatalogImportStatus status;
+        try (InputStream in = file.getInputStream()) {
+            status = catalogImportService.start(in);
+        }
+        final var statusUri = ServletUriComponentsBuilder.fromCurrentRequestUri()
+                .pathSegment(status.id())
+                .build().toUri();
+
+        return ResponseEntity.accepted().location(statusUri).body(status);
+    }
+
+    @Operation(summary = "Gets the progress of a catalog import")
+    @GetMapping("/{id}")
+    public CatalogImportStatus status(@PathVariable("id") final String id) {
+        return catalogImportService.status(id);
+    }
+
+    @Operation(summary = "Resumes a failed or interrupted catalog import after the last finished batch")
+    @PostMapping("/{id}/resume")
+    public ResponseEntity<CatalogImportStatus> resume(@PathVariable("id") final String id) {
+        return ResponseEntity.accepted().body(catalogImportService.resume(id));
+    }
+}
@@ -15,11 +15,13 @@ import pt.psoft.g1.psoftg1.bookmanagement.model.Book;
 import pt.psoft.g1.psoftg1.bookmanagement.services.BookCountDTO;
 import pt.psoft.g1.psoftg1.bookmanagement.model.Isbn;
 import pt.psoft.g1.psoftg1.bookmanagement.repositories.BookRepository;
+import pt.psoft.g1.psoftg1.bookmanagement.services.BookVersions;
 import pt.psoft.g1.psoftg1.bookmanagement.services.SearchBooksQuery;
 import pt.psoft.g1.psoftg1.genremanagement.model.Genre;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,6 +33,25 @@ public interface SpringDataBookRepository  extends BookRepository, BookRepoCusto
             "WHERE b.isbn.isbn = :isbn")
     Optional<Book> findByIsbn(@Param("isbn") String isbn);
 
+    @Override
+    @Query("SELECT b " +
+            "FROM Book b " +
+            "WHERE b.isbn.isbn IN :isbns")
+    List<Book> findByIsbns(@Param("isbns") Collection<String> isbns);
+
+    @Override
+    @Query("SELECT new pt.psoft.g1.psoftg1.bookmanagement.services.BookVersions(b.version, SUM(a.version)) " +
+            "FROM Book b JOIN b.authors a " +
+            "WHERE b.isbn.isbn = :isbn " +
+            "GROUP BY b.version")
+    Optional<BookVersions> findVersionsByIsbn(@Param("isbn") String isbn);
+
+    @Override
+    @Query("SELECT b.isbn.isbn " +
+            "FROM Book b " +
+            "WHERE b.isbn.isbn IN :isbns")
+    List<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+
     @Override
     @Query("SELECT new pt.psoft.g1.psoftg1.bookmanagement.services.BookCountDTO(b, COUNT(l)) " +
                 "FROM Book b " +
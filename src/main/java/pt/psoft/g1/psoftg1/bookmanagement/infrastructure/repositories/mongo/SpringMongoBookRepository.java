@@ -8,8 +8,10 @@ import org.springframework.stereotype.Repository;
 import pt.psoft.g1.psoftg1.bookmanagement.model.Book;
 import pt.psoft.g1.psoftg1.bookmanagement.repositories.BookRepository;
 import pt.psoft.g1.psoftg1.bookmanagement.services.BookCountDTO;
+import pt.psoft.g1.psoftg1.bookmanagement.services.BookVersions;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -31,6 +33,20 @@ public interface SpringMongoBookRepository extends BookRepository, MongoReposito
     @org.springframework.data.mongodb.repository.Query("{ 'isbn.isbn': ?0 }")
     Optional<Book> findByIsbn(String isbn);
 
+    @Override
+    default Optional<BookVersions> findVersionsByIsbn(String isbn) { return findByIsbn(isbn).map(BookVersions::of); }
+
+    @org.springframework.data.mongodb.repository.Query("{ 'isbn.isbn': { $in: ?0 } }")
+    List<Book> findAllByIsbnIn(Collection<String> isbns);
+
+    @Override
+    default List<Book> findByIsbns(Collection<String> isbns) { return findAllByIsbnIn(isbns); }
+
+    @Override
+    default List<String> findExistingIsbns(Collection<String> isbns) {
+        return findAllByIsbnIn(isbns).stream().map(Book::getIsbn).toList();
+    }
+
     @Override
     default Page<BookCountDTO> findTop5BooksLent(LocalDate oneYearAgo, Pageable pageable) {
         return Page.empty();
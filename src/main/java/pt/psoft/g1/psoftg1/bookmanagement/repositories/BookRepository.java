@@ -5,9 +5,11 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.repository.query.Param;
 import pt.psoft.g1.psoftg1.bookmanagement.model.Book;
 import pt.psoft.g1.psoftg1.bookmanagement.services.BookCountDTO;
+import pt.psoft.g1.psoftg1.bookmanagement.services.BookVersions;
 import pt.psoft.g1.psoftg1.bookmanagement.services.SearchBooksQuery;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,11 +24,17 @@ public interface BookRepository {
     List<Book> findByTitle(@Param("title") String title);
     List<Book> findByAuthorName(@Param("authorName") String authorName);
     Optional<Book> findByIsbn(@Param("isbn") String isbn);
+    List<Book> findByIsbns(@Param("isbns") Collection<String> isbns);
+    Optional<BookVersions> findVersionsByIsbn(@Param("isbn") String isbn);
+    List<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
     Page<BookCountDTO> findTop5BooksLent(@Param("oneYearAgo") LocalDate oneYearAgo, Pageable pageable);
     List<Book> findBooksByAuthorNumber(Long authorNumber);
 
     List<Book> searchBooks(pt.psoft.g1.psoftg1.shared.services.Page page, SearchBooksQuery query);
 
+    Iterable<Book> findAll();
+
     Book save(Book book);
+    <S extends Book> Iterable<S> saveAll(Iterable<S> books);
     void delete(Book book);
 }
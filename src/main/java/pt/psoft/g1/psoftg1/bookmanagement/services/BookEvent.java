@@ -0,0 +1,35 @@
+package pt.psoft.g1.psoftg1.bookmanagement.services;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import pt.psoft.g1.psoftg1.authormanagement.model.Author;
+import pt.psoft.g1.psoftg1.bookmanagement.model.Book;
+import pt.psoft.g1.psoftg1.genremanagement.model.Genre;
+
+import java.util.List;
+
+/**
+ * Application event published by {@link BookService} after a {@code Book} is created or updated.
+ * <p>For updates it carries the genre and authors the book had before the patch was applied, so
+ * listeners can move counts from the old values to the new ones.
+ */
+@Getter
+@RequiredArgsConstructor
+public class BookEvent {
+
+    private final Book book;
+    private final Genre previousGenre;
+    private final List<Author> previousAuthors;
+
+    public static BookEvent created(Book book) {
+        return new BookEvent(book, null, null);
+    }
+
+    public static BookEvent updated(Book book, Genre previousGenre, List<Author> previousAuthors) {
+        return new BookEvent(book, previousGenre, previousAuthors);
+    }
+
+    public boolean isCreated() {
+        return previousAuthors == null;
+    }
+}
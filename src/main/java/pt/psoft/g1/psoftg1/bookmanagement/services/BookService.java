@@ -5,6 +5,7 @@ import pt.psoft.g1.psoftg1.bookmanagement.model.Book;
 import pt.psoft.g1.psoftg1.shared.services.Page;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  *
@@ -13,6 +14,7 @@ public interface BookService {
     Book create(CreateBookRequest request, String isbn);
     Book save(Book book);
     Book findByIsbn(String isbn);
+    Optional<BookVersions> findVersionsByIsbn(String isbn);
     Book update(UpdateBookRequest request, String currentVersion);
     List<Book> findByGenre(String genre);
     List<Book> findByTitle(String title);
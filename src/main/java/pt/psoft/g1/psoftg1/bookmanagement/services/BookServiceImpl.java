@@ -1,6 +1,7 @@
 package pt.psoft.g1.psoftg1.bookmanagement.services;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -10,10 +11,11 @@ import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.CacheEvict;
 
+import pt.psoft.g1.psoftg1.analytics.services.LeaderboardService;
+import pt.psoft.g1.psoftg1.analytics.services.RecommendationService;
 import pt.psoft.g1.psoftg1.authormanagement.model.Author;
 import pt.psoft.g1.psoftg1.bookmanagement.model.*;
 import pt.psoft.g1.psoftg1.bookmanagement.repositories.BookRepository;
-import lombok.RequiredArgsConstructor;
 import pt.psoft.g1.psoftg1.genremanagement.repositories.GenreRepository;
 import pt.psoft.g1.psoftg1.authormanagement.repositories.AuthorRepository;
 import pt.psoft.g1.psoftg1.exceptions.ConflictException;
@@ -21,16 +23,19 @@ import pt.psoft.g1.psoftg1.exceptions.NotFoundException;
 import pt.psoft.g1.psoftg1.genremanagement.model.Genre;
 import pt.psoft.g1.psoftg1.readermanagement.model.ReaderDetails;
 import pt.psoft.g1.psoftg1.readermanagement.repositories.ReaderRepository;
+import pt.psoft.g1.psoftg1.shared.model.Photo;
 import pt.psoft.g1.psoftg1.shared.repositories.PhotoRepository;
 import pt.psoft.g1.psoftg1.shared.services.Page;
+import pt.psoft.g1.psoftg1.shared.services.RequestScopedLoader;
+import pt.psoft.g1.psoftg1.shared.services.RequestScopedLoaders;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
-@RequiredArgsConstructor
 @PropertySource({"classpath:config/library.properties"})
 public class BookServiceImpl implements BookService {
 
@@ -40,10 +45,36 @@ public class BookServiceImpl implements BookService {
 	private final PhotoRepository photoRepository;
 	private final ReaderRepository readerRepository;
 	private final pt.psoft.g1.psoftg1.bookmanagement.api.BookViewMapper bookViewMapper;
+	private final LeaderboardService leaderboardService;
+	private final RecommendationService recommendationService;
+	private final ApplicationEventPublisher eventPublisher;
+	private final RequestScopedLoader<Long, Author> authorLoader;
+	private final RequestScopedLoader<String, Genre> genreLoader;
+	private final RequestScopedLoader<String, Book> bookLoader;
 
 	@Value("${suggestionsLimitPerGenre}")
 	private long suggestionsLimitPerGenre;
 
+	public BookServiceImpl(BookRepository bookRepository, GenreRepository genreRepository,
+						   AuthorRepository authorRepository, PhotoRepository photoRepository,
+						   ReaderRepository readerRepository,
+						   pt.psoft.g1.psoftg1.bookmanagement.api.BookViewMapper bookViewMapper,
+						   LeaderboardService leaderboardService, RecommendationService recommendationService,
+						   ApplicationEventPublisher eventPublisher) {
+		this.bookRepository = bookRepository;
+		this.genreRepository = genreRepository;
+		this.authorRepository = authorRepository;
+		this.photoRepository = photoRepository;
+		this.readerRepository = readerRepository;
+		this.bookViewMapper = bookViewMapper;
+		this.leaderboardService = leaderboardService;
+		this.recommendationService = recommendationService;
+		this.eventPublisher = eventPublisher;
+		this.authorLoader = RequestScopedLoaders.authors(authorRepository);
+		this.genreLoader = RequestScopedLoaders.genres(genreRepository);
+		this.bookLoader = RequestScopedLoaders.books(bookRepository);
+	}
+
 	@Override
 	@CachePut(value = "book", key = "#isbn")
 	public Book create(CreateBookRequest request, String isbn) {
@@ -52,18 +83,7 @@ public class BookServiceImpl implements BookService {
 			throw new ConflictException("Book with ISBN " + isbn + " already exists");
 		}
 
-		List<Long> authorNumbers = request.getAuthors();
-		List<Author> authors = new ArrayList<>();
-		for (Long authorNumber : authorNumbers) {
-
-			Optional<Author> temp = authorRepository.findByAuthorNumber(authorNumber);
-			if(temp.isEmpty()) {
-				continue;
-			}
-
-			Author author = temp.get();
-			authors.add(author);
-		}
+		List<Author> authors = authorLoader.loadAll(request.getAuthors());
 
 		MultipartFile photo = request.getPhoto();
 		String photoURI = request.getPhotoURI();
@@ -72,12 +92,14 @@ public class BookServiceImpl implements BookService {
 			request.setPhotoURI(null);
 		}
 
-		final var genre = genreRepository.findByString(request.getGenre())
+		final var genre = genreLoader.load(request.getGenre())
 				.orElseThrow(() -> new NotFoundException("Genre not found"));
 
 		Book newBook = new Book(isbn, request.getTitle(), request.getDescription(), genre, authors, photoURI);
 
-        return bookRepository.save(newBook);
+		Book saved = bookRepository.save(newBook);
+		eventPublisher.publishEvent(BookEvent.created(saved));
+		return saved;
 	}
 
 
@@ -87,18 +109,7 @@ public class BookServiceImpl implements BookService {
 
         var book = findByIsbn(request.getIsbn());
         if(request.getAuthors()!= null) {
-            List<Long> authorNumbers = request.getAuthors();
-            List<Author> authors = new ArrayList<>();
-            for (Long authorNumber : authorNumbers) {
-                Optional<Author> temp = authorRepository.findByAuthorNumber(authorNumber);
-                if (temp.isEmpty()) {
-                    continue;
-                }
-                Author author = temp.get();
-                authors.add(author);
-            }
-
-            request.setAuthorObjList(authors);
+            request.setAuthorObjList(authorLoader.loadAll(request.getAuthors()));
         }
 
 		MultipartFile photo = request.getPhoto();
@@ -109,16 +120,19 @@ public class BookServiceImpl implements BookService {
 		}
 
         if (request.getGenre() != null) {
-            Optional<Genre> genre = genreRepository.findByString(request.getGenre());
+            Optional<Genre> genre = genreLoader.load(request.getGenre());
             if (genre.isEmpty()) {
                 throw new NotFoundException("Genre not found");
             }
             request.setGenreObj(genre.get());
         }
 
+        Genre previousGenre = book.getGenre();
+        List<Author> previousAuthors = List.copyOf(book.getAuthors());
         book.applyPatch(Long.parseLong(currentVersion), request);
 
 		bookRepository.save(book);
+		eventPublisher.publishEvent(BookEvent.updated(book, previousGenre, previousAuthors));
 
 
 		return book;
@@ -130,8 +144,19 @@ public class BookServiceImpl implements BookService {
 	}
 
 	@Override
-	@Cacheable(value = "top5Books", key = "'all'")
 	public List<pt.psoft.g1.psoftg1.bookmanagement.api.BookCountView> findTop5BooksLent(){
+		if (leaderboardService.isReady()) {
+			final var top = leaderboardService.topBooksLentLastYear(5);
+			final Map<String, Book> books = bookLoader.loadMany(top.stream().map(Map.Entry::getKey).toList());
+			return top.stream()
+				.filter(entry -> books.containsKey(entry.getKey()))
+				.map(entry -> new pt.psoft.g1.psoftg1.bookmanagement.api.BookCountView(
+					bookViewMapper.toBookView(books.get(entry.getKey())),
+					entry.getValue()
+				))
+				.toList();
+		}
+
 		LocalDate oneYearAgo = LocalDate.now().minusYears(1);
 		Pageable pageableRules = PageRequest.of(0,5);
 		List<BookCountDTO> dtos = this.bookRepository.findTop5BooksLent(oneYearAgo, pageableRules).getContent();
@@ -148,16 +173,16 @@ public class BookServiceImpl implements BookService {
 	@Override
 	public Book removeBookPhoto(String isbn, long desiredVersion) {
 		Book book = this.findByIsbn(isbn);
-		String photoFile;
-		try {
-			photoFile = book.getPhoto().getPhotoFile();
-		}catch (NullPointerException e){
+		Photo photo = book.getPhoto();
+		if (photo == null) {
 			throw new NotFoundException("Book did not have a photo assigned to it.");
 		}
 
 		book.removePhoto(desiredVersion);
 		var updatedBook = bookRepository.save(book);
-		photoRepository.deleteByPhotoFile(photoFile);
+		// Stored files are shared between photos, so only this row goes; the file is released by the caller
+		photoRepository.delete(photo);
+		eventPublisher.publishEvent(BookEvent.updated(updatedBook, updatedBook.getGenre(), updatedBook.getAuthors()));
 		return updatedBook;
 	}
 
@@ -173,6 +198,11 @@ public class BookServiceImpl implements BookService {
 				.orElseThrow(() -> new NotFoundException(Book.class, isbn));
 	}
 
+	@Override
+	public Optional<BookVersions> findVersionsByIsbn(String isbn) {
+		return bookRepository.findVersionsByIsbn(isbn);
+	}
+
 	@Override
 	@Cacheable(value = "booksList", key = "#title")
 	public List<Book> findByTitle(String title) {
@@ -196,6 +226,11 @@ public class BookServiceImpl implements BookService {
 			throw new NotFoundException("Reader has no interests");
 		}
 
+		if (recommendationService.isReady()) {
+			List<String> genres = interestList.stream().map(Genre::toString).toList();
+			return bookLoader.loadAll(recommendationService.suggest(readerNumber, genres, (int) suggestionsLimitPerGenre));
+		}
+
 		for(Genre genre : interestList) {
 			List<Book> tempBooks = bookRepository.findByGenre(genre.toString());
 			if(tempBooks.isEmpty()) {
@@ -0,0 +1,16 @@
+package pt.psoft.g1.psoftg1.bookmanagement.services;
+
+import pt.psoft.g1.psoftg1.authormanagement.model.Author;
+import pt.psoft.g1.psoftg1.bookmanagement.model.Book;
+
+/**
+ * The version of a book and the sum of its authors' versions, which together change whenever
+ * anything shown in a {@code BookView} does. Versions only grow, so the sum does too.
+ */
+public record BookVersions(Long version, Long authorsVersion) {
+
+    public static BookVersions of(Book book) {
+        return new BookVersions(book.getVersion(),
+                book.getAuthors().stream().mapToLong(Author::getVersion).sum());
+    }
+}
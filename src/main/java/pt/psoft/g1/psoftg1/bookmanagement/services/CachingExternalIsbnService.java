@@ -0,0 +1,296 @@
+package pt.psoft.g1.psoftg1.bookmanagement.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.Normalizer;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Caches external ISBN lookups in front of {@link ExternalIsbnServiceImpl}.
+ * <p>Titles are keyed after normalization (case, accents and punctuation are ignored), and every
+ * book found by a title search also fills the ISBN cache. Searches that come back empty are cached
+ * for the shorter negative TTL, but only when every source answered, so an outage is not
+ * remembered as "no such book". Concurrent misses for the same key share one external call.
+ * Streamed searches are answered from the cache when possible; otherwise what they found is kept
+ * for the negative TTL only, since a stream cannot tell whether every source answered.
+ * <p>Both caches are LRU-bounded and written to a JSON file in the background, and reloaded on
+ * startup, so quotas are not spent again after a restart.
+ */
+@Slf4j
+@Primary
+@Service
+public class CachingExternalIsbnService implements ExternalIsbnService {
+
+    record Entry(List<IsbnSearchResult> results, long expiresAt) {
+    }
+
+    record Snapshot(Map<String, Entry> titles, Map<String, Entry> isbns) {
+    }
+
+    private final ExternalIsbnServiceImpl delegate;
+    private final Duration ttl;
+    private final Duration negativeTtl;
+    private final Clock clock;
+    private final LookupCache titles;
+    private final LookupCache isbns;
+    private final Path file;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final Map<String, CompletableFuture<ExternalIsbnServiceImpl.SearchOutcome>> inFlight = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+
+    @Autowired
+    public CachingExternalIsbnService(final ExternalIsbnServiceImpl delegate,
+                                      @Value("${external.api.cache.ttl:24h}") final Duration ttl,
+                                      @Value("${external.api.cache.negative-ttl:1h}") final Duration negativeTtl,
+                                      @Value("${external.api.cache.max-entries:10000}") final int maxEntries,
+                                      @Value("${external.api.cache.file:}") final String file,
+                                      @Value("${external.api.cache.flush-interval:60s}") final Duration flushInterval) {
+        this(delegate, ttl, negativeTtl, maxEntries, file.isBlank() ? null : Path.of(file).toAbsolutePath(), Clock.systemUTC());
+
+        this.flusher.scheduleWithFixedDelay(this::flushIfDirty, flushInterval.toMillis(), flushInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    CachingExternalIsbnService(final ExternalIsbnServiceImpl delegate, final Duration ttl, final Duration negativeTtl,
+                               final int maxEntries, final Path file, final Clock clock) {
+        this.delegate = delegate;
+        this.ttl = ttl;
+        this.negativeTtl = negativeTtl;
+        this.clock = clock;
+        this.titles = new LookupCache(maxEntries);
+        this.isbns = new LookupCache(maxEntries);
+        this.file = file;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "isbn-cache-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        load();
+    }
+
+    @Override
+    public List<IsbnSearchResult> searchIsbnByTitle(final String title) {
+        final String key = normalizeTitle(title);
+        if (key.isEmpty()) {
+            return delegate.searchIsbnByTitle(title);
+        }
+
+        final Optional<Entry> cached = titles.get(key, clock.millis());
+        if (cached.isPresent()) {
+            return cached.get().results();
+        }
+
+        final ExternalIsbnServiceImpl.SearchOutcome outcome = singleFlight("title:" + key, () -> delegate.search(title));
+        remember(titles, key, outcome);
+        return outcome.results();
+    }
+
+    @Override
+    public Flux<IsbnSearchResult> streamIsbnByTitle(final String title) {
+        final String key = normalizeTitle(title);
+        if (key.isEmpty()) {
+            return delegate.streamIsbnByTitle(title);
+        }
+
+        return Flux.defer(() -> {
+            final Optional<Entry> cached = titles.get(key, clock.millis());
+            if (cached.isPresent()) {
+                return Flux.fromIterable(cached.get().results());
+            }
+            final List<IsbnSearchResult> streamed = new ArrayList<>();
+            return delegate.streamIsbnByTitle(title)
+                    .doOnNext(streamed::add)
+                    .doOnComplete(() -> remember(titles, key, new ExternalIsbnServiceImpl.SearchOutcome(streamed, false)));
+        });
+    }
+
+    @Override
+    public Optional<IsbnSearchResult> findByIsbn(final String isbn) {
+        final String key = normalizeIsbn(isbn);
+        if (key.isEmpty()) {
+            return Optional.empty();
+        }
+
+        final Optional<Entry> cached = isbns.get(key, clock.millis());
+        if (cached.isPresent()) {
+            return cached.get().results().stream().findFirst();
+        }
+
+        final ExternalIsbnServiceImpl.SearchOutcome outcome = singleFlight("isbn:" + key, () -> delegate.lookupIsbn(key));
+        remember(isbns, key, outcome);
+        return outcome.results().stream().findFirst();
+    }
+
+    static String normalizeTitle(final String title) {
+        if (title == null) {
+            return "";
+        }
+        final String withoutAccents = Normalizer.normalize(title, Normalizer.Form.NFKD).replaceAll("\\p{M}", "");
+        return withoutAccents.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+    }
+
+    static String normalizeIsbn(final String isbn) {
+        return isbn == null ? "" : isbn.replaceAll("[^0-9Xx]", "").toUpperCase(Locale.ROOT);
+    }
+
+    private void remember(final LookupCache cache, final String key, final ExternalIsbnServiceImpl.SearchOutcome outcome) {
+        final long now = clock.millis();
+        if (outcome.results().isEmpty()) {
+            if (outcome.complete()) {
+                cache.put(key, new Entry(List.of(), now + negativeTtl.toMillis()));
+                dirty.set(true);
+            }
+            return;
+        }
+
+        // Partial answers are kept only briefly so the missing source is asked again soon
+        final long expiresAt = now + (outcome.complete() ? ttl : negativeTtl).toMillis();
+        cache.put(key, new Entry(List.copyOf(outcome.results()), expiresAt));
+        for (final IsbnSearchResult result : outcome.results()) {
+            isbns.put(normalizeIsbn(result.getIsbn()), new Entry(List.of(result), now + ttl.toMillis()));
+        }
+        dirty.set(true);
+    }
+
+    private ExternalIsbnServiceImpl.SearchOutcome singleFlight(final String key,
+                                                               final Supplier<ExternalIsbnServiceImpl.SearchOutcome> loader) {
+        final CompletableFuture<ExternalIsbnServiceImpl.SearchOutcome> mine = new CompletableFuture<>();
+        final CompletableFuture<ExternalIsbnServiceImpl.SearchOutcome> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            return running.join();
+        }
+        try {
+            final ExternalIsbnServiceImpl.SearchOutcome outcome = loader.get();
+            mine.complete(outcome);
+            return outcome;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private void load() {
+        if (file == null || !Files.isRegularFile(file)) {
+            return;
+        }
+        try {
+            final Snapshot snapshot = objectMapper.readValue(file.toFile(), Snapshot.class);
+            final long now = clock.millis();
+            titles.putAll(snapshot.titles(), now);
+            isbns.putAll(snapshot.isbns(), now);
+            log.info("Loaded {} title and {} ISBN lookups from {}", titles.size(), isbns.size(), file);
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable ISBN lookup cache {}: {}", file, e.getMessage());
+        }
+    }
+
+    void flushIfDirty() {
+        if (file == null || !dirty.getAndSet(false)) {
+            return;
+        }
+        try {
+            final Path parent = file.getParent();
+            Files.createDirectories(parent);
+            final Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+            try {
+                objectMapper.writeValue(temp.toFile(), new Snapshot(titles.snapshot(), isbns.snapshot()));
+                try {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            dirty.set(true);
+            log.warn("Could not write ISBN lookup cache {}: {}", file, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flusher.shutdownNow();
+        flushIfDirty();
+    }
+
+    /**
+     * Access-ordered map that evicts the least recently used entry beyond {@code maxEntries}.
+     */
+    private static final class LookupCache {
+        private final LinkedHashMap<String, Entry> entries;
+
+        LookupCache(final int maxEntries) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, Entry> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+        }
+
+        synchronized Optional<Entry> get(final String key, final long now) {
+            final Entry entry = entries.get(key);
+            if (entry == null) {
+                return Optional.empty();
+            }
+            if (entry.expiresAt() <= now) {
+                entries.remove(key);
+                return Optional.empty();
+            }
+            return Optional.of(entry);
+        }
+
+        synchronized void put(final String key, final Entry entry) {
+            entries.put(key, entry);
+        }
+
+        synchronized void putAll(final Map<String, Entry> loaded, final long now) {
+            if (loaded == null) {
+                return;
+            }
+            loaded.forEach((key, entry) -> {
+                if (entry.expiresAt() > now) {
+                    entries.put(key, entry);
+                }
+            });
+        }
+
+        synchronized Map<String, Entry> snapshot() {
+            return new LinkedHashMap<>(entries);
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package pt.psoft.g1.psoftg1.bookmanagement.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ValidationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import pt.psoft.g1.psoftg1.authormanagement.model.Author;
+import pt.psoft.g1.psoftg1.authormanagement.repositories.AuthorRepository;
+import pt.psoft.g1.psoftg1.authormanagement.services.AuthorEvent;
+import pt.psoft.g1.psoftg1.bookmanagement.model.Book;
+import pt.psoft.g1.psoftg1.bookmanagement.repositories.BookRepository;
+import pt.psoft.g1.psoftg1.exceptions.ConflictException;
+import pt.psoft.g1.psoftg1.exceptions.NotFoundException;
+import pt.psoft.g1.psoftg1.external.resilience.TokenBucket;
+import pt.psoft.g1.psoftg1.genremanagement.model.Genre;
+import pt.psoft.g1.psoftg1.genremanagement.repositories.GenreRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Imports books in bulk from a text file with one title or ISBN per line, optionally followed by
+ * {@code ;} and a genre ({@code catalog.import.default-genre} otherwise).
+ * <p>Entries are processed in batches of {@code catalog.import.batch-size}. The external lookups of
+ * a batch run on {@code catalog.import.parallelism} threads, paced to
+ * {@code catalog.import.requests-per-second}; ISBNs already in the catalog are never looked up.
+ * Genres are loaded once per run and authors once per batch with a single IN query, and missing
+ * ones are created. The new books of a batch are inserted with one {@code saveAll}.
+ * <p>The import file and a checkpoint with the progress are kept in {@code catalog.import.dir}.
+ * The checkpoint is written after every batch, so a failed or interrupted import resumes after
+ * the last batch it finished. Imports run one at a time.
+ */
+@Slf4j
+@Service
+public class CatalogImportService {
+
+    record Entry(String query, String genre) {
+
+        boolean isIsbn() {
+            return isbn().matches("\\d{9}[\\dX]|\\d{13}");
+        }
+
+        String isbn() {
+            return query.replaceAll("[-\\s]", "").toUpperCase(Locale.ROOT);
+        }
+    }
+
+    private record Candidate(IsbnSearchResult result, String genre) {
+    }
+
+    private final ExternalIsbnService externalIsbnService;
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+    private final GenreRepository genreRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Path directory;
+    private final int batchSize;
+    private final String defaultGenre;
+    private final TokenBucket rateLimiter;
+    private final ExecutorService runner;
+    private final ExecutorService resolvers;
+    private final Map<String, CatalogImportStatus> running = new ConcurrentHashMap<>();
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    public CatalogImportService(final ExternalIsbnService externalIsbnService,
+                                final BookRepository bookRepository,
+                                final AuthorRepository authorRepository,
+                                final GenreRepository genreRepository,
+                                final ApplicationEventPublisher eventPublisher,
+                                @Value("${catalog.import.dir:catalog-imports}") final String directory,
+                                @Value("${catalog.import.parallelism:4}") final int parallelism,
+                                @Value("${catalog.import.requests-per-second:5}") final double requestsPerSecond,
+                                @Value("${catalog.import.batch-size:50}") final int batchSize,
+                                @Value("${catalog.import.default-genre:Uncategorized}") final String defaultGenre) {
+        this.externalIsbnService = externalIsbnService;
+        this.bookRepository = bookRepository;
+        this.authorRepository = authorRepository;
+        this.genreRepository = genreRepository;
+        this.eventPublisher = eventPublisher;
+        this.directory = Path.of(directory).toAbsolutePath().normalize();
+        this.batchSize = batchSize;
+        this.defaultGenre = defaultGenre;
+        this.rateLimiter = new TokenBucket(requestsPerSecond, parallelism);
+        this.runner = Executors.newSingleThreadExecutor(daemonThreads("catalog-import"));
+        this.resolvers = Executors.newFixedThreadPool(parallelism, daemonThreads("catalog-import-lookup"));
+    }
+
+    private static ThreadFactory daemonThreads(final String prefix) {
+        final AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public CatalogImportStatus start(final InputStream file) throws IOException {
+        final String id = UUID.randomUUID().toString();
+        Files.createDirectories(directory);
+        Files.copy(file, entriesFile(id));
+
+        final List<Entry> entries = readEntries(id);
+        if (entries.isEmpty()) {
+            Files.deleteIfExists(entriesFile(id));
+            throw new ValidationException("The import file has no titles or ISBNs");
+        }
+
+        final CatalogImportStatus status = CatalogImportStatus.started(id, entries.size(), Instant.now());
+        running.put(id, status);
+        checkpoint(status);
+        runner.execute(() -> run(status, entries));
+        log.info("Catalog import {} started with {} entries", id, entries.size());
+        return status;
+    }
+
+    public CatalogImportStatus status(final String id) {
+        final CatalogImportStatus active = running.get(id);
+        if (active != null) {
+            return active;
+        }
+        final CatalogImportStatus saved = loadCheckpoint(id);
+        // A checkpoint still marked running belongs to a run that did not survive a restart
+        return saved.state() == CatalogImportStatus.State.RUNNING
+                ? saved.withState(CatalogImportStatus.State.INTERRUPTED, "Stopped before finishing", saved.updatedAt())
+                : saved;
+    }
+
+    public CatalogImportStatus resume(final String id) {
+        final CatalogImportStatus status = status(id);
+        if (status.state() == CatalogImportStatus.State.COMPLETED) {
+            throw new ConflictException("Catalog import " + id + " has already completed");
+        }
+        final CatalogImportStatus resumed = status.withState(CatalogImportStatus.State.RUNNING, null, Instant.now());
+        if (running.putIfAbsent(id, resumed) != null) {
+            throw new ConflictException("Catalog import " + id + " is already running");
+        }
+
+        final List<Entry> entries;
+        try {
+            entries = readEntries(id);
+        } catch (RuntimeException e) {
+            running.remove(id);
+            throw e;
+        }
+        checkpoint(resumed);
+        runner.execute(() -> run(resumed, entries));
+        log.info("Catalog import {} resumed at entry {} of {}", id, resumed.processed(), resumed.total());
+        return resumed;
+    }
+
+    private void run(final CatalogImportStatus initial, final List<Entry> entries) {
+        CatalogImportStatus status = initial;
+        final long runStartedAt = System.nanoTime();
+        try {
+            final Map<String, Genre> genres = new HashMap<>();
+            for (final Genre genre : genreRepository.findAll()) {
+                genres.put(genre.toString().toLowerCase(Locale.ROOT), genre);
+            }
+
+            for (int from = status.processed(); from < entries.size(); from += batchSize) {
+                final List<Entry> batch = entries.subList(from, Math.min(entries.size(), from + batchSize));
+                final int[] counts = importBatch(batch, genres);
+
+                final double seconds = (System.nanoTime() - runStartedAt) / 1e9;
+                final int processedThisRun = status.processed() + batch.size() - initial.processed();
+                status = status.advanced(batch.size(), counts[0], counts[1], counts[2], counts[3],
+                        seconds > 0 ? processedThisRun / seconds : 0, Instant.now());
+                running.put(status.id(), status);
+                checkpoint(status);
+                log.info("Catalog import {}: {}/{} entries, {} imported, {} already in catalog, {} not found, {} failed ({} entries/s)",
+                        status.id(), status.processed(), status.total(), status.imported(), status.alreadyInCatalog(),
+                        status.notFound(), status.failed(), String.format(Locale.ROOT, "%.1f", status.entriesPerSecond()));
+            }
+            status = status.withState(CatalogImportStatus.State.COMPLETED, null, Instant.now());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            status = status.withState(CatalogImportStatus.State.INTERRUPTED, "Stopped before finishing", Instant.now());
+        } catch (RuntimeException e) {
+            log.warn("Catalog import {} failed after {} entries", status.id(), status.processed(), e);
+            status = status.withState(CatalogImportStatus.State.FAILED, e.getMessage(), Instant.now());
+        } finally {
+            checkpoint(status);
+            running.remove(status.id());
+        }
+    }
+
+    /**
+     * @return counts of imported, already in catalog, not found and failed entries
+     */
+    private int[] importBatch(final List<Entry> batch, final Map<String, Genre> genres) throws InterruptedException {
+        int alreadyInCatalog = 0;
+        int notFound = 0;
+        int failed = 0;
+
+        final Set<String> catalogued = existingIsbns(batch.stream().filter(Entry::isIsbn).map(Entry::isbn).toList());
+        final List<Future<Optional<IsbnSearchResult>>> lookups = new ArrayList<>(batch.size());
+        for (final Entry entry : batch) {
+            lookups.add(entry.isIsbn() && catalogued.contains(entry.isbn()) ? null : resolvers.submit(() -> lookup(entry)));
+        }
+
+        final Map<String, Candidate> candidates = new LinkedHashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            final Future<Optional<IsbnSearchResult>> lookup = lookups.get(i);
+            if (lookup == null) {
+                alreadyInCatalog++;
+                continue;
+            }
+            final Optional<IsbnSearchResult> found;
+            try {
+                found = lookup.get();
+            } catch (ExecutionException e) {
+                log.debug("Lookup of '{}' failed: {}", batch.get(i).query(), e.getCause().toString());
+                failed++;
+                continue;
+            }
+            if (found.isEmpty()) {
+                notFound++;
+            } else if (candidates.putIfAbsent(found.get().getIsbn(), new Candidate(found.get(), batch.get(i).genre())) != null) {
+                alreadyInCatalog++;
+            }
+        }
+
+        final Set<String> existing = existingIsbns(candidates.keySet());
+        alreadyInCatalog += existing.size();
+        candidates.keySet().removeAll(existing);
+
+        final Map<String, Author> authors = loadAuthors(candidates.values());
+        final List<Book> books = new ArrayList<>(candidates.size());
+        for (final Candidate candidate : candidates.values()) {
+            try {
+                final List<Author> bookAuthors = new ArrayList<>();
+                for (final String name : authorNames(candidate.result())) {
+                    bookAuthors.add(authors.computeIfAbsent(name.toLowerCase(Locale.ROOT),
+                            key -> createAuthor(name, candidate.result().getSource())));
+                }
+                final Genre genre = genres.computeIfAbsent(candidate.genre().toLowerCase(Locale.ROOT),
+                        key -> genreRepository.save(new Genre(candidate.genre())));
+                books.add(new Book(candidate.result().getIsbn(), candidate.result().getTitle(), null, genre, bookAuthors, null));
+            } catch (IllegalArgumentException e) {
+                log.debug("Skipping {}: {}", candidate.result().getIsbn(), e.getMessage());
+                failed++;
+            }
+        }
+
+        int imported = 0;
+        if (!books.isEmpty()) {
+            for (final Book saved : bookRepository.saveAll(books)) {
+                eventPublisher.publishEvent(BookEvent.created(saved));
+                imported++;
+            }
+        }
+        return new int[]{imported, alreadyInCatalog, notFound, failed};
+    }
+
+    private Optional<IsbnSearchResult> lookup(final Entry entry) throws InterruptedException {
+        rateLimiter.acquire();
+        return entry.isIsbn()
+                ? externalIsbnService.findByIsbn(entry.isbn())
+                : externalIsbnService.searchIsbnByTitle(entry.query()).stream().findFirst();
+    }
+
+    private Set<String> existingIsbns(final Collection<String> isbns) {
+        return isbns.isEmpty() ? Set.of() : new HashSet<>(bookRepository.findExistingIsbns(isbns));
+    }
+
+    private Map<String, Author> loadAuthors(final Collection<Candidate> candidates) {
+        final Set<String> names = new HashSet<>();
+        for (final Candidate candidate : candidates) {
+            names.addAll(authorNames(candidate.result()));
+        }
+        final Map<String, Author> authors = new HashMap<>();
+        if (!names.isEmpty()) {
+            for (final Author author : authorRepository.searchByNameNameIn(names)) {
+                authors.putIfAbsent(author.getName().toLowerCase(Locale.ROOT), author);
+            }
+        }
+        return authors;
+    }
+
+    private Author createAuthor(final String name, final String source) {
+        final Author saved = authorRepository.save(new Author(name, "Imported from " + source, null));
+        eventPublisher.publishEvent(new AuthorEvent(saved));
+        return saved;
+    }
+
+    /**
+     * Author names as accepted by {@link pt.psoft.g1.psoftg1.shared.model.Name}: punctuation such
+     * as the dot in an initial is dropped.
+     */
+    static List<String> authorNames(final IsbnSearchResult result) {
+        if (result.getAuthors() == null) {
+            return List.of();
+        }
+        return result.getAuthors().stream()
+                .map(name -> name.replaceAll("[^\\p{L}0-9\\s'-]", " ").replaceAll("\\s+", " ").strip())
+                .filter(name -> !name.isEmpty())
+                .distinct()
+                .toList();
+    }
+
+    private List<Entry> readEntries(final String id) {
+        try {
+            final List<Entry> entries = new ArrayList<>();
+            for (final String line : Files.readAllLines(entriesFile(id), StandardCharsets.UTF_8)) {
+                final String trimmed = line.strip();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                    continue;
+                }
+                final String[] parts = trimmed.split(";", 2);
+                final String genre = parts.length > 1 && !parts[1].isBlank() ? parts[1].strip() : defaultGenre;
+                entries.add(new Entry(parts[0].strip(), genre));
+            }
+            return entries;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read catalog import " + id, e);
+        }
+    }
+
+    private CatalogImportStatus loadCheckpoint(final String id) {
+        final Path file = checkpointFile(id);
+        if (!Files.isRegularFile(file)) {
+            throw new NotFoundException("Catalog import not found: " + id);
+        }
+        try {
+            return objectMapper.readValue(file.toFile(), CatalogImportStatus.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read checkpoint of catalog import " + id, e);
+        }
+    }
+
+    private void checkpoint(final CatalogImportStatus status) {
+        final Path file = checkpointFile(status.id());
+        try {
+            final Path temp = Files.createTempFile(directory, status.id(), ".tmp");
+            try {
+                objectMapper.writeValue(temp.toFile(), status);
+                try {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            log.warn("Could not write checkpoint of catalog import {}: {}", status.id(), e.getMessage());
+        }
+    }
+
+    private Path entriesFile(final String id) {
+        return directory.resolve(validId(id) + ".txt");
+    }
+
+    private Path checkpointFile(final String id) {
+        return directory.resolve(validId(id) + ".json");
+    }
+
+    private static String validId(final String id) {
+        try {
+            return UUID.fromString(id).toString();
+        } catch (IllegalArgumentException e) {
+            throw new NotFoundException("Catalog import not found: " + id);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        runner.shutdownNow();
+        resolvers.shutdownNow();
+    }
+}
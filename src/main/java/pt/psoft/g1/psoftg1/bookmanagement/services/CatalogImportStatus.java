@@ -0,0 +1,47 @@
+package pt.psoft.g1.psoftg1.bookmanagement.services;
+
+import java.time.Instant;
+
+/**
+ * Progress of one catalog import. This is also the checkpoint written after every batch, so
+ * {@code processed} is the number of entries of the import file that will not be looked at again
+ * on resume.
+ */
+public record CatalogImportStatus(String id,
+                                  State state,
+                                  int total,
+                                  int processed,
+                                  int imported,
+                                  int alreadyInCatalog,
+                                  int notFound,
+                                  int failed,
+                                  double entriesPerSecond,
+                                  Instant startedAt,
+                                  Instant updatedAt,
+                                  String message) {
+
+    public enum State {
+        RUNNING,
+        COMPLETED,
+        FAILED,
+        /** The application stopped while the import was running; it can be resumed. */
+        INTERRUPTED
+    }
+
+    static CatalogImportStatus started(final String id, final int total, final Instant now) {
+        return new CatalogImportStatus(id, State.RUNNING, total, 0, 0, 0, 0, 0, 0, now, now, null);
+    }
+
+    CatalogImportStatus advanced(final int entries, final int imported, final int alreadyInCatalog,
+                                 final int notFound, final int failed, final double entriesPerSecond,
+                                 final Instant now) {
+        return new CatalogImportStatus(id, state, total, processed + entries, this.imported + imported,
+                this.alreadyInCatalog + alreadyInCatalog, this.notFound + notFound, this.failed + failed,
+                entriesPerSecond, startedAt, now, message);
+    }
+
+    CatalogImportStatus withState(final State state, final String message, final Instant now) {
+        return new CatalogImportStatus(id, state, total, processed, imported, alreadyInCatalog, notFound, failed,
+                state == State.RUNNING ? 0 : entriesPerSecond, startedAt, now, message);
+    }
+}
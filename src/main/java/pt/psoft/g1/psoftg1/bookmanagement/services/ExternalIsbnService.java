@@ -1,6 +1,9 @@
 package pt.psoft.g1.psoftg1.bookmanagement.services;
 
+import reactor.core.publisher.Flux;
+
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Service interface for retrieving ISBN information from external APIs
@@ -12,4 +15,19 @@ public interface ExternalIsbnService {
      * @return List of ISBN search results from different sources
      */
     List<IsbnSearchResult> searchIsbnByTitle(String title);
+
+    /**
+     * Search for books by title, emitting each source's results as soon as that source answers
+     * @param title The book title to search for
+     * @return ISBN search results without duplicates, completing when every source has answered
+     * or the search deadline has passed
+     */
+    Flux<IsbnSearchResult> streamIsbnByTitle(String title);
+
+    /**
+     * Look up the metadata of a single book by ISBN across the external APIs
+     * @param isbn ISBN-10 or ISBN-13
+     * @return the first match found, if any
+     */
+    Optional<IsbnSearchResult> findByIsbn(String isbn);
 }
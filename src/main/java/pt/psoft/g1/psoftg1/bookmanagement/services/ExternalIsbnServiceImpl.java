@@ -5,11 +5,22 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import pt.psoft.g1.psoftg1.external.resilience.LatencyTracker;
+import pt.psoft.g1.psoftg1.external.resilience.OutboundGuard;
+import pt.psoft.g1.psoftg1.external.resilience.ResilienceRegistry;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
@@ -17,6 +28,12 @@ import java.util.stream.StreamSupport;
  * Implementation of ISBN retrieval service using external APIs:
  * - Google Books API
  * - Open Library Search API
+ * <p>Both sources are queried concurrently and whatever has arrived by {@code external.api.deadline}
+ * is returned, deduplicated by ISBN. Once a source has enough latency samples, a call still
+ * running after its p95 is hedged with a second identical request, and the first answer wins.
+ * <p>Every request goes through the source's {@link OutboundGuard}, so a failing source is cut
+ * off by its circuit breaker and contributes no results instead of holding threads.
+ * <p>{@link #streamIsbnByTitle} runs the same fan-out without waiting for the slowest source.
  */
 @Slf4j
 @Service
@@ -36,53 +53,151 @@ public class ExternalIsbnServiceImpl implements ExternalIsbnService {
     @Value("${external.api.timeout:5000}")
     private long apiTimeout;
 
-    public ExternalIsbnServiceImpl(WebClient.Builder webClientBuilder) {
+    @Value("${external.api.deadline:5000}")
+    private long apiDeadline = 5000;
+
+    @Value("${external.api.hedging.enabled:true}")
+    private boolean hedgingEnabled = true;
+
+    private final LatencyTracker googleBooksLatency = new LatencyTracker(200, 20);
+    private final LatencyTracker openLibraryLatency = new LatencyTracker(200, 20);
+
+    private final OutboundGuard googleBooksGuard;
+    private final OutboundGuard openLibraryGuard;
+
+    public ExternalIsbnServiceImpl(WebClient.Builder webClientBuilder, ResilienceRegistry resilienceRegistry) {
         this.webClient = webClientBuilder.build();
+        this.googleBooksGuard = resilienceRegistry.guard("google-books");
+        this.openLibraryGuard = resilienceRegistry.guard("open-library");
     }
 
     @Override
     public List<IsbnSearchResult> searchIsbnByTitle(String title) {
-        List<IsbnSearchResult> results = new ArrayList<>();
-        
-        // Call both APIs in parallel
-        try {
-            // Google Books API
-            results.addAll(searchGoogleBooks(title));
-        } catch (Exception e) {
-            log.warn("Google Books API search failed for title '{}': {}", title, e.getMessage());
+        return search(title).results();
+    }
+
+    @Override
+    public Flux<IsbnSearchResult> streamIsbnByTitle(String title) {
+        String query = "title '" + title + "'";
+        return Flux.defer(() -> {
+            // merge serializes emissions, so a plain set is enough to drop ISBNs already sent
+            Set<String> sent = new HashSet<>();
+            return Flux.merge(
+                            withinDeadline(searchGoogleBooks("intitle:" + title), "Google Books", query)
+                                    .flatMapIterable(results -> results.orElse(List.of())),
+                            withinDeadline(searchOpenLibrary("title=" + title), "Open Library", query)
+                                    .flatMapIterable(results -> results.orElse(List.of())))
+                    .filter(result -> sent.add(result.getIsbn()));
+        });
+    }
+
+    @Override
+    public Optional<IsbnSearchResult> findByIsbn(String isbn) {
+        return lookupIsbn(isbn).results().stream().findFirst();
+    }
+
+    /**
+     * Results of one fan-out. {@code complete} is false when a source failed or missed the deadline,
+     * so an empty result does not prove that nothing exists.
+     */
+    record SearchOutcome(List<IsbnSearchResult> results, boolean complete) {
+    }
+
+    SearchOutcome search(String title) {
+        return fanOut(searchGoogleBooks("intitle:" + title), searchOpenLibrary("title=" + title), "title '" + title + "'");
+    }
+
+    SearchOutcome lookupIsbn(String isbn) {
+        return fanOut(searchGoogleBooks("isbn:" + isbn), searchOpenLibrary("isbn=" + isbn), "ISBN " + isbn);
+    }
+
+    private SearchOutcome fanOut(Mono<List<IsbnSearchResult>> googleBooksSearch,
+                                 Mono<List<IsbnSearchResult>> openLibrarySearch, String query) {
+        // Both requests are assembled before this point and subscribed together by zip, so they run concurrently
+        Mono<Optional<List<IsbnSearchResult>>> googleBooks = withinDeadline(googleBooksSearch, "Google Books", query);
+        Mono<Optional<List<IsbnSearchResult>>> openLibrary = withinDeadline(openLibrarySearch, "Open Library", query);
+
+        SearchOutcome outcome = Mono.zip(googleBooks, openLibrary)
+                .map(both -> new SearchOutcome(
+                        deduplicate(both.getT1().orElse(List.of()), both.getT2().orElse(List.of())),
+                        both.getT1().isPresent() && both.getT2().isPresent()))
+                .block();
+
+        return outcome != null ? outcome : new SearchOutcome(List.of(), false);
+    }
+
+    private Mono<Optional<List<IsbnSearchResult>>> withinDeadline(Mono<List<IsbnSearchResult>> source, String sourceName, String query) {
+        return source
+                .map(Optional::of)
+                .timeout(Duration.ofMillis(apiDeadline), Mono.fromSupplier(() -> {
+                    log.warn("{} search for {} missed the {} ms deadline", sourceName, query, apiDeadline);
+                    return Optional.empty();
+                }))
+                .onErrorResume(e -> {
+                    log.warn("{} search failed for {}: {}", sourceName, query, e.getMessage());
+                    return Mono.just(Optional.empty());
+                })
+                .defaultIfEmpty(Optional.empty());
+    }
+
+    private static List<IsbnSearchResult> deduplicate(List<IsbnSearchResult> first, List<IsbnSearchResult> second) {
+        Map<String, IsbnSearchResult> byIsbn = new LinkedHashMap<>();
+        for (IsbnSearchResult result : first) {
+            byIsbn.putIfAbsent(result.getIsbn(), result);
         }
-        
-        try {
-            // Open Library API
-            results.addAll(searchOpenLibrary(title));
-        } catch (Exception e) {
-            log.warn("Open Library API search failed for title '{}': {}", title, e.getMessage());
+        for (IsbnSearchResult result : second) {
+            byIsbn.putIfAbsent(result.getIsbn(), result);
         }
-        
-        return results;
+        return new ArrayList<>(byIsbn.values());
     }
 
     /**
-     * Search Google Books API for books by title
+     * Issues a request and, once the source's p95 latency is known, a hedged copy of it if the
+     * first has not answered by then. The first request is created immediately; the hedge only
+     * if it is actually sent.
      */
-    private List<IsbnSearchResult> searchGoogleBooks(String title) {
-        try {
-            String uri = googleBooksUrl + "/volumes?q=intitle:" + title;
-            if (googleBooksApiKey != null && !googleBooksApiKey.isEmpty()) {
-                uri += "&key=" + googleBooksApiKey;
-            }
+    private Mono<JsonNode> hedged(Supplier<Mono<JsonNode>> request, LatencyTracker latency, OutboundGuard guard) {
+        Mono<JsonNode> primary = timed(request.get(), latency, guard);
+        OptionalLong p95 = latency.percentile(95);
+        if (!hedgingEnabled || p95.isEmpty()) {
+            return primary;
+        }
+        Mono<JsonNode> hedge = Mono.delay(Duration.ofMillis(p95.getAsLong()))
+                .then(Mono.defer(() -> timed(request.get(), latency, guard)));
+        return Mono.firstWithValue(primary, hedge);
+    }
+
+    private Mono<JsonNode> timed(Mono<JsonNode> request, LatencyTracker latency, OutboundGuard guard) {
+        return guard.guard(request.timeout(Duration.ofMillis(apiTimeout)))
+                .elapsed()
+                .doOnNext(timedResponse -> latency.record(timedResponse.getT1()))
+                .map(timedResponse -> timedResponse.getT2());
+    }
+
+    /**
+     * Search Google Books API, e.g. {@code intitle:<title>} or {@code isbn:<isbn>}.
+     * The request is sent when the returned Mono is subscribed.
+     */
+    private Mono<List<IsbnSearchResult>> searchGoogleBooks(String query) {
+        String uri = googleBooksUrl + "/volumes?q=" + query;
+        if (googleBooksApiKey != null && !googleBooksApiKey.isEmpty()) {
+            uri += "&key=" + googleBooksApiKey;
+        }
+        final String requestUri = uri;
 
-            JsonNode response = webClient.get()
-                    .uri(uri)
-                    .retrieve()
-                    .bodyToMono(JsonNode.class)
-                    .timeout(Duration.ofMillis(apiTimeout))
-                    .onErrorResume(e -> {
-                        log.error("Google Books API error: {}", e.getMessage());
-                        return Mono.empty();
-                    })
-                    .block();
+        return hedged(() -> webClient.get()
+                        .uri(requestUri)
+                        .retrieve()
+                        .bodyToMono(JsonNode.class), googleBooksLatency, googleBooksGuard)
+                .onErrorResume(e -> {
+                    log.error("Google Books API error: {}", e.getMessage());
+                    return Mono.empty();
+                })
+                .map(this::parseGoogleBooks);
+    }
 
+    private List<IsbnSearchResult> parseGoogleBooks(JsonNode response) {
+        try {
             if (response != null && response.has("items")) {
                 JsonNode items = response.get("items");
                 return StreamSupport.stream(items.spliterator(), false)
@@ -131,21 +246,23 @@ public class ExternalIsbnServiceImpl implements ExternalIsbnService {
     }
 
     /**
-     * Search Open Library API for books by title
+     * Search Open Library API, e.g. {@code title=<title>} or {@code isbn=<isbn>}.
+     * The request is sent when the returned Mono is subscribed.
      */
-    private List<IsbnSearchResult> searchOpenLibrary(String title) {
-        try {
-            JsonNode response = webClient.get()
-                    .uri(openLibraryUrl + "/search.json?title=" + title + "&fields=title,author_name,isbn,first_publish_year&limit=5")
-                    .retrieve()
-                    .bodyToMono(JsonNode.class)
-                    .timeout(Duration.ofMillis(apiTimeout))
-                    .onErrorResume(e -> {
-                        log.error("Open Library API error: {}", e.getMessage());
-                        return Mono.empty();
-                    })
-                    .block();
+    private Mono<List<IsbnSearchResult>> searchOpenLibrary(String query) {
+        return hedged(() -> webClient.get()
+                        .uri(openLibraryUrl + "/search.json?" + query + "&fields=title,author_name,isbn,first_publish_year&limit=5")
+                        .retrieve()
+                        .bodyToMono(JsonNode.class), openLibraryLatency, openLibraryGuard)
+                .onErrorResume(e -> {
+                    log.error("Open Library API error: {}", e.getMessage());
+                    return Mono.empty();
+                })
+                .map(this::parseOpenLibrary);
+    }
 
+    private List<IsbnSearchResult> parseOpenLibrary(JsonNode response) {
+        try {
             if (response != null && response.has("docs")) {
                 JsonNode docs = response.get("docs");
                 return StreamSupport.stream(docs.spliterator(), false)
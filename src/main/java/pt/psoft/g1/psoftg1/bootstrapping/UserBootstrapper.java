@@ -5,6 +5,7 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Profile;
 import org.springframework.core.annotation.Order;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 import pt.psoft.g1.psoftg1.genremanagement.model.Genre;
@@ -12,6 +13,7 @@ import pt.psoft.g1.psoftg1.genremanagement.repositories.GenreRepository;
 import pt.psoft.g1.psoftg1.readermanagement.model.ReaderDetails;
 import pt.psoft.g1.psoftg1.readermanagement.repositories.ReaderRepository;
 import pt.psoft.g1.psoftg1.usermanagement.model.Librarian;
+import pt.psoft.g1.psoftg1.usermanagement.model.Password;
 import pt.psoft.g1.psoftg1.usermanagement.model.Reader;
 import pt.psoft.g1.psoftg1.usermanagement.model.User;
 import pt.psoft.g1.psoftg1.usermanagement.repositories.UserRepository;
@@ -34,6 +36,7 @@ public class UserBootstrapper implements CommandLineRunner {
     private final ReaderRepository readerRepository;
     private final GenreRepository genreRepository;
     private final JdbcTemplate jdbcTemplate;
+    private final PasswordEncoder passwordEncoder;
     private List<String> queriesToExecute = new ArrayList<>();
 
     @Override
@@ -44,10 +47,14 @@ public class UserBootstrapper implements CommandLineRunner {
         executeQueries();
     }
 
+    private String hash(final String password) {
+        return new Password(password).encode(passwordEncoder);
+    }
+
     private void createReaders() {
         //Reader1 - Manuel
         if (userRepository.findByUsername("manuel@gmail.com").isEmpty()) {
-            final Reader manuel = Reader.newReader("manuel@gmail.com", "Manuelino123!", "Manuel Sarapinto das Coives");
+            final Reader manuel = Reader.newReader("manuel@gmail.com", hash("Manuelino123!"), "Manuel Sarapinto das Coives");
             userRepository.save(manuel);
 
             //String dateFormat = LocalDateTime.of(LocalDate.of(2024, 1, 20), LocalTime.now()).format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSS"));
@@ -85,7 +92,7 @@ public class UserBootstrapper implements CommandLineRunner {
 
         //Reader2 - João
         if (userRepository.findByUsername("joao@gmail.com").isEmpty()) {
-            final Reader joao = Reader.newReader("joao@gmail.com", "Joaoratao!123", "João Ratao");
+            final Reader joao = Reader.newReader("joao@gmail.com", hash("Joaoratao!123"), "João Ratao");
             userRepository.save(joao);
             String dateFormat = LocalDateTime.of(LocalDate.of(2024, 3, 20), LocalTime.now()).format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSS"));
             String query = String.format("UPDATE PUBLIC.T_USER SET CREATED_AT = '%s' WHERE USERNAME = '%s'", dateFormat, joao.getUsername());
@@ -112,7 +119,7 @@ public class UserBootstrapper implements CommandLineRunner {
 
         //Reader3 - Pedro
         if (userRepository.findByUsername("pedro@gmail.com").isEmpty()) {
-            final Reader pedro = Reader.newReader("pedro@gmail.com", "Pedrodascenas!123", "Pedro Das Cenas");
+            final Reader pedro = Reader.newReader("pedro@gmail.com", hash("Pedrodascenas!123"), "Pedro Das Cenas");
             userRepository.save(pedro);
             String dateFormat = LocalDateTime.of(LocalDate.of(2024, 1, 20), LocalTime.now()).format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSS"));
             String query = String.format("UPDATE PUBLIC.T_USER SET CREATED_AT = '%s' WHERE USERNAME = '%s'", dateFormat, pedro.getUsername());
@@ -136,7 +143,7 @@ public class UserBootstrapper implements CommandLineRunner {
 
         //Reader4 - Catarina
         if (userRepository.findByUsername("catarina@gmail.com").isEmpty()) {
-            final Reader catarina = Reader.newReader("catarina@gmail.com", "Catarinamartins!123", "Catarina Martins");
+            final Reader catarina = Reader.newReader("catarina@gmail.com", hash("Catarinamartins!123"), "Catarina Martins");
             userRepository.save(catarina);
             String dateFormat = LocalDateTime.of(LocalDate.of(2024, 3, 20), LocalTime.now()).format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSS"));
             String query = String.format("UPDATE PUBLIC.T_USER SET CREATED_AT = '%s' WHERE USERNAME = '%s'", dateFormat, catarina.getUsername());
@@ -160,7 +167,7 @@ public class UserBootstrapper implements CommandLineRunner {
 
         //Reader5 - Marcelo
         if (userRepository.findByUsername("marcelo@gmail.com").isEmpty()) {
-            final Reader marcelo = Reader.newReader("marcelo@gmail.com", "Marcelosousa!123", "Marcelo Rebelo de Sousa");
+            final Reader marcelo = Reader.newReader("marcelo@gmail.com", hash("Marcelosousa!123"), "Marcelo Rebelo de Sousa");
             userRepository.save(marcelo);
             String dateFormat = LocalDateTime.of(LocalDate.of(2024, 1, 20), LocalTime.now()).format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSS"));
             String query = String.format("UPDATE PUBLIC.T_USER SET CREATED_AT = '%s' WHERE USERNAME = '%s'", dateFormat, marcelo.getUsername());
@@ -184,7 +191,7 @@ public class UserBootstrapper implements CommandLineRunner {
 
         //Reader6 - Luís
         if (userRepository.findByUsername("luis@gmail.com").isEmpty()) {
-            final Reader luis = Reader.newReader("luis@gmail.com", "Luismontenegro!123", "Luís Montenegro");
+            final Reader luis = Reader.newReader("luis@gmail.com", hash("Luismontenegro!123"), "Luís Montenegro");
             userRepository.save(luis);
             String dateFormat = LocalDateTime.of(LocalDate.of(2024, 3, 20), LocalTime.now()).format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSS"));
             String query = String.format("UPDATE PUBLIC.T_USER SET CREATED_AT = '%s' WHERE USERNAME = '%s'", dateFormat, luis.getUsername());
@@ -208,7 +215,7 @@ public class UserBootstrapper implements CommandLineRunner {
 
         //Reader7 - António
         if (userRepository.findByUsername("antonio@gmail.com").isEmpty()) {
-            final Reader antonio = Reader.newReader("antonio@gmail.com", "Antoniocosta!123", "António Costa");
+            final Reader antonio = Reader.newReader("antonio@gmail.com", hash("Antoniocosta!123"), "António Costa");
             userRepository.save(antonio);
             String dateFormat = LocalDateTime.of(LocalDate.of(2024, 6, 20), LocalTime.now()).format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSS"));
             String query = String.format("UPDATE PUBLIC.T_USER SET CREATED_AT = '%s' WHERE USERNAME = '%s'", dateFormat, antonio.getUsername());
@@ -232,7 +239,7 @@ public class UserBootstrapper implements CommandLineRunner {
 
         //Reader8 - André
         if (userRepository.findByUsername("andre@gmail.com").isEmpty()) {
-            final Reader andre = Reader.newReader("andre@gmail.com", "Andreventura!123", "André Ventura");
+            final Reader andre = Reader.newReader("andre@gmail.com", hash("Andreventura!123"), "André Ventura");
             userRepository.save(andre);
             String dateFormat = LocalDateTime.of(LocalDate.of(2024, 5, 20), LocalTime.now()).format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSS"));
             String query = String.format("UPDATE PUBLIC.T_USER SET CREATED_AT = '%s' WHERE USERNAME = '%s'", dateFormat, andre.getUsername());
@@ -258,7 +265,7 @@ public class UserBootstrapper implements CommandLineRunner {
     private void createLibrarian(){
         // Maria
         if (userRepository.findByUsername("maria@gmail.com").isEmpty()) {
-            final User maria = Librarian.newLibrarian("maria@gmail.com", "Mariaroberta!123", "Maria Roberta");
+            final User maria = Librarian.newLibrarian("maria@gmail.com", hash("Mariaroberta!123"), "Maria Roberta");
             userRepository.save(maria);
         }
     }
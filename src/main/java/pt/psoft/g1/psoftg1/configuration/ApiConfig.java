@@ -25,6 +25,9 @@ public class ApiConfig {
 
     /*
      * Etags
+     *
+     * Fallback for endpoints without deep ETags. Endpoints that check If-None-Match through
+     * EtagService opt out of it, so their bodies are not buffered and hashed.
      */
     @Bean
     public ShallowEtagHeaderFilter shallowEtagHeaderFilter() {
@@ -24,8 +24,8 @@ public class ApiNinjasConfig {
 
 
     @Bean
-    public WebClient webClient() {
-        return WebClient.builder()
+    public WebClient webClient(final WebClient.Builder webClientBuilder) {
+        return webClientBuilder
                 .baseUrl("https://api.api-ninjas.com/" + VERSION)
                 .defaultHeader(HEADER, key)
                 .build();
@@ -29,7 +29,8 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
         "pt.psoft.g1.psoftg1.lendingmanagement.infrastructure.repositories.impl",
         "pt.psoft.g1.psoftg1.readermanagement.infraestructure.repositories.impl",
         "pt.psoft.g1.psoftg1.usermanagement.infrastructure.repositories.impl",
-        "pt.psoft.g1.psoftg1.shared.infrastructure.repositories.impl"
+        "pt.psoft.g1.psoftg1.shared.infrastructure.repositories.impl",
+        "pt.psoft.g1.psoftg1.analytics.infrastructure.repositories.impl"
     },
     excludeFilters = @org.springframework.context.annotation.ComponentScan.Filter(
         type = org.springframework.context.annotation.FilterType.REGEX,
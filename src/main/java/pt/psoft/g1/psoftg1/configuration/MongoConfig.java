@@ -24,7 +24,8 @@ import org.springframework.data.mongodb.repository.config.EnableMongoRepositorie
         "pt.psoft.g1.psoftg1.lendingmanagement.infrastructure.repositories.mongo",
         "pt.psoft.g1.psoftg1.readermanagement.infraestructure.repositories.mongo",
         "pt.psoft.g1.psoftg1.usermanagement.infrastructure.repositories.mongo",
-        "pt.psoft.g1.psoftg1.shared.infrastructure.repositories.mongo"
+        "pt.psoft.g1.psoftg1.shared.infrastructure.repositories.mongo",
+        "pt.psoft.g1.psoftg1.analytics.infrastructure.repositories.mongo"
 })
 public class MongoConfig {
 }
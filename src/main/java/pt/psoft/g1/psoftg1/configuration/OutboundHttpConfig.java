@@ -0,0 +1,33 @@
+package pt.psoft.g1.psoftg1.configuration;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import pt.psoft.g1.psoftg1.external.resilience.ResilienceProperties;
+import reactor.netty.http.client.HttpClient;
+
+import java.time.Duration;
+
+/**
+ * Connection and response timeouts for every {@code WebClient} built from the Spring-managed
+ * builder, so no outbound call can wait on a socket indefinitely. Per-dependency bulkheads and
+ * circuit breakers are configured through {@link ResilienceProperties}.
+ */
+@Configuration
+@EnableConfigurationProperties({ ResilienceProperties.class })
+public class OutboundHttpConfig {
+
+    @Bean
+    public WebClientCustomizer outboundTimeoutsCustomizer(
+            @Value("${external.http.connect-timeout:2s}") final Duration connectTimeout,
+            @Value("${external.http.response-timeout:5s}") final Duration responseTimeout) {
+        final HttpClient httpClient = HttpClient.create()
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .responseTimeout(responseTimeout);
+        return builder -> builder.clientConnector(new ReactorClientHttpConnector(httpClient));
+    }
+}
@@ -4,6 +4,7 @@ import static java.lang.String.format;
 
 import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -22,7 +23,6 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtEncoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
@@ -41,6 +41,8 @@ import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
 import com.nimbusds.jose.jwk.source.JWKSource;
 import com.nimbusds.jose.proc.SecurityContext;
 
+import pt.psoft.g1.psoftg1.auth.services.BoundedPasswordEncoder;
+import pt.psoft.g1.psoftg1.auth.services.CachingJwtDecoder;
 import pt.psoft.g1.psoftg1.usermanagement.model.Role;
 
 import lombok.RequiredArgsConstructor;
@@ -139,8 +141,13 @@ public class SecurityConfig {
                 .requestMatchers(HttpMethod.GET,"/api/authors/{authorNumber}/photo").hasAnyRole(Role.READER, Role.LIBRARIAN)
                 .requestMatchers(HttpMethod.DELETE,"/api/authors/{authorNumber}/photo").hasAnyRole(Role.LIBRARIAN)
                 .requestMatchers(HttpMethod.GET,"/api/authors/{authorNumber}/coauthors").hasRole(Role.READER)
+                .requestMatchers(HttpMethod.GET,"/api/authors/{authorNumber}/coauthors/counts").hasRole(Role.READER)
+                .requestMatchers(HttpMethod.GET,"/api/authors/{authorNumber}/collaborators").hasRole(Role.READER)
                 //end authors
                 //books
+                .requestMatchers(HttpMethod.POST,"/api/books/import").hasRole(Role.LIBRARIAN)
+                .requestMatchers(HttpMethod.GET,"/api/books/import/{id}").hasRole(Role.LIBRARIAN)
+                .requestMatchers(HttpMethod.POST,"/api/books/import/{id}/resume").hasRole(Role.LIBRARIAN)
                 .requestMatchers(HttpMethod.PUT,"/api/books/{isbn}").hasRole(Role.LIBRARIAN)
                 .requestMatchers(HttpMethod.PATCH,"/api/books/{isbn}").hasRole(Role.LIBRARIAN)
                 .requestMatchers(HttpMethod.GET,"/api/books/{isbn}/avgDuration").hasRole(Role.LIBRARIAN)
@@ -152,6 +159,8 @@ public class SecurityConfig {
                 .requestMatchers(HttpMethod.GET,"/api/books/suggestions").hasRole(Role.READER)
                 .requestMatchers(HttpMethod.POST,"/api/books/search").hasAnyRole(Role.LIBRARIAN, Role.READER)
                 .requestMatchers(HttpMethod.GET,"/api/books/isbn/search").permitAll() // Public endpoint for ISBN search
+                .requestMatchers(HttpMethod.GET,"/api/books/isbn/lookup").permitAll()
+                .requestMatchers(HttpMethod.GET,"/api/books/isbn/search/stream").permitAll()
                 //endBooks
                 //readers
                 .requestMatchers(HttpMethod.PATCH,"/api/readers").hasRole(Role.READER)
@@ -175,13 +184,25 @@ public class SecurityConfig {
                 //end genres
                 //lendings
                 .requestMatchers(HttpMethod.GET,"/api/lendings/overdue").hasRole(Role.LIBRARIAN)
+                .requestMatchers(HttpMethod.GET,"/api/lendings/occupancy/daily").hasRole(Role.LIBRARIAN)
                 .requestMatchers(HttpMethod.GET,"/api/lendings/{year}/{seq}").hasAnyRole(Role.READER, Role.LIBRARIAN)
                 .requestMatchers(HttpMethod.POST,"/api/lendings").hasRole(Role.LIBRARIAN)
                 .requestMatchers(HttpMethod.GET,"/api/lendings/avgDuration").hasRole(Role.LIBRARIAN)
                 .requestMatchers(HttpMethod.GET,"/api/lendings/overdue").hasRole(Role.LIBRARIAN)
                 .requestMatchers(HttpMethod.PATCH,"/api/lendings/{year}/{seq}").hasRole(Role.READER)
                 .requestMatchers(HttpMethod.POST,"/api/lendings/search").hasAnyRole(Role.LIBRARIAN)
+                .requestMatchers(HttpMethod.POST,"/api/lendings/aggregate").hasRole(Role.LIBRARIAN)
+                .requestMatchers(HttpMethod.GET,"/api/lendings/averageMonthlyPerReader").hasRole(Role.LIBRARIAN)
+                .requestMatchers(HttpMethod.GET,"/api/lendings/occupancy").hasRole(Role.LIBRARIAN)
+                .requestMatchers(HttpMethod.GET,"/api/lendings/overlapping").hasRole(Role.LIBRARIAN)
                 //end lendings
+                .requestMatchers(HttpMethod.GET,"/api/exports/**").hasRole(Role.LIBRARIAN)
+                //end exports
+                .requestMatchers(HttpMethod.POST,"/api/reports").hasRole(Role.LIBRARIAN)
+                .requestMatchers(HttpMethod.GET,"/api/reports/{id}").hasRole(Role.LIBRARIAN)
+                .requestMatchers(HttpMethod.GET,"/api/reports/{id}/result").hasRole(Role.LIBRARIAN)
+                .requestMatchers(HttpMethod.DELETE,"/api/reports/{id}").hasRole(Role.LIBRARIAN)
+                //end reports
                 // Admin has access to all endpoints
                 .requestMatchers("/**").hasRole(Role.ADMIN)
                 .anyRequest().authenticated()
@@ -200,10 +221,11 @@ public class SecurityConfig {
         return new NimbusJwtEncoder(jwks);
     }
 
-    // Used by JwtAuthenticationProvider to decode and validate JWT tokens
+    // Used by JwtAuthenticationProvider to decode and validate JWT tokens; verified tokens are
+    // remembered so that their RSA signature is checked once rather than on every request
     @Bean
-    public JwtDecoder jwtDecoder() {
-        return NimbusJwtDecoder.withPublicKey(this.rsaPublicKey).build();
+    public CachingJwtDecoder jwtDecoder(@Value("${jwt.cache.max-entries:10000}") final int maxEntries) {
+        return new CachingJwtDecoder(NimbusJwtDecoder.withPublicKey(this.rsaPublicKey).build(), maxEntries);
     }
 
     // Extract authorities from the roles claim
@@ -218,10 +240,14 @@ public class SecurityConfig {
         return jwtAuthenticationConverter;
     }
 
-    // Set password encoding schema
+    // Set password encoding schema, hashed on its own bounded pool; 0 workers uses one per available processor
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BoundedPasswordEncoder passwordEncoder(@Value("${password.hashing.strength:10}") final int strength,
+                                                  @Value("${password.hashing.workers:0}") final int workers,
+                                                  @Value("${password.hashing.queue-capacity:100}") final int queueCapacity,
+                                                  @Value("${password.hashing.timeout:2s}") final Duration timeout) {
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(strength),
+                workers > 0 ? workers : Runtime.getRuntime().availableProcessors(), queueCapacity, timeout);
     }
 
     // Used by spring security if CORS is enabled.
@@ -0,0 +1,17 @@
+package pt.psoft.g1.psoftg1.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * A resource the request needs is saturated; the client may retry shortly.
+ */
+@ResponseStatus(code = HttpStatus.SERVICE_UNAVAILABLE)
+public class ServiceUnavailableException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public ServiceUnavailableException(final String string) {
+		super(string);
+	}
+}
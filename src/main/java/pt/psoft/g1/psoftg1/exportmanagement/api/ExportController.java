@@ -0,0 +1,79 @@
+package pt.psoft.g1.psoftg1.exportmanagement.api;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import pt.psoft.g1.psoftg1.exportmanagement.services.ExportFormat;
+import pt.psoft.g1.psoftg1.exportmanagement.services.ExportService;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+
+@Tag(name = "Exports", description = "Bulk exports of lendings, books and readers")
+@RestController
+@RequestMapping("/api/exports")
+public class ExportController {
+    private final ExportService exportService;
+    private final Duration timeout;
+
+    public ExportController(final ExportService exportService,
+                            @Value("${export.timeout:30m}") final Duration timeout) {
+        this.exportService = exportService;
+        this.timeout = timeout;
+    }
+
+    @FunctionalInterface
+    private interface Exporter {
+        long export(ExportFormat format, OutputStream out) throws IOException;
+    }
+
+    @Operation(summary = "Streams every lending as CSV or NDJSON")
+    @GetMapping("/lendings")
+    public WebAsyncTask<Void> exportLendings(
+            @Parameter(description = "csv or ndjson") @RequestParam(value = "format", defaultValue = "csv") final String format,
+            final HttpServletResponse response) {
+        return stream("lendings", ExportFormat.parse(format), exportService::exportLendings, response);
+    }
+
+    @Operation(summary = "Streams every book as CSV or NDJSON")
+    @GetMapping("/books")
+    public WebAsyncTask<Void> exportBooks(
+            @Parameter(description = "csv or ndjson") @RequestParam(value = "format", defaultValue = "csv") final String format,
+            final HttpServletResponse response) {
+        return stream("books", ExportFormat.parse(format), exportService::exportBooks, response);
+    }
+
+    @Operation(summary = "Streams every reader as CSV or NDJSON")
+    @GetMapping("/readers")
+    public WebAsyncTask<Void> exportReaders(
+            @Parameter(description = "csv or ndjson") @RequestParam(value = "format", defaultValue = "csv") final String format,
+            final HttpServletResponse response) {
+        return stream("readers", ExportFormat.parse(format), exportService::exportReaders, response);
+    }
+
+    // Streams on an async request with its own timeout, so long exports do not need a longer
+    // spring.mvc.async.request-timeout for every other async endpoint
+    private WebAsyncTask<Void> stream(final String name, final ExportFormat format, final Exporter exporter,
+                                      final HttpServletResponse response) {
+        final ContentDisposition disposition = ContentDisposition.attachment()
+                .filename(name + "." + format.getExtension())
+                .build();
+        response.setContentType(format.getMediaType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, disposition.toString());
+        return new WebAsyncTask<>(timeout.toMillis(), () -> {
+            exporter.export(format, response.getOutputStream());
+            response.flushBuffer();
+            return null;
+        });
+    }
+}
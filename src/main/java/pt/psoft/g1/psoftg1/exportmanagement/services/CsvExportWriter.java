@@ -0,0 +1,48 @@
+package pt.psoft.g1.psoftg1.exportmanagement.services;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * RFC 4180 CSV: a header line, then one line per row. Fields holding a comma, a quote or a line
+ * break are quoted, with quotes doubled; missing values are left empty.
+ */
+class CsvExportWriter implements ExportWriter {
+
+    private final Writer writer;
+
+    CsvExportWriter(Writer writer, List<String> columns) throws IOException {
+        this.writer = writer;
+        row(columns);
+    }
+
+    @Override
+    public void row(List<?> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object value = values.get(i);
+            if (value != null) {
+                writeField(value.toString());
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    private void writeField(String field) throws IOException {
+        if (field.chars().noneMatch(c -> c == ',' || c == '"' || c == '\n' || c == '\r')) {
+            writer.write(field);
+            return;
+        }
+        writer.write('"');
+        writer.write(field.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
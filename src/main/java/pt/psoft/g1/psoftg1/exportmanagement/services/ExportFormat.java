@@ -0,0 +1,37 @@
+package pt.psoft.g1.psoftg1.exportmanagement.services;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Locale;
+
+@Getter
+public enum ExportFormat {
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String mediaType;
+    private final String extension;
+
+    ExportFormat(String mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public static ExportFormat parse(String format) {
+        try {
+            return valueOf(format.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Unsupported export format: " + format + " (expected csv or ndjson)");
+        }
+    }
+
+    ExportWriter open(Writer writer, List<String> columns) throws IOException {
+        return switch (this) {
+            case CSV -> new CsvExportWriter(writer, columns);
+            case NDJSON -> new NdjsonExportWriter(writer, columns);
+        };
+    }
+}
@@ -0,0 +1,136 @@
+package pt.psoft.g1.psoftg1.exportmanagement.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import pt.psoft.g1.psoftg1.authormanagement.model.Author;
+import pt.psoft.g1.psoftg1.bookmanagement.model.Book;
+import pt.psoft.g1.psoftg1.genremanagement.model.Genre;
+import pt.psoft.g1.psoftg1.lendingmanagement.model.Lending;
+import pt.psoft.g1.psoftg1.readermanagement.model.ReaderDetails;
+import pt.psoft.g1.psoftg1.shared.repositories.EntityCursor;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk exports of lendings, books and readers as CSV or NDJSON.
+ * <p>Rows are read through an {@link EntityCursor} and written straight to the output, so heap use
+ * is bounded by the fetch size rather than the table size. The associations the columns read are
+ * fetched in the same query. The output is flushed after the header
+ * and after every fetched batch, so clients start receiving data right away.
+ */
+@Service
+public class ExportService {
+
+    private record Column<T>(String name, Function<T, Object> value) {
+    }
+
+    // Every association the columns read, to-one ones included: they are eager and would otherwise
+    // be selected one entity at a time
+    private static final List<String> LENDING_FETCH = List.of(
+            "book", "book.genre", "book.photo", "readerDetails", "readerDetails.reader", "readerDetails.photo");
+    private static final List<String> BOOK_FETCH = List.of("genre", "photo", "authors", "authors.photo");
+    private static final List<String> READER_FETCH = List.of("reader", "photo", "interestList");
+
+    private static final List<Column<Lending>> LENDING_COLUMNS = List.of(
+            new Column<>("lendingNumber", Lending::getLendingNumber),
+            new Column<>("isbn", lending -> lending.getBook().getIsbn()),
+            new Column<>("title", Lending::getTitle),
+            new Column<>("readerNumber", lending -> lending.getReaderDetails().getReaderNumber()),
+            new Column<>("startDate", Lending::getStartDate),
+            new Column<>("limitDate", Lending::getLimitDate),
+            new Column<>("returnedDate", Lending::getReturnedDate),
+            new Column<>("fineValueInCents", lending -> lending.getFineValueInCents().orElse(null)));
+
+    private static final List<Column<Book>> BOOK_COLUMNS = List.of(
+            new Column<>("isbn", Book::getIsbn),
+            new Column<>("title", Book::getTitle),
+            new Column<>("genre", Book::getGenre),
+            new Column<>("authors", book -> book.getAuthors().stream()
+                    .map(Author::getName).collect(Collectors.joining("; "))));
+
+    private static final List<Column<ReaderDetails>> READER_COLUMNS = List.of(
+            new Column<>("readerNumber", ReaderDetails::getReaderNumber),
+            new Column<>("username", readerDetails -> readerDetails.getReader().getUsername()),
+            new Column<>("name", readerDetails -> readerDetails.getReader().getName()),
+            new Column<>("birthDate", ReaderDetails::getBirthDate),
+            new Column<>("phoneNumber", ReaderDetails::getPhoneNumber),
+            new Column<>("gdprConsent", ReaderDetails::isGdprConsent),
+            new Column<>("marketingConsent", ReaderDetails::isMarketingConsent),
+            new Column<>("thirdPartySharingConsent", ReaderDetails::isThirdPartySharingConsent),
+            new Column<>("interests", readerDetails -> readerDetails.getInterestList() == null ? null
+                    : readerDetails.getInterestList().stream()
+                    .map(Genre::toString).collect(Collectors.joining("; "))));
+
+    private final EntityCursor entityCursor;
+    private final int fetchSize;
+
+    public ExportService(final EntityCursor entityCursor,
+                         @Value("${export.fetch-size:500}") final int fetchSize) {
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("export.fetch-size must be positive");
+        }
+        this.entityCursor = entityCursor;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * @return the number of rows written
+     */
+    public long exportLendings(ExportFormat format, OutputStream out) throws IOException {
+        return export(Lending.class, LENDING_FETCH, LENDING_COLUMNS, format, out);
+    }
+
+    public long exportBooks(ExportFormat format, OutputStream out) throws IOException {
+        return export(Book.class, BOOK_FETCH, BOOK_COLUMNS, format, out);
+    }
+
+    public long exportReaders(ExportFormat format, OutputStream out) throws IOException {
+        return export(ReaderDetails.class, READER_FETCH, READER_COLUMNS, format, out);
+    }
+
+    private <T> long export(Class<T> type, List<String> fetch, List<Column<T>> columns, ExportFormat format,
+                            OutputStream out) throws IOException {
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        final ExportWriter rows = format.open(writer, columns.stream().map(Column::name).toList());
+        rows.flush();
+
+        final List<Object> values = new ArrayList<>(columns.size());
+        final long[] written = {0};
+        try {
+            entityCursor.forEach(type, fetch, fetchSize, entity -> {
+                values.clear();
+                for (Column<T> column : columns) {
+                    values.add(scalar(column.value().apply(entity)));
+                }
+                try {
+                    rows.row(values);
+                    if (++written[0] % fetchSize == 0) {
+                        rows.flush();
+                    }
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        rows.flush();
+        return written[0];
+    }
+
+    // value objects (Title, Name, BirthDate, ...) export as their string form
+    private static Object scalar(Object value) {
+        return value == null || value instanceof Number || value instanceof Boolean ? value : Objects.toString(value);
+    }
+}
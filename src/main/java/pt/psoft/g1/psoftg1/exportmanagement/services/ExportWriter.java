@@ -0,0 +1,16 @@
+package pt.psoft.g1.psoftg1.exportmanagement.services;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes export rows one at a time, with no buffering beyond the underlying writer's.
+ */
+interface ExportWriter extends Flushable {
+
+    /**
+     * @param values one value per column, in column order; {@code null} for missing values
+     */
+    void row(List<?> values) throws IOException;
+}
@@ -0,0 +1,50 @@
+package pt.psoft.g1.psoftg1.exportmanagement.services;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Newline-delimited JSON: one object per line, keyed by column name. Numbers and booleans keep
+ * their JSON types and every other value is written as a string.
+ */
+class NdjsonExportWriter implements ExportWriter {
+
+    private static final JsonFactory JSON = new JsonFactory().setRootValueSeparator(null);
+
+    private final JsonGenerator generator;
+    private final List<String> columns;
+
+    NdjsonExportWriter(Writer writer, List<String> columns) throws IOException {
+        this.generator = JSON.createGenerator(writer).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.columns = columns;
+    }
+
+    @Override
+    public void row(List<?> values) throws IOException {
+        generator.writeStartObject();
+        for (int i = 0; i < columns.size(); i++) {
+            generator.writeFieldName(columns.get(i));
+            Object value = values.get(i);
+            if (value == null) {
+                generator.writeNull();
+            } else if (value instanceof Integer || value instanceof Long) {
+                generator.writeNumber(((Number) value).longValue());
+            } else if (value instanceof Boolean bool) {
+                generator.writeBoolean(bool);
+            } else {
+                generator.writeString(value.toString());
+            }
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        generator.flush();
+    }
+}
@@ -0,0 +1,33 @@
+package pt.psoft.g1.psoftg1.external.resilience;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Caps the number of concurrent calls to one dependency. Callers over the limit are refused
+ * immediately rather than queued, so a slow upstream cannot tie up every request thread.
+ */
+public class Bulkhead {
+    private final int maxConcurrentCalls;
+    private final Semaphore permits;
+
+    public Bulkhead(final int maxConcurrentCalls) {
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.permits = new Semaphore(maxConcurrentCalls);
+    }
+
+    public boolean tryAcquire() {
+        return permits.tryAcquire();
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+}
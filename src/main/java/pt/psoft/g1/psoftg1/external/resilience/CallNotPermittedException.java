@@ -0,0 +1,13 @@
+package pt.psoft.g1.psoftg1.external.resilience;
+
+/**
+ * Thrown instead of making an outbound call when the dependency's circuit is open or its
+ * bulkhead has no free slot.
+ */
+public class CallNotPermittedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public CallNotPermittedException(final String message) {
+        super(message);
+    }
+}
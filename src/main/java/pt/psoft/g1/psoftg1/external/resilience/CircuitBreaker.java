@@ -0,0 +1,131 @@
+package pt.psoft.g1.psoftg1.external.resilience;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based sliding-window circuit breaker.
+ * <p>While CLOSED, the outcome of the last {@code windowSize} calls is kept; once at least
+ * {@code minimumCalls} are recorded and the failure rate reaches the threshold the circuit OPENs
+ * and calls are refused for {@code openDuration}. It then goes HALF_OPEN and lets
+ * {@code halfOpenCalls} trial calls through: if all succeed it closes again, any failure re-opens it.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final boolean[] failures;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long openDurationNanos;
+    private final int halfOpenCalls;
+    private final LongSupplier nanoTime;
+
+    private State state = State.CLOSED;
+    private int next;
+    private int recorded;
+    private int failureCount;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    public CircuitBreaker(final int windowSize, final int minimumCalls, final int failureRateThreshold,
+                          final Duration openDuration, final int halfOpenCalls) {
+        this(windowSize, minimumCalls, failureRateThreshold, openDuration, halfOpenCalls, System::nanoTime);
+    }
+
+    CircuitBreaker(final int windowSize, final int minimumCalls, final int failureRateThreshold,
+                   final Duration openDuration, final int halfOpenCalls, final LongSupplier nanoTime) {
+        this.failures = new boolean[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+        this.halfOpenCalls = halfOpenCalls;
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * @return whether a call may be made now; every permitted call must be followed by
+     * {@link #onSuccess()}, {@link #onFailure()} or {@link #releasePermission()}
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (nanoTime.getAsLong() - openedAt < openDurationNanos) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            halfOpenPermits = halfOpenCalls;
+            halfOpenSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits == 0) {
+                return false;
+            }
+            halfOpenPermits--;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++halfOpenSuccesses >= halfOpenCalls) {
+                close();
+            }
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (recorded >= minimumCalls && failureRate() >= failureRateThreshold) {
+            open();
+        }
+    }
+
+    /**
+     * Gives back a permission whose call was cancelled before it had an outcome.
+     */
+    public synchronized void releasePermission() {
+        if (state == State.HALF_OPEN && halfOpenPermits + halfOpenSuccesses < halfOpenCalls) {
+            halfOpenPermits++;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /** Failure percentage over the current window, 0 when nothing has been recorded. */
+    public synchronized float failureRate() {
+        return recorded == 0 ? 0 : failureCount * 100f / recorded;
+    }
+
+    private void record(final boolean failure) {
+        if (recorded == failures.length && failures[next]) {
+            failureCount--;
+        }
+        failures[next] = failure;
+        if (failure) {
+            failureCount++;
+        }
+        next = (next + 1) % failures.length;
+        recorded = Math.min(recorded + 1, failures.length);
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = nanoTime.getAsLong();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        next = 0;
+        recorded = 0;
+        failureCount = 0;
+    }
+}
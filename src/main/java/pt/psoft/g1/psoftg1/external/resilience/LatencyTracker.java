@@ -0,0 +1,45 @@
+package pt.psoft.g1.psoftg1.external.resilience;
+
+import java.util.Arrays;
+import java.util.OptionalLong;
+
+/**
+ * Keeps the latencies of the most recent successful calls to a remote source and reports a
+ * percentile over them. Used to decide when a slow call is worth hedging.
+ */
+public class LatencyTracker {
+    private final long[] samples;
+    private final int minSamples;
+    private int next;
+    private int size;
+
+    public LatencyTracker(final int capacity, final int minSamples) {
+        this.samples = new long[capacity];
+        this.minSamples = minSamples;
+    }
+
+    public synchronized void record(final long millis) {
+        samples[next] = millis;
+        next = (next + 1) % samples.length;
+        size = Math.min(size + 1, samples.length);
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the latency below which that share of recent calls completed, or empty while fewer
+     * than {@code minSamples} calls have been recorded
+     */
+    public synchronized OptionalLong percentile(final double percentile) {
+        if (size < minSamples) {
+            return OptionalLong.empty();
+        }
+        final long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        final int index = (int) Math.ceil(percentile / 100.0 * size) - 1;
+        return OptionalLong.of(sorted[Math.max(0, Math.min(index, size - 1))]);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+}
@@ -0,0 +1,102 @@
+package pt.psoft.g1.psoftg1.external.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bulkhead, circuit breaker and time budget for one outbound dependency.
+ */
+public class OutboundGuard {
+    private final String name;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final Duration timeout;
+    private final Counter successes;
+    private final Counter failures;
+    private final Counter rejections;
+
+    OutboundGuard(final String name, final ResilienceProperties.Policy policy, final MeterRegistry meterRegistry) {
+        this.name = name;
+        this.circuitBreaker = new CircuitBreaker(policy.getSlidingWindowSize(), policy.getMinimumCalls(),
+                policy.getFailureRateThreshold(), policy.getOpenDuration(), policy.getHalfOpenCalls());
+        this.bulkhead = new Bulkhead(policy.getMaxConcurrentCalls());
+        this.timeout = policy.getTimeout();
+        this.successes = counter(meterRegistry, "success");
+        this.failures = counter(meterRegistry, "failure");
+        this.rejections = counter(meterRegistry, "rejected");
+    }
+
+    private Counter counter(final MeterRegistry meterRegistry, final String outcome) {
+        return Counter.builder("external.calls")
+                .description("Outbound calls by outcome")
+                .tag("dependency", name)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Guards a call that is made when the returned Mono is subscribed. The slot is held until
+     * the call completes, fails, times out or is cancelled; a refused call fails with
+     * {@link CallNotPermittedException} without touching the network.
+     */
+    public <T> Mono<T> guard(final Mono<T> call) {
+        return Mono.defer(() -> {
+            if (!bulkhead.tryAcquire()) {
+                rejections.increment();
+                return Mono.error(new CallNotPermittedException(name + " bulkhead is full"));
+            }
+            if (!circuitBreaker.tryAcquirePermission()) {
+                bulkhead.release();
+                rejections.increment();
+                return Mono.error(new CallNotPermittedException(name + " circuit is open"));
+            }
+
+            final AtomicBoolean finished = new AtomicBoolean();
+            final AtomicBoolean released = new AtomicBoolean();
+            // Released before the outcome reaches the caller, so a follow-up call finds the slot free
+            final Runnable releaseSlot = () -> {
+                if (released.compareAndSet(false, true)) {
+                    bulkhead.release();
+                }
+            };
+            return call
+                    .timeout(timeout)
+                    .doOnSuccess(value -> {
+                        if (finished.compareAndSet(false, true)) {
+                            circuitBreaker.onSuccess();
+                            successes.increment();
+                        }
+                        releaseSlot.run();
+                    })
+                    .doOnError(e -> {
+                        if (finished.compareAndSet(false, true)) {
+                            circuitBreaker.onFailure();
+                            failures.increment();
+                        }
+                        releaseSlot.run();
+                    })
+                    .doOnCancel(() -> {
+                        if (finished.compareAndSet(false, true)) {
+                            circuitBreaker.releasePermission();
+                        }
+                        releaseSlot.run();
+                    });
+        });
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public Bulkhead getBulkhead() {
+        return bulkhead;
+    }
+}
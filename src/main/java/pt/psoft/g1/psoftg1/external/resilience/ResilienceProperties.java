@@ -0,0 +1,41 @@
+package pt.psoft.g1.psoftg1.external.resilience;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Limits applied to outbound calls. {@code external.resilience.defaults.*} applies to every
+ * dependency unless {@code external.resilience.dependencies.<name>.*} replaces it.
+ */
+@ConfigurationProperties(prefix = "external.resilience")
+@Data
+public class ResilienceProperties {
+    private Policy defaults = new Policy();
+    private Map<String, Policy> dependencies = new HashMap<>();
+
+    public Policy policyFor(final String dependency) {
+        return dependencies.getOrDefault(dependency, defaults);
+    }
+
+    @Data
+    public static class Policy {
+        /** Calls allowed in flight at once; further calls are refused. */
+        private int maxConcurrentCalls = 10;
+        /** Number of recent calls the failure rate is computed over. */
+        private int slidingWindowSize = 20;
+        /** Calls needed in the window before the circuit may open. */
+        private int minimumCalls = 10;
+        /** Failure percentage that opens the circuit. */
+        private int failureRateThreshold = 50;
+        /** How long an open circuit refuses calls before trying again. */
+        private Duration openDuration = Duration.ofSeconds(30);
+        /** Trial calls let through while half open. */
+        private int halfOpenCalls = 3;
+        /** Time budget of a single call, timeouts count as failures. */
+        private Duration timeout = Duration.ofSeconds(5);
+    }
+}
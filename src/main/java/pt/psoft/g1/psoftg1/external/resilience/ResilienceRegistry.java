@@ -0,0 +1,47 @@
+package pt.psoft.g1.psoftg1.external.resilience;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out one {@link OutboundGuard} per dependency name and publishes its state:
+ * {@code external.circuitbreaker.state} (0 closed, 1 open, 2 half open),
+ * {@code external.circuitbreaker.failure.rate}, {@code external.bulkhead.available} and the
+ * {@code external.calls} counters, all tagged with {@code dependency}.
+ */
+@Component
+public class ResilienceRegistry {
+    private final ResilienceProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, OutboundGuard> guards = new ConcurrentHashMap<>();
+
+    public ResilienceRegistry(final ResilienceProperties properties, final MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public OutboundGuard guard(final String dependency) {
+        return guards.computeIfAbsent(dependency, this::create);
+    }
+
+    private OutboundGuard create(final String dependency) {
+        final OutboundGuard guard = new OutboundGuard(dependency, properties.policyFor(dependency), meterRegistry);
+        Gauge.builder("external.circuitbreaker.state", guard, g -> g.getCircuitBreaker().getState().ordinal())
+                .description("Circuit state: 0 closed, 1 open, 2 half open")
+                .tag("dependency", dependency)
+                .register(meterRegistry);
+        Gauge.builder("external.circuitbreaker.failure.rate", guard, g -> g.getCircuitBreaker().failureRate())
+                .description("Failure percentage over the sliding window")
+                .tag("dependency", dependency)
+                .register(meterRegistry);
+        Gauge.builder("external.bulkhead.available", guard, g -> g.getBulkhead().availablePermits())
+                .description("Free concurrent call slots")
+                .tag("dependency", dependency)
+                .register(meterRegistry);
+        return guard;
+    }
+}
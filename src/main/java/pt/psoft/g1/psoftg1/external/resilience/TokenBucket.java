@@ -0,0 +1,57 @@
+package pt.psoft.g1.psoftg1.external.resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Paces calls to a fixed rate with room for a short burst. Unlike {@link Bulkhead}, callers over
+ * the rate wait for a token instead of being refused, which suits background jobs that must not
+ * spend an upstream quota faster than allowed.
+ */
+public class TokenBucket {
+    private final double permitsPerSecond;
+    private final double capacity;
+    private final LongSupplier nanoTime;
+    private double tokens;
+    private long refilledAt;
+
+    public TokenBucket(final double permitsPerSecond, final int burst) {
+        this(permitsPerSecond, burst, System::nanoTime);
+    }
+
+    TokenBucket(final double permitsPerSecond, final int burst, final LongSupplier nanoTime) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate and burst must be positive");
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.capacity = burst;
+        this.nanoTime = nanoTime;
+        this.tokens = burst;
+        this.refilledAt = nanoTime.getAsLong();
+    }
+
+    /**
+     * Takes a token if one is available.
+     * @return 0 if a token was taken, otherwise the nanoseconds until the next one
+     */
+    synchronized long tryAcquire() {
+        final long now = nanoTime.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - refilledAt) * permitsPerSecond / TimeUnit.SECONDS.toNanos(1));
+        refilledAt = now;
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) * TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+    }
+
+    /**
+     * Blocks until a token is available.
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos;
+        while ((waitNanos = tryAcquire()) > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+}
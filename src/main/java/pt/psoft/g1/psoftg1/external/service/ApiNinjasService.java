@@ -1,31 +1,36 @@
 package pt.psoft.g1.psoftg1.external.service;
 
-import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import pt.psoft.g1.psoftg1.external.resilience.OutboundGuard;
+import pt.psoft.g1.psoftg1.external.resilience.ResilienceRegistry;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 
 /**
  * Based on https://www.baeldung.com/spring-5-webclient
+ * <p>Calls go through the {@code api-ninjas} {@link OutboundGuard}.
  */
 @Service
-@RequiredArgsConstructor
 public class ApiNinjasService {
     private final WebClient webClient;
+    private final OutboundGuard guard;
 
-    private List<HistoricalEventsResponse> getHistoricalEventsFromYearMonth(int year, int month) {
-        return webClient.get()
+    public ApiNinjasService(final WebClient webClient, final ResilienceRegistry resilienceRegistry) {
+        this.webClient = webClient;
+        this.guard = resilienceRegistry.guard("api-ninjas");
+    }
+
+    /**
+     * Historical events of a month, fetched when subscribed. Failures and refused calls are
+     * propagated so callers can tell them apart from a month with no events.
+     */
+    public Mono<List<HistoricalEventsResponse>> historicalEvents(int year, int month) {
+        return guard.guard(webClient.get()
                 .uri("historicalevents?year=" + year + "&month=" + month)
                 .retrieve()
                 .bodyToFlux(HistoricalEventsResponse.class)
-                .collectList()
-                .block();
-    }
-
-    public String getRandomEventFromYearMonth(int year, int month) {
-        final var responseList = getHistoricalEventsFromYearMonth(year, month);
-        int randomIndex = (int) (Math.random() * responseList.size());
-        return responseList.get(randomIndex).getEvent();
+                .collectList());
     }
 }
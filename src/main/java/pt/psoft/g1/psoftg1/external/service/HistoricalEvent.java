@@ -0,0 +1,10 @@
+package pt.psoft.g1.psoftg1.external.service;
+
+/**
+ * An event to show a reader.
+ *
+ * @param approximate true when it did not happen in the requested year, only in the same month of
+ *                    another year
+ */
+public record HistoricalEvent(String text, boolean approximate) {
+}
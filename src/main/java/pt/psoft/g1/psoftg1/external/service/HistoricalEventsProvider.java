@@ -0,0 +1,178 @@
+package pt.psoft.g1.psoftg1.external.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import pt.psoft.g1.psoftg1.readermanagement.model.ReaderDetails;
+import pt.psoft.g1.psoftg1.readermanagement.repositories.ReaderRepository;
+import pt.psoft.g1.psoftg1.readermanagement.services.ReaderEvent;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Historical events used to enrich reader views, keyed by (year, month) of the reader's birth.
+ * <p>Events fetched from API Ninjas are cached for good, since they never change. The months of
+ * existing readers are prefetched in the background at startup, and a new reader's month as soon
+ * as the reader is saved. A request waits at most {@code external.historical-events.timeout} for a
+ * month that is not cached yet; after that, or when the API has nothing, an event is taken from
+ * the bundled {@code historical-events.json}: one of the same year and month if there is one,
+ * otherwise one of the same month of another year, marked as approximate. A late answer still
+ * fills the cache for the next request.
+ */
+@Slf4j
+@Service
+public class HistoricalEventsProvider {
+    private static final String FALLBACK_DATASET = "historical-events.json";
+
+    private final ApiNinjasService apiNinjasService;
+    private final ReaderRepository readerRepository;
+    private final Duration timeout;
+    private final boolean prefetch;
+    private final Map<YearMonth, List<String>> events = new ConcurrentHashMap<>();
+    private final Map<YearMonth, CompletableFuture<List<String>>> inFlight = new ConcurrentHashMap<>();
+    private final Map<Integer, List<String>> fallbackByMonth;
+
+    public HistoricalEventsProvider(final ApiNinjasService apiNinjasService,
+                                    final ReaderRepository readerRepository,
+                                    @Value("${external.historical-events.timeout:300ms}") final Duration timeout,
+                                    @Value("${external.historical-events.prefetch:true}") final boolean prefetch) {
+        this.apiNinjasService = apiNinjasService;
+        this.readerRepository = readerRepository;
+        this.timeout = timeout;
+        this.prefetch = prefetch;
+        this.fallbackByMonth = loadFallbackDataset();
+    }
+
+    /**
+     * Picks one event of that month by {@code seed}, so the same seed gets the same event as long
+     * as the month's events do not change, i.e. once {@link #isCached} holds.
+     *
+     * @return the event, or null only if neither the API nor the bundled dataset has one
+     */
+    public HistoricalEvent eventFor(final int year, final int month, final String seed) {
+        final YearMonth key = YearMonth.of(year, month);
+        List<String> candidates = events.get(key);
+        if (candidates == null) {
+            try {
+                candidates = fetch(key).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException | ExecutionException e) {
+                log.debug("Using bundled historical events for {}: {}", key, e.toString());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (candidates != null && !candidates.isEmpty()) {
+            return new HistoricalEvent(pick(candidates, seed), false);
+        }
+
+        // bundled events end with their year, e.g. "... (1974)."
+        final List<String> sameMonth = fallbackByMonth.getOrDefault(month, List.of());
+        final List<String> sameYear = sameMonth.stream()
+                .filter(event -> event.endsWith("(" + year + ")") || event.endsWith("(" + year + ")."))
+                .toList();
+        if (!sameYear.isEmpty()) {
+            return new HistoricalEvent(pick(sameYear, seed), false);
+        }
+        return sameMonth.isEmpty() ? null : new HistoricalEvent(pick(sameMonth, seed), true);
+    }
+
+    private static String pick(final List<String> candidates, final String seed) {
+        return candidates.get(Math.floorMod(Objects.hashCode(seed), candidates.size()));
+    }
+
+    /**
+     * Whether the API's events of that month are cached, after which they never change. Until
+     * then {@link #eventFor} may answer from the bundled dataset.
+     */
+    public boolean isCached(final int year, final int month) {
+        return events.containsKey(YearMonth.of(year, month));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void prefetchKnownReaders() {
+        if (!prefetch) {
+            return;
+        }
+        final Set<YearMonth> months = new LinkedHashSet<>();
+        for (final ReaderDetails readerDetails : readerRepository.findAll()) {
+            birthMonth(readerDetails).ifPresent(months::add);
+        }
+        log.info("Prefetching historical events for {} reader birth months", months.size());
+        // Two at a time, so prefetching leaves most of the API Ninjas bulkhead to live requests
+        Flux.fromIterable(months)
+                .flatMap(month -> Mono.fromFuture(fetch(month)).onErrorResume(e -> Mono.empty()), 2)
+                .subscribe();
+    }
+
+    @EventListener
+    public void onReader(final ReaderEvent event) {
+        if (prefetch) {
+            birthMonth(event.getReaderDetails())
+                    .filter(month -> !events.containsKey(month))
+                    .ifPresent(this::fetch);
+        }
+    }
+
+    CompletableFuture<List<String>> fetch(final YearMonth key) {
+        final CompletableFuture<List<String>> running = inFlight.get(key);
+        if (running != null) {
+            return running;
+        }
+        final CompletableFuture<List<String>> mine = new CompletableFuture<>();
+        final CompletableFuture<List<String>> raced = inFlight.putIfAbsent(key, mine);
+        if (raced != null) {
+            return raced;
+        }
+
+        apiNinjasService.historicalEvents(key.getYear(), key.getMonthValue())
+                .map(responses -> responses.stream()
+                        .map(HistoricalEventsResponse::getEvent)
+                        .filter(Objects::nonNull)
+                        .toList())
+                .doOnNext(list -> events.put(key, list))
+                .doFinally(signal -> inFlight.remove(key, mine))
+                .subscribe(mine::complete, mine::completeExceptionally);
+        return mine;
+    }
+
+    private static java.util.Optional<YearMonth> birthMonth(final ReaderDetails readerDetails) {
+        if (readerDetails == null || readerDetails.getBirthDate() == null) {
+            return java.util.Optional.empty();
+        }
+        final LocalDate birthDate = readerDetails.getBirthDate().getBirthDate();
+        return java.util.Optional.ofNullable(birthDate).map(YearMonth::from);
+    }
+
+    private static Map<Integer, List<String>> loadFallbackDataset() {
+        try (InputStream in = new ClassPathResource(FALLBACK_DATASET).getInputStream()) {
+            return new ObjectMapper().readValue(in, new TypeReference<Map<Integer, List<String>>>() {
+            });
+        } catch (IOException e) {
+            log.warn("Could not load bundled {}: {}", FALLBACK_DATASET, e.getMessage());
+            return Map.of();
+        }
+    }
+}
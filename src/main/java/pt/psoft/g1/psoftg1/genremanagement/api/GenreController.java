@@ -3,13 +3,19 @@ package pt.psoft.g1.psoftg1.genremanagement.api;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import pt.psoft.g1.psoftg1.exceptions.NotFoundException;
 import pt.psoft.g1.psoftg1.genremanagement.services.GenreService;
 import pt.psoft.g1.psoftg1.genremanagement.services.GetAverageLendingsQuery;
 import pt.psoft.g1.psoftg1.shared.api.ListResponse;
+import pt.psoft.g1.psoftg1.shared.services.EtagService;
 import pt.psoft.g1.psoftg1.shared.services.SearchRequest;
 
+import java.time.LocalDate;
+
 @Tag(name = "Genres", description = "Endpoints for managing Genres")
 @RestController
 @RequiredArgsConstructor
@@ -17,6 +23,7 @@ import pt.psoft.g1.psoftg1.shared.services.SearchRequest;
 public class GenreController {
     private final GenreService genreService;
     private final GenreViewMapper genreViewMapper;
+    private final EtagService etagService;
 
     @PostMapping(value="/avgLendingsPerGenre")
     public ListResponse<GenreLendingsView> getAverageLendings(
@@ -26,17 +33,29 @@ public class GenreController {
     }
 
     @GetMapping("/top5")
-    public ListResponse<GenreBookCountView> getTop() {
+    public ResponseEntity<ListResponse<GenreBookCountView>> getTop(final WebRequest request) {
+        final String etag = etagService.collectionTag(EtagService.BOOKS);
+        if (etagService.isNotModified(request, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
         final var list = genreService.findTopGenreByBooks();
 
         if(list.isEmpty())
             throw new NotFoundException("No genres to show");
 
-        return new ListResponse<>(genreViewMapper.toGenreBookCountView(list));
+        return ResponseEntity.ok().eTag(etag).body(new ListResponse<>(genreViewMapper.toGenreBookCountView(list)));
     }
 
     @GetMapping("/lendingsPerMonthLastTwelveMonths")
-    public ListResponse<GenreLendingsCountPerMonthView> getLendingsPerMonthLastYearByGenre() {
+    public ResponseEntity<ListResponse<GenreLendingsCountPerMonthView>> getLendingsPerMonthLastYearByGenre(final WebRequest request) {
+        // the report covers the last twelve months, so it also changes when the day changes
+        final String etag = etagService.collectionTag(
+                new String[] { EtagService.BOOKS, EtagService.LENDINGS }, LocalDate.now());
+        if (etagService.isNotModified(request, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
         final var list = genreService.getLendingsPerMonthLastYearByGenre();
 
         if(list.isEmpty())
@@ -44,13 +63,19 @@ public class GenreController {
 
         final var viewList = genreViewMapper.toGenreLendingsCountPerMonthView(list);
 
-        return new ListResponse<>(viewList);
+        return ResponseEntity.ok().eTag(etag).body(new ListResponse<>(viewList));
     }
 
     @GetMapping("/lendingsAverageDurationPerMonth")
-    public ListResponse<GenreLendingsAvgPerMonthView> getLendingsAverageDurationPerMonth(
+    public ResponseEntity<ListResponse<GenreLendingsAvgPerMonthView>> getLendingsAverageDurationPerMonth(
             @RequestParam("startDate") final String start,
-            @RequestParam("endDate") final String end) {
+            @RequestParam("endDate") final String end,
+            final WebRequest request) {
+        final String etag = etagService.collectionTag(EtagService.BOOKS, EtagService.LENDINGS);
+        if (etagService.isNotModified(request, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
         final var list = genreService.getLendingsAverageDurationPerMonth(start, end);
 
         if(list.isEmpty())
@@ -58,6 +83,6 @@ public class GenreController {
 
         final var viewList = genreViewMapper.toGenreLendingsAveragePerMonthView(list);
 
-        return new ListResponse<>(viewList);
+        return ResponseEntity.ok().eTag(etag).body(new ListResponse<>(viewList));
     }
 }
@@ -43,7 +43,7 @@ public interface SpringDataGenreRepository extends GenreRepository, GenreRepoCus
 
 
 interface GenreRepoCustom{
-    List<GenreLendingsPerMonthDTO> getLendingsPerMonthLastYearByGenre();
+    List<GenreLendingsPerMonthDTO> getLendingsPerMonthByGenre(LocalDate startDate, LocalDate endDate);
     List<GenreLendingsDTO> getAverageLendingsInMonth(LocalDate month, pt.psoft.g1.psoftg1.shared.services.Page page);
     List<GenreLendingsPerMonthDTO> getLendingsAverageDurationPerMonth(LocalDate startDate, LocalDate endDate);
 
@@ -55,7 +55,7 @@ class GenreRepoCustomImpl implements GenreRepoCustom {
     private final EntityManager entityManager;
 
     @Override
-    public List<GenreLendingsPerMonthDTO> getLendingsPerMonthLastYearByGenre(){
+    public List<GenreLendingsPerMonthDTO> getLendingsPerMonthByGenre(LocalDate startDate, LocalDate endDate){
         CriteriaBuilder cb = entityManager.getCriteriaBuilder();
         CriteriaQuery<Tuple> cq = cb.createTupleQuery();
         Root<Lending> lendingRoot = cq.from(Lending.class);
@@ -70,12 +70,9 @@ class GenreRepoCustomImpl implements GenreRepoCustom {
         cq.multiselect(genreJoin.get("genre"), year, month, lendingCount);
         cq.groupBy(genreJoin.get("genre"), year, month);
 
-        // Predicate to filter the last 12 months
-        LocalDate now = LocalDate.now();
-        LocalDate twelveMonthsAgo = now.minusMonths(12);
         Predicate datePredicate = cb.between(lendingRoot.get("startDate"),
-                java.sql.Date.valueOf(twelveMonthsAgo),
-                java.sql.Date.valueOf(now));
+                java.sql.Date.valueOf(startDate),
+                java.sql.Date.valueOf(endDate));
 
         cq.where(datePredicate);
         cq.orderBy(cb.asc(year), cb.asc(month), cb.asc(genreJoin.get("genre")));
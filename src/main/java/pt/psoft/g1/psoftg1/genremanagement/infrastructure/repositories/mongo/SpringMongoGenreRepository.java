@@ -31,7 +31,7 @@ public interface SpringMongoGenreRepository extends GenreRepository, MongoReposi
     default List<GenreLendingsDTO> getAverageLendingsInMonth(LocalDate month, pt.psoft.g1.psoftg1.shared.services.Page page) { return Collections.emptyList(); }
 
     @Override
-    default List<GenreLendingsPerMonthDTO> getLendingsPerMonthLastYearByGenre() { return Collections.emptyList(); }
+    default List<GenreLendingsPerMonthDTO> getLendingsPerMonthByGenre(LocalDate startDate, LocalDate endDate) { return Collections.emptyList(); }
 
     @Override
     default List<GenreLendingsPerMonthDTO> getLendingsAverageDurationPerMonth(LocalDate startDate, LocalDate endDate) { return Collections.emptyList(); }
@@ -8,6 +8,7 @@ import pt.psoft.g1.psoftg1.genremanagement.services.GenreLendingsDTO;
 import pt.psoft.g1.psoftg1.genremanagement.services.GenreLendingsPerMonthDTO;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,10 +16,11 @@ public interface GenreRepository {
 
     Iterable<Genre> findAll();
     Optional<Genre> findByString(String genreName);
+    List<Genre> findByGenreIn(Collection<String> genreNames);
     Genre save(Genre genre);
     Page<GenreBookCountDTO> findTop5GenreByBookCount(Pageable pageable);
     List<GenreLendingsDTO> getAverageLendingsInMonth(LocalDate month, pt.psoft.g1.psoftg1.shared.services.Page page);
-    List<GenreLendingsPerMonthDTO> getLendingsPerMonthLastYearByGenre();
+    List<GenreLendingsPerMonthDTO> getLendingsPerMonthByGenre(LocalDate startDate, LocalDate endDate);
     List<GenreLendingsPerMonthDTO> getLendingsAverageDurationPerMonth(LocalDate startDate, LocalDate endDate);
     void delete(Genre genre);
 }
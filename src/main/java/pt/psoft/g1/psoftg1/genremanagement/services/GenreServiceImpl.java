@@ -6,6 +6,8 @@ import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import pt.psoft.g1.psoftg1.analytics.services.GenreAnalyticsService;
+import pt.psoft.g1.psoftg1.analytics.services.LeaderboardService;
 import pt.psoft.g1.psoftg1.bookmanagement.services.GenreBookCountDTO;
 import pt.psoft.g1.psoftg1.exceptions.NotFoundException;
 import pt.psoft.g1.psoftg1.genremanagement.model.Genre;
@@ -13,7 +15,9 @@ import pt.psoft.g1.psoftg1.genremanagement.repositories.GenreRepository;
 import pt.psoft.g1.psoftg1.shared.services.Page;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,6 +26,8 @@ import java.util.Optional;
 public class GenreServiceImpl implements GenreService {
 
     private final GenreRepository genreRepository;
+    private final LeaderboardService leaderboardService;
+    private final GenreAnalyticsService genreAnalyticsService;
 
 
     @Override
@@ -36,8 +42,12 @@ public class GenreServiceImpl implements GenreService {
     }
 
     @Override
-    @Cacheable(value = "topGenres", key = "'all'")
     public List<GenreBookCountDTO> findTopGenreByBooks(){
+        if (leaderboardService.isReady()) {
+            return leaderboardService.topGenresByBookCount(5).stream()
+                    .map(entry -> new GenreBookCountDTO(entry.getKey(), entry.getValue()))
+                    .toList();
+        }
         Pageable pageableRules = PageRequest.of(0,5);
         return this.genreRepository.findTop5GenreByBookCount(pageableRules).getContent();
     }
@@ -50,7 +60,21 @@ public class GenreServiceImpl implements GenreService {
 
     @Override
     public List<GenreLendingsPerMonthDTO> getLendingsPerMonthLastYearByGenre() {
-        return genreRepository.getLendingsPerMonthLastYearByGenre();
+        final LocalDate now = LocalDate.now();
+        final LocalDate twelveMonthsAgo = now.minusMonths(12);
+        if (!genreAnalyticsService.isReady()) {
+            return genreRepository.getLendingsPerMonthByGenre(twelveMonthsAgo, now);
+        }
+
+        // The cube holds whole months, so a first month that starts mid-month is counted by the query
+        final YearMonth firstMonth = YearMonth.from(twelveMonthsAgo);
+        if (twelveMonthsAgo.getDayOfMonth() == 1) {
+            return genreAnalyticsService.lendingsPerMonth(firstMonth, YearMonth.from(now));
+        }
+        final List<GenreLendingsPerMonthDTO> months = new ArrayList<>(
+                genreRepository.getLendingsPerMonthByGenre(twelveMonthsAgo, firstMonth.atEndOfMonth()));
+        months.addAll(genreAnalyticsService.lendingsPerMonth(firstMonth.plusMonths(1), YearMonth.from(now)));
+        return months;
     }
 
     @Override
@@ -58,6 +82,10 @@ public class GenreServiceImpl implements GenreService {
         if (page == null)
             page = new Page(1, 10);
 
+        if (genreAnalyticsService.isReady()) {
+            return genreAnalyticsService.averageLendingsPerDay(YearMonth.of(query.getYear(), query.getMonth()), page);
+        }
+
         final var month = LocalDate.of(query.getYear(), query.getMonth(), 1);
 
         return genreRepository.getAverageLendingsInMonth(month, page);
@@ -78,7 +106,9 @@ public class GenreServiceImpl implements GenreService {
         if(startDate.isAfter(endDate))
             throw new IllegalArgumentException("Start date cannot be after end date");
 
-        final var list = genreRepository.getLendingsAverageDurationPerMonth(startDate, endDate);
+        final var list = genreAnalyticsService.isReady() && GenreAnalyticsService.coversWholeMonths(startDate, endDate)
+                ? genreAnalyticsService.averageDurationPerMonth(YearMonth.from(startDate), YearMonth.from(endDate))
+                : genreRepository.getLendingsAverageDurationPerMonth(startDate, endDate);
 
         if (list.isEmpty())
             throw new NotFoundException("No objects match the provided criteria");
@@ -14,22 +14,21 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import pt.psoft.g1.psoftg1.auth.services.AuthenticatedPrincipal;
+import pt.psoft.g1.psoftg1.auth.services.AuthenticatedPrincipalResolver;
 import pt.psoft.g1.psoftg1.exceptions.NotFoundException;
 import pt.psoft.g1.psoftg1.lendingmanagement.model.Lending;
 import pt.psoft.g1.psoftg1.lendingmanagement.services.CreateLendingRequest;
 import pt.psoft.g1.psoftg1.lendingmanagement.services.LendingService;
 import pt.psoft.g1.psoftg1.lendingmanagement.services.SearchLendingQuery;
 import pt.psoft.g1.psoftg1.lendingmanagement.services.SetLendingReturnedRequest;
-import pt.psoft.g1.psoftg1.readermanagement.api.ReaderLendingsAvgPerMonthView;
-import pt.psoft.g1.psoftg1.readermanagement.model.ReaderDetails;
-import pt.psoft.g1.psoftg1.readermanagement.services.ReaderService;
+import pt.psoft.g1.psoftg1.readermanagement.api.ReaderAverageView;
+import pt.psoft.g1.psoftg1.readermanagement.api.ReaderViewMapper;
 import pt.psoft.g1.psoftg1.shared.api.ListResponse;
 import pt.psoft.g1.psoftg1.shared.services.ConcurrencyService;
+import pt.psoft.g1.psoftg1.shared.services.EtagService;
 import pt.psoft.g1.psoftg1.shared.services.Page;
 import pt.psoft.g1.psoftg1.shared.services.SearchRequest;
-import pt.psoft.g1.psoftg1.usermanagement.model.Librarian;
-import pt.psoft.g1.psoftg1.usermanagement.model.User;
-import pt.psoft.g1.psoftg1.usermanagement.services.UserService;
 
 import java.util.List;
 import java.util.Objects;
@@ -40,11 +39,12 @@ import java.util.Objects;
 @RequestMapping("/api/lendings")
 public class LendingController {
     private final LendingService lendingService;
-    private final ReaderService readerService;
-    private final UserService userService;
+    private final AuthenticatedPrincipalResolver principalResolver;
     private final ConcurrencyService concurrencyService;
+    private final EtagService etagService;
 
     private final LendingViewMapper lendingViewMapper;
+    private final ReaderViewMapper readerViewMapper;
 
     @Operation(summary = "Creates a new Lending")
     @PostMapping
@@ -72,24 +72,30 @@ public class LendingController {
                 final Integer year,
             @PathVariable("seq")
                 @Parameter(description = "The sequencial of the Lending to find")
-                final Integer seq) {
+                final Integer seq,
+            final WebRequest request) {
 
         String ln = year + "/" + seq;
         final var lending = lendingService.findByLendingNumber(ln)
                 .orElseThrow(() -> new NotFoundException(Lending.class, ln));
 
-        User loggedUser = userService.getAuthenticatedUser(authentication);
+        AuthenticatedPrincipal principal = principalResolver.resolve(authentication);
 
         //if Librarian is logged in, skip ahead
-        if (!(loggedUser instanceof Librarian)) {
-            final var loggedReaderDetails = readerService.findByUsername(loggedUser.getUsername())
-                    .orElseThrow(() -> new NotFoundException(ReaderDetails.class, loggedUser.getUsername()));
-
+        if (!principal.isLibrarian()) {
             //if logged Reader matches the one associated with the lending, skip ahead
-            if (!Objects.equals(loggedReaderDetails.getReaderNumber(), lending.getReaderDetails().getReaderNumber())) {
+            if (!Objects.equals(principal.readerNumber(), lending.getReaderDetails().getReaderNumber())) {
                 throw new AccessDeniedException("Reader does not have permission to view this lending");
             }
         }
+
+        // the lending comes from the cache and is needed for the authorization check anyway,
+        // so its version is compared before mapping
+        final String etag = etagService.entityTag(lending.getVersion());
+        if (etagService.isNotModified(request, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
         final var lendingUri = ServletUriComponentsBuilder.fromCurrentRequestUri()
                 .build().toUri();
 
@@ -120,13 +126,10 @@ public class LendingController {
         final var maybeLending = lendingService.findByLendingNumber(ln)
                 .orElseThrow(() -> new NotFoundException(Lending.class, ln));
 
-        User loggedUser = userService.getAuthenticatedUser(authentication);
-
-        final var loggedReaderDetails = readerService.findByUsername(loggedUser.getUsername())
-                .orElseThrow(() -> new NotFoundException(ReaderDetails.class, loggedUser.getUsername()));
+        AuthenticatedPrincipal principal = principalResolver.resolve(authentication);
 
         //if logged Reader matches the one associated with the lending, skip ahead
-        if (!Objects.equals(loggedReaderDetails.getReaderNumber(), maybeLending.getReaderDetails().getReaderNumber())) {
+        if (!Objects.equals(principal.readerNumber(), maybeLending.getReaderDetails().getReaderNumber())) {
             throw new AccessDeniedException("Reader does not have permission to edit this lending");
         }
 
@@ -161,13 +164,20 @@ public class LendingController {
         return new ListResponse<>(lendingViewMapper.toLendingView(readerList));
     }
 
-/*    @Operation(summary = "Get list monthly average lendings per reader")
+    @Operation(summary = "Get list monthly average lendings per reader")
     @GetMapping(value = "/averageMonthlyPerReader")
-    public ListResponse<ReaderLendingsAvgPerMonthView>getAverageMonthlyPerReader(
+    public ListResponse<ReaderAverageView> getAverageMonthlyPerReader(
             @RequestParam("startDate") final String start,
-            @RequestParam("endDate") final String end){
+            @RequestParam("endDate") final String end,
+            @RequestParam(value = "page", defaultValue = "1") final int page,
+            @RequestParam(value = "limit", defaultValue = "10") final int limit) {
 
+        final var list = lendingService.getAverageMonthlyPerReader(start, end, new Page(page, limit));
 
-    }*/
+        if(list.isEmpty())
+            throw new NotFoundException("No readers to show");
+
+        return new ListResponse<>(readerViewMapper.toReaderAverageViewList(list));
+    }
 
 }
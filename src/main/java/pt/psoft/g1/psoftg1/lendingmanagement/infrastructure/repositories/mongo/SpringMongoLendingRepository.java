@@ -10,6 +10,7 @@ import pt.psoft.g1.psoftg1.shared.services.Page;
 import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Repository
@@ -39,6 +40,9 @@ public interface SpringMongoLendingRepository extends LendingRepository, MongoRe
 
     @Override
     default List<Lending> searchLendings(Page page, String readerNumber, String isbn, Boolean returned, LocalDate startDate, LocalDate endDate) { return Collections.emptyList(); }
+
+    @Override
+    default List<Map.Entry<String, Long>> countPerReader(LocalDate startDate, LocalDate endDate, Page page) { return Collections.emptyList(); }
 }
 
 
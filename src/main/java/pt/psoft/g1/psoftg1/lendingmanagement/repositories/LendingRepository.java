@@ -5,6 +5,7 @@ import pt.psoft.g1.psoftg1.shared.services.Page;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface LendingRepository {
@@ -19,6 +20,13 @@ public interface LendingRepository {
     List<Lending> getOverdue(Page page);
     List<Lending> searchLendings(Page page, String readerNumber, String isbn, Boolean returned, LocalDate startDate, LocalDate endDate);
 
+    /** Lendings started between both dates per reader number, most lendings first and then by reader number. */
+    List<Map.Entry<String, Long>> countPerReader(LocalDate startDate, LocalDate endDate, Page page);
+
+    Iterable<Lending> findAll();
+
+    long count();
+
     Lending save(Lending lending);
 
     void delete(Lending lending);
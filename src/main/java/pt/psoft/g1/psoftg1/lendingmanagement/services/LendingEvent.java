@@ -0,0 +1,28 @@
+package pt.psoft.g1.psoftg1.lendingmanagement.services;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import pt.psoft.g1.psoftg1.lendingmanagement.model.Lending;
+
+/**
+ * Application event published by {@link LendingService} after a {@code Lending} is persisted.
+ * <p>Read-side structures (leaderboards, analytics) listen to it to stay up to date without
+ * re-querying the lendings table.
+ */
+@Getter
+@RequiredArgsConstructor
+public class LendingEvent {
+
+    public enum Type { CREATED, RETURNED }
+
+    private final Type type;
+    private final Lending lending;
+
+    public static LendingEvent created(Lending lending) {
+        return new LendingEvent(Type.CREATED, lending);
+    }
+
+    public static LendingEvent returned(Lending lending) {
+        return new LendingEvent(Type.RETURNED, lending);
+    }
+}
@@ -1,6 +1,7 @@
 package pt.psoft.g1.psoftg1.lendingmanagement.services;
 
 import pt.psoft.g1.psoftg1.lendingmanagement.model.Lending;
+import pt.psoft.g1.psoftg1.readermanagement.services.ReaderAverageDto;
 import pt.psoft.g1.psoftg1.shared.services.Page;
 
 import java.util.List;
@@ -25,6 +26,12 @@ public interface LendingService {
     List<Lending> getOverdue(Page page);
     Double getAvgLendingDurationByIsbn(String isbn);
     List<Lending> searchLendings(Page page, SearchLendingQuery request);
+    /**
+     * @param start - first day of the range, YYYY-MM-DD; only its month counts
+     * @param end   - last day of the range, YYYY-MM-DD; only its month counts
+     * @return {@code List<ReaderAverageDto>} one page of readers with lendings in the range, most lendings first
+     */
+    List<ReaderAverageDto> getAverageMonthlyPerReader(String start, String end, Page page);
 
 
 }
@@ -1,11 +1,14 @@
 package pt.psoft.g1.psoftg1.lendingmanagement.services;
 
-import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.stereotype.Service;
+import pt.psoft.g1.psoftg1.analytics.services.GenreAnalyticsService;
+import pt.psoft.g1.psoftg1.analytics.services.LendingSnapshotService;
+import pt.psoft.g1.psoftg1.analytics.services.ReaderActivityService;
 import pt.psoft.g1.psoftg1.bookmanagement.repositories.BookRepository;
 import pt.psoft.g1.psoftg1.exceptions.LendingForbiddenException;
 import pt.psoft.g1.psoftg1.exceptions.NotFoundException;
@@ -13,29 +16,54 @@ import pt.psoft.g1.psoftg1.lendingmanagement.model.Fine;
 import pt.psoft.g1.psoftg1.lendingmanagement.model.Lending;
 import pt.psoft.g1.psoftg1.lendingmanagement.repositories.FineRepository;
 import pt.psoft.g1.psoftg1.lendingmanagement.repositories.LendingRepository;
+import pt.psoft.g1.psoftg1.readermanagement.model.ReaderDetails;
 import pt.psoft.g1.psoftg1.readermanagement.repositories.ReaderRepository;
+import pt.psoft.g1.psoftg1.readermanagement.services.ReaderAverageDto;
 import pt.psoft.g1.psoftg1.shared.services.Page;
+import pt.psoft.g1.psoftg1.shared.services.RequestScopedLoader;
+import pt.psoft.g1.psoftg1.shared.services.RequestScopedLoaders;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalDouble;
 
 @Service
-@RequiredArgsConstructor
 @PropertySource({"classpath:config/library.properties"})
 public class LendingServiceImpl implements LendingService{
     private final LendingRepository lendingRepository;
     private final FineRepository fineRepository;
     private final BookRepository bookRepository;
     private final ReaderRepository readerRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final LendingSnapshotService lendingSnapshotService;
+    private final ReaderActivityService readerActivityService;
+    private final RequestScopedLoader<String, ReaderDetails> readerLoader;
 
     @Value("${lendingDurationInDays}")
     private int lendingDurationInDays;
     @Value("${fineValuePerDayInCents}")
     private int fineValuePerDayInCents;
 
+    public LendingServiceImpl(LendingRepository lendingRepository, FineRepository fineRepository,
+                              BookRepository bookRepository, ReaderRepository readerRepository,
+                              ApplicationEventPublisher eventPublisher, LendingSnapshotService lendingSnapshotService,
+                              ReaderActivityService readerActivityService) {
+        this.lendingRepository = lendingRepository;
+        this.fineRepository = fineRepository;
+        this.bookRepository = bookRepository;
+        this.readerRepository = readerRepository;
+        this.eventPublisher = eventPublisher;
+        this.lendingSnapshotService = lendingSnapshotService;
+        this.readerActivityService = readerActivityService;
+        this.readerLoader = RequestScopedLoaders.readers(readerRepository);
+    }
+
     @Override
     @Cacheable(value = "lendings", key = "#lendingNumber")
     public Optional<Lending> findByLendingNumber(String lendingNumber){
@@ -84,7 +112,9 @@ public class LendingServiceImpl implements LendingService{
         int seq = lendingRepository.getCountFromCurrentYear()+1;
         final Lending l = new Lending(b,r,seq, lendingDurationInDays, fineValuePerDayInCents );
 
-        return lendingRepository.save(l);
+        final Lending saved = lendingRepository.save(l);
+        eventPublisher.publishEvent(LendingEvent.created(saved));
+        return saved;
     }
 
     @Override
@@ -101,12 +131,16 @@ public class LendingServiceImpl implements LendingService{
             fineRepository.save(fine);
         }
 
-        return lendingRepository.save(lending);
+        final Lending saved = lendingRepository.save(lending);
+        eventPublisher.publishEvent(LendingEvent.returned(saved));
+        return saved;
     }
 
     @Override
     public Double getAverageDuration(){
-        Double avg = lendingRepository.getAverageDuration();
+        Double avg = lendingSnapshotService.isReady()
+                ? orNull(lendingSnapshotService.averageDuration())
+                : lendingRepository.getAverageDuration();
         return Double.valueOf(String.format(Locale.US,"%.1f", avg));
     }
 
@@ -120,7 +154,9 @@ public class LendingServiceImpl implements LendingService{
 
     @Override
     public Double getAvgLendingDurationByIsbn(String isbn){
-        Double avg = lendingRepository.getAvgLendingDurationByIsbn(isbn);
+        Double avg = lendingSnapshotService.isReady()
+                ? orNull(lendingSnapshotService.averageDuration(isbn))
+                : lendingRepository.getAvgLendingDurationByIsbn(isbn);
         return Double.valueOf(String.format(Locale.US,"%.1f", avg));
     }
 
@@ -157,6 +193,50 @@ public class LendingServiceImpl implements LendingService{
 
     }
 
+    @Override
+    public List<ReaderAverageDto> getAverageMonthlyPerReader(String start, String end, Page page) {
+        LocalDate startDate;
+        LocalDate endDate;
+
+        try {
+            startDate = LocalDate.parse(start);
+            endDate = LocalDate.parse(end);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Expected format is YYYY-MM-DD");
+        }
+
+        if(startDate.isAfter(endDate))
+            throw new IllegalArgumentException("Start date cannot be after end date");
+        // the averages are per calendar month, so a partial month would be counted as a whole one
+        if (!GenreAnalyticsService.coversWholeMonths(startDate, endDate))
+            throw new IllegalArgumentException("Start date must be the first and end date the last day of a month");
+
+        if (page == null) {
+            page = new Page(1, 10);
+        }
+        if (page.getNumber() < 1 || page.getLimit() < 1 || page.getLimit() > 100)
+            throw new IllegalArgumentException("Page number must be at least 1 and limit between 1 and 100");
+
+        final YearMonth from = YearMonth.from(startDate);
+        final YearMonth to = YearMonth.from(endDate);
+        final List<Map.Entry<String, Long>> counts;
+        if (readerActivityService.isReady()) {
+            counts = readerActivityService.lendingsPerReader(from, to, page);
+        } else {
+            counts = lendingRepository.countPerReader(from.atDay(1), to.atEndOfMonth(), page);
+        }
 
+        final long months = ChronoUnit.MONTHS.between(from, to) + 1;
+        final Map<String, ReaderDetails> readers = readerLoader.loadMany(counts.stream().map(Map.Entry::getKey).toList());
+        return counts.stream()
+                .filter(entry -> readers.containsKey(entry.getKey()))
+                .map(entry -> new ReaderAverageDto(readers.get(entry.getKey()), entry.getValue(),
+                        Double.valueOf(String.format(Locale.US, "%.1f", (double) entry.getValue() / months))))
+                .toList();
+    }
 
+    private static Double orNull(OptionalDouble value) {
+        // same contract as the AVG queries, which yield null when nothing was returned
+        return value.isPresent() ? value.getAsDouble() : null;
+    }
 }
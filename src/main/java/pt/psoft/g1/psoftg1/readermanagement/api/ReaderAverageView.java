@@ -5,10 +5,12 @@ import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 
 @Data
-@Schema(description = "Reader with lending count")
+@Schema(description = "Reader with lending count and average lendings per month")
 public class ReaderAverageView {
     @NotNull
     private ReaderView readerView;
 
     private Long lendingCount;
+
+    private Double monthlyAverage;
 }
@@ -12,8 +12,8 @@ import jakarta.validation.Valid;
 import jakarta.validation.ValidationException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
@@ -22,8 +22,11 @@ import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import pt.psoft.g1.psoftg1.auth.services.AuthenticatedPrincipal;
+import pt.psoft.g1.psoftg1.auth.services.AuthenticatedPrincipalResolver;
 import pt.psoft.g1.psoftg1.exceptions.NotFoundException;
-import pt.psoft.g1.psoftg1.external.service.ApiNinjasService;
+import pt.psoft.g1.psoftg1.external.service.HistoricalEvent;
+import pt.psoft.g1.psoftg1.external.service.HistoricalEventsProvider;
 import pt.psoft.g1.psoftg1.lendingmanagement.api.LendingView;
 import pt.psoft.g1.psoftg1.lendingmanagement.api.LendingViewMapper;
 import pt.psoft.g1.psoftg1.lendingmanagement.model.Lending;
@@ -33,17 +36,17 @@ import pt.psoft.g1.psoftg1.readermanagement.services.CreateReaderRequest;
 import pt.psoft.g1.psoftg1.readermanagement.services.ReaderService;
 import pt.psoft.g1.psoftg1.readermanagement.services.SearchReadersQuery;
 import pt.psoft.g1.psoftg1.readermanagement.services.UpdateReaderRequest;
+import pt.psoft.g1.psoftg1.readermanagement.services.ReaderVersions;
 import pt.psoft.g1.psoftg1.shared.api.ListResponse;
+import pt.psoft.g1.psoftg1.shared.api.PhotoResponseFactory;
 import pt.psoft.g1.psoftg1.shared.services.ConcurrencyService;
+import pt.psoft.g1.psoftg1.shared.services.EtagService;
 import pt.psoft.g1.psoftg1.shared.services.FileStorageService;
+import pt.psoft.g1.psoftg1.shared.services.PhotoSize;
 import pt.psoft.g1.psoftg1.shared.services.SearchRequest;
-import pt.psoft.g1.psoftg1.usermanagement.model.Librarian;
 import pt.psoft.g1.psoftg1.usermanagement.model.Role;
-import pt.psoft.g1.psoftg1.usermanagement.model.User;
-import pt.psoft.g1.psoftg1.usermanagement.services.UserService;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -54,13 +57,15 @@ import java.util.Optional;
 @RequestMapping("/api/readers")
 class ReaderController {
     private final ReaderService readerService;
-    private final UserService userService;
+    private final AuthenticatedPrincipalResolver principalResolver;
     private final ReaderViewMapper readerViewMapper;
     private final LendingService lendingService;
     private final LendingViewMapper lendingViewMapper;
     private final ConcurrencyService concurrencyService;
+    private final EtagService etagService;
     private final FileStorageService fileStorageService;
-    private final ApiNinjasService apiNinjasService;
+    private final PhotoResponseFactory photoResponseFactory;
+    private final HistoricalEventsProvider historicalEventsProvider;
 
     @Operation(summary = "Gets the reader data if authenticated as Reader or all readers if authenticated as Librarian")
     @ApiResponse(description = "Success", responseCode = "200", content = { @Content(mediaType = "application/json",
@@ -68,11 +73,11 @@ class ReaderController {
             array = @ArraySchema(schema = @Schema(implementation = ReaderView.class))) })
     @GetMapping
     public ResponseEntity<?> getData(Authentication authentication) {
-        User loggedUser = userService.getAuthenticatedUser(authentication);
+        AuthenticatedPrincipal principal = principalResolver.resolve(authentication);
 
-        if (!(loggedUser instanceof Librarian)) {
-            ReaderDetails readerDetails = readerService.findByUsername(loggedUser.getUsername())
-                    .orElseThrow(() -> new NotFoundException(ReaderDetails.class, loggedUser.getUsername()));
+        if (!principal.isLibrarian()) {
+            ReaderDetails readerDetails = findLoggedReader(principal)
+                    .orElseThrow(() -> new NotFoundException(ReaderDetails.class, principal.username()));
             //return new ListResponse<>(readerViewMapper.toReaderView(readerService.findAll()));
             return ResponseEntity.ok().eTag(Long.toString(readerDetails.getVersion())).body(readerViewMapper.toReaderView(readerDetails));
         }
@@ -92,8 +97,19 @@ class ReaderController {
                                                            final Integer year,
                                                        @PathVariable("seq")
                                                            @Parameter(description = "The sequencial of the Reader to find")
-                                                           final Integer seq) {
+                                                           final Integer seq,
+                                                       final WebRequest request) {
         String readerNumber = year+"/"+seq;
+
+        // the view shows the user's name, so the user version is part of the tag
+        final var currentVersions = readerService.findVersionsByReaderNumber(readerNumber);
+        if (currentVersions.isPresent()) {
+            final String etag = etagService.entityTag(currentVersions.get().version(),
+                    currentVersions.get().userVersion());
+            if (etagService.isNotModified(request, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+        }
         final var readerDetails = readerService.findByReaderNumber(readerNumber)
                 .orElseThrow(() -> new NotFoundException("Could not find reader from specified reader number"));
 
@@ -102,16 +118,32 @@ class ReaderController {
         int birthYear = readerDetails.getBirthDate().getBirthDate().getYear();
         int birhMonth = readerDetails.getBirthDate().getBirthDate().getMonthValue();
 
-        readerQuoteView.setQuote(apiNinjasService.getRandomEventFromYearMonth(birthYear, birhMonth));
+        // the quote is picked by reader number, so it only changes with the reader's birth month;
+        // until the API's events of that month are cached it may still change, so no tag is sent
+        HistoricalEvent event = historicalEventsProvider.eventFor(birthYear, birhMonth, readerNumber);
+        if (event != null) {
+            readerQuoteView.setQuote(event.text());
+            readerQuoteView.setQuoteApproximate(event.approximate());
+        }
+        if (!historicalEventsProvider.isCached(birthYear, birhMonth)) {
+            return ResponseEntity.ok().body(readerQuoteView);
+        }
 
+        final var versions = ReaderVersions.of(readerDetails);
         return ResponseEntity.ok()
-                .eTag(Long.toString(readerDetails.getVersion()))
+                .eTag(etagService.entityTag(versions.version(), versions.userVersion()))
                 .body(readerQuoteView);
     }
 
     @Operation(summary = "Gets a list of Readers by phoneNumber")
     @GetMapping(params = "phoneNumber")
-    public ListResponse<ReaderView> findByPhoneNumber(@RequestParam(name = "phoneNumber", required = false) final String phoneNumber) {
+    public ResponseEntity<ListResponse<ReaderView>> findByPhoneNumber(@RequestParam(name = "phoneNumber", required = false) final String phoneNumber,
+                                                                      final WebRequest request) {
+
+        final String etag = etagService.collectionTag(EtagService.READERS);
+        if (etagService.isNotModified(request, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
 
         List<ReaderDetails> readerDetailsList  = readerService.findByPhoneNumber(phoneNumber);
 
@@ -119,21 +151,13 @@ class ReaderController {
             throw new NotFoundException(ReaderDetails.class, phoneNumber);
         }
 
-        return new ListResponse<>(readerViewMapper.toReaderView(readerDetailsList));
+        return ResponseEntity.ok().eTag(etag).body(new ListResponse<>(readerViewMapper.toReaderView(readerDetailsList)));
     }
 
     @RolesAllowed(Role.LIBRARIAN)
     @GetMapping(params = "name")
     public ListResponse<ReaderView> findByReaderName(@RequestParam("name") final String name) {
-        List<User> userList = this.userService.findByNameLike(name);
-        List<ReaderDetails> readerDetailsList = new ArrayList<>();
-
-        for(User user : userList) {
-            Optional<ReaderDetails> readerDetails = this.readerService.findByUsername(user.getUsername());
-            if(readerDetails.isPresent()) {
-                readerDetailsList.add(readerDetails.get());
-            }
-        }
+        List<ReaderDetails> readerDetailsList = this.readerService.findByReaderName(name);
 
         if(readerDetailsList.isEmpty()) {
             throw new NotFoundException("Could not find reader with name: " + name);
@@ -145,53 +169,53 @@ class ReaderController {
     @Operation(summary= "Gets a reader photo")
     @GetMapping("/{year}/{seq}/photo")
     @ResponseStatus(HttpStatus.OK)
-    public ResponseEntity<byte[]> getSpecificReaderPhoto(@PathVariable("year")
+    public ResponseEntity<Resource> getSpecificReaderPhoto(@PathVariable("year")
                                                      @Parameter(description = "The year of the Reader to find")
                                                      final Integer year,
                                                  @PathVariable("seq")
                                                      @Parameter(description = "The sequencial of the Reader to find")
                                                      final Integer seq,
-                                                         Authentication authentication) {
-        User loggedUser = userService.getAuthenticatedUser(authentication);
+                                                         @RequestParam(value = "size", required = false)
+                                                         @Parameter(description = "thumb, small, medium or original (default)")
+                                                         final String size,
+                                                         Authentication authentication,
+                                                         final WebRequest request) {
+        AuthenticatedPrincipal principal = principalResolver.resolve(authentication);
 
         //if Librarian is logged in, skip ahead
-        if (!(loggedUser instanceof Librarian)) {
-            final var loggedReaderDetails = readerService.findByUsername(loggedUser.getUsername())
-                    .orElseThrow(() -> new NotFoundException(ReaderDetails.class, loggedUser.getUsername()));
+        if (!principal.isLibrarian()) {
+            if (principal.readerNumber() == null) {
+                throw new NotFoundException(ReaderDetails.class, principal.username());
+            }
 
             //if logged Reader matches the one associated with the lending, skip ahead
-            if (!loggedReaderDetails.getReaderNumber().equals(year + "/" + seq)) {
+            if (!principal.readerNumber().equals(year + "/" + seq)) {
                 throw new AccessDeniedException("Reader does not have permission to view another reader's photo");
             }
         }
 
 
-        ReaderDetails readerDetails = readerService.findByReaderNumber(year + "/" + seq).orElseThrow(() -> new NotFoundException(ReaderDetails.class, loggedUser.getUsername()));
+        ReaderDetails readerDetails = readerService.findByReaderNumber(year + "/" + seq).orElseThrow(() -> new NotFoundException(ReaderDetails.class, principal.username()));
 
         //In case the user has no photo, just return a 200 OK without body
         if(readerDetails.getPhoto() == null) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
 
-        String photoFile = readerDetails.getPhoto().getPhotoFile();
-        byte[] image = this.fileStorageService.getFile(photoFile);
-        String fileFormat = this.fileStorageService.getExtension(readerDetails.getPhoto().getPhotoFile()).orElseThrow(() -> new ValidationException("Unable to get file extension"));
-
-        if(image == null) {
-            return ResponseEntity.ok().build();
-        }
-
-        return ResponseEntity.ok().contentType(fileFormat.equals("png") ? MediaType.IMAGE_PNG : MediaType.IMAGE_JPEG).body(image);
+        return photoResponseFactory.photo(readerDetails.getPhoto().getPhotoFile(), PhotoSize.fromParam(size), request);
     }
 
     @Operation(summary= "Gets a reader photo")
     @GetMapping("/photo")
     @ResponseStatus(HttpStatus.OK)
-    public ResponseEntity<byte[]> getReaderOwnPhoto(Authentication authentication) {
+    public ResponseEntity<Resource> getReaderOwnPhoto(@RequestParam(value = "size", required = false)
+                                                      @Parameter(description = "thumb, small, medium or original (default)")
+                                                      final String size,
+                                                      Authentication authentication, final WebRequest request) {
 
-        User loggedUser = userService.getAuthenticatedUser(authentication);
+        AuthenticatedPrincipal principal = principalResolver.resolve(authentication);
 
-        Optional<ReaderDetails> optReaderDetails = readerService.findByUsername(loggedUser.getUsername());
+        Optional<ReaderDetails> optReaderDetails = findLoggedReader(principal);
         if(optReaderDetails.isEmpty()) {
             throw new AccessDeniedException("Could not find a valid reader from current auth");
         }
@@ -203,15 +227,7 @@ class ReaderController {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
 
-        byte[] image = this.fileStorageService.getFile(readerDetails.getPhoto().getPhotoFile());
-
-        if(image == null) {
-            return ResponseEntity.ok().build();
-        }
-
-        String fileFormat = this.fileStorageService.getExtension(readerDetails.getPhoto().getPhotoFile()).orElseThrow(() -> new ValidationException("Unable to get file extension"));
-
-        return ResponseEntity.ok().contentType(fileFormat.equals("png") ? MediaType.IMAGE_PNG : MediaType.IMAGE_JPEG).body(image);
+        return photoResponseFactory.photo(readerDetails.getPhoto().getPhotoFile(), PhotoSize.fromParam(size), request);
     }
 
     @Operation(summary = "Creates a reader")
@@ -236,9 +252,9 @@ class ReaderController {
     @Operation(summary = "Deletes a reader photo")
     @DeleteMapping("/photo")
     public ResponseEntity<Void> deleteReaderPhoto(Authentication authentication) {
-        User loggedUser = userService.getAuthenticatedUser(authentication);
+        AuthenticatedPrincipal principal = principalResolver.resolve(authentication);
 
-        Optional<ReaderDetails> optReaderDetails = readerService.findByUsername(loggedUser.getUsername());
+        Optional<ReaderDetails> optReaderDetails = findLoggedReader(principal);
         if(optReaderDetails.isEmpty()) {
             throw new AccessDeniedException("Could not find a valid reader from current auth");
         }
@@ -249,8 +265,9 @@ class ReaderController {
             throw new NotFoundException("Reader has no photo to delete");
         }
 
-        this.fileStorageService.deleteFile(readerDetails.getPhoto().getPhotoFile());
+        String photoFile = readerDetails.getPhoto().getPhotoFile();
         readerService.removeReaderPhoto(readerDetails.getReaderNumber(), readerDetails.getVersion());
+        this.fileStorageService.releaseFile(photoFile);
 
         return ResponseEntity.ok().build();
     }
@@ -273,9 +290,9 @@ class ReaderController {
 
         String fileName = this.fileStorageService.getRequestPhoto(file);
 
-        User loggedUser = userService.getAuthenticatedUser(authentication);
+        AuthenticatedPrincipal principal = principalResolver.resolve(authentication);
         ReaderDetails readerDetails = readerService
-                .update(loggedUser.getId(), readerRequest, concurrencyService.getVersionFromIfMatchHeader(ifMatchValue), fileName);
+                .update(principal.userId(), readerRequest, concurrencyService.getVersionFromIfMatchHeader(ifMatchValue), fileName);
 
         return ResponseEntity.ok()
                 .eTag(Long.toString(readerDetails.getVersion()))
@@ -304,15 +321,16 @@ class ReaderController {
         final var urlReaderDetails = readerService.findByReaderNumber(urlReaderNumber)
                 .orElseThrow(() -> new NotFoundException(Lending.class, urlReaderNumber));
 
-        User loggedUser = userService.getAuthenticatedUser(authentication);
+        AuthenticatedPrincipal principal = principalResolver.resolve(authentication);
 
         //if Librarian is logged in, skip ahead
-        if (!(loggedUser instanceof Librarian)) {
-            final var loggedReaderDetails = readerService.findByUsername(loggedUser.getUsername())
-                    .orElseThrow(() -> new NotFoundException(ReaderDetails.class, loggedUser.getUsername()));
+        if (!principal.isLibrarian()) {
+            if (principal.readerNumber() == null) {
+                throw new NotFoundException(ReaderDetails.class, principal.username());
+            }
 
             //if logged Reader matches the one associated with the lendings, skip ahead
-            if(!Objects.equals(loggedReaderDetails.getReaderNumber(), urlReaderDetails.getReaderNumber())){
+            if(!Objects.equals(principal.readerNumber(), urlReaderDetails.getReaderNumber())){
                 throw new AccessDeniedException("Reader does not have permission to view these lendings");
             }
         }
@@ -325,22 +343,33 @@ class ReaderController {
     }
 
     @GetMapping("/top5")
-    public ListResponse<ReaderView> getTop() {
-        return new ListResponse<>(readerViewMapper.toReaderView(readerService.findTopReaders(5)));
+    public ResponseEntity<ListResponse<ReaderView>> getTop(final WebRequest request) {
+        final String etag = etagService.collectionTag(EtagService.READERS, EtagService.LENDINGS);
+        if (etagService.isNotModified(request, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag)
+                .body(new ListResponse<>(readerViewMapper.toReaderView(readerService.findTopReaders(5))));
     }
 
     @GetMapping("/top5ByGenre")
-    public ListResponse<ReaderCountView> getTop5ReaderByGenre(
+    public ResponseEntity<ListResponse<ReaderCountView>> getTop5ReaderByGenre(
             @RequestParam("genre") String genre,
             @RequestParam("startDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam("endDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate)
+            @RequestParam("endDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            final WebRequest request)
     {
+        final String etag = etagService.collectionTag(EtagService.READERS, EtagService.BOOKS, EtagService.LENDINGS);
+        if (etagService.isNotModified(request, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
         final var books = readerService.findTopByGenre(genre,startDate,endDate);
 
         if(books.isEmpty())
             throw new NotFoundException("No lendings found with provided parameters");
 
-        return new ListResponse<>(readerViewMapper.toReaderCountViewList(books));
+        return ResponseEntity.ok().eTag(etag).body(new ListResponse<>(readerViewMapper.toReaderCountViewList(books)));
     }
 
     @PostMapping("/search")
@@ -349,4 +378,9 @@ class ReaderController {
         final var readerList = readerService.searchReaders(request.getPage(), request.getQuery());
         return new ListResponse<>(readerViewMapper.toReaderView(readerList));
     }
+
+    // the reader number comes from the token, so only the reader itself is looked up
+    private Optional<ReaderDetails> findLoggedReader(AuthenticatedPrincipal principal) {
+        return Optional.ofNullable(principal.readerNumber()).flatMap(readerService::findByReaderNumber);
+    }
 }
@@ -9,4 +9,6 @@ import lombok.Setter;
 @Setter
 public class ReaderQuoteView extends ReaderView{
     private String quote;
+    /** Whether the quote happened in another year of the reader's birth month. */
+    private boolean quoteApproximate;
 }
@@ -6,6 +6,7 @@ import org.mapstruct.Named;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import pt.psoft.g1.psoftg1.genremanagement.model.Genre;
 import pt.psoft.g1.psoftg1.readermanagement.model.ReaderDetails;
+import pt.psoft.g1.psoftg1.readermanagement.services.ReaderAverageDto;
 import pt.psoft.g1.psoftg1.readermanagement.services.ReaderBookCountDTO;
 import pt.psoft.g1.psoftg1.shared.api.MapperInterface;
 
@@ -45,6 +46,11 @@ public abstract class ReaderViewMapper extends MapperInterface {
 
     public abstract List<ReaderCountView> toReaderCountViewList(List<ReaderBookCountDTO> readerBookCountDTOList);
 
+    @Mapping(target = "readerView", source = "readerDetails", qualifiedByName = "toReaderView")
+    public abstract ReaderAverageView toReaderAverageView(ReaderAverageDto readerAverageDto);
+
+    public abstract List<ReaderAverageView> toReaderAverageViewList(List<ReaderAverageDto> readerAverageDtoList);
+
 
     protected String generatePhotoUrl(ReaderDetails readerDetails) {
         String readerNumber = readerDetails.getReaderNumber();
@@ -16,10 +16,12 @@ import pt.psoft.g1.psoftg1.readermanagement.repositories.ReaderRepository;
 
 import org.springframework.data.domain.Pageable;
 import pt.psoft.g1.psoftg1.readermanagement.services.ReaderBookCountDTO;
+import pt.psoft.g1.psoftg1.readermanagement.services.ReaderVersions;
 import pt.psoft.g1.psoftg1.usermanagement.model.User;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -32,6 +34,18 @@ public interface SpringDataReaderRepositoryImpl extends ReaderRepository, Reader
             "WHERE r.readerNumber.readerNumber = :readerNumber")
     Optional<ReaderDetails> findByReaderNumber(@Param("readerNumber") @NotNull String readerNumber);
 
+    @Override
+    @Query("SELECT r " +
+            "FROM ReaderDetails r " +
+            "WHERE r.readerNumber.readerNumber IN :readerNumbers")
+    List<ReaderDetails> findByReaderNumbers(@Param("readerNumbers") @NotNull Collection<String> readerNumbers);
+
+    @Override
+    @Query("SELECT new pt.psoft.g1.psoftg1.readermanagement.services.ReaderVersions(r.version, u.version) " +
+            "FROM ReaderDetails r JOIN r.reader u " +
+            "WHERE r.readerNumber.readerNumber = :readerNumber")
+    Optional<ReaderVersions> findVersionsByReaderNumber(@Param("readerNumber") @NotNull String readerNumber);
+
     @Override
     @Query("SELECT r " +
             "FROM ReaderDetails r " +
@@ -45,6 +59,28 @@ public interface SpringDataReaderRepositoryImpl extends ReaderRepository, Reader
             "WHERE u.username = :username")
     Optional<ReaderDetails> findByUsername(@Param("username") @NotNull String username);
 
+    @Override
+    @Query("SELECT r " +
+            "FROM ReaderDetails r " +
+            "JOIN FETCH r.reader u " +
+            "WHERE u.username IN :usernames")
+    List<ReaderDetails> findByUsernames(@Param("usernames") @NotNull Collection<String> usernames);
+
+    @Override
+    default List<ReaderDetails> findByReaderNameContains(@NotNull String name) {
+        // match the name literally, as the derived *Contains queries do
+        final String escaped = name.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return findByReaderNameLike("%" + escaped + "%");
+    }
+
+    @Query("SELECT DISTINCT r " +
+            "FROM ReaderDetails r " +
+            "JOIN FETCH r.reader u " +
+            "LEFT JOIN FETCH r.photo " +
+            "LEFT JOIN FETCH r.interestList " +
+            "WHERE u.name.name LIKE :pattern ESCAPE '\\'")
+    List<ReaderDetails> findByReaderNameLike(@Param("pattern") String pattern);
+
     @Override
     @Query("SELECT r " +
             "FROM ReaderDetails r " +
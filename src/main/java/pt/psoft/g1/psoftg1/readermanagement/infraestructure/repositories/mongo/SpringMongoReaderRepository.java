@@ -8,11 +8,14 @@ import org.springframework.stereotype.Repository;
 import pt.psoft.g1.psoftg1.readermanagement.model.ReaderDetails;
 import pt.psoft.g1.psoftg1.readermanagement.repositories.ReaderRepository;
 import pt.psoft.g1.psoftg1.readermanagement.services.ReaderBookCountDTO;
+import pt.psoft.g1.psoftg1.readermanagement.services.ReaderVersions;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.regex.Pattern;
 
 @Repository
 @Profile({"mongodb-redis", "mongotest"})
@@ -21,6 +24,15 @@ public interface SpringMongoReaderRepository extends ReaderRepository, MongoRepo
     @org.springframework.data.mongodb.repository.Query("{ 'readerNumber.readerNumber': ?0 }")
     Optional<ReaderDetails> findByReaderNumber(String readerNumber);
 
+    @Override
+    @org.springframework.data.mongodb.repository.Query("{ 'readerNumber.readerNumber': { $in: ?0 } }")
+    List<ReaderDetails> findByReaderNumbers(Collection<String> readerNumbers);
+
+    @Override
+    default Optional<ReaderVersions> findVersionsByReaderNumber(String readerNumber) {
+        return findByReaderNumber(readerNumber).map(ReaderVersions::of);
+    }
+
     @Override
     @org.springframework.data.mongodb.repository.Query("{ 'phoneNumber.phoneNumber': ?0 }")
     List<ReaderDetails> findByPhoneNumber(String phoneNumber);
@@ -29,6 +41,18 @@ public interface SpringMongoReaderRepository extends ReaderRepository, MongoRepo
     @org.springframework.data.mongodb.repository.Query("{ 'reader.username': ?0 }")
     Optional<ReaderDetails> findByUsername(String username);
 
+    @Override
+    @org.springframework.data.mongodb.repository.Query("{ 'reader.username': { $in: ?0 } }")
+    List<ReaderDetails> findByUsernames(Collection<String> usernames);
+
+    @Override
+    default List<ReaderDetails> findByReaderNameContains(String name) {
+        return findByReaderNameRegex(Pattern.quote(name));
+    }
+
+    @org.springframework.data.mongodb.repository.Query("{ 'reader.name.name': { $regex: ?0 } }")
+    List<ReaderDetails> findByReaderNameRegex(String regex);
+
     @Override
     @org.springframework.data.mongodb.repository.Query("{ 'reader._id': ?0 }")
     Optional<ReaderDetails> findByUserId(Long userId);
@@ -118,15 +118,12 @@ public class ReaderDetails extends EntityWithPhoto {
         boolean thirdParty = request.getThirdParty();
         String fullName = request.getFullName();
         String username = request.getUsername();
-        String password = request.getPassword();
 
         if(username != null) {
             this.reader.setUsername(username);
         }
 
-        if(password != null) {
-            this.reader.setPassword(password);
-        }
+        // the password is stored hashed, so the service sets it on the reader once it has encoded it
 
         if(fullName != null) {
             this.reader.setName(fullName);
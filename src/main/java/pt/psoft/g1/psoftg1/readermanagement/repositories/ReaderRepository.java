@@ -7,8 +7,10 @@ import org.springframework.data.repository.query.Param;
 import pt.psoft.g1.psoftg1.readermanagement.services.SearchReadersQuery;
 import pt.psoft.g1.psoftg1.readermanagement.model.ReaderDetails;
 import pt.psoft.g1.psoftg1.readermanagement.services.ReaderBookCountDTO;
+import pt.psoft.g1.psoftg1.readermanagement.services.ReaderVersions;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,8 +19,14 @@ import java.util.Optional;
  */
 public interface ReaderRepository {
     Optional<ReaderDetails> findByReaderNumber(@Param("readerNumber") @NotNull String readerNumber);
+    List<ReaderDetails> findByReaderNumbers(@Param("readerNumbers") @NotNull Collection<String> readerNumbers);
+    Optional<ReaderVersions> findVersionsByReaderNumber(@Param("readerNumber") @NotNull String readerNumber);
     List<ReaderDetails> findByPhoneNumber(@Param("phoneNumber") @NotNull String phoneNumber);
     Optional<ReaderDetails> findByUsername(@Param("username") @NotNull String username);
+    /** Readers of the given usernames in one query; usernames without a reader are left out. */
+    List<ReaderDetails> findByUsernames(@NotNull Collection<String> usernames);
+    /** Readers whose name contains {@code name}, with their user, photo and interests, in one query. */
+    List<ReaderDetails> findByReaderNameContains(@NotNull String name);
     Optional<ReaderDetails> findByUserId(@Param("userId") @NotNull Long userId);
     int getCountFromCurrentYear();
     ReaderDetails save(ReaderDetails readerDetails);
@@ -2,15 +2,20 @@ package pt.psoft.g1.psoftg1.readermanagement.services;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
 import lombok.Data;
-import pt.psoft.g1.psoftg1.readermanagement.api.ReaderView;
+import lombok.NoArgsConstructor;
 import pt.psoft.g1.psoftg1.readermanagement.model.ReaderDetails;
 
 @Data
-@Schema(description = "Reader with lending count")
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Reader with lending count and average lendings per month")
 public class ReaderAverageDto {
     @NotNull
-    private ReaderDetails readerView;
+    private ReaderDetails readerDetails;
 
     private Long lendingCount;
+
+    private Double monthlyAverage;
 }
@@ -0,0 +1,14 @@
+package pt.psoft.g1.psoftg1.readermanagement.services;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import pt.psoft.g1.psoftg1.readermanagement.model.ReaderDetails;
+
+/**
+ * Application event published by {@link ReaderService} after a reader is created or changed.
+ */
+@Getter
+@RequiredArgsConstructor
+public class ReaderEvent {
+    private final ReaderDetails readerDetails;
+}
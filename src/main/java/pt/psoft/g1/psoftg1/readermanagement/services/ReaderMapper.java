@@ -20,11 +20,6 @@ import java.util.List;
 @Mapper(componentModel = "spring", uses = {ReaderService.class, UserService.class})
 public abstract class ReaderMapper {
 
-    @Mapping(target = "username", source = "username")
-    @Mapping(target = "password", source = "password")
-    @Mapping(target = "name", source = "fullName")
-    public abstract Reader createReader(CreateReaderRequest request);
-
     @Mapping(target = "photo", source = "photoURI")
     @Mapping(target = "interestList", source = "interestList")
     public abstract ReaderDetails createReaderDetails(int readerNumber, Reader reader, CreateReaderRequest request, String photoURI, List<Genre> interestList);
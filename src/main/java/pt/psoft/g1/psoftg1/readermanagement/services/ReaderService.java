@@ -14,7 +14,9 @@ public interface ReaderService {
     ReaderDetails create(CreateReaderRequest request, String photoURI);
     ReaderDetails update(Long id, UpdateReaderRequest request, long desireVersion, String photoURI);
     Optional<ReaderDetails> findByUsername(final String username);
+    List<ReaderDetails> findByReaderName(String name);
     Optional<ReaderDetails> findByReaderNumber(String readerNumber);
+    Optional<ReaderVersions> findVersionsByReaderNumber(String readerNumber);
     List<ReaderDetails> findByPhoneNumber(String phoneNumber);
     Iterable<ReaderDetails> findAll();
     List<ReaderDetails> findTopReaders(int minTop);
@@ -1,13 +1,15 @@
 package pt.psoft.g1.psoftg1.readermanagement.services;
 
-import lombok.RequiredArgsConstructor;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import pt.psoft.g1.psoftg1.analytics.services.LeaderboardService;
 import pt.psoft.g1.psoftg1.genremanagement.model.Genre;
 import pt.psoft.g1.psoftg1.genremanagement.repositories.GenreRepository;
 import pt.psoft.g1.psoftg1.exceptions.ConflictException;
@@ -15,18 +17,22 @@ import pt.psoft.g1.psoftg1.exceptions.NotFoundException;
 import pt.psoft.g1.psoftg1.readermanagement.model.ReaderDetails;
 import pt.psoft.g1.psoftg1.readermanagement.repositories.ReaderRepository;
 import pt.psoft.g1.psoftg1.shared.repositories.ForbiddenNameRepository;
+import pt.psoft.g1.psoftg1.shared.model.Photo;
 import pt.psoft.g1.psoftg1.shared.repositories.PhotoRepository;
+import pt.psoft.g1.psoftg1.shared.services.RequestScopedLoader;
+import pt.psoft.g1.psoftg1.shared.services.RequestScopedLoaders;
+import pt.psoft.g1.psoftg1.usermanagement.model.Password;
 import pt.psoft.g1.psoftg1.usermanagement.model.Reader;
 import pt.psoft.g1.psoftg1.usermanagement.repositories.UserRepository;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import org.springframework.data.domain.Pageable;
 
 @Service
-@RequiredArgsConstructor
 public class ReaderServiceImpl implements ReaderService {
     private final ReaderRepository readerRepo;
     private final UserRepository userRepo;
@@ -34,6 +40,28 @@ public class ReaderServiceImpl implements ReaderService {
     private final GenreRepository genreRepo;
     private final ForbiddenNameRepository forbiddenNameRepository;
     private final PhotoRepository photoRepository;
+    private final LeaderboardService leaderboardService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PasswordEncoder passwordEncoder;
+    private final RequestScopedLoader<String, ReaderDetails> readerLoader;
+    private final RequestScopedLoader<String, Genre> genreLoader;
+
+    public ReaderServiceImpl(ReaderRepository readerRepo, UserRepository userRepo, ReaderMapper readerMapper,
+                             GenreRepository genreRepo, ForbiddenNameRepository forbiddenNameRepository,
+                             PhotoRepository photoRepository, LeaderboardService leaderboardService,
+                             ApplicationEventPublisher eventPublisher, PasswordEncoder passwordEncoder) {
+        this.readerRepo = readerRepo;
+        this.userRepo = userRepo;
+        this.readerMapper = readerMapper;
+        this.genreRepo = genreRepo;
+        this.forbiddenNameRepository = forbiddenNameRepository;
+        this.photoRepository = photoRepository;
+        this.leaderboardService = leaderboardService;
+        this.eventPublisher = eventPublisher;
+        this.passwordEncoder = passwordEncoder;
+        this.readerLoader = RequestScopedLoaders.readers(readerRepo);
+        this.genreLoader = RequestScopedLoaders.genres(genreRepo);
+    }
 
 
     @Override
@@ -74,11 +102,14 @@ public class ReaderServiceImpl implements ReaderService {
         }
 
         int count = readerRepo.getCountFromCurrentYear();
-        Reader reader = readerMapper.createReader(request);
+        Reader reader = Reader.newReader(request.getUsername(),
+                new Password(request.getPassword()).encode(passwordEncoder), request.getFullName());
         ReaderDetails rd = readerMapper.createReaderDetails(count+1, reader, request, photoURI, interestList);
 
         userRepo.save(reader);
-        return readerRepo.save(rd);
+        final ReaderDetails saved = readerRepo.save(rd);
+        eventPublisher.publishEvent(new ReaderEvent(saved));
+        return saved;
     }
 
     @Override
@@ -86,6 +117,14 @@ public class ReaderServiceImpl implements ReaderService {
         if(startDate.isAfter(endDate)){
             throw new IllegalArgumentException("Start date cannot be after end date");
         }
+        if (leaderboardService.isReady()) {
+            final var top = leaderboardService.topReadersByGenre(genre, startDate, endDate, 5);
+            final Map<String, ReaderDetails> readers = readerLoader.loadMany(top.stream().map(Map.Entry::getKey).toList());
+            return top.stream()
+                    .filter(entry -> readers.containsKey(entry.getKey()))
+                    .map(entry -> new ReaderBookCountDTO(readers.get(entry.getKey()), entry.getValue()))
+                    .toList();
+        }
         Pageable pageableRules = PageRequest.of(0,5);
         return this.readerRepo.findTopByGenre(pageableRules, genre, startDate, endDate).getContent();
     }
@@ -117,9 +156,14 @@ public class ReaderServiceImpl implements ReaderService {
         }
 
         readerDetails.applyPatch(desiredVersion, request, photoURI, interestList);
+        if (request.getPassword() != null) {
+            readerDetails.getReader().setPassword(new Password(request.getPassword()).encode(passwordEncoder));
+        }
 
         userRepo.save(readerDetails.getReader());
-        return readerRepo.save(readerDetails);
+        final ReaderDetails saved = readerRepo.save(readerDetails);
+        eventPublisher.publishEvent(new ReaderEvent(saved));
+        return saved;
     }
 
 
@@ -129,6 +173,11 @@ public class ReaderServiceImpl implements ReaderService {
         return this.readerRepo.findByReaderNumber(readerNumber);
     }
 
+    @Override
+    public Optional<ReaderVersions> findVersionsByReaderNumber(String readerNumber) {
+        return this.readerRepo.findVersionsByReaderNumber(readerNumber);
+    }
+
     @Override
     @Cacheable(value = "readersByPhone", key = "#phoneNumber")
     public List<ReaderDetails> findByPhoneNumber(String phoneNumber) {
@@ -141,6 +190,11 @@ public class ReaderServiceImpl implements ReaderService {
         return this.readerRepo.findByUsername(username);
     }
 
+    @Override
+    public List<ReaderDetails> findByReaderName(final String name) {
+        return this.readerRepo.findByReaderNameContains(name);
+    }
+
 
     @Override
     public Iterable<ReaderDetails> findAll() {
@@ -152,6 +206,9 @@ public class ReaderServiceImpl implements ReaderService {
         if(minTop < 1) {
             throw new IllegalArgumentException("Minimum top reader must be greater than 0");
         }
+        if (leaderboardService.isReady()) {
+            return readerLoader.loadAll(leaderboardService.topReaders(minTop).stream().map(Map.Entry::getKey).toList());
+        }
 
         Pageable pageableRules = PageRequest.of(0,minTop);
         Page<ReaderDetails> page = readerRepo.findTopReaders(pageableRules);
@@ -167,14 +224,15 @@ public class ReaderServiceImpl implements ReaderService {
             return new ArrayList<>();
         }
 
+        Map<String, Genre> genres = genreLoader.loadMany(interestList);
         List<Genre> genreList = new ArrayList<>();
         for(String interest : interestList) {
-            Optional<Genre> optGenre = genreRepo.findByString(interest);
-            if(optGenre.isEmpty()) {
+            Genre genre = genres.get(interest);
+            if(genre == null) {
                 throw new NotFoundException("Could not find genre with name " + interest);
             }
 
-            genreList.add(optGenre.get());
+            genreList.add(genre);
         }
 
         return genreList;
@@ -186,10 +244,11 @@ public class ReaderServiceImpl implements ReaderService {
         ReaderDetails readerDetails = readerRepo.findByReaderNumber(readerNumber)
                 .orElseThrow(() -> new NotFoundException("Cannot find reader"));
 
-        String photoFile = readerDetails.getPhoto().getPhotoFile();
+        Photo photo = readerDetails.getPhoto();
         readerDetails.removePhoto(desiredVersion);
         Optional<ReaderDetails> updatedReader = Optional.of(readerRepo.save(readerDetails));
-        photoRepository.deleteByPhotoFile(photoFile);
+        photoRepository.delete(photo);
+        eventPublisher.publishEvent(new ReaderEvent(updatedReader.get()));
         return updatedReader;
     }
 
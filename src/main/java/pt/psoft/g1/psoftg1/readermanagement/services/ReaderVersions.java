@@ -0,0 +1,14 @@
+package pt.psoft.g1.psoftg1.readermanagement.services;
+
+import pt.psoft.g1.psoftg1.readermanagement.model.ReaderDetails;
+
+/**
+ * The version of a reader's details and of their user, which together change whenever anything
+ * shown in a {@code ReaderView} does; the name lives on the user.
+ */
+public record ReaderVersions(Long version, Long userVersion) {
+
+    public static ReaderVersions of(ReaderDetails readerDetails) {
+        return new ReaderVersions(readerDetails.getVersion(), readerDetails.getReader().getVersion());
+    }
+}
@@ -0,0 +1,94 @@
+package pt.psoft.g1.psoftg1.reportmanagement.api;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import pt.psoft.g1.psoftg1.exceptions.ConflictException;
+import pt.psoft.g1.psoftg1.genremanagement.api.GenreViewMapper;
+import pt.psoft.g1.psoftg1.genremanagement.services.GenreLendingsPerMonthDTO;
+import pt.psoft.g1.psoftg1.readermanagement.api.ReaderViewMapper;
+import pt.psoft.g1.psoftg1.readermanagement.services.ReaderBookCountDTO;
+import pt.psoft.g1.psoftg1.reportmanagement.services.ReportRequest;
+import pt.psoft.g1.psoftg1.reportmanagement.services.ReportResult;
+import pt.psoft.g1.psoftg1.reportmanagement.services.ReportService;
+import pt.psoft.g1.psoftg1.reportmanagement.services.ReportStatus;
+import pt.psoft.g1.psoftg1.shared.api.ListResponse;
+import pt.psoft.g1.psoftg1.shared.services.EtagService;
+
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+@Tag(name = "Reports", description = "Endpoints for generating heavy analytics reports in the background")
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/reports")
+public class ReportController {
+    private final ReportService reportService;
+    private final EtagService etagService;
+    private final GenreViewMapper genreViewMapper;
+    private final ReaderViewMapper readerViewMapper;
+
+    @Operation(summary = "Queues a report and returns its job, whose result is fetched from /api/reports/{id}/result")
+    @PostMapping
+    public ResponseEntity<ReportStatus> submit(@Valid @RequestBody final ReportRequest request) {
+        final ReportStatus status;
+        try {
+            status = reportService.submit(request);
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+        final var statusUri = ServletUriComponentsBuilder.fromCurrentRequestUri()
+                .pathSegment(status.id())
+                .build().toUri();
+
+        return ResponseEntity.accepted().location(statusUri).body(status);
+    }
+
+    @Operation(summary = "Gets the state of a report")
+    @GetMapping("/{id}")
+    public ReportStatus status(@PathVariable("id") final String id) {
+        return reportService.status(id);
+    }
+
+    @Operation(summary = "Gets the rows of a completed report; answers 202 with its state while it is still queued or running")
+    @GetMapping("/{id}/result")
+    public ResponseEntity<?> result(@PathVariable("id") final String id, final WebRequest request) {
+        final ReportResult result = reportService.result(id);
+        final ReportStatus status = result.status();
+        if (status.isPending()) {
+            return ResponseEntity.accepted().body(status);
+        }
+        if (status.state() != ReportStatus.State.COMPLETED) {
+            throw new ConflictException("Report " + id + " is " + status.state()
+                    + (status.message() == null ? "" : ": " + status.message()));
+        }
+        if (etagService.isNotModified(request, status.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(status.etag()).build();
+        }
+        return ResponseEntity.ok().eTag(status.etag()).body(toView(status.type(), result.rows()));
+    }
+
+    @Operation(summary = "Cancels a queued or running report, or discards a finished one")
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> cancel(@PathVariable("id") final String id) {
+        reportService.cancel(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private ListResponse<?> toView(final ReportRequest.Type type, final List<?> rows) {
+        return switch (type) {
+            case LENDINGS_AVERAGE_DURATION_PER_MONTH -> new ListResponse<>(
+                    genreViewMapper.toGenreLendingsAveragePerMonthView((List<GenreLendingsPerMonthDTO>) rows));
+            case READERS_TOP5_BY_GENRE -> new ListResponse<>(
+                    readerViewMapper.toReaderCountViewList((List<ReaderBookCountDTO>) rows));
+        };
+    }
+}
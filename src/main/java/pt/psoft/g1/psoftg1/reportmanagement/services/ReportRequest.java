@@ -0,0 +1,41 @@
+package pt.psoft.g1.psoftg1.reportmanagement.services;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "A report to generate in the background")
+public class ReportRequest {
+
+    public enum Type {
+        /** Same rows as {@code GET /api/genres/lendingsAverageDurationPerMonth}. */
+        LENDINGS_AVERAGE_DURATION_PER_MONTH,
+        /** Same rows as {@code GET /api/readers/top5ByGenre}; needs a genre. */
+        READERS_TOP5_BY_GENRE
+    }
+
+    public enum Priority { LOW, NORMAL, HIGH }
+
+    @NotNull
+    private Type type;
+
+    @NotNull
+    private LocalDate startDate;
+
+    @NotNull
+    private LocalDate endDate;
+
+    @Schema(description = "Genre of READERS_TOP5_BY_GENRE reports")
+    private String genre;
+
+    @NotNull
+    @Schema(description = "Queued reports of higher priority run first")
+    private Priority priority = Priority.NORMAL;
+}
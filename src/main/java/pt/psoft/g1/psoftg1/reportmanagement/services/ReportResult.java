@@ -0,0 +1,9 @@
+package pt.psoft.g1.psoftg1.reportmanagement.services;
+
+import java.util.List;
+
+/**
+ * @param rows the report rows, {@code null} unless the report has completed
+ */
+public record ReportResult(ReportStatus status, List<?> rows) {
+}
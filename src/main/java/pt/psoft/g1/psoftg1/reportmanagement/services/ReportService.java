@@ -0,0 +1,291 @@
+package pt.psoft.g1.psoftg1.reportmanagement.services;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ValidationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pt.psoft.g1.psoftg1.exceptions.NotFoundException;
+import pt.psoft.g1.psoftg1.genremanagement.services.GenreService;
+import pt.psoft.g1.psoftg1.readermanagement.services.ReaderService;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs heavy analytics reports in the background, so they no longer hold a servlet thread and a
+ * connection while the client waits.
+ * <p>Reports run on {@code report.workers} threads. Up to {@code report.queue-capacity} more wait
+ * in a priority queue, highest priority first and then in submission order; beyond that new
+ * reports are rejected. A report still running after {@code report.timeout} is cancelled and
+ * reported as failed; a queued or running report can also be cancelled by the client. Cancelling
+ * only interrupts the worker, which a running JDBC query does not notice, so each report also runs
+ * in a read-only transaction whose timeout is {@code report.timeout}; the database then stops its
+ * queries too.
+ * <p>Finished reports are kept in memory for {@code report.retention} after they finish.
+ */
+@Slf4j
+@Service
+public class ReportService {
+
+    private final GenreService genreService;
+    private final ReaderService readerService;
+    private final int queueCapacity;
+    private final Duration timeout;
+    private final Duration retention;
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService scheduler;
+    // null without a transaction manager (the MongoDB profiles)
+    private final TransactionTemplate transactions;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Autowired
+    public ReportService(final GenreService genreService,
+                         final ReaderService readerService,
+                         final ObjectProvider<PlatformTransactionManager> transactionManager,
+                         @Value("${report.workers:2}") final int workers,
+                         @Value("${report.queue-capacity:50}") final int queueCapacity,
+                         @Value("${report.timeout:5m}") final Duration timeout,
+                         @Value("${report.retention:1h}") final Duration retention) {
+        this(genreService, readerService, transactionManager.getIfAvailable(), workers, queueCapacity, timeout,
+                retention);
+    }
+
+    ReportService(final GenreService genreService, final ReaderService readerService,
+                  final PlatformTransactionManager transactionManager, final int workers, final int queueCapacity,
+                  final Duration timeout, final Duration retention) {
+        this.genreService = genreService;
+        this.readerService = readerService;
+        this.queueCapacity = queueCapacity;
+        this.timeout = timeout;
+        this.retention = retention;
+        if (transactionManager == null) {
+            this.transactions = null;
+        } else {
+            this.transactions = new TransactionTemplate(transactionManager);
+            this.transactions.setReadOnly(true);
+            this.transactions.setTimeout((int) Math.max(1, (timeout.toMillis() + 999) / 1000));
+        }
+        this.workers = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(), daemonThreads("report"));
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("report-scheduler"));
+        final long purgeMillis = Math.max(1000, retention.toMillis() / 4);
+        this.scheduler.scheduleWithFixedDelay(this::purgeExpired, purgeMillis, purgeMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static ThreadFactory daemonThreads(final String prefix) {
+        final AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Queues a report.
+     *
+     * @throws RejectedExecutionException if {@code report.queue-capacity} reports are already waiting
+     */
+    public synchronized ReportStatus submit(final ReportRequest request) {
+        validate(request);
+        if (workers.getQueue().size() >= queueCapacity) {
+            throw new RejectedExecutionException("Too many reports waiting; try again later");
+        }
+        final Job job = new Job(UUID.randomUUID().toString(), request, sequence.incrementAndGet(), () -> run(request));
+        jobs.put(job.id, job);
+        workers.execute(job);
+        log.info("Report {} ({}, {}) queued", job.id, request.getType(), request.getPriority());
+        return job.status();
+    }
+
+    public ReportStatus status(final String id) {
+        return job(id).status();
+    }
+
+    public ReportResult result(final String id) {
+        final Job job = job(id);
+        final ReportStatus status = job.status();
+        return new ReportResult(status, status.state() == ReportStatus.State.COMPLETED ? job.rows() : null);
+    }
+
+    /**
+     * Cancels the report if it is still queued or running and discards it.
+     */
+    public void cancel(final String id) {
+        final Job job = job(id);
+        if (job.cancel(true)) {
+            workers.remove(job);
+            log.info("Report {} cancelled", id);
+        }
+        jobs.remove(id);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    void purgeExpired() {
+        final Instant expired = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(expired));
+    }
+
+    private Job job(final String id) {
+        final Job job = jobs.get(id);
+        if (job == null) {
+            throw new NotFoundException("Report " + id + " not found");
+        }
+        return job;
+    }
+
+    private static void validate(final ReportRequest request) {
+        if (request.getStartDate().isAfter(request.getEndDate())) {
+            throw new ValidationException("startDate must not be after endDate");
+        }
+        if (request.getType() == ReportRequest.Type.READERS_TOP5_BY_GENRE
+                && (request.getGenre() == null || request.getGenre().isBlank())) {
+            throw new ValidationException("READERS_TOP5_BY_GENRE reports need a genre");
+        }
+    }
+
+    private List<?> run(final ReportRequest request) {
+        return transactions == null ? generate(request) : transactions.execute(status -> generate(request));
+    }
+
+    private List<?> generate(final ReportRequest request) {
+        return switch (request.getType()) {
+            case LENDINGS_AVERAGE_DURATION_PER_MONTH -> genreService.getLendingsAverageDurationPerMonth(
+                    request.getStartDate().toString(), request.getEndDate().toString());
+            case READERS_TOP5_BY_GENRE -> readerService.findTopByGenre(
+                    request.getGenre(), request.getStartDate(), request.getEndDate());
+        };
+    }
+
+    /**
+     * A queued report. It is its own queue entry, so it orders the priority queue and can be taken
+     * out of it again on cancel.
+     */
+    private final class Job extends FutureTask<List<?>> implements Comparable<Job> {
+        private final String id;
+        private final ReportRequest request;
+        private final long sequence;
+        private final Instant submittedAt = Instant.now();
+        private volatile Instant startedAt;
+        private volatile Instant finishedAt;
+        private volatile boolean timedOut;
+
+        Job(final String id, final ReportRequest request, final long sequence, final Callable<List<?>> report) {
+            super(report);
+            this.id = id;
+            this.request = request;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void run() {
+            if (isDone()) {
+                return;
+            }
+            startedAt = Instant.now();
+            final ScheduledFuture<?> deadline = scheduler.schedule(() -> {
+                timedOut = true;
+                cancel(true);
+            }, timeout.toMillis(), TimeUnit.MILLISECONDS);
+            try {
+                super.run();
+            } finally {
+                deadline.cancel(false);
+            }
+        }
+
+        // stamped before the outcome is published, so a done job always has its finish time
+        @Override
+        protected void set(final List<?> rows) {
+            finishedAt = Instant.now();
+            super.set(rows);
+        }
+
+        @Override
+        protected void setException(final Throwable failure) {
+            finishedAt = Instant.now();
+            super.setException(failure);
+        }
+
+        @Override
+        public boolean cancel(final boolean mayInterruptIfRunning) {
+            if (isDone()) {
+                return false;
+            }
+            finishedAt = Instant.now();
+            return super.cancel(mayInterruptIfRunning);
+        }
+
+        @Override
+        public int compareTo(final Job other) {
+            final int byPriority = other.request.getPriority().compareTo(request.getPriority());
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+
+        List<?> rows() {
+            try {
+                return get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } catch (ExecutionException | CancellationException e) {
+                throw new IllegalStateException("Report " + id + " has no result", e);
+            }
+        }
+
+        ReportStatus status() {
+            ReportStatus.State state;
+            String etag = null;
+            String message = null;
+            if (!isDone()) {
+                state = startedAt == null ? ReportStatus.State.QUEUED : ReportStatus.State.RUNNING;
+            } else if (isCancelled()) {
+                state = timedOut ? ReportStatus.State.FAILED : ReportStatus.State.CANCELLED;
+                message = timedOut ? "Timed out after " + timeout : null;
+            } else {
+                try {
+                    get();
+                    state = ReportStatus.State.COMPLETED;
+                    etag = "\"" + id + "-" + Long.toHexString(finishedAt.toEpochMilli()) + "\"";
+                } catch (ExecutionException e) {
+                    state = ReportStatus.State.FAILED;
+                    message = e.getCause().getMessage();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                }
+            }
+            return new ReportStatus(id, request.getType(), request.getPriority(), state,
+                    submittedAt, startedAt, finishedAt, etag, message);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package pt.psoft.g1.psoftg1.reportmanagement.services;
+
+import java.time.Instant;
+
+/**
+ * State of one report job. {@code etag} is set once the report has completed and identifies its
+ * result, which never changes afterwards.
+ */
+public record ReportStatus(String id,
+                           ReportRequest.Type type,
+                           ReportRequest.Priority priority,
+                           State state,
+                           Instant submittedAt,
+                           Instant startedAt,
+                           Instant finishedAt,
+                           String etag,
+                           String message) {
+
+    public enum State {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED,
+        CANCELLED
+    }
+
+    public boolean isPending() {
+        return state == State.QUEUED || state == State.RUNNING;
+    }
+}
@@ -0,0 +1,96 @@
+package pt.psoft.g1.psoftg1.shared.api;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+import pt.psoft.g1.psoftg1.shared.services.EtagService;
+import pt.psoft.g1.psoftg1.shared.services.FileStorageProperties;
+import pt.psoft.g1.psoftg1.shared.services.FileStorageService;
+import pt.psoft.g1.psoftg1.shared.services.PhotoSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Builds the responses of the photo endpoints.
+ * <p>Photos are streamed from disk as a {@link Resource}, so Spring MVC copies them in small
+ * chunks and answers {@code Range} requests with {@code 206 Partial Content}. They are never
+ * loaded whole into the heap.
+ * <p>Stored photo files are never rewritten, because an upload always gets a new file name.
+ * The name of the file actually served is therefore used as a strong ETag, and an
+ * {@code If-None-Match} naming the requested file is answered before the disk is touched.
+ * {@code Last-Modified} comes from the file metadata, and Spring checks {@code If-Modified-Since}
+ * against it.
+ * <p>A resized {@link PhotoSize} is served once its derivative exists. Until then the original is
+ * returned with {@code no-cache}, so the client picks up the derivative on its next request.
+ */
+@Component
+@RequiredArgsConstructor
+public class PhotoResponseFactory {
+    private final FileStorageService fileStorageService;
+    private final FileStorageProperties fileStorageProperties;
+    private final EtagService etagService;
+
+    public ResponseEntity<Resource> photo(final String photoFile, final WebRequest request) {
+        return photo(photoFile, Optional.empty(), request);
+    }
+
+    public ResponseEntity<Resource> photo(final String photoFile, final Optional<PhotoSize> size,
+                                          final WebRequest request) {
+        final CacheControl cacheable = CacheControl
+                .maxAge(Duration.ofSeconds(fileStorageProperties.getPhotoCacheMaxAge()))
+                .cachePrivate();
+
+        // a client holding the file it asked for is answered without touching the disk
+        if (photoFile != null) {
+            final String requestedTag = etag(size.map(s -> fileStorageService.derivativeName(photoFile, s))
+                    .orElse(photoFile));
+            if (etagService.isNotModified(request, requestedTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(requestedTag).cacheControl(cacheable).build();
+            }
+        }
+
+        final Optional<Path> derivative = size.flatMap(s -> fileStorageService.resolveDerivative(photoFile, s));
+        final Optional<Path> path = derivative.isPresent() ? derivative : fileStorageService.resolveFile(photoFile);
+        if (path.isEmpty()) {
+            return ResponseEntity.ok().build();
+        }
+
+        final String etag = etag(path.get().getFileName().toString());
+        final CacheControl cacheControl = size.isPresent() && derivative.isEmpty() ? CacheControl.noCache() : cacheable;
+
+        // the original served in place of a derivative that is not ready yet
+        if (etagService.isNotModified(request, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+
+        final long lastModified;
+        try {
+            lastModified = Files.getLastModifiedTime(path.get()).toMillis();
+        } catch (IOException e) {
+            return ResponseEntity.ok().build();
+        }
+
+        final boolean isPng = fileStorageService.getExtension(photoFile).map("png"::equalsIgnoreCase).orElse(false);
+
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .lastModified(lastModified)
+                .cacheControl(cacheControl)
+                .contentType(isPng ? MediaType.IMAGE_PNG : MediaType.IMAGE_JPEG)
+                .body(new FileSystemResource(path.get()));
+    }
+
+    private static String etag(final String fileName) {
+        return "\"" + Path.of(fileName).getFileName() + "\"";
+    }
+}
@@ -0,0 +1,74 @@
+package pt.psoft.g1.psoftg1.shared.infrastructure.repositories.impl;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.SingularAttribute;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import pt.psoft.g1.psoftg1.shared.repositories.EntityCursor;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+@Repository
+@Profile("!mongodb-redis & !mongotest")
+@RequiredArgsConstructor
+public class JpaEntityCursor implements EntityCursor {
+    private final EntityManager em;
+
+    @Override
+    @Transactional(readOnly = true)
+    public <T> long forEach(final Class<T> type, final List<String> fetch, final int fetchSize,
+                            final Consumer<? super T> action) {
+        final Session session = em.unwrap(Session.class);
+        long rows = 0;
+        try (ScrollableResults<T> results = session.createSelectionQuery(query(type, fetch), type)
+                .setFetchSize(fetchSize)
+                .setReadOnly(true)
+                .setCacheMode(CacheMode.IGNORE)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                action.accept(results.get());
+                // detach the batch just handed out so the persistence context never grows past one fetch
+                if (++rows % fetchSize == 0) {
+                    session.clear();
+                }
+            }
+        }
+        return rows;
+    }
+
+    // "select e from Lending e left join fetch e.book f0 left join fetch f0.genre f1 ... order by e.pk";
+    // ordered by id so that the rows of an entity with a fetched collection come together
+    private <T> String query(final Class<T> type, final List<String> fetch) {
+        final EntityType<T> entity = em.getMetamodel().entity(type);
+        final String id = entity.getSingularAttributes().stream()
+                .filter(SingularAttribute::isId)
+                .map(Attribute::getName)
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(entity.getName() + " has no single id"));
+        final StringBuilder query = new StringBuilder("select e from ").append(entity.getName()).append(" e");
+        final Map<String, String> aliases = new HashMap<>();
+        for (String path : fetch) {
+            final int dot = path.lastIndexOf('.');
+            final String owner = dot < 0 ? "e" : aliases.get(path.substring(0, dot));
+            if (owner == null) {
+                throw new IllegalArgumentException("Fetch " + path.substring(0, dot) + " before " + path);
+            }
+            final String alias = "f" + aliases.size();
+            aliases.put(path, alias);
+            query.append(" left join fetch ").append(owner).append('.').append(path.substring(dot + 1))
+                    .append(' ').append(alias);
+        }
+        return query.append(" order by e.").append(id).toString();
+    }
+}
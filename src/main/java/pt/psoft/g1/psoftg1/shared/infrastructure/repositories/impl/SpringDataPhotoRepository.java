@@ -1,15 +1,15 @@
 package pt.psoft.g1.psoftg1.shared.infrastructure.repositories.impl;
 
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
-import org.springframework.transaction.annotation.Transactional;
 import pt.psoft.g1.psoftg1.shared.model.Photo;
 import pt.psoft.g1.psoftg1.shared.repositories.PhotoRepository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @org.springframework.context.annotation.Profile("!mongodb-redis & !mongotest")
 public interface SpringDataPhotoRepository extends PhotoRepository, CrudRepository<Photo, Long> {
@@ -19,10 +19,20 @@ public interface SpringDataPhotoRepository extends PhotoRepository, CrudReposito
             "WHERE p.pk = :photo_id")
     Optional<Photo> findById(@Param("photo_id") long id);*/
     @Override
-    @Modifying
-    @Transactional
-    @Query("DELETE " +
+    @Query("SELECT COUNT(p) " +
             "FROM Photo p " +
             "WHERE p.photoFile = :photoFile")
-    void deleteByPhotoFile(String photoFile);
+    long countByPhotoFile(@Param("photoFile") String photoFile);
+
+    @Override
+    @Query("SELECT p " +
+            "FROM Photo p " +
+            "WHERE p.photoFile = :photoFile")
+    List<Photo> findByPhotoFile(@Param("photoFile") String photoFile);
+
+    @Override
+    @Query("SELECT DISTINCT p.photoFile " +
+            "FROM Photo p " +
+            "WHERE p.photoFile IN :photoFiles")
+    Set<String> findReferencedPhotoFiles(@Param("photoFiles") Collection<String> photoFiles);
 }
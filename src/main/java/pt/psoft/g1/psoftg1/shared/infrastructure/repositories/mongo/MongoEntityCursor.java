@@ -0,0 +1,35 @@
+package pt.psoft.g1.psoftg1.shared.infrastructure.repositories.mongo;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Repository;
+import pt.psoft.g1.psoftg1.shared.repositories.EntityCursor;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+@Repository
+@Profile({"mongodb-redis", "mongotest"})
+@RequiredArgsConstructor
+public class MongoEntityCursor implements EntityCursor {
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public <T> long forEach(final Class<T> type, final List<String> fetch, final int fetchSize,
+                            final Consumer<? super T> action) {
+        // references are resolved by the mapping; there is nothing to join
+        long rows = 0;
+        try (Stream<T> documents = mongoTemplate.stream(new Query().cursorBatchSize(fetchSize), type)) {
+            final Iterator<T> iterator = documents.iterator();
+            while (iterator.hasNext()) {
+                action.accept(iterator.next());
+                rows++;
+            }
+        }
+        return rows;
+    }
+}
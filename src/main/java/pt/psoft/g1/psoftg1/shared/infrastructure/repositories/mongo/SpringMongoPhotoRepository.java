@@ -6,11 +6,26 @@ import org.springframework.stereotype.Repository;
 import pt.psoft.g1.psoftg1.shared.model.Photo;
 import pt.psoft.g1.psoftg1.shared.repositories.PhotoRepository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
 @Repository
 @Profile({"mongodb-redis", "mongotest"})
 public interface SpringMongoPhotoRepository extends PhotoRepository, MongoRepository<Photo, Long> {
     @Override
-    void deleteByPhotoFile(String photoFile);
+    long countByPhotoFile(String photoFile);
+
+    @Override
+    List<Photo> findByPhotoFile(String photoFile);
+
+    List<Photo> findByPhotoFileIn(Collection<String> photoFiles);
+
+    @Override
+    default Set<String> findReferencedPhotoFiles(Collection<String> photoFiles) {
+        return findByPhotoFileIn(photoFiles).stream().map(Photo::getPhotoFile).collect(Collectors.toSet());
+    }
 }
 
 
@@ -6,12 +6,12 @@ import pt.psoft.g1.psoftg1.shared.api.UploadFileResponse;
 import pt.psoft.g1.psoftg1.shared.services.FileStorageService;
 
 public class FileUtils {
-    public static UploadFileResponse doUploadFile(FileStorageService fileStorageService, String id, final MultipartFile file) throws Exception {
-        if(fileStorageService == null || id == null || file == null) {
-            throw new Exception("Could not get reference of fileStorageService, id or file");
+    public static UploadFileResponse doUploadFile(FileStorageService fileStorageService, final MultipartFile file) throws Exception {
+        if(fileStorageService == null || file == null) {
+            throw new Exception("Could not get reference of fileStorageService or file");
         }
 
-        final String fileName = fileStorageService.storeFile(id, file);
+        final String fileName = fileStorageService.storeFile(file);
 
         String fileDownloadUri = ServletUriComponentsBuilder.fromCurrentRequestUri().pathSegment(fileName)
                 .toUriString();
@@ -0,0 +1,23 @@
+package pt.psoft.g1.psoftg1.shared.repositories;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Forward-only iteration over every stored entity of a type, for bulk reads that must not load a
+ * whole table at once.
+ */
+public interface EntityCursor {
+
+    /**
+     * Reads every entity of the given type through a database cursor, at most {@code fetchSize} at a
+     * time, and hands each one to {@code action} before the next batch is fetched. Entities must not
+     * be kept after {@code action} returns; they may be detached as soon as their batch is done.
+     * <p>The associations named in {@code fetch} (dotted paths such as {@code book.genre}) are read
+     * in the same query, so that reading them does not cost a query per entity. At most one of them
+     * may be a collection.
+     *
+     * @return the number of entities read
+     */
+    <T> long forEach(Class<T> type, List<String> fetch, int fetchSize, Consumer<? super T> action);
+}
@@ -2,12 +2,22 @@ package pt.psoft.g1.psoftg1.shared.repositories;
 
 import org.springframework.data.repository.query.Param;
 import pt.psoft.g1.psoftg1.shared.model.Photo;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 
 public interface PhotoRepository {
     //Optional<Photo> findById(long id);
 
-    //Photo save(Photo photo);
-    void deleteByPhotoFile(String photoFile);
+    Photo save(Photo photo);
+    void delete(Photo photo);
+
+    /** Number of Photo rows that reference a stored file. Content-addressed files are shared, so it may exceed one. */
+    long countByPhotoFile(String photoFile);
+    List<Photo> findByPhotoFile(String photoFile);
+    /** Which of the given stored files at least one Photo row references. */
+    Set<String> findReferencedPhotoFiles(Collection<String> photoFiles);
 }
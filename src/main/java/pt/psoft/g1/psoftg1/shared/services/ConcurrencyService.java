@@ -9,9 +9,12 @@ public class ConcurrencyService {
     public static final String IF_MATCH = "If-Match";
 
     public Long getVersionFromIfMatchHeader(final String ifMatchHeader) {
-        if (ifMatchHeader.startsWith("\"")) {
-            return Long.parseLong(ifMatchHeader.substring(1, ifMatchHeader.length() - 1));
+        String version = ifMatchHeader;
+        if (version.startsWith("\"")) {
+            version = version.substring(1, version.length() - 1);
         }
-        return Long.parseLong(ifMatchHeader);
+        // ETags of views embedding other entities append their versions after a dot
+        final int related = version.indexOf('.');
+        return Long.parseLong(related < 0 ? version : version.substring(0, related));
     }
 }
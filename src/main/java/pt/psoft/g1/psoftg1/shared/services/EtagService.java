@@ -0,0 +1,206 @@
+package pt.psoft.g1.psoftg1.shared.services;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+import pt.psoft.g1.psoftg1.authormanagement.services.AuthorEvent;
+import pt.psoft.g1.psoftg1.bookmanagement.services.BookEvent;
+import pt.psoft.g1.psoftg1.lendingmanagement.services.LendingEvent;
+import pt.psoft.g1.psoftg1.readermanagement.services.ReaderEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deep ETags for conditional GETs.
+ * <p>Single resources use their {@code @Version} as a strong ETag (the same value the PATCH
+ * endpoints expect in {@code If-Match}). Resources whose view embeds other entities append the
+ * versions of those, e.g. {@code "4.7"} for a book and its authors; {@code If-Match} only reads
+ * the part before the dot. Controllers look the versions up with a narrow query and answer
+ * {@code 304 Not Modified} before any mapping or serialization happens.
+ * <p>Lists get a weak ETag built from a per-collection version counter that is bumped by the
+ * domain events once their transaction commits. With Redis the counters are shared by every
+ * instance, next to an epoch that is replaced whenever a bump could not be recorded or Redis
+ * lost its data, so a tag from before never matches again. If Redis cannot be read, the tag is
+ * unique and never matches. Without Redis the counters live in memory and the tag carries the
+ * start time of this instance instead, which only suits a single instance.
+ */
+@Slf4j
+@Service
+public class EtagService {
+    public static final String BOOKS = "books";
+    public static final String AUTHORS = "authors";
+    public static final String READERS = "readers";
+    public static final String LENDINGS = "lendings";
+
+    private static final String EPOCH_KEY = "etag:epoch";
+    private static final String COLLECTION_KEY_PREFIX = "etag:collection:";
+
+    private final StringRedisTemplate redis;
+    private final long epoch = System.currentTimeMillis();
+    private final Map<String, AtomicLong> collectionVersions = new ConcurrentHashMap<>();
+    // a bump Redis did not record; the shared epoch is replaced before Redis is trusted again
+    private final AtomicBoolean missedBump = new AtomicBoolean();
+    private final AtomicLong unavailable = new AtomicLong();
+
+    @Autowired
+    public EtagService(ObjectProvider<StringRedisTemplate> redis) {
+        this(redis.getIfAvailable());
+    }
+
+    // without Redis (null) the collection versions are kept in memory, for a single instance
+    EtagService(StringRedisTemplate redis) {
+        this.redis = redis;
+    }
+
+    public String entityTag(long version) {
+        return Long.toString(version);
+    }
+
+    /**
+     * Strong ETag of a resource whose view also shows entities versioned apart from it.
+     * {@code relatedVersion} must grow whenever one of those changes, e.g. the sum of their versions.
+     */
+    public String entityTag(long version, long relatedVersion) {
+        return version + "." + relatedVersion;
+    }
+
+    /**
+     * Weak ETag for a list whose content depends on the given collections. {@code qualifiers} are
+     * extra values the content depends on, e.g. the current date for "last twelve months" reports.
+     */
+    public String collectionTag(String[] collections, Object... qualifiers) {
+        StringBuilder tag = new StringBuilder("W/\"").append(redis == null ? localVersions(collections) : sharedVersions(collections));
+        for (Object qualifier : qualifiers) {
+            tag.append('-').append(qualifier);
+        }
+        return tag.append('"').toString();
+    }
+
+    public String collectionTag(String... collections) {
+        return collectionTag(collections, new Object[0]);
+    }
+
+    /**
+     * Checks the request's {@code If-None-Match} header against {@code etag} using the weak
+     * comparison RFC 9110 mandates for GET. The request is also excluded from the shallow ETag
+     * filter, since its ETag is already known.
+     */
+    public boolean isNotModified(WebRequest request, String etag) {
+        if (request instanceof NativeWebRequest nativeRequest) {
+            HttpServletRequest servletRequest = nativeRequest.getNativeRequest(HttpServletRequest.class);
+            if (servletRequest != null) {
+                ShallowEtagHeaderFilter.disableContentCaching(servletRequest);
+            }
+        }
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        String opaqueTag = opaqueTag(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || opaqueTag(trimmed).equals(opaqueTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void bump(String collection) {
+        if (redis == null) {
+            collectionVersions.computeIfAbsent(collection, c -> new AtomicLong()).incrementAndGet();
+            return;
+        }
+        try {
+            redis.opsForValue().increment(COLLECTION_KEY_PREFIX + collection);
+        } catch (DataAccessException e) {
+            missedBump.set(true);
+            log.warn("Could not record a change of {} in Redis: {}", collection, e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBook(BookEvent event) {
+        bump(BOOKS);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAuthor(AuthorEvent event) {
+        bump(AUTHORS);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReader(ReaderEvent event) {
+        bump(READERS);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLending(LendingEvent event) {
+        bump(LENDINGS);
+    }
+
+    private String localVersions(String[] collections) {
+        StringBuilder versions = new StringBuilder(Long.toHexString(epoch));
+        for (String collection : collections) {
+            AtomicLong version = collectionVersions.get(collection);
+            versions.append('-').append(version == null ? 0 : version.get());
+        }
+        return versions.toString();
+    }
+
+    private String sharedVersions(String[] collections) {
+        try {
+            if (missedBump.get()) {
+                redis.opsForValue().set(EPOCH_KEY, newEpoch());
+                missedBump.set(false);
+            }
+            List<String> keys = new ArrayList<>(collections.length + 1);
+            keys.add(EPOCH_KEY);
+            for (String collection : collections) {
+                keys.add(COLLECTION_KEY_PREFIX + collection);
+            }
+            List<String> values = redis.opsForValue().multiGet(keys);
+            String sharedEpoch = values.get(0);
+            if (sharedEpoch == null) {
+                // first use, or Redis lost the counters: tags from before must not match
+                redis.opsForValue().setIfAbsent(EPOCH_KEY, newEpoch());
+                sharedEpoch = redis.opsForValue().get(EPOCH_KEY);
+            }
+            StringBuilder versions = new StringBuilder(sharedEpoch);
+            for (String version : values.subList(1, values.size())) {
+                versions.append('-').append(version == null ? "0" : version);
+            }
+            return versions.toString();
+        } catch (DataAccessException e) {
+            log.warn("Could not read collection versions from Redis: {}", e.getMessage());
+            return "unavailable-" + Long.toHexString(epoch) + "-" + unavailable.incrementAndGet();
+        }
+    }
+
+    private static String newEpoch() {
+        return Long.toHexString(UUID.randomUUID().getMostSignificantBits());
+    }
+
+    private static String opaqueTag(String tag) {
+        String result = tag.startsWith("W/") ? tag.substring(2) : tag;
+        if (result.length() >= 2 && result.startsWith("\"") && result.endsWith("\"")) {
+            result = result.substring(1, result.length() - 1);
+        }
+        return result;
+    }
+}
@@ -16,4 +16,16 @@ import lombok.Data;
 public class FileStorageProperties {
     private String uploadDir;
     private long photoMaxSize;
+    /** How long clients may reuse a photo before revalidating it, in seconds. */
+    private long photoCacheMaxAge = 3600;
+    /** Threads that generate resized photo derivatives in the background. */
+    private int photoDerivativeThreads = 2;
+    /** Photos that may wait for derivative generation before new requests are dropped. */
+    private int photoDerivativeQueueCapacity = 100;
+    /** How long a freshly stored photo is protected from deletion while its Photo row is being saved. */
+    private long photoReleaseGraceSeconds = 300;
+    /** How often stored photos that no Photo row references are looked for and deleted, in seconds. */
+    private long photoSweepIntervalSeconds = 3600;
+    /** Whether photos in the old flat directory layout are moved into the content-addressed store on startup. */
+    private boolean migrateLegacyPhotos = true;
 }
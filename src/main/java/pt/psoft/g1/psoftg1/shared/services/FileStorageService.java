@@ -21,16 +21,35 @@
 package pt.psoft.g1.psoftg1.shared.services;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
+import jakarta.annotation.PreDestroy;
 import jakarta.validation.ValidationException;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
@@ -40,14 +59,22 @@ import pt.psoft.g1.psoftg1.exceptions.NotFoundException;
 import pt.psoft.g1.psoftg1.exceptions.FileStorageException;
 import pt.psoft.g1.psoftg1.shared.api.UploadFileResponse;
 import pt.psoft.g1.psoftg1.shared.model.FileUtils;
+import pt.psoft.g1.psoftg1.shared.repositories.PhotoRepository;
 
 /**
  * <p>
  * code based on
  * https://github.com/callicoder/spring-boot-file-upload-download-rest-api-example
  *
- *
+ * <p>Files are content addressed: each one is named after the SHA-256 of its bytes and stored
+ * under a two-level fan-out ({@code ab/cd/abcd...ef.png}), so identical uploads share one file
+ * and no directory grows unbounded. The extension comes from the detected image type, so the same
+ * bytes uploaded as {@code .jpg} and {@code .jpeg} still share one file.
+ * <p>A file is only removed once no {@code Photo} row references it and it is older than
+ * {@code file.photo-release-grace-seconds}. Releases asked for within the grace period are retried
+ * once it has passed, and a periodic sweep removes any unreferenced file that was never released.
  */
+@Slf4j
 @RequiredArgsConstructor
 @Service
 public class FileStorageService {
@@ -55,11 +82,26 @@ public class FileStorageService {
     private final Path fileStorageLocation;
     private long photoMaxSize;
     private final String[] validImageFormats = {"image/png", "image/jpeg"};
+    private static final Map<String, String> IMAGE_EXTENSIONS = Map.of("image/png", "png", "image/jpeg", "jpg");
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G'};
+    private static final byte[] JPEG_SIGNATURE = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final int SWEEP_PAGE_SIZE = 500;
+    private final PhotoDerivativeGenerator derivativeGenerator;
+    private final PhotoRepository photoRepository;
+    private final Duration releaseGrace;
+    private final Object[] fileLocks = new Object[64];
+    private final Set<String> pendingReleases = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService releaser;
 
     @Autowired
-    public FileStorageService(final FileStorageProperties fileStorageProperties) {
+    public FileStorageService(final FileStorageProperties fileStorageProperties, final PhotoRepository photoRepository) {
         this.fileStorageLocation = Paths.get(fileStorageProperties.getUploadDir()).toAbsolutePath().normalize();
         this.photoMaxSize = fileStorageProperties.getPhotoMaxSize();
+        this.photoRepository = photoRepository;
+        this.releaseGrace = Duration.ofSeconds(fileStorageProperties.getPhotoReleaseGraceSeconds());
+        for (int i = 0; i < fileLocks.length; i++) {
+            fileLocks[i] = new Object();
+        }
 
         try {
             Files.createDirectories(fileStorageLocation);
@@ -67,51 +109,311 @@ public class FileStorageService {
             throw new FileStorageException("Could not create the directory where the uploaded files will be stored.",
                     ex);
         }
+
+        this.derivativeGenerator = new PhotoDerivativeGenerator(fileStorageLocation,
+                fileStorageProperties.getPhotoDerivativeThreads(), fileStorageProperties.getPhotoDerivativeQueueCapacity());
+
+        this.releaser = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "photo-release");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final long retryMillis = Math.max(1000, releaseGrace.toMillis());
+        releaser.scheduleWithFixedDelay(this::retryPendingReleases, retryMillis, retryMillis, TimeUnit.MILLISECONDS);
+        final long sweepSeconds = Math.max(1, fileStorageProperties.getPhotoSweepIntervalSeconds());
+        releaser.scheduleWithFixedDelay(this::sweepUnreferencedFiles, sweepSeconds, sweepSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        releaser.shutdownNow();
+        derivativeGenerator.shutdown();
     }
 
-    public String storeFile(final String prefix, final MultipartFile file) {
-        //final String fileName = prefix + "_" + determineFileName(file);
-        //files will contain only the generated uuid passed as prefix
-        final String fileName = prefix + "." + getExtension(file.getOriginalFilename()).orElse("");
+    /**
+     * Stores an upload under the hash of its content, computed while it is streamed to disk.
+     *
+     * @return the stored file name, relative to the storage location
+     */
+    public String storeFile(final MultipartFile file) {
+        try (InputStream in = file.getInputStream()) {
+            final String declared = Optional.ofNullable(file.getContentType()).map(IMAGE_EXTENSIONS::get)
+                    .or(() -> getExtension(file.getOriginalFilename()))
+                    .orElse("");
+            return storeContent(in, declared);
+        } catch (final IOException ex) {
+            throw new FileStorageException("Could not store file " + file.getOriginalFilename() + ". Please try again!", ex);
+        }
+    }
 
-        // Copy file to the target location (Replacing existing file with the same name)
+    /**
+     * @param declaredExtension used when the content is not a recognised image
+     */
+    String storeContent(final InputStream content, final String declaredExtension) throws IOException {
+        final Path incoming = Files.createDirectories(fileStorageLocation.resolve(".incoming"));
+        final Path temp = Files.createTempFile(incoming, "upload", ".tmp");
         try {
-            final Path targetLocation = fileStorageLocation.resolve(fileName);
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+            final MessageDigest digest = sha256();
+            try (InputStream in = new DigestInputStream(content, digest)) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
 
+            final String extension = detectImageExtension(temp).orElse(declaredExtension);
+            final String fileName = contentAddressedName(HexFormat.of().formatHex(digest.digest()), extension);
+            final Path target = fileStorageLocation.resolve(fileName);
+            Files.createDirectories(target.getParent());
+            synchronized (lockFor(fileName)) {
+                if (Files.exists(target)) {
+                    // Same bytes are already stored. Touching the file keeps releaseFile from
+                    // removing it before the caller saves the Photo row that references it.
+                    Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+                } else {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+            derivativeGenerator.submit(fileName);
             return fileName;
-        } catch (final IOException ex) {
-            throw new FileStorageException("Could not store file " + fileName + ". Please try again!", ex);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    static String contentAddressedName(final String hash, final String extension) {
+        final String name = extension.isEmpty() ? hash : hash + "." + extension.toLowerCase(Locale.ROOT);
+        return hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + name;
+    }
+
+    private static Optional<String> detectImageExtension(final Path file) throws IOException {
+        final byte[] header = new byte[PNG_SIGNATURE.length];
+        final int read;
+        try (InputStream in = Files.newInputStream(file)) {
+            read = in.readNBytes(header, 0, header.length);
+        }
+        if (startsWith(header, read, PNG_SIGNATURE)) {
+            return Optional.of(IMAGE_EXTENSIONS.get("image/png"));
+        }
+        if (startsWith(header, read, JPEG_SIGNATURE)) {
+            return Optional.of(IMAGE_EXTENSIONS.get("image/jpeg"));
         }
+        return Optional.empty();
     }
 
-    public void deleteFile(String file) {
-        if(file == null) {
+    private static boolean startsWith(final byte[] header, final int length, final byte[] signature) {
+        if (length < signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if (header[i] != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Deletes a stored file and its derivatives once no {@code Photo} row references it.
+     * <p>Files written or deduplicated within {@code file.photo-release-grace-seconds} are kept,
+     * since the upload that produced them may not have saved its Photo row yet; their release is
+     * queued and retried once the grace period has passed.
+     */
+    public void releaseFile(final String fileName) {
+        if (fileName == null) {
             throw new IllegalArgumentException("Received null reference to file path");
         }
+        if (!release(fileName)) {
+            pendingReleases.add(fileName);
+        }
+    }
+
+    /**
+     * Retries the releases that were asked for within the grace period.
+     */
+    void retryPendingReleases() {
+        for (String fileName : pendingReleases) {
+            try {
+                if (release(fileName)) {
+                    pendingReleases.remove(fileName);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not release photo {}: {}", fileName, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Deletes every stored file that no {@code Photo} row references and that is older than the
+     * grace period, e.g. uploads whose Photo row was never saved.
+     *
+     * @return how many files were deleted
+     */
+    int sweepUnreferencedFiles() {
+        int deleted = 0;
+        try (Stream<Path> files = Files.find(fileStorageLocation, 3,
+                (path, attributes) -> attributes.isRegularFile() && isStoredFile(path))) {
+            final List<String> page = new ArrayList<>(SWEEP_PAGE_SIZE);
+            for (Path file : (Iterable<Path>) files::iterator) {
+                page.add(storedName(file));
+                if (page.size() == SWEEP_PAGE_SIZE) {
+                    deleted += sweepPage(page);
+                    page.clear();
+                }
+            }
+            deleted += sweepPage(page);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not sweep unreferenced photos: {}", e.getMessage());
+        }
+        if (deleted > 0) {
+            log.info("Deleted {} unreferenced photos", deleted);
+        }
+        return deleted;
+    }
 
-        Path filePath = Paths.get(this.fileStorageLocation + "/" + file);
+    // one query for the whole page instead of one per file
+    private int sweepPage(final List<String> fileNames) {
+        if (fileNames.isEmpty()) {
+            return 0;
+        }
+        final Set<String> referenced = photoRepository.findReferencedPhotoFiles(fileNames);
+        int deleted = 0;
+        for (String fileName : fileNames) {
+            if (referenced.contains(fileName)) {
+                pendingReleases.remove(fileName);
+                continue;
+            }
+            try {
+                synchronized (lockFor(fileName)) {
+                    if (deleteIfPastGrace(fileName) && resolveFile(fileName).isEmpty()) {
+                        pendingReleases.remove(fileName);
+                        deleted++;
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not release photo {}: {}", fileName, e.getMessage());
+            }
+        }
+        return deleted;
+    }
+
+    // content-addressed originals only: ab/cd/<hash>.<ext>, not derivatives, legacy or incoming files
+    private boolean isStoredFile(final Path path) {
+        final Path relative = fileStorageLocation.relativize(path);
+        return relative.getNameCount() == 3
+                && !relative.getName(0).toString().startsWith(".")
+                && !PhotoDerivativeGenerator.isDerivativeName(relative.getFileName().toString());
+    }
+
+    private String storedName(final Path path) {
+        return fileStorageLocation.relativize(path).toString().replace(path.getFileSystem().getSeparator(), "/");
+    }
+
+    /**
+     * @return whether the file is settled, i.e. referenced, already gone or deleted now; false
+     * while it is still within the grace period
+     */
+    private boolean release(final String fileName) {
+        synchronized (lockFor(fileName)) {
+            if (photoRepository.countByPhotoFile(fileName) > 0) {
+                return true;
+            }
+            return deleteIfPastGrace(fileName);
+        }
+    }
+
+    /**
+     * Deletes an unreferenced file unless it was written or deduplicated within the grace period.
+     * Callers hold its lock, so an upload deduplicating onto it either touches it first or waits.
+     *
+     * @return false while the file is still within the grace period
+     */
+    private boolean deleteIfPastGrace(final String fileName) {
+        final Optional<Path> filePath = resolveFile(fileName);
+        if (filePath.isEmpty()) {
+            return true;
+        }
         try {
-            Files.delete(filePath);
+            final Instant lastModified = Files.getLastModifiedTime(filePath.get()).toInstant();
+            if (lastModified.isAfter(Instant.now().minus(releaseGrace))) {
+                return false;
+            }
+            Files.delete(filePath.get());
         } catch (IOException e) {
-            throw new NotFoundException("Reader photo could not be deleted as his photo file doesn't exist.");
+            throw new FileStorageException("Could not delete file " + fileName, e);
+        }
+        derivativeGenerator.delete(fileName);
+        return true;
+    }
+
+    /**
+     * Moves a file from the old flat layout into the content-addressed store. The original is
+     * left in place so the caller can repoint its Photo rows before calling {@link #deleteLegacyFile}.
+     */
+    String importLegacyFile(final Path legacyFile) throws IOException {
+        try (InputStream in = Files.newInputStream(legacyFile)) {
+            return storeContent(in, getExtension(legacyFile.getFileName().toString()).orElse(""));
         }
     }
 
-    public byte[] getFile(final String fileName) {
-        String photoPathString = this.fileStorageLocation + "/" + fileName;
-        Path photoPath = Paths.get(photoPathString);
-        byte[] image = null;
+    void deleteLegacyFile(final String fileName) throws IOException {
+        Files.deleteIfExists(fileStorageLocation.resolve(fileName));
+        derivativeGenerator.delete(fileName);
+    }
+
+    Path getFileStorageLocation() {
+        return fileStorageLocation;
+    }
+
+    private Object lockFor(final String fileName) {
+        return fileLocks[Math.floorMod(fileName.hashCode(), fileLocks.length)];
+    }
+
+    private static MessageDigest sha256() {
         try {
-            image = Files.readAllBytes(photoPath);
-        } catch(IOException e) {
-            return null;
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
         }
+    }
 
-        return image;
+    /**
+     * Resolves a stored file name to its path without reading it.
+     *
+     * @return the path, or empty if the name escapes the storage directory or the file does not exist
+     */
+    public Optional<Path> resolveFile(final String fileName) {
+        if (fileName == null) {
+            return Optional.empty();
+        }
+        final Path filePath = fileStorageLocation.resolve(fileName).normalize();
+        if (!filePath.startsWith(fileStorageLocation) || !Files.isRegularFile(filePath)) {
+            return Optional.empty();
+        }
+        return Optional.of(filePath);
     }
 
-    //Returns the string of the fileName of the file (UUID.FILE_FORMAT) stored in the uploads folder | null for error or no photo
+    /**
+     * Name under which the derivative of a stored photo is kept, whether it exists yet or not.
+     */
+    public String derivativeName(final String fileName, final PhotoSize size) {
+        return PhotoDerivativeGenerator.derivativeName(fileName, size);
+    }
+
+    /**
+     * Resolves the derivative of a stored photo.
+     * <p>If it has not been generated yet, its generation is requested again and empty is
+     * returned, so the caller can fall back to the original.
+     */
+    public Optional<Path> resolveDerivative(final String fileName, final PhotoSize size) {
+        if (fileName == null) {
+            return Optional.empty();
+        }
+        final Optional<Path> derivative = resolveFile(derivativeName(fileName, size));
+        if (derivative.isEmpty() && resolveFile(fileName).isPresent()) {
+            derivativeGenerator.submit(fileName);
+        }
+        return derivative;
+    }
+
+    //Returns the string of the fileName of the file (ab/cd/SHA256.FILE_FORMAT) stored in the uploads folder | null for error or no photo
     public String getRequestPhoto(MultipartFile file) {
         UploadFileResponse up = null;
         if(file != null) {
@@ -139,36 +441,19 @@ public class FileStorageService {
                 throw new ValidationException("Images can only be png or jpeg");
             }
 
-            String photoUUID = UUID.randomUUID().toString();
-
             try {
-                up = FileUtils.doUploadFile(this, photoUUID, file);
+                up = FileUtils.doUploadFile(this, file);
             } catch (Exception e) {
                 return null;
                 //throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR);
             }
 
-            //String fileFormat = validImageFormats[formatIndex].split("/")[1];
-            String originalFileName = file.getOriginalFilename();
-            String fileFormat = originalFileName.substring(originalFileName.lastIndexOf('.')+1);
-            return photoUUID+"."+fileFormat;
+            return up.getFileName();
         }
 
         return null;
     }
 
-    private String determineFileName(final MultipartFile file) {
-//		// Normalize file name
-//		final String fileName = StringUtils.cleanPath(file.getOriginalFilename());
-//		// Check if the file's name contains invalid characters
-//		if (fileName.contains("..")) {
-//			throw new FileStorageException("Sorry! Filename contains invalid path sequence " + fileName);
-//		}
-//		return fileName;
-
-        return UUID.randomUUID().toString() + "." + getExtension(file.getOriginalFilename()).orElse("");
-    }
-
     public Optional<String> getExtension(final String filename) {
         return Optional.ofNullable(filename).filter(f -> f.contains("."))
                 .map(f -> f.substring(filename.lastIndexOf(".") + 1));
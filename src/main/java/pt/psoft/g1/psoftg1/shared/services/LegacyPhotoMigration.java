@@ -0,0 +1,86 @@
+package pt.psoft.g1.psoftg1.shared.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import pt.psoft.g1.psoftg1.shared.model.Photo;
+import pt.psoft.g1.psoftg1.shared.repositories.PhotoRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Moves photos stored in the old flat layout ({@code <uuid>.<ext>} directly under the upload
+ * directory) into the content-addressed store and repoints their Photo rows.
+ * <p>Each file is copied in, its rows are updated, and only then is the original deleted, so an
+ * interrupted run can simply be repeated. Old derivatives are dropped and regenerated on demand.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LegacyPhotoMigration {
+    private final FileStorageService fileStorageService;
+    private final FileStorageProperties fileStorageProperties;
+    private final PhotoRepository photoRepository;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (fileStorageProperties.isMigrateLegacyPhotos()) {
+            migrate();
+        }
+    }
+
+    public int migrate() {
+        final List<Path> legacyFiles;
+        try (Stream<Path> files = Files.list(fileStorageService.getFileStorageLocation())) {
+            legacyFiles = files
+                    .filter(Files::isRegularFile)
+                    .filter(file -> !file.getFileName().toString().startsWith("."))
+                    .toList();
+        } catch (IOException e) {
+            log.warn("Could not list legacy photos: {}", e.getMessage());
+            return 0;
+        }
+
+        int migrated = 0;
+        for (final Path legacyFile : legacyFiles) {
+            final String legacyName = legacyFile.getFileName().toString();
+            if (PhotoDerivativeGenerator.isDerivativeName(legacyName)) {
+                continue;
+            }
+            try {
+                final String fileName = fileStorageService.importLegacyFile(legacyFile);
+                for (final Photo photo : photoRepository.findByPhotoFile(legacyName)) {
+                    photo.setPhotoFile(fileName);
+                    photoRepository.save(photo);
+                }
+                fileStorageService.deleteLegacyFile(legacyName);
+                migrated++;
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not migrate legacy photo {}: {}", legacyName, e.getMessage());
+            }
+        }
+
+        // Derivatives whose original has been migrated above
+        for (final Path legacyFile : legacyFiles) {
+            final String legacyName = legacyFile.getFileName().toString();
+            if (PhotoDerivativeGenerator.isDerivativeName(legacyName)) {
+                try {
+                    Files.deleteIfExists(legacyFile);
+                } catch (IOException e) {
+                    log.warn("Could not delete legacy photo derivative {}: {}", legacyName, e.getMessage());
+                }
+            }
+        }
+
+        if (migrated > 0) {
+            log.info("Moved {} photos into the content-addressed store", migrated);
+        }
+        return migrated;
+    }
+}
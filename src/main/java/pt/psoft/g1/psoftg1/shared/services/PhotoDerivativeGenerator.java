@@ -0,0 +1,179 @@
+package pt.psoft.g1.psoftg1.shared.services;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates the {@link PhotoSize} derivatives of stored photos on a small bounded pool.
+ * <p>Uploads never wait for this work. When the queue is full the request is dropped, and the
+ * derivatives are requested again the next time someone asks for a size that is missing.
+ * Each derivative is written to a temporary file and moved into place, so readers never see a
+ * partially written image.
+ * <p>Stored files never change, so a photo that cannot be decoded is remembered and not queued
+ * again, up to the last {@value #MAX_UNREADABLE} of them.
+ */
+@Slf4j
+class PhotoDerivativeGenerator {
+
+    private final Path storageLocation;
+    private final ThreadPoolExecutor executor;
+    static final int MAX_UNREADABLE = 1000;
+
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final Set<String> unreadable = Collections.newSetFromMap(Collections.synchronizedMap(
+            new LinkedHashMap<>() {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, Boolean> eldest) {
+                    return size() > MAX_UNREADABLE;
+                }
+            }));
+
+    PhotoDerivativeGenerator(final Path storageLocation, final int threads, final int queueCapacity) {
+        this.storageLocation = storageLocation;
+        final AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    final Thread thread = new Thread(runnable, "photo-derivatives-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    static String derivativeName(final String fileName, final PhotoSize size) {
+        final int dot = fileName.lastIndexOf('.');
+        if (dot < 0) {
+            return fileName + "_" + size.suffix();
+        }
+        return fileName.substring(0, dot) + "_" + size.suffix() + fileName.substring(dot);
+    }
+
+    static boolean isDerivativeName(final String fileName) {
+        final int dot = fileName.lastIndexOf('.');
+        final String base = dot < 0 ? fileName : fileName.substring(0, dot);
+        for (final PhotoSize size : PhotoSize.values()) {
+            if (base.endsWith("_" + size.suffix())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Queues the generation of every derivative of {@code fileName}, unless it is already queued
+     * or known not to decode.
+     */
+    void submit(final String fileName) {
+        if (unreadable.contains(fileName) || !pending.add(fileName)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(fileName);
+                } finally {
+                    pending.remove(fileName);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(fileName);
+            log.warn("Photo derivative queue is full, skipping {}", fileName);
+        }
+    }
+
+    void generate(final String fileName) {
+        final Path original = storageLocation.resolve(fileName);
+        final BufferedImage source;
+        try {
+            source = ImageIO.read(original.toFile());
+        } catch (IOException e) {
+            unreadable.add(fileName);
+            log.warn("Could not read photo {} to generate derivatives: {}", fileName, e.getMessage());
+            return;
+        }
+        if (source == null) {
+            unreadable.add(fileName);
+            log.warn("Photo {} is not in a readable image format", fileName);
+            return;
+        }
+
+        final String format = fileName.toLowerCase().endsWith(".png") ? "png" : "jpg";
+        for (final PhotoSize size : PhotoSize.values()) {
+            final Path target = storageLocation.resolve(derivativeName(fileName, size));
+            if (Files.exists(target)) {
+                continue;
+            }
+            try {
+                final Path temp = Files.createTempFile(storageLocation, ".derivative", "." + format);
+                try {
+                    if (Math.max(source.getWidth(), source.getHeight()) <= size.getMaxDimension()) {
+                        // Already small enough: serve the original bytes under the derivative name
+                        Files.copy(original, temp, StandardCopyOption.REPLACE_EXISTING);
+                    } else {
+                        ImageIO.write(scale(source, size.getMaxDimension(), format.equals("png")), format, temp.toFile());
+                    }
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+            } catch (IOException e) {
+                log.warn("Could not write {} derivative of {}: {}", size.suffix(), fileName, e.getMessage());
+            }
+        }
+    }
+
+    boolean isUnreadable(final String fileName) {
+        return unreadable.contains(fileName);
+    }
+
+    void delete(final String fileName) {
+        unreadable.remove(fileName);
+        for (final PhotoSize size : PhotoSize.values()) {
+            try {
+                Files.deleteIfExists(storageLocation.resolve(derivativeName(fileName, size)));
+            } catch (IOException e) {
+                log.warn("Could not delete {} derivative of {}: {}", size.suffix(), fileName, e.getMessage());
+            }
+        }
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static BufferedImage scale(final BufferedImage source, final int maxDimension, final boolean keepAlpha) {
+        final double ratio = (double) maxDimension / Math.max(source.getWidth(), source.getHeight());
+        final int width = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        final int height = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+
+        final BufferedImage scaled = new BufferedImage(width, height,
+                keepAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        final Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+}
@@ -0,0 +1,47 @@
+package pt.psoft.g1.psoftg1.shared.services;
+
+import jakarta.validation.ValidationException;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Resized variants generated for every uploaded photo. Each one fits inside a square of
+ * {@link #getMaxDimension()} pixels and keeps the original aspect ratio.
+ */
+public enum PhotoSize {
+    THUMB(96),
+    SMALL(240),
+    MEDIUM(480);
+
+    private final int maxDimension;
+
+    PhotoSize(final int maxDimension) {
+        this.maxDimension = maxDimension;
+    }
+
+    public int getMaxDimension() {
+        return maxDimension;
+    }
+
+    public String suffix() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Parses the {@code size} request parameter.
+     *
+     * @return empty for a missing value or {@code original}
+     */
+    public static Optional<PhotoSize> fromParam(final String value) {
+        if (value == null || value.isBlank() || value.equalsIgnoreCase("original")) {
+            return Optional.empty();
+        }
+        for (final PhotoSize size : values()) {
+            if (size.suffix().equalsIgnoreCase(value)) {
+                return Optional.of(size);
+            }
+        }
+        throw new ValidationException("Unknown photo size '" + value + "'. Use thumb, small, medium or original");
+    }
+}
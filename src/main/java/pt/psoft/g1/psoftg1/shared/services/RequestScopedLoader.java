@@ -0,0 +1,96 @@
+package pt.psoft.g1.psoftg1.shared.services;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Loads entities by key in batches and remembers them until the end of the current web request.
+ * <p>Each call collects the requested keys, drops duplicates and keys already resolved during
+ * this request (found or not), and resolves the rest with a single call to the batch function,
+ * typically one {@code IN} query. Loaders with the same name share what they remember; services get
+ * theirs from {@link RequestScopedLoaders} so the name and key of an entity always match.
+ * <p>Outside a web request (startup, background jobs) nothing is remembered between calls, but
+ * every call is still resolved with one batch.
+ */
+public class RequestScopedLoader<K, V> {
+
+    private static final String ATTRIBUTE_PREFIX = RequestScopedLoader.class.getName() + ".";
+
+    private final String name;
+    private final Function<Collection<K>, ? extends Collection<V>> batch;
+    private final Function<V, K> keyOf;
+
+    /**
+     * @param batch finds the entities of the given keys; keys without one are simply left out
+     * @param keyOf the key an entity was found by
+     */
+    public RequestScopedLoader(String name, Function<Collection<K>, ? extends Collection<V>> batch, Function<V, K> keyOf) {
+        this.name = name;
+        this.batch = batch;
+        this.keyOf = keyOf;
+    }
+
+    public Optional<V> load(K key) {
+        return Optional.ofNullable(loadMany(List.of(key)).get(key));
+    }
+
+    /**
+     * @return the entities found, by key, in the order of {@code keys}
+     */
+    public Map<K, V> loadMany(Collection<K> keys) {
+        Map<K, Optional<V>> memo = memo();
+        Set<K> missing = new LinkedHashSet<>();
+        for (K key : keys) {
+            if (key != null && !memo.containsKey(key)) {
+                missing.add(key);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (V value : batch.apply(missing)) {
+                memo.put(keyOf.apply(value), Optional.of(value));
+            }
+            for (K key : missing) {
+                memo.putIfAbsent(key, Optional.empty());
+            }
+        }
+        Map<K, V> found = new LinkedHashMap<>();
+        for (K key : keys) {
+            Optional<V> value = key == null ? Optional.empty() : memo.get(key);
+            value.ifPresent(v -> found.put(key, v));
+        }
+        return found;
+    }
+
+    /**
+     * @return the entities found, in the order of {@code keys}, without the keys that have none
+     */
+    public List<V> loadAll(Collection<K> keys) {
+        return new ArrayList<>(loadMany(keys).values());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<K, Optional<V>> memo() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return new HashMap<>();
+        }
+        String attribute = ATTRIBUTE_PREFIX + name;
+        Map<K, Optional<V>> memo = (Map<K, Optional<V>>) attributes.getAttribute(attribute, RequestAttributes.SCOPE_REQUEST);
+        if (memo == null) {
+            memo = new HashMap<>();
+            attributes.setAttribute(attribute, memo, RequestAttributes.SCOPE_REQUEST);
+        }
+        return memo;
+    }
+}
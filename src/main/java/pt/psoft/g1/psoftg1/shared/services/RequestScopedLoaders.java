@@ -0,0 +1,36 @@
+package pt.psoft.g1.psoftg1.shared.services;
+
+import pt.psoft.g1.psoftg1.authormanagement.model.Author;
+import pt.psoft.g1.psoftg1.authormanagement.repositories.AuthorRepository;
+import pt.psoft.g1.psoftg1.bookmanagement.model.Book;
+import pt.psoft.g1.psoftg1.bookmanagement.repositories.BookRepository;
+import pt.psoft.g1.psoftg1.genremanagement.model.Genre;
+import pt.psoft.g1.psoftg1.genremanagement.repositories.GenreRepository;
+import pt.psoft.g1.psoftg1.readermanagement.model.ReaderDetails;
+import pt.psoft.g1.psoftg1.readermanagement.repositories.ReaderRepository;
+
+/**
+ * The {@link RequestScopedLoader}s of each entity, so that every service loading one uses the same
+ * name and key and they share what is loaded during a request.
+ */
+public final class RequestScopedLoaders {
+
+    private RequestScopedLoaders() {
+    }
+
+    public static RequestScopedLoader<Long, Author> authors(AuthorRepository authorRepository) {
+        return new RequestScopedLoader<>("authors", authorRepository::findByAuthorNumberIn, Author::getAuthorNumber);
+    }
+
+    public static RequestScopedLoader<String, Book> books(BookRepository bookRepository) {
+        return new RequestScopedLoader<>("books", bookRepository::findByIsbns, Book::getIsbn);
+    }
+
+    public static RequestScopedLoader<String, Genre> genres(GenreRepository genreRepository) {
+        return new RequestScopedLoader<>("genres", genreRepository::findByGenreIn, Genre::toString);
+    }
+
+    public static RequestScopedLoader<String, ReaderDetails> readers(ReaderRepository readerRepository) {
+        return new RequestScopedLoader<>("readers", readerRepository::findByReaderNumbers, ReaderDetails::getReaderNumber);
+    }
+}
@@ -1,5 +1,7 @@
 package pt.psoft.g1.psoftg1.usermanagement.model;
 
+import org.springframework.security.crypto.password.PasswordEncoder;
+
 import java.beans.Transient;
 
 public class Password {
@@ -18,4 +20,11 @@ public class Password {
 
         this.password = newPasswd;
     }
+
+    /**
+     * The hash to store in {@link User}, as {@code encoder} makes it.
+     */
+    public String encode(PasswordEncoder encoder) {
+        return encoder.encode(password);
+    }
 }
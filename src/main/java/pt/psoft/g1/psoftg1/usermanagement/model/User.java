@@ -37,8 +37,6 @@ import org.springframework.data.annotation.LastModifiedBy;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import pt.psoft.g1.psoftg1.shared.model.Name;
 
 import lombok.Getter;
@@ -68,6 +66,7 @@ public class User implements UserDetails {
 
 	// optimistic lock concurrency control
     @Version
+	@Getter
 	private Long version;
 
 	// auditing info
@@ -128,7 +127,7 @@ public class User implements UserDetails {
 	/**
 	 *
 	 * @param username
-	 * @param password
+	 * @param password the password hash, see {@link Password#encode}
 	 */
 	public User(final String username, final String password) {
 		this.username = username;
@@ -169,10 +168,11 @@ public class User implements UserDetails {
 		return u;
 	}
 
+	/**
+	 * @param password the password hash, see {@link Password#encode}
+	 */
 	public void setPassword(final String password) {
-		Password passwordCheck = new Password(password);
-		final PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
-		this.password = passwordEncoder.encode(password);
+		this.password = password;
 	}
 
     public void addAuthority(final Role r) {
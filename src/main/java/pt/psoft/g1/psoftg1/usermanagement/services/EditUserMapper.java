@@ -50,6 +50,7 @@ public abstract class EditUserMapper extends MapperInterface {
 	@BeanMapping(nullValueCheckStrategy = NullValueCheckStrategy.ALWAYS,
 			nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
 	@Mapping(source = "authorities", target = "authorities", qualifiedByName = "stringToRole")
+	@Mapping(target = "password", ignore = true)
 	public abstract void update(EditUserRequest request, @MappingTarget User user);
 
 	@Named("stringToRole")
@@ -0,0 +1,14 @@
+package pt.psoft.g1.psoftg1.usermanagement.services;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import pt.psoft.g1.psoftg1.usermanagement.model.User;
+
+/**
+ * Application event published by {@link UserService} after a {@code User} is created, changed or disabled.
+ */
+@Getter
+@RequiredArgsConstructor
+public class UserEvent {
+    private final User user;
+}
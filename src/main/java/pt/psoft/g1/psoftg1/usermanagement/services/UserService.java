@@ -24,19 +24,18 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.security.access.AccessDeniedException;
-import org.springframework.security.core.Authentication;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import pt.psoft.g1.psoftg1.exceptions.ConflictException;
 import pt.psoft.g1.psoftg1.shared.repositories.ForbiddenNameRepository;
 import pt.psoft.g1.psoftg1.shared.services.Page;
 import pt.psoft.g1.psoftg1.usermanagement.model.Librarian;
+import pt.psoft.g1.psoftg1.usermanagement.model.Password;
 import pt.psoft.g1.psoftg1.usermanagement.model.Reader;
 import pt.psoft.g1.psoftg1.usermanagement.model.Role;
 import pt.psoft.g1.psoftg1.usermanagement.model.User;
@@ -60,6 +59,8 @@ public class UserService implements UserDetailsService {
 
 	private final PasswordEncoder passwordEncoder;
 
+	private final ApplicationEventPublisher eventPublisher;
+
 	@Cacheable(value = "usersByName", key = "#name")
 	public List<User> findByName(String name){
 		return this.userRepo.findByNameName(name);
@@ -81,14 +82,15 @@ public class UserService implements UserDetailsService {
 			}
 		}
 
+		final String password = new Password(request.getPassword()).encode(passwordEncoder);
 		User user;
 		switch(request.getRole()) {
 			case Role.READER: {
-				user = Reader.newReader(request.getUsername(), request.getPassword(), request.getName());
+				user = Reader.newReader(request.getUsername(), password, request.getName());
 				break;
 			}
 			case Role.LIBRARIAN: {
-				user = Librarian.newLibrarian(request.getUsername(), request.getPassword(), request.getName());
+				user = Librarian.newLibrarian(request.getUsername(), password, request.getName());
 				break;
 			}
 			default: {
@@ -97,10 +99,11 @@ public class UserService implements UserDetailsService {
 		}
 
 		//final User user = userEditMapper.create(request);
-		user.setPassword(passwordEncoder.encode(request.getPassword()));
 		//user.addAuthority(new Role(request.getRole()));
 
-		return userRepo.save(user);
+		final User saved = userRepo.save(user);
+		eventPublisher.publishEvent(new UserEvent(saved));
+		return saved;
 	}
 
 	@Transactional
@@ -108,8 +111,13 @@ public class UserService implements UserDetailsService {
 	public User update(final Long id, final EditUserRequest request) {
 		final User user = userRepo.getById(id);
 		userEditMapper.update(request, user);
+		if (request.getPassword() != null) {
+			user.setPassword(new Password(request.getPassword()).encode(passwordEncoder));
+		}
 
-		return userRepo.save(user);
+		final User saved = userRepo.save(user);
+		eventPublisher.publishEvent(new UserEvent(saved));
+		return saved;
 	}
 
 	@Transactional
@@ -120,7 +128,9 @@ public class UserService implements UserDetailsService {
 		// user.setUsername(user.getUsername().replace("@", String.format("_%s@",
 		// user.getId().toString())));
 		user.setEnabled(false);
-		return userRepo.save(user);
+		final User saved = userRepo.save(user);
+		eventPublisher.publishEvent(new UserEvent(saved));
+		return saved;
 	}
 
 	@Override
@@ -151,20 +161,4 @@ public class UserService implements UserDetailsService {
 		}
 		return userRepo.searchUsers(page, query);
 	}
-
-	public User getAuthenticatedUser(Authentication authentication) {
-		if (authentication == null || !(authentication.getPrincipal() instanceof Jwt jwt)) {
-			throw new AccessDeniedException("User is not logged in");
-		}
-
-		// split is present because jwt is storing the id before the username, separated by a comma
-        String loggedUsername = jwt.getClaimAsString("sub").split(",")[1];
-
-		Optional<User> loggedUser = findByUsername(loggedUsername);
-		if (loggedUser.isEmpty()) {
-			throw new AccessDeniedException("User is not logged in");
-		}
-
-		return loggedUser.get();
-	}
 }
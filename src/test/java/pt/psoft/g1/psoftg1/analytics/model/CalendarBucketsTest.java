@@ -0,0 +1,50 @@
+package pt.psoft.g1.psoftg1.analytics.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CalendarBucketsTest {
+
+    @Test
+    void ensureRangesCoveringWholeMonthsAndYearsCountEveryDay() {
+        final var buckets = new CalendarBuckets<String>();
+        buckets.add("a", LocalDate.of(2022, 12, 31), 1);
+        buckets.add("a", LocalDate.of(2023, 1, 1), 1);
+        buckets.add("b", LocalDate.of(2023, 7, 14), 3);
+        buckets.add("a", LocalDate.of(2024, 2, 29), 1);
+        buckets.add("c", LocalDate.of(2024, 3, 1), 1);
+
+        assertEquals(List.of(Map.entry("a", 3L), Map.entry("b", 3L), Map.entry("c", 1L)),
+                buckets.top(LocalDate.of(2022, 12, 15), LocalDate.of(2024, 3, 1), 5));
+        assertEquals(List.of(Map.entry("b", 3L), Map.entry("a", 2L)),
+                buckets.top(LocalDate.of(2023, 1, 1), LocalDate.of(2024, 2, 29), 5));
+    }
+
+    @Test
+    void ensureDaysOutsideTheRangeAreIgnored() {
+        final var buckets = new CalendarBuckets<String>();
+        buckets.add("a", LocalDate.of(2024, 1, 31), 1);
+        buckets.add("b", LocalDate.of(2024, 2, 1), 1);
+        buckets.add("a", LocalDate.of(2024, 3, 1), 1);
+
+        assertEquals(List.of(Map.entry("b", 1L)), buckets.top(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 29), 5));
+    }
+
+    @Test
+    void ensureOnlyTheTopNAreReturnedInRankOrder() {
+        final var buckets = new CalendarBuckets<String>();
+        final LocalDate day = LocalDate.of(2024, 5, 1);
+        for (int i = 0; i < 10; i++) {
+            buckets.add("reader-" + i, day, i + 1);
+        }
+        buckets.add("reader-9", day, -9);
+
+        assertEquals(List.of(Map.entry("reader-8", 9L), Map.entry("reader-7", 8L)),
+                buckets.top(day, day, 2));
+    }
+}
@@ -0,0 +1,66 @@
+package pt.psoft.g1.psoftg1.analytics.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoAuthorshipGraphTest {
+    @Test
+    void ensureCoAuthorsAreWeightedBySharedBooks() {
+        final var graph = new CoAuthorshipGraph();
+        graph.addBook(List.of(1L, 2L));
+        graph.addBook(List.of(1L, 2L, 3L));
+        graph.addBook(List.of(4L));
+
+        assertEquals(List.of(Map.entry(2L, 2), Map.entry(3L, 1)), List.copyOf(graph.coAuthors(1L).entrySet()));
+        assertEquals(Map.of(1L, 1, 2L, 1), graph.coAuthors(3L));
+        assertTrue(graph.coAuthors(4L).isEmpty());
+        assertTrue(graph.coAuthors(99L).isEmpty());
+    }
+
+    @Test
+    void ensureRemovingBookDropsEdgesWithoutSharedBooks() {
+        final var graph = new CoAuthorshipGraph();
+        graph.addBook(List.of(1L, 2L));
+        graph.addBook(List.of(1L, 2L, 3L));
+
+        graph.removeBook(List.of(1L, 2L, 3L));
+
+        assertEquals(Map.of(2L, 1), graph.coAuthors(1L));
+        assertEquals(0, graph.degree(3L));
+    }
+
+    @Test
+    void ensureRepeatedAuthorsOnABookAreIgnored() {
+        final var graph = new CoAuthorshipGraph();
+        graph.addBook(List.of(1L, 1L, 2L));
+
+        assertEquals(Map.of(2L, 1), graph.coAuthors(1L));
+    }
+
+    @Test
+    void ensureCollaboratorsAreLimitedByHops() {
+        final var graph = new CoAuthorshipGraph();
+        graph.addBook(List.of(1L, 2L));
+        graph.addBook(List.of(2L, 3L));
+        graph.addBook(List.of(3L, 4L));
+
+        assertEquals(Map.of(2L, 1), graph.collaborators(1L, 1));
+        assertEquals(List.of(Map.entry(2L, 1), Map.entry(3L, 2), Map.entry(4L, 3)),
+                List.copyOf(graph.collaborators(1L, 5).entrySet()));
+    }
+
+    @Test
+    void ensureGraphGrowsPastInitialCapacity() {
+        final var graph = new CoAuthorshipGraph();
+        for (long author = 1; author < 100; author++) {
+            graph.addBook(List.of(0L, author));
+        }
+
+        assertEquals(99, graph.degree(0L));
+        assertEquals(98, graph.collaborators(1L, 2).values().stream().filter(hops -> hops == 2).count());
+    }
+}
@@ -0,0 +1,73 @@
+package pt.psoft.g1.psoftg1.analytics.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntervalTreeTest {
+
+    private static List<String> values(List<IntervalTree.Interval<String>> intervals) {
+        return intervals.stream().map(IntervalTree.Interval::value).toList();
+    }
+
+    @Test
+    void ensureFindsOverlappingIntervalsOrderedByStart() {
+        final var tree = new IntervalTree<String>(Comparator.naturalOrder());
+        tree.insert(10, 20, "a");
+        tree.insert(0, 5, "b");
+        tree.insert(15, Long.MAX_VALUE, "c");
+        tree.insert(21, 30, "d");
+        tree.insert(10, 12, "e");
+
+        assertEquals(List.of("a", "e", "c"), values(tree.overlapping(12, 18)));
+        assertEquals(List.of("b"), values(tree.overlapping(5, 5)));
+        assertEquals(List.of("c", "d"), values(tree.overlapping(25, 1000)));
+        assertEquals(List.of(), values(tree.overlapping(6, 9)));
+    }
+
+    @Test
+    void ensureRemoveTakesOutOnlyThatInterval() {
+        final var tree = new IntervalTree<String>(Comparator.naturalOrder());
+        tree.insert(1, 10, "a");
+        tree.insert(1, 10, "b");
+
+        assertTrue(tree.remove(1, "a"));
+        assertFalse(tree.remove(1, "a"));
+        assertEquals(1, tree.size());
+        assertEquals(List.of("b"), values(tree.overlapping(5, 5)));
+    }
+
+    @Test
+    void ensureMatchesBruteForceUnderInsertsAndRemoves() {
+        final var tree = new IntervalTree<Integer>(Comparator.naturalOrder());
+        final List<long[]> live = new ArrayList<>();
+        final var random = new Random(11);
+        for (int id = 0; id < 2000; id++) {
+            final long start = random.nextInt(5000);
+            final long end = start + random.nextInt(100);
+            tree.insert(start, end, id);
+            live.add(new long[]{start, end, id});
+            if (random.nextInt(3) == 0) {
+                final long[] removed = live.remove(random.nextInt(live.size()));
+                assertTrue(tree.remove(removed[0], (int) removed[2]));
+            }
+        }
+        assertEquals(live.size(), tree.size());
+
+        for (int q = 0; q < 200; q++) {
+            final long from = random.nextInt(5200);
+            final long to = from + random.nextInt(50);
+            final List<Integer> expected = live.stream()
+                    .filter(i -> i[0] <= to && i[1] >= from)
+                    .sorted(Comparator.<long[]>comparingLong(i -> i[0]).thenComparingLong(i -> i[2]))
+                    .map(i -> (int) i[2])
+                    .toList();
+            assertEquals(expected, tree.overlapping(from, to).stream().map(IntervalTree.Interval::value).toList());
+        }
+    }
+}
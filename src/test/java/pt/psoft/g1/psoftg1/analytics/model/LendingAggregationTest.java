@@ -0,0 +1,141 @@
+package pt.psoft.g1.psoftg1.analytics.model;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static pt.psoft.g1.psoftg1.analytics.model.LendingAggregation.Dimension.*;
+
+class LendingAggregationTest {
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+    private static final ForkJoinPool SINGLE = new ForkJoinPool(1);
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 1);
+    // a Monday
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    @AfterAll
+    static void shutdown() {
+        POOL.shutdownNow();
+        SINGLE.shutdownNow();
+    }
+
+    private LendingColumns columns() {
+        final var columns = new LendingColumns();
+        columns.describeBook("isbn-1", "Fantasia", List.of(1L, 2L));
+        columns.describeBook("isbn-2", "Romance", List.of(2L));
+        columns.append("2024/1", "isbn-1", "2024/1", START, START.plusDays(15), START.plusDays(4));
+        columns.append("2024/2", "isbn-2", "2024/1", START.plusDays(1), START.plusDays(16), START.plusDays(21));
+        columns.append("2024/3", "isbn-2", "2024/2", START.plusMonths(1), START.plusMonths(1).plusDays(15), null);
+        return columns;
+    }
+
+    private static Map<List<Object>, LendingAggregation.Totals> groups(LendingAggregation.Result result) {
+        return result.groups().stream()
+                .collect(Collectors.toMap(LendingAggregation.Group::key, LendingAggregation.Group::totals));
+    }
+
+    @Test
+    void ensureGroupsByGenre() {
+        final var result = LendingAggregation.run(columns(), List.of(GENRE), LendingAggregation.Filter.NONE, TODAY, POOL);
+
+        final var groups = groups(result);
+        assertEquals(1, groups.get(List.of("Fantasia")).count());
+        assertEquals(2, groups.get(List.of("Romance")).count());
+        assertEquals(List.of("Romance"), result.groups().get(0).key());
+        assertEquals(3, result.scannedRows());
+    }
+
+    @Test
+    void ensureLendingsAreCountedForEveryAuthor() {
+        final var groups = groups(LendingAggregation.run(columns(), List.of(AUTHOR), LendingAggregation.Filter.NONE, TODAY, POOL));
+
+        assertEquals(1, groups.get(List.of(1L)).count());
+        assertEquals(3, groups.get(List.of(2L)).count());
+    }
+
+    @Test
+    void ensureMeasuresAreComputedPerGroup() {
+        final var groups = groups(LendingAggregation.run(columns(), List.of(READER), LendingAggregation.Filter.NONE, TODAY, POOL));
+
+        final var first = groups.get(List.of("2024/1"));
+        assertEquals(OptionalDouble.of(12.0), first.averageDuration());
+        assertEquals(0.5, first.overdueRate());
+        final var second = groups.get(List.of("2024/2"));
+        assertTrue(second.averageDuration().isEmpty());
+        assertEquals(1.0, second.overdueRate());
+    }
+
+    @Test
+    void ensureGroupsByDateParts() {
+        final var groups = groups(LendingAggregation.run(columns(), List.of(YEAR, MONTH, WEEKDAY), LendingAggregation.Filter.NONE, TODAY, POOL));
+
+        assertEquals(1, groups.get(List.of(2024, 1, DayOfWeek.MONDAY)).count());
+        assertEquals(1, groups.get(List.of(2024, 1, DayOfWeek.TUESDAY)).count());
+        assertEquals(1, groups.get(List.of(2024, 2, DayOfWeek.THURSDAY)).count());
+    }
+
+    @Test
+    void ensureFiltersAreApplied() {
+        final var filter = new LendingAggregation.Filter(START, START.plusDays(10), null, 2L, null, null, true);
+        final var result = LendingAggregation.run(columns(), List.of(BOOK), filter, TODAY, POOL);
+
+        assertEquals(2, result.groups().size());
+        final var byGenre = new LendingAggregation.Filter(null, null, "Romance", null, null, null, false);
+        assertEquals(List.of(List.of("isbn-2")), LendingAggregation.run(columns(), List.of(BOOK), byGenre, TODAY, POOL)
+                .groups().stream().map(LendingAggregation.Group::key).toList());
+    }
+
+    @Test
+    void ensureUnknownFilterValueMatchesNothing() {
+        final var filter = new LendingAggregation.Filter(null, null, "Terror", null, null, null, null);
+
+        assertTrue(LendingAggregation.run(columns(), List.of(GENRE), filter, TODAY, POOL).groups().isEmpty());
+    }
+
+    @Test
+    void ensureNoDimensionsAggregatesEverything() {
+        final var result = LendingAggregation.run(columns(), List.of(), LendingAggregation.Filter.NONE, TODAY, POOL);
+
+        assertEquals(1, result.groups().size());
+        assertEquals(3, result.groups().get(0).totals().count());
+    }
+
+    @Test
+    void ensureRepeatedDimensionIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> LendingAggregation.run(columns(), List.of(GENRE, GENRE), LendingAggregation.Filter.NONE, TODAY, POOL));
+    }
+
+    @Test
+    void ensureParallelScanMatchesSequentialTotals() {
+        final var columns = new LendingColumns();
+        for (int book = 0; book < 10; book++) {
+            columns.describeBook("isbn-" + book, "genre-" + book % 3, List.of((long) book));
+        }
+        for (int i = 0; i < 50_000; i++) {
+            columns.append("l" + i, "isbn-" + i % 10, "r" + i % 100, START, START.plusDays(15),
+                    i % 2 == 0 ? START.plusDays(i % 20) : null);
+        }
+
+        final var parallel = LendingAggregation.run(columns, List.of(GENRE), LendingAggregation.Filter.NONE, TODAY, POOL);
+        final var sequential = LendingAggregation.run(columns, List.of(GENRE), LendingAggregation.Filter.NONE, TODAY, SINGLE);
+
+        assertTrue(parallel.partitions() > 1);
+        assertEquals(1, sequential.partitions());
+        final var expected = groups(sequential);
+        groups(parallel).forEach((key, totals) -> {
+            assertEquals(expected.get(key).count(), totals.count());
+            assertEquals(expected.get(key).averageDuration(), totals.averageDuration());
+            assertEquals(expected.get(key).overdueRate(), totals.overdueRate());
+        });
+        assertEquals(50_000, parallel.groups().stream().mapToLong(group -> group.totals().count()).sum());
+    }
+}
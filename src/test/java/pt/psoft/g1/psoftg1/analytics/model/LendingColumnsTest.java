@@ -0,0 +1,103 @@
+package pt.psoft.g1.psoftg1.analytics.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.OptionalDouble;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LendingColumnsTest {
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    private LendingColumns columns() {
+        final var columns = new LendingColumns();
+        columns.describeBook("isbn-1", "Fantasia", List.of(1L, 2L));
+        columns.describeBook("isbn-2", "Romance", List.of(2L));
+        return columns;
+    }
+
+    @Test
+    void ensureAverageDurationOnlyCountsReturnedLendings() {
+        final var columns = columns();
+        columns.append("2024/1", "isbn-1", "2024/1", START, START.plusDays(15), START.plusDays(4));
+        columns.append("2024/2", "isbn-2", "2024/1", START, START.plusDays(15), START.plusDays(7));
+        columns.append("2024/3", "isbn-2", "2024/2", START, START.plusDays(15), null);
+
+        assertEquals(OptionalDouble.of(5.5), columns.averageDuration());
+        assertEquals(OptionalDouble.of(7.0), columns.averageDuration("isbn-2"));
+    }
+
+    @Test
+    void ensureAverageDurationIsEmptyWithoutReturnedLendings() {
+        final var columns = columns();
+        columns.append("2024/1", "isbn-1", "2024/1", START, START.plusDays(15), null);
+
+        assertTrue(columns.averageDuration().isEmpty());
+        assertTrue(columns.averageDuration("isbn-1").isEmpty());
+        assertTrue(columns.averageDuration("unknown").isEmpty());
+    }
+
+    @Test
+    void ensureMarkReturnedUpdatesTheRow() {
+        final var columns = columns();
+        columns.append("2024/1", "isbn-1", "2024/1", START, START.plusDays(15), null);
+
+        assertTrue(columns.markReturned("2024/1", START.plusDays(3)));
+        assertFalse(columns.markReturned("2024/9", START.plusDays(3)));
+        assertEquals(OptionalDouble.of(3.0), columns.averageDuration());
+    }
+
+    @Test
+    void ensureAppendIsIdempotentPerLendingNumber() {
+        final var columns = columns();
+        final int row = columns.append("2024/1", "isbn-1", "2024/1", START, START.plusDays(15), null);
+
+        assertEquals(row, columns.append("2024/1", "isbn-1", "2024/1", START, START.plusDays(15), null));
+        assertEquals(1, columns.size());
+    }
+
+    @Test
+    void ensureRowsDecodeBackToTheLending() {
+        final var columns = columns();
+        columns.append("2024/1", "isbn-1", "2024/1", START, START.plusDays(15), null);
+        final int row = columns.append("2024/2", "isbn-2", "2024/3", START, START.plusDays(15), START.plusDays(2));
+
+        assertEquals(row, columns.rowOf("2024/2"));
+        assertEquals(-1, columns.rowOf("2024/9"));
+        assertEquals(new LendingColumns.Row("2024/2", "isbn-2", "2024/3", "Romance", START, START.plusDays(15),
+                START.plusDays(2)), columns.row(row));
+        assertNull(columns.row(0).returnedDate());
+    }
+
+    @Test
+    void ensureColumnsGrowPastInitialCapacity() {
+        final var columns = new LendingColumns();
+        for (int i = 0; i < 100; i++) {
+            columns.describeBook("isbn-" + i, "Fantasia", List.of((long) i));
+            columns.append("2024/" + i, "isbn-" + i, "2024/1", START, START.plusDays(15), START.plusDays(i % 10));
+        }
+
+        assertEquals(100, columns.size());
+        assertEquals(OptionalDouble.of(4.5), columns.averageDuration());
+        assertEquals(List.of(42L), columns.authorsOf("isbn-42"));
+    }
+
+    @Test
+    void ensureDescribeBookReplacesGenreAndAuthors() {
+        final var columns = columns();
+        columns.describeBook("isbn-1", "Romance", List.of(3L));
+
+        assertEquals("Romance", columns.genreOf("isbn-1"));
+        assertEquals(List.of(3L), columns.authorsOf("isbn-1"));
+    }
+
+    @Test
+    void ensureAppendRequiresDescribedBook() {
+        final var columns = new LendingColumns();
+
+        assertThrows(IllegalStateException.class,
+                () -> columns.append("2024/1", "isbn-1", "2024/1", START, START.plusDays(15), null));
+    }
+}
@@ -0,0 +1,48 @@
+package pt.psoft.g1.psoftg1.analytics.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.YearMonth;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MonthlyHistogramTest {
+    @Test
+    void ensureCountsPerMonth() {
+        final var histogram = new MonthlyHistogram();
+        histogram.increment(YearMonth.of(2024, 3));
+        histogram.increment(YearMonth.of(2024, 3));
+        histogram.increment(YearMonth.of(2024, 5));
+
+        assertEquals(2, histogram.count(YearMonth.of(2024, 3)));
+        assertEquals(0, histogram.count(YearMonth.of(2024, 4)));
+        assertEquals(1, histogram.count(YearMonth.of(2024, 5)));
+        assertEquals(0, histogram.count(YearMonth.of(2023, 3)));
+    }
+
+    @Test
+    void ensureGrowsBackwardsAndForwards() {
+        final var histogram = new MonthlyHistogram();
+        histogram.increment(YearMonth.of(2024, 1));
+        histogram.increment(YearMonth.of(2023, 11));
+        histogram.increment(YearMonth.of(2024, 2));
+
+        assertEquals(1, histogram.count(YearMonth.of(2023, 11)));
+        assertEquals(1, histogram.count(YearMonth.of(2024, 1)));
+        assertEquals(1, histogram.count(YearMonth.of(2024, 2)));
+    }
+
+    @Test
+    void ensureSumIsInclusiveAndClampedToKnownMonths() {
+        final var histogram = new MonthlyHistogram();
+        histogram.increment(YearMonth.of(2024, 1));
+        histogram.increment(YearMonth.of(2024, 2));
+        histogram.increment(YearMonth.of(2024, 6));
+
+        assertEquals(2, histogram.sum(YearMonth.of(2024, 1), YearMonth.of(2024, 2)));
+        assertEquals(3, histogram.sum(YearMonth.of(2020, 1), YearMonth.of(2030, 1)));
+        assertEquals(0, histogram.sum(YearMonth.of(2024, 3), YearMonth.of(2024, 5)));
+        assertEquals(0, histogram.sum(YearMonth.of(2025, 1), YearMonth.of(2025, 12)));
+        assertEquals(0, new MonthlyHistogram().sum(YearMonth.of(2024, 1), YearMonth.of(2024, 12)));
+    }
+}
@@ -0,0 +1,75 @@
+package pt.psoft.g1.psoftg1.analytics.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OccupancyTimelineTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 10);
+
+    @Test
+    void ensureIntervalsCountOnEveryDayTheyCover() {
+        final var timeline = new OccupancyTimeline();
+        timeline.add(DAY, DAY.plusDays(2), 1);
+        timeline.add(DAY.plusDays(1), DAY.plusDays(1), 1);
+
+        assertEquals(0, timeline.at(DAY.minusDays(1)));
+        assertEquals(1, timeline.at(DAY));
+        assertEquals(2, timeline.at(DAY.plusDays(1)));
+        assertEquals(1, timeline.at(DAY.plusDays(2)));
+        assertEquals(0, timeline.at(DAY.plusDays(3)));
+        assertArrayEquals(new long[]{0, 1, 2, 1, 0}, timeline.series(DAY.minusDays(1), DAY.plusDays(3)));
+    }
+
+    @Test
+    void ensureOpenIntervalsNeverEnd() {
+        final var timeline = new OccupancyTimeline();
+        timeline.add(DAY, OccupancyTimeline.OPEN, 1);
+
+        assertEquals(1, timeline.at(DAY.plusYears(30)));
+        assertEquals(0, timeline.at(DAY.minusDays(1)));
+    }
+
+    @Test
+    void ensureRemovingAnIntervalUndoesIt() {
+        final var timeline = new OccupancyTimeline();
+        timeline.add(DAY, OccupancyTimeline.OPEN, 1);
+        timeline.add(DAY, OccupancyTimeline.OPEN, -1);
+        timeline.add(DAY, DAY.plusDays(4), 1);
+
+        assertArrayEquals(new long[]{1, 1, 1, 1, 1, 0}, timeline.series(DAY, DAY.plusDays(5)));
+    }
+
+    @Test
+    void ensureGrowsInBothDirectionsLikeABruteForceCount() {
+        final var timeline = new OccupancyTimeline();
+        final var random = new Random(7);
+        final int[] expected = new int[20_000];
+        final LocalDate origin = DAY.minusDays(10_000);
+        for (int i = 0; i < 500; i++) {
+            final int start = random.nextInt(expected.length - 200);
+            final int end = start + random.nextInt(200);
+            timeline.add(origin.plusDays(start), origin.plusDays(end), 1);
+            for (int d = start; d <= end; d++) {
+                expected[d]++;
+            }
+        }
+
+        for (int d = 0; d < expected.length; d += 37) {
+            assertEquals(expected[d], timeline.at(origin.plusDays(d)));
+        }
+        final long[] series = timeline.series(origin, origin.plusDays(expected.length - 1));
+        for (int d = 0; d < expected.length; d++) {
+            assertEquals(expected[d], series[d]);
+        }
+    }
+
+    @Test
+    void ensureInvertedIntervalIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new OccupancyTimeline().add(DAY, DAY.minusDays(1), 1));
+    }
+}
@@ -0,0 +1,59 @@
+package pt.psoft.g1.psoftg1.analytics.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RankedCounterTest {
+    @Test
+    void ensureTopIsOrderedByCountDescending() {
+        final var counter = new RankedCounter<String>();
+        counter.increment("a");
+        counter.add("b", 3);
+        counter.add("c", 2);
+
+        assertEquals(List.of(Map.entry("b", 3L), Map.entry("c", 2L), Map.entry("a", 1L)), counter.top(5));
+    }
+
+    @Test
+    void ensureTopIsLimited() {
+        final var counter = new RankedCounter<String>();
+        counter.increment("a");
+        counter.increment("b");
+        counter.increment("c");
+
+        assertEquals(2, counter.top(2).size());
+    }
+
+    @Test
+    void ensureTiesAreBrokenByKey() {
+        final var counter = new RankedCounter<String>();
+        counter.increment("b");
+        counter.increment("a");
+
+        assertEquals("a", counter.top(1).get(0).getKey());
+    }
+
+    @Test
+    void ensureRankingFollowsUpdates() {
+        final var counter = new RankedCounter<String>();
+        counter.add("a", 2);
+        counter.increment("b");
+        counter.add("b", 2);
+
+        assertEquals(Map.entry("b", 3L), counter.top(1).get(0));
+    }
+
+    @Test
+    void ensureKeysAtZeroAreRemoved() {
+        final var counter = new RankedCounter<String>();
+        counter.add("a", 2);
+        counter.add("a", -2);
+
+        assertEquals(0, counter.size());
+        assertTrue(counter.top(5).isEmpty());
+    }
+}
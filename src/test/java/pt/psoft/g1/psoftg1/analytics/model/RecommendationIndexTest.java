@@ -0,0 +1,86 @@
+package pt.psoft.g1.psoftg1.analytics.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecommendationIndexTest {
+    private RecommendationIndex index() {
+        final var index = new RecommendationIndex(10);
+        index.putBook("a", "Fantasia");
+        index.putBook("b", "Fantasia");
+        index.putBook("c", "Fantasia");
+        index.putBook("d", "Romance");
+        return index;
+    }
+
+    @Test
+    void ensureSimilarBooksFollowCoBorrowing() {
+        final var index = index();
+        index.borrow("r1", "a");
+        index.borrow("r1", "b");
+        index.borrow("r2", "a");
+        index.borrow("r2", "b");
+        index.borrow("r3", "a");
+        index.borrow("r3", "c");
+
+        assertEquals(List.of("b", "c"), index.similarBooks("a"));
+        assertEquals(List.of("a"), index.similarBooks("b"));
+    }
+
+    @Test
+    void ensureSimilarBooksAreRefreshedAfterNewBorrows() {
+        final var index = index();
+        index.borrow("r1", "a");
+        index.borrow("r1", "b");
+        assertEquals(List.of("b"), index.similarBooks("a"));
+
+        index.borrow("r1", "c");
+
+        assertEquals(List.of("b", "c"), index.similarBooks("a"));
+    }
+
+    @Test
+    void ensureSuggestionsExcludeBorrowedBooks() {
+        final var index = index();
+        index.borrow("r1", "a");
+        index.borrow("r1", "b");
+        index.borrow("r2", "a");
+
+        assertEquals(List.of("b"), index.suggest("r2", List.of("Fantasia"), 1, 5));
+        assertEquals(List.of("b", "c"), index.suggest("r2", List.of("Fantasia"), 2, 5));
+        assertEquals(List.of("c"), index.suggest("r1", List.of("Fantasia"), 2, 5));
+    }
+
+    @Test
+    void ensureSuggestionsAreLimitedPerGenre() {
+        final var index = index();
+
+        assertEquals(List.of("a", "d"), index.suggest("new-reader", List.of("Fantasia", "Romance"), 1, 5));
+        assertEquals(List.of(), index.suggest("new-reader", List.of("Terror"), 1, 5));
+    }
+
+    @Test
+    void ensureGenreRankingFollowsPopularity() {
+        final var index = index();
+        index.borrow("r1", "c");
+        index.borrow("r2", "c");
+        index.borrow("r3", "b");
+
+        assertEquals(List.of("c", "b"), index.suggest("new-reader", List.of("Fantasia"), 2, 5));
+    }
+
+    @Test
+    void ensureGenreChangeMovesBookWithItsPopularity() {
+        final var index = index();
+        index.borrow("r1", "a");
+        index.borrow("r2", "a");
+
+        index.putBook("a", "Romance");
+
+        assertEquals(List.of("a"), index.suggest("new-reader", List.of("Romance"), 1, 5));
+        assertFalse(index.suggest("new-reader", List.of("Fantasia"), 3, 5).contains("a"));
+    }
+}
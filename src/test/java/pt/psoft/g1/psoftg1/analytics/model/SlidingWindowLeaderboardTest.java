@@ -0,0 +1,42 @@
+package pt.psoft.g1.psoftg1.analytics.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlidingWindowLeaderboardTest {
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 15);
+
+    @Test
+    void ensureCountsInsideWindowAreRanked() {
+        final var leaderboard = new SlidingWindowLeaderboard<String>(Period.ofYears(1));
+        leaderboard.add("a", TODAY.minusDays(10), 1, TODAY);
+        leaderboard.add("b", TODAY.minusDays(5), 1, TODAY);
+        leaderboard.add("b", TODAY, 1, TODAY);
+
+        assertEquals(List.of(Map.entry("b", 2L), Map.entry("a", 1L)), leaderboard.top(5, TODAY));
+    }
+
+    @Test
+    void ensureCountsOutsideWindowAreIgnored() {
+        final var leaderboard = new SlidingWindowLeaderboard<String>(Period.ofYears(1));
+        leaderboard.add("a", TODAY.minusYears(1), 1, TODAY);
+
+        assertTrue(leaderboard.top(5, TODAY).isEmpty());
+    }
+
+    @Test
+    void ensureExpiredBucketsLeaveTheRanking() {
+        final var leaderboard = new SlidingWindowLeaderboard<String>(Period.ofYears(1));
+        leaderboard.add("a", TODAY.minusDays(300), 2, TODAY);
+        leaderboard.add("b", TODAY.minusDays(10), 1, TODAY);
+
+        assertEquals("a", leaderboard.top(1, TODAY).get(0).getKey());
+        assertEquals(List.of(Map.entry("b", 1L)), leaderboard.top(5, TODAY.plusDays(100)));
+    }
+}
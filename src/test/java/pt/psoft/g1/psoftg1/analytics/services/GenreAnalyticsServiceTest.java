@@ -0,0 +1,240 @@
+package pt.psoft.g1.psoftg1.analytics.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import pt.psoft.g1.psoftg1.analytics.model.GenreLendingStats;
+import pt.psoft.g1.psoftg1.analytics.repositories.GenreLendingStatsRepository;
+import pt.psoft.g1.psoftg1.bookmanagement.model.Book;
+import pt.psoft.g1.psoftg1.bookmanagement.services.BookEvent;
+import pt.psoft.g1.psoftg1.genremanagement.model.Genre;
+import pt.psoft.g1.psoftg1.genremanagement.services.GenreLendingsDTO;
+import pt.psoft.g1.psoftg1.genremanagement.services.GenreLendingsPerMonthDTO;
+import pt.psoft.g1.psoftg1.lendingmanagement.model.Lending;
+import pt.psoft.g1.psoftg1.lendingmanagement.repositories.LendingRepository;
+import pt.psoft.g1.psoftg1.lendingmanagement.services.LendingEvent;
+import pt.psoft.g1.psoftg1.readermanagement.model.ReaderDetails;
+import pt.psoft.g1.psoftg1.shared.services.Page;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class GenreAnalyticsServiceTest {
+
+    private final List<Lending> lendings = new ArrayList<>();
+    private int lendingNumbers;
+    private InMemoryStatsRepository statsRepository;
+    private LendingSnapshotService snapshot;
+    private GenreAnalyticsService service;
+    private Book fantasyBook;
+    private Book scienceBook;
+
+    @BeforeEach
+    void setUp() {
+        LendingRepository lendingRepository = mock(LendingRepository.class);
+        when(lendingRepository.findAll()).thenAnswer(invocation -> lendings);
+        when(lendingRepository.count()).thenAnswer(invocation -> (long) lendings.size());
+        statsRepository = new InMemoryStatsRepository();
+        snapshot = new LendingSnapshotService(lendingRepository, 1);
+        service = new GenreAnalyticsService(statsRepository, snapshot, (PlatformTransactionManager) null);
+
+        fantasyBook = book("Fantasy");
+        scienceBook = book("Science");
+    }
+
+    private static Book book(String genre) {
+        Book book = mock(Book.class);
+        when(book.getIsbn()).thenReturn("isbn-" + genre);
+        when(book.getGenre()).thenReturn(new Genre(genre));
+        when(book.getAuthors()).thenReturn(List.of());
+        return book;
+    }
+
+    private Lending lending(Book book, LocalDate start, LocalDate returned) {
+        ReaderDetails readerDetails = mock(ReaderDetails.class);
+        when(readerDetails.getReaderNumber()).thenReturn("2024/1");
+        Lending lending = mock(Lending.class);
+        when(lending.getLendingNumber()).thenReturn("2024/" + ++lendingNumbers);
+        when(lending.getBook()).thenReturn(book);
+        when(lending.getReaderDetails()).thenReturn(readerDetails);
+        when(lending.getStartDate()).thenReturn(start);
+        when(lending.getLimitDate()).thenReturn(start.plusDays(15));
+        when(lending.getReturnedDate()).thenReturn(returned);
+        return lending;
+    }
+
+    // as once the application is ready: the snapshot loads before the cube is verified
+    private void applicationReady() {
+        snapshot.load();
+        service.verify();
+    }
+
+    // as after commit: the snapshot sees each event before the cube
+    private void publish(LendingEvent event) {
+        snapshot.onLending(event);
+        service.onLending(event);
+    }
+
+    @Test
+    void ensureCubeIsRebuiltFromLendingsWhenCountsDisagree() {
+        lendings.add(lending(fantasyBook, LocalDate.of(2024, 3, 2), LocalDate.of(2024, 3, 12)));
+        lendings.add(lending(fantasyBook, LocalDate.of(2024, 3, 20), null));
+        lendings.add(lending(scienceBook, LocalDate.of(2024, 4, 1), LocalDate.of(2024, 4, 5)));
+
+        applicationReady();
+
+        assertTrue(service.isReady());
+        List<GenreLendingsPerMonthDTO> perMonth = service.lendingsPerMonth(YearMonth.of(2024, 1), YearMonth.of(2024, 12));
+        assertEquals(2, perMonth.size());
+        assertEquals(3, perMonth.get(0).getMonth());
+        assertEquals(List.of(new GenreLendingsDTO("Fantasy", 2L)), perMonth.get(0).getValues());
+        assertEquals(List.of(new GenreLendingsDTO("Science", 1L)), perMonth.get(1).getValues());
+    }
+
+    @Test
+    void ensureEventsUpdateCubeIncrementally() {
+        applicationReady();
+        Lending lending = lending(fantasyBook, LocalDate.of(2024, 5, 10), null);
+        publish(LendingEvent.created(lending));
+        when(lending.getReturnedDate()).thenReturn(LocalDate.of(2024, 5, 17));
+        publish(LendingEvent.returned(lending));
+        publish(LendingEvent.created(lending(fantasyBook, LocalDate.of(2024, 5, 11), null)));
+
+        assertEquals(List.of(new GenreLendingsDTO("Fantasy", 7.0)),
+                service.averageDurationPerMonth(YearMonth.of(2024, 5), YearMonth.of(2024, 5)).get(0).getValues());
+        // 2 lendings over the 31 days of May
+        assertEquals(List.of(new GenreLendingsDTO("Fantasy", 2.0 / 31)),
+                service.averageLendingsPerDay(YearMonth.of(2024, 5), new Page(1, 10)));
+        assertEquals(1, statsRepository.rows.size());
+    }
+
+    @Test
+    void ensureCubeIsRebuiltWhenReturnsDisagree() {
+        Lending lending = lending(fantasyBook, LocalDate.of(2024, 3, 2), LocalDate.of(2024, 3, 12));
+        lendings.add(lending);
+        GenreLendingStats stale = new GenreLendingStats("Fantasy", GenreLendingStats.period(LocalDate.of(2024, 3, 2)));
+        stale.addLending();
+        statsRepository.save(stale);
+
+        applicationReady();
+
+        assertEquals(List.of(new GenreLendingsDTO("Fantasy", 10.0)),
+                service.averageDurationPerMonth(YearMonth.of(2024, 3), YearMonth.of(2024, 3)).get(0).getValues());
+    }
+
+    @Test
+    void ensureConcurrentlyInsertedCellIsIncremented() {
+        applicationReady();
+        GenreLendingStats other = new GenreLendingStats("Fantasy", GenreLendingStats.period(LocalDate.of(2024, 5, 10)));
+        other.addLending();
+        // another event inserts the cell between this event's update and its insert
+        statsRepository.insertBeforeNextSave = other;
+
+        publish(LendingEvent.created(lending(fantasyBook, LocalDate.of(2024, 5, 10), null)));
+
+        assertEquals(1, statsRepository.rows.size());
+        assertEquals(2, statsRepository.rows.get(0).getLendingCount());
+    }
+
+    @Test
+    void ensureGenreChangeMovesLendings() {
+        Book book = book("Fantasy");
+        lendings.add(lending(book, LocalDate.of(2024, 6, 1), null));
+        applicationReady();
+
+        when(book.getGenre()).thenReturn(new Genre("Science"));
+        BookEvent event = BookEvent.updated(book, new Genre("Fantasy"), List.of());
+        snapshot.onBook(event);
+        service.onBook(event);
+
+        assertEquals(List.of(new GenreLendingsDTO("Science", 1L)),
+                service.lendingsPerMonth(YearMonth.of(2024, 6), YearMonth.of(2024, 6)).get(0).getValues());
+    }
+
+    @Test
+    void ensureOnlyWholeMonthRangesAreServedFromCube() {
+        assertTrue(GenreAnalyticsService.coversWholeMonths(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 2, 29)));
+        assertFalse(GenreAnalyticsService.coversWholeMonths(LocalDate.of(2024, 1, 2), LocalDate.of(2024, 2, 29)));
+        assertFalse(GenreAnalyticsService.coversWholeMonths(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 2, 28)));
+    }
+
+    private static final class InMemoryStatsRepository implements GenreLendingStatsRepository {
+        private final List<GenreLendingStats> rows = new ArrayList<>();
+        private GenreLendingStats insertBeforeNextSave;
+
+        @Override
+        public Optional<GenreLendingStats> findByGenreAndPeriod(String genre, int period) {
+            return rows.stream().filter(s -> s.getGenre().equals(genre) && s.getPeriod() == period).findFirst();
+        }
+
+        @Override
+        public List<GenreLendingStats> findByPeriodOrderByGenreAsc(int period, Pageable pageable) {
+            return rows.stream().filter(s -> s.getPeriod() == period)
+                    .sorted(Comparator.comparing(GenreLendingStats::getGenre))
+                    .skip(pageable.getOffset()).limit(pageable.getPageSize()).toList();
+        }
+
+        @Override
+        public List<GenreLendingStats> findByPeriodBetweenOrderByPeriodAscGenreAsc(int fromPeriod, int toPeriod) {
+            return rows.stream().filter(s -> s.getPeriod() >= fromPeriod && s.getPeriod() <= toPeriod)
+                    .sorted(Comparator.comparingInt(GenreLendingStats::getPeriod).thenComparing(GenreLendingStats::getGenre))
+                    .toList();
+        }
+
+        @Override
+        public Iterable<GenreLendingStats> findAll() {
+            return List.copyOf(rows);
+        }
+
+        @Override
+        public GenreLendingStats save(GenreLendingStats stats) {
+            if (insertBeforeNextSave != null) {
+                rows.add(insertBeforeNextSave);
+                insertBeforeNextSave = null;
+            }
+            if (findByGenreAndPeriod(stats.getGenre(), stats.getPeriod()).filter(s -> s != stats).isPresent()) {
+                throw new DataIntegrityViolationException("Duplicate (genre, period)");
+            }
+            if (!rows.contains(stats)) {
+                rows.add(stats);
+            }
+            return stats;
+        }
+
+        @Override
+        public <S extends GenreLendingStats> Iterable<S> saveAll(Iterable<S> stats) {
+            stats.forEach(this::save);
+            return stats;
+        }
+
+        @Override
+        public int addLending(String genre, int period) {
+            return findByGenreAndPeriod(genre, period).map(stats -> {
+                stats.addLending();
+                return 1;
+            }).orElse(0);
+        }
+
+        @Override
+        public int addReturn(String genre, int period, long durationDays) {
+            return findByGenreAndPeriod(genre, period).map(stats -> {
+                stats.addReturn(durationDays);
+                return 1;
+            }).orElse(0);
+        }
+
+        @Override
+        public void deleteAll() {
+            rows.clear();
+        }
+    }
+}
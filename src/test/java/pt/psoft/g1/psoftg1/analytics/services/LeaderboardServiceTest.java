@@ -0,0 +1,128 @@
+package pt.psoft.g1.psoftg1.analytics.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pt.psoft.g1.psoftg1.authormanagement.model.Author;
+import pt.psoft.g1.psoftg1.authormanagement.services.AuthorEvent;
+import pt.psoft.g1.psoftg1.bookmanagement.model.Book;
+import pt.psoft.g1.psoftg1.bookmanagement.repositories.BookRepository;
+import pt.psoft.g1.psoftg1.bookmanagement.services.BookEvent;
+import pt.psoft.g1.psoftg1.genremanagement.model.Genre;
+import pt.psoft.g1.psoftg1.lendingmanagement.model.Lending;
+import pt.psoft.g1.psoftg1.lendingmanagement.repositories.LendingRepository;
+import pt.psoft.g1.psoftg1.lendingmanagement.services.LendingEvent;
+import pt.psoft.g1.psoftg1.readermanagement.model.ReaderDetails;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class LeaderboardServiceTest {
+
+    private static final LocalDate START = LocalDate.now().minusDays(10);
+
+    private final List<Book> books = new ArrayList<>();
+    private final List<Lending> lendings = new ArrayList<>();
+    private int lendingNumbers;
+    private LendingSnapshotService snapshot;
+    private LeaderboardService service;
+    private Author tolkien;
+    private Author lewis;
+    private Book hobbit;
+    private Book narnia;
+
+    @BeforeEach
+    void setUp() {
+        LendingRepository lendingRepository = mock(LendingRepository.class);
+        BookRepository bookRepository = mock(BookRepository.class);
+        when(lendingRepository.findAll()).thenAnswer(invocation -> lendings);
+        when(bookRepository.findAll()).thenAnswer(invocation -> books);
+        snapshot = new LendingSnapshotService(lendingRepository, 1);
+        service = new LeaderboardService(snapshot, bookRepository);
+
+        tolkien = author(1L, "J. R. R. Tolkien");
+        lewis = author(2L, "C. S. Lewis");
+        hobbit = book("9780261103344", "Fantasy", tolkien);
+        narnia = book("9780007115617", "Fantasy", lewis);
+        lendings.add(lending(hobbit, "2024/1"));
+        lendings.add(lending(hobbit, "2024/2"));
+        lendings.add(lending(narnia, "2024/1"));
+        snapshot.load();
+        service.rebuild();
+    }
+
+    private static Author author(Long authorNumber, String name) {
+        Author author = mock(Author.class);
+        when(author.getAuthorNumber()).thenReturn(authorNumber);
+        when(author.getName()).thenReturn(name);
+        return author;
+    }
+
+    private Book book(String isbn, String genre, Author... authors) {
+        Book book = mock(Book.class);
+        when(book.getIsbn()).thenReturn(isbn);
+        when(book.getGenre()).thenReturn(new Genre(genre));
+        when(book.getAuthors()).thenReturn(List.of(authors));
+        books.add(book);
+        return book;
+    }
+
+    private Lending lending(Book book, String readerNumber) {
+        ReaderDetails readerDetails = mock(ReaderDetails.class);
+        when(readerDetails.getReaderNumber()).thenReturn(readerNumber);
+        Lending lending = mock(Lending.class);
+        when(lending.getLendingNumber()).thenReturn("2024/" + ++lendingNumbers);
+        when(lending.getBook()).thenReturn(book);
+        when(lending.getReaderDetails()).thenReturn(readerDetails);
+        when(lending.getStartDate()).thenReturn(START);
+        when(lending.getLimitDate()).thenReturn(START.plusDays(15));
+        return lending;
+    }
+
+    // as after commit: the snapshot sees each event before the leaderboards
+    private void publish(LendingEvent event) {
+        snapshot.onLending(event);
+        service.onLending(event);
+    }
+
+    @Test
+    void ensureAuthorsAreRankedByName() {
+        Author otherTolkien = author(3L, "J. R. R. Tolkien");
+        publish(LendingEvent.created(lending(book("9780261102385", "Fantasy", otherTolkien), "2024/3")));
+
+        assertEquals(List.of(Map.entry("J. R. R. Tolkien", 3L), Map.entry("C. S. Lewis", 1L)), service.topAuthors(5));
+    }
+
+    @Test
+    void ensureEventOfAlreadyScannedLendingIsNotCountedTwice() {
+        service.onLending(LendingEvent.created(lendings.get(0)));
+
+        assertEquals(List.of(Map.entry("2024/1", 2L), Map.entry("2024/2", 1L)), service.topReaders(5));
+    }
+
+    @Test
+    void ensureRenamedAuthorKeepsItsLendings() {
+        when(lewis.getName()).thenReturn("Clive Staples Lewis");
+
+        service.onAuthor(new AuthorEvent(lewis));
+
+        assertEquals(List.of(Map.entry("J. R. R. Tolkien", 2L), Map.entry("Clive Staples Lewis", 1L)),
+                service.topAuthors(5));
+    }
+
+    @Test
+    void ensureGenreChangeMovesOnlyThatBooksReaders() {
+        when(hobbit.getGenre()).thenReturn(new Genre("Adventure"));
+
+        service.onBook(BookEvent.updated(hobbit, new Genre("Fantasy"), List.of(tolkien)));
+
+        assertEquals(List.of(Map.entry("2024/1", 1L), Map.entry("2024/2", 1L)),
+                service.topReadersByGenre("Adventure", START, START, 5));
+        assertEquals(List.of(Map.entry("2024/1", 1L)), service.topReadersByGenre("Fantasy", START, START, 5));
+        assertEquals(List.of(Map.entry("Adventure", 1L), Map.entry("Fantasy", 1L)), service.topGenresByBookCount(5));
+    }
+}
@@ -0,0 +1,92 @@
+package pt.psoft.g1.psoftg1.analytics.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pt.psoft.g1.psoftg1.bookmanagement.model.Book;
+import pt.psoft.g1.psoftg1.genremanagement.model.Genre;
+import pt.psoft.g1.psoftg1.lendingmanagement.model.Lending;
+import pt.psoft.g1.psoftg1.lendingmanagement.repositories.LendingRepository;
+import pt.psoft.g1.psoftg1.lendingmanagement.services.LendingEvent;
+import pt.psoft.g1.psoftg1.readermanagement.model.ReaderDetails;
+import pt.psoft.g1.psoftg1.shared.services.Page;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReaderActivityServiceTest {
+
+    private static final YearMonth MAY = YearMonth.of(2024, 5);
+
+    private final List<Lending> lendings = new ArrayList<>();
+    private int lendingNumbers;
+    private LendingSnapshotService snapshot;
+    private ReaderActivityService service;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        LendingRepository lendingRepository = mock(LendingRepository.class);
+        when(lendingRepository.findAll()).thenAnswer(invocation -> lendings);
+        snapshot = new LendingSnapshotService(lendingRepository, 1);
+        service = new ReaderActivityService(snapshot);
+
+        book = mock(Book.class);
+        when(book.getIsbn()).thenReturn("9780261103344");
+        when(book.getGenre()).thenReturn(new Genre("Fantasy"));
+        when(book.getAuthors()).thenReturn(List.of());
+    }
+
+    private Lending lending(String readerNumber) {
+        ReaderDetails readerDetails = mock(ReaderDetails.class);
+        when(readerDetails.getReaderNumber()).thenReturn(readerNumber);
+        Lending lending = mock(Lending.class);
+        when(lending.getLendingNumber()).thenReturn("2024/" + ++lendingNumbers);
+        when(lending.getBook()).thenReturn(book);
+        when(lending.getReaderDetails()).thenReturn(readerDetails);
+        when(lending.getStartDate()).thenReturn(MAY.atDay(10));
+        when(lending.getLimitDate()).thenReturn(MAY.atDay(25));
+        return lending;
+    }
+
+    // as after commit: the snapshot sees each event before the histograms
+    private void publish(LendingEvent event) {
+        snapshot.onLending(event);
+        service.onLending(event);
+    }
+
+    @Test
+    void ensureLendingsAreCountedPerReaderAndMonth() {
+        lendings.add(lending("2024/1"));
+        lendings.add(lending("2024/1"));
+        lendings.add(lending("2024/2"));
+        snapshot.load();
+        service.rebuild();
+
+        publish(LendingEvent.created(lending("2024/2")));
+        publish(LendingEvent.created(lending("2024/3")));
+
+        assertEquals(List.of(Map.entry("2024/1", 2L), Map.entry("2024/2", 2L), Map.entry("2024/3", 1L)),
+                service.lendingsPerReader(MAY, MAY, new Page(1, 10)));
+        assertTrue(service.lendingsPerReader(MAY.plusMonths(1), MAY.plusMonths(2), new Page(1, 10)).isEmpty());
+    }
+
+    @Test
+    void ensureEventOfLendingAlreadyInTheRebuildIsNotCountedTwice() {
+        snapshot.load();
+        // committed while the histograms were being rebuilt: the snapshot has it before the scan
+        Lending lending = lending("2024/1");
+        LendingEvent event = LendingEvent.created(lending);
+        snapshot.onLending(event);
+        service.rebuild();
+
+        service.onLending(event);
+
+        assertEquals(List.of(Map.entry("2024/1", 1L)), service.lendingsPerReader(MAY, MAY, new Page(1, 10)));
+    }
+}
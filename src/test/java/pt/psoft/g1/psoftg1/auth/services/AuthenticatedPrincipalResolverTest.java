@@ -0,0 +1,213 @@
+package pt.psoft.g1.psoftg1.auth.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
+import pt.psoft.g1.psoftg1.readermanagement.model.ReaderDetails;
+import pt.psoft.g1.psoftg1.readermanagement.repositories.ReaderRepository;
+import pt.psoft.g1.psoftg1.usermanagement.model.Reader;
+import pt.psoft.g1.psoftg1.usermanagement.model.Role;
+import pt.psoft.g1.psoftg1.usermanagement.repositories.UserRepository;
+import pt.psoft.g1.psoftg1.usermanagement.services.UserEvent;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuthenticatedPrincipalResolverTest {
+
+    private static final Instant NOW = Instant.parse("2024-05-01T10:00:00Z");
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ReaderRepository readerRepository;
+
+    @Mock
+    private ReaderDetails readerDetails;
+
+    @Mock
+    private Clock clock;
+
+    private AuthenticatedPrincipalResolver resolver;
+
+    private Reader reader;
+
+    @BeforeEach
+    void setUp() {
+        resolver = new AuthenticatedPrincipalResolver(userRepository, readerRepository, Duration.ofSeconds(60), 10, clock);
+        lenient().when(clock.instant()).thenReturn(NOW);
+        reader = Reader.newReader("reader@mail.com", "Password123!", "Reader Name");
+        ReflectionTestUtils.setField(reader, "id", 7L);
+        ReflectionTestUtils.setField(reader, "version", 3L);
+    }
+
+    private static JwtAuthenticationToken token(Map<String, Object> extraClaims) {
+        final Jwt jwt = Jwt.withTokenValue("token").header("alg", "none")
+                .subject("7,reader@mail.com").claim("roles", Role.READER)
+                .claims(claims -> claims.putAll(extraClaims))
+                .build();
+        return new JwtAuthenticationToken(jwt);
+    }
+
+    private JwtAuthenticationToken tokenOf(AuthenticatedPrincipal principal) {
+        final Map<String, Object> claims = new HashMap<>();
+        principal.putClaims(claims);
+        return token(claims);
+    }
+
+    private AuthenticatedPrincipal login() {
+        when(readerDetails.getReaderNumber()).thenReturn("2024/1");
+        when(readerRepository.findByUsername("reader@mail.com")).thenReturn(Optional.of(readerDetails));
+        return resolver.issue(reader);
+    }
+
+    /**
+     *  Service Unit Test
+     * Tests that a token with the current user version resolves from its claims alone
+     */
+    @Test
+    void testResolveFromClaimsWithoutLookups() {
+        final AuthenticatedPrincipal issued = login();
+
+        final AuthenticatedPrincipal result = resolver.resolve(tokenOf(issued));
+
+        assertEquals(issued, result);
+        assertEquals("2024/1", result.readerNumber());
+        assertFalse(result.isLibrarian());
+        verifyNoInteractions(userRepository);
+        verify(readerRepository, times(1)).findByUsername(any());
+    }
+
+    /**
+     *  Service Unit Test
+     * Tests that a user not seen by this instance yet is read from the database once
+     */
+    @Test
+    void testResolveUnknownUserLooksItUpOnce() {
+        final var token = token(Map.of("uid", 7L, "ver", 3L, "readerNumber", "2024/1"));
+        when(userRepository.findById(7L)).thenReturn(Optional.of(reader));
+        when(readerDetails.getReaderNumber()).thenReturn("2024/1");
+        when(readerRepository.findByUsername("reader@mail.com")).thenReturn(Optional.of(readerDetails));
+
+        resolver.resolve(token);
+        final AuthenticatedPrincipal result = resolver.resolve(token);
+
+        assertEquals(7L, result.userId());
+        verify(userRepository, times(1)).findById(7L);
+    }
+
+    /**
+     *  Service Unit Test
+     * Tests that a change to the user makes the next request read it again, and older tokens keep
+     * resolving to the current data
+     */
+    @Test
+    void testResolveAfterUserChanged() {
+        final AuthenticatedPrincipal issued = login();
+        final var oldToken = tokenOf(issued);
+        ReflectionTestUtils.setField(reader, "version", 4L);
+        when(userRepository.findById(7L)).thenReturn(Optional.of(reader));
+
+        resolver.onUser(new UserEvent(reader));
+        final AuthenticatedPrincipal afterChange = resolver.resolve(oldToken);
+        final AuthenticatedPrincipal again = resolver.resolve(oldToken);
+
+        assertEquals(4L, afterChange.version());
+        assertEquals(afterChange, again);
+        verify(userRepository, times(1)).findById(7L);
+    }
+
+    /**
+     *  Service Unit Test
+     * Tests that a user read while it was being changed is not remembered over the change
+     */
+    @Test
+    void testResolveDoesNotRememberUserReadBeforeAChange() {
+        final var token = tokenOf(login());
+        resolver.onUser(new UserEvent(reader));
+        when(userRepository.findById(7L)).thenAnswer(invocation -> {
+            // the change commits while this request is still reading the old row
+            resolver.onUser(new UserEvent(reader));
+            return Optional.of(reader);
+        }).thenReturn(Optional.of(reader));
+
+        resolver.resolve(token);
+        resolver.resolve(token);
+        resolver.resolve(token);
+
+        verify(userRepository, times(2)).findById(7L);
+    }
+
+    /**
+     *  Service Unit Test
+     * Tests that what was read is read again once it expires, so changes made on other instances are seen
+     */
+    @Test
+    void testResolveAfterExpiryLooksUpAgain() {
+        final var token = tokenOf(login());
+        reader.setEnabled(false);
+        when(userRepository.findById(7L)).thenReturn(Optional.of(reader));
+
+        resolver.resolve(token);
+        when(clock.instant()).thenReturn(NOW.plusSeconds(60));
+
+        assertThrows(AccessDeniedException.class, () -> resolver.resolve(token));
+    }
+
+    /**
+     *  Service Unit Test
+     * Tests that a disabled user is no longer authorized once the change is seen
+     */
+    @Test
+    void testResolveDisabledUserIsDenied() {
+        final var token = tokenOf(login());
+        reader.setEnabled(false);
+        when(userRepository.findById(7L)).thenReturn(Optional.of(reader));
+
+        resolver.onUser(new UserEvent(reader));
+
+        assertThrows(AccessDeniedException.class, () -> resolver.resolve(token));
+    }
+
+    /**
+     *  Service Unit Test
+     * Tests that tokens issued without the principal claims are resolved by username
+     */
+    @Test
+    void testResolveTokenWithoutClaimsLooksUpUsername() {
+        when(userRepository.findByUsername("reader@mail.com")).thenReturn(Optional.of(reader));
+        when(readerRepository.findByUsername("reader@mail.com")).thenReturn(Optional.empty());
+
+        final AuthenticatedPrincipal result = resolver.resolve(token(Map.of()));
+
+        assertEquals(7L, result.userId());
+        assertNull(result.readerNumber());
+    }
+
+    /**
+     *  Service Unit Test
+     * Tests that a request without a token is denied
+     */
+    @Test
+    void testResolveWithoutTokenIsDenied() {
+        assertThrows(AccessDeniedException.class, () -> resolver.resolve(null));
+        assertThrows(AccessDeniedException.class,
+                () -> resolver.resolve(new UsernamePasswordAuthenticationToken("user", "password")));
+    }
+}
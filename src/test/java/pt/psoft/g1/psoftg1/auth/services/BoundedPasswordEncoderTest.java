@@ -0,0 +1,100 @@
+package pt.psoft.g1.psoftg1.auth.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import pt.psoft.g1.psoftg1.exceptions.ServiceUnavailableException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        encoder.shutdown();
+    }
+
+    // hashes only once released, to keep the single worker busy
+    private PasswordEncoder blocking() {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hash:" + rawPassword;
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return encode(rawPassword).equals(encodedPassword);
+            }
+        };
+    }
+
+    @Test
+    void ensureHashesLikeItsDelegate() {
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 2, 10, Duration.ofSeconds(10));
+
+        final String hash = encoder.encode("Password123!");
+
+        assertTrue(hash.startsWith("$2a$04$"));
+        assertTrue(encoder.matches("Password123!", hash));
+        assertFalse(encoder.matches("Password124!", hash));
+    }
+
+    @Test
+    void ensureRejectsWhenTheQueueIsFull() throws Exception {
+        encoder = new BoundedPasswordEncoder(blocking(), 1, 1, Duration.ofSeconds(10));
+        final var running = CompletableFuture.supplyAsync(() -> encoder.encode("a"));
+        final var queued = CompletableFuture.supplyAsync(() -> encoder.encode("b"));
+        final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        encoder.bindTo(registry);
+        while (registry.get("password.hashing.queue.size").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        assertThrows(ServiceUnavailableException.class, () -> encoder.encode("c"));
+        assertEquals(1, registry.get("password.hashing.rejected").tag("reason", "queue-full").counter().count());
+
+        release.countDown();
+        assertEquals("hash:a", running.get(10, TimeUnit.SECONDS));
+        assertEquals("hash:b", queued.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void ensureRejectsCallsNotDoneInTime() {
+        encoder = new BoundedPasswordEncoder(blocking(), 1, 10, Duration.ofMillis(50));
+        final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        encoder.bindTo(registry);
+
+        assertThrows(ServiceUnavailableException.class, () -> encoder.matches("a", "hash:a"));
+        assertEquals(1, registry.get("password.hashing.rejected").tag("reason", "timeout").counter().count());
+    }
+
+    @Test
+    void ensureRecordsHashingLatency() {
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 1, 10, Duration.ofSeconds(10));
+        final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        encoder.bindTo(registry);
+
+        encoder.matches("Password123!", encoder.encode("Password123!"));
+
+        assertEquals(1, registry.get("password.hashing").tag("operation", "encode").timer().count());
+        assertEquals(1, registry.get("password.hashing").tag("operation", "matches").timer().count());
+        assertEquals(1, registry.get("password.hashing.wait").tag("operation", "matches").timer().count());
+    }
+}
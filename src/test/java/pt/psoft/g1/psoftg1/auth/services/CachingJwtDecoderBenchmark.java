@@ -0,0 +1,98 @@
+package pt.psoft.g1.psoftg1.auth.services;
+
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of decoding a token with and without {@link CachingJwtDecoder}, when every token is sent
+ * again and again, as a logged in client does.
+ * <p>Not run by the build. Run it with
+ * {@code mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt} and then
+ * {@code java -cp target/test-classes:$(cat target/cp.txt) pt.psoft.g1.psoftg1.auth.services.CachingJwtDecoderBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CachingJwtDecoderBenchmark {
+
+    /** Distinct tokens in use, i.e. logged in clients. */
+    @Param({"100", "10000"})
+    public int tokens;
+
+    private String[] values;
+    private JwtDecoder nimbus;
+    private CachingJwtDecoder caching;
+    private int next;
+
+    @Setup
+    public void setUp() throws NoSuchAlgorithmException {
+        final KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        final var keyPair = generator.generateKeyPair();
+        final var jwk = new RSAKey.Builder((RSAPublicKey) keyPair.getPublic())
+                .privateKey((RSAPrivateKey) keyPair.getPrivate()).build();
+        final var encoder = new NimbusJwtEncoder(new ImmutableJWKSet<>(new JWKSet(jwk)));
+
+        final Instant now = Instant.now();
+        values = new String[tokens];
+        for (int i = 0; i < tokens; i++) {
+            final JwtClaimsSet claims = JwtClaimsSet.builder().issuer("example.io").issuedAt(now)
+                    .expiresAt(now.plusSeconds(36000)).subject(i + ",user" + i + "@mail.com")
+                    .claim("roles", "READER").build();
+            values[i] = encoder.encode(JwtEncoderParameters.from(claims)).getTokenValue();
+        }
+        nimbus = NimbusJwtDecoder.withPublicKey((RSAPublicKey) keyPair.getPublic()).build();
+        caching = new CachingJwtDecoder(NimbusJwtDecoder.withPublicKey((RSAPublicKey) keyPair.getPublic()).build(),
+                10000);
+    }
+
+    private String nextToken() {
+        next = (next + 1) % values.length;
+        return values[next];
+    }
+
+    @Benchmark
+    public Jwt verifyEveryTime() {
+        return nimbus.decode(nextToken());
+    }
+
+    @Benchmark
+    public Jwt cached() {
+        return caching.decode(nextToken());
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CachingJwtDecoderBenchmark.class.getSimpleName()).build()).run();
+    }
+}
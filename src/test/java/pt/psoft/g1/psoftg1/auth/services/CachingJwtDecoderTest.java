@@ -0,0 +1,116 @@
+package pt.psoft.g1.psoftg1.auth.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.time.Clock;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingJwtDecoderTest {
+
+    private static final Instant NOW = Instant.parse("2024-05-01T10:00:00Z");
+
+    @Mock
+    private JwtDecoder delegate;
+
+    @Mock
+    private Clock clock;
+
+    private CachingJwtDecoder decoder;
+
+    @BeforeEach
+    void setUp() {
+        decoder = new CachingJwtDecoder(delegate, 10, clock);
+        lenient().when(clock.instant()).thenReturn(NOW);
+    }
+
+    private static Jwt jwt(String token, Instant expiresAt) {
+        return Jwt.withTokenValue(token).header("alg", "RS256").subject("1,user")
+                .issuedAt(NOW.minusSeconds(60)).expiresAt(expiresAt).build();
+    }
+
+    @Test
+    void ensureVerifiesATokenOnlyOnce() {
+        final Jwt jwt = jwt("a", NOW.plusSeconds(3600));
+        when(delegate.decode("a")).thenReturn(jwt);
+
+        assertSame(jwt, decoder.decode("a"));
+        assertSame(jwt, decoder.decode("a"));
+
+        verify(delegate, times(1)).decode("a");
+    }
+
+    @Test
+    void ensureVerifiesAgainOnceExpired() {
+        when(delegate.decode("a")).thenReturn(jwt("a", NOW.plusSeconds(3600)));
+        decoder.decode("a");
+
+        when(clock.instant()).thenReturn(NOW.plusSeconds(3600));
+        decoder.decode("a");
+
+        verify(delegate, times(2)).decode("a");
+    }
+
+    @Test
+    void ensureDoesNotKeepTokensWithoutExpiry() {
+        when(delegate.decode("a")).thenReturn(Jwt.withTokenValue("a").header("alg", "RS256").subject("1,user").build());
+
+        decoder.decode("a");
+        decoder.decode("a");
+
+        verify(delegate, times(2)).decode("a");
+        assertEquals(0, decoder.size());
+    }
+
+    @Test
+    void ensureDoesNotKeepRejectedTokens() {
+        when(delegate.decode("bad")).thenThrow(new BadJwtException("bad signature"));
+
+        assertThrows(BadJwtException.class, () -> decoder.decode("bad"));
+        assertThrows(BadJwtException.class, () -> decoder.decode("bad"));
+
+        verify(delegate, times(2)).decode("bad");
+    }
+
+    @Test
+    void ensureRejectsRevokedTokensWithoutVerifyingThem() {
+        when(delegate.decode("a")).thenReturn(jwt("a", NOW.plusSeconds(3600)));
+        decoder.decode("a");
+
+        decoder.revoke("a");
+
+        assertThrows(BadJwtException.class, () -> decoder.decode("a"));
+        verify(delegate, times(1)).decode("a");
+        assertEquals(0, decoder.size());
+    }
+
+    @Test
+    void ensureRevokesTokensNotSeenYet() {
+        when(delegate.decode("a")).thenReturn(jwt("a", NOW.plusSeconds(3600)));
+
+        decoder.revoke("a");
+
+        assertThrows(BadJwtException.class, () -> decoder.decode("a"));
+    }
+
+    @Test
+    void ensureStaysWithinMaxEntries() {
+        when(delegate.decode(anyString())).thenAnswer(invocation -> jwt(invocation.getArgument(0), NOW.plusSeconds(3600)));
+
+        for (int i = 0; i < 25; i++) {
+            decoder.decode("token-" + i);
+            assertTrue(decoder.size() <= 10);
+        }
+    }
+}
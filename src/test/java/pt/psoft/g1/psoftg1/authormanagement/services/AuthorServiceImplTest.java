@@ -1,11 +1,16 @@
 package pt.psoft.g1.psoftg1.authormanagement.services;
 
+import jakarta.validation.ValidationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import pt.psoft.g1.psoftg1.analytics.services.CoAuthorshipService;
+import pt.psoft.g1.psoftg1.analytics.services.LeaderboardService;
 import pt.psoft.g1.psoftg1.authormanagement.api.AuthorLendingView;
 import pt.psoft.g1.psoftg1.authormanagement.model.Author;
 import pt.psoft.g1.psoftg1.authormanagement.repositories.AuthorRepository;
@@ -17,7 +22,9 @@ import pt.psoft.g1.psoftg1.shared.repositories.PhotoRepository;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -42,6 +49,15 @@ class AuthorServiceImplTest {
     @Mock
     private PhotoRepository photoRepository;
 
+    @Mock
+    private LeaderboardService leaderboardService;
+
+    @Mock
+    private CoAuthorshipService coAuthorshipService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private AuthorServiceImpl authorService;
 
@@ -172,4 +188,37 @@ class AuthorServiceImplTest {
         assertTrue(result.isEmpty());
         verify(bookRepository).findBooksByAuthorNumber(authorNumber);
     }
+
+    // Service test: Co-authors come from the co-authorship graph once it is built
+    @Test
+    void testFindCoAuthorsUsesGraphWhenReady() {
+        Author coAuthor = new Author("Co Author", "Co-author biography", null);
+        when(coAuthorshipService.isReady()).thenReturn(true);
+        when(coAuthorshipService.coAuthors(authorNumber)).thenReturn(Map.of(2L, 3));
+        ReflectionTestUtils.setField(coAuthor, "authorNumber", 2L);
+        when(authorRepository.findByAuthorNumberIn(Set.of(2L))).thenReturn(List.of(coAuthor));
+
+        List<Author> result = authorService.findCoAuthorsByAuthorNumber(authorNumber);
+
+        assertEquals(List.of(coAuthor), result);
+        verify(authorRepository, never()).findCoAuthorsByAuthorNumber(any());
+    }
+
+    // Service test: Co-authors fall back to the repository while the graph is built
+    @Test
+    void testFindCoAuthorsFallsBackToRepository() {
+        when(coAuthorshipService.isReady()).thenReturn(false);
+        when(authorRepository.findCoAuthorsByAuthorNumber(authorNumber)).thenReturn(List.of(validAuthor));
+
+        List<Author> result = authorService.findCoAuthorsByAuthorNumber(authorNumber);
+
+        assertEquals(List.of(validAuthor), result);
+    }
+
+    // Service test: Collaborators reject hop counts out of range
+    @Test
+    void testFindCollaboratorsRejectsInvalidHops() {
+        assertThrows(ValidationException.class, () -> authorService.findCollaborators(authorNumber, 0));
+        assertThrows(ValidationException.class, () -> authorService.findCollaborators(authorNumber, 7));
+    }
 }
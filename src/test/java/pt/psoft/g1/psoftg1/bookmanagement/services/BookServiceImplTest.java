@@ -6,10 +6,13 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.test.util.ReflectionTestUtils;
+import pt.psoft.g1.psoftg1.analytics.services.LeaderboardService;
+import pt.psoft.g1.psoftg1.analytics.services.RecommendationService;
 import pt.psoft.g1.psoftg1.authormanagement.model.Author;
 import pt.psoft.g1.psoftg1.authormanagement.repositories.AuthorRepository;
 import pt.psoft.g1.psoftg1.bookmanagement.model.Book;
@@ -20,6 +23,7 @@ import pt.psoft.g1.psoftg1.genremanagement.model.Genre;
 import pt.psoft.g1.psoftg1.genremanagement.repositories.GenreRepository;
 import pt.psoft.g1.psoftg1.readermanagement.model.ReaderDetails;
 import pt.psoft.g1.psoftg1.readermanagement.repositories.ReaderRepository;
+import pt.psoft.g1.psoftg1.shared.model.Photo;
 import pt.psoft.g1.psoftg1.shared.repositories.PhotoRepository;
 import pt.psoft.g1.psoftg1.usermanagement.model.Reader;
 
@@ -27,6 +31,7 @@ import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -57,6 +62,15 @@ class BookServiceImplTest {
     @Mock
     private pt.psoft.g1.psoftg1.bookmanagement.api.BookViewMapper bookViewMapper;
 
+    @Mock
+    private LeaderboardService leaderboardService;
+
+    @Mock
+    private RecommendationService recommendationService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private BookServiceImpl bookService;
 
@@ -69,6 +83,7 @@ class BookServiceImplTest {
     void setUp() {
         validGenre = new Genre("Fiction");
         validAuthor = new Author("Test Author", "Bio", null);
+        ReflectionTestUtils.setField(validAuthor, "authorNumber", 1L);
         List<Author> authors = new ArrayList<>();
         authors.add(validAuthor);
         validBook = new Book(validIsbn, "Test Book", "Description", validGenre, authors, null);
@@ -93,16 +108,16 @@ class BookServiceImplTest {
         request.setAuthors(List.of(1L));
 
         when(bookRepository.findByIsbn(validIsbn)).thenReturn(Optional.empty());
-        when(genreRepository.findByString("Fiction")).thenReturn(Optional.of(validGenre));
-        when(authorRepository.findByAuthorNumber(1L)).thenReturn(Optional.of(validAuthor));
+        when(genreRepository.findByGenreIn(Set.of("Fiction"))).thenReturn(List.of(validGenre));
+        when(authorRepository.findByAuthorNumberIn(Set.of(1L))).thenReturn(List.of(validAuthor));
         when(bookRepository.save(any(Book.class))).thenReturn(validBook);
 
         Book result = bookService.create(request, validIsbn);
 
         assertNotNull(result);
         verify(bookRepository).findByIsbn(validIsbn);
-        verify(genreRepository).findByString("Fiction");
-        verify(authorRepository).findByAuthorNumber(1L);
+        verify(genreRepository).findByGenreIn(Set.of("Fiction"));
+        verify(authorRepository).findByAuthorNumberIn(Set.of(1L));
         verify(bookRepository).save(any(Book.class));
     }
 
@@ -130,10 +145,10 @@ class BookServiceImplTest {
         request.setAuthors(List.of(1L));
 
         when(bookRepository.findByIsbn(validIsbn)).thenReturn(Optional.empty());
-        when(genreRepository.findByString("NonExistent")).thenReturn(Optional.empty());
+        when(genreRepository.findByGenreIn(Set.of("NonExistent"))).thenReturn(List.of());
 
         assertThrows(NotFoundException.class, () -> bookService.create(request, validIsbn));
-        verify(genreRepository).findByString("NonExistent");
+        verify(genreRepository).findByGenreIn(Set.of("NonExistent"));
         verify(bookRepository, never()).save(any());
     }
 
@@ -208,14 +223,14 @@ class BookServiceImplTest {
         Genre newGenre = new Genre("Science");
         
         when(bookRepository.findByIsbn(validIsbn)).thenReturn(Optional.of(validBook));
-        when(genreRepository.findByString("Science")).thenReturn(Optional.of(newGenre));
+        when(genreRepository.findByGenreIn(Set.of("Science"))).thenReturn(List.of(newGenre));
         when(bookRepository.save(any(Book.class))).thenReturn(validBook);
 
         Book result = bookService.update(request, "0");
 
         assertNotNull(result);
         verify(bookRepository).findByIsbn(validIsbn);
-        verify(genreRepository).findByString("Science");
+        verify(genreRepository).findByGenreIn(Set.of("Science"));
         verify(bookRepository).save(validBook);
     }
 
@@ -272,14 +287,14 @@ class BookServiceImplTest {
         
         when(bookRepository.findByIsbn(validIsbn)).thenReturn(Optional.of(bookWithPhoto));
         when(bookRepository.save(any(Book.class))).thenReturn(bookWithPhoto);
-        doNothing().when(photoRepository).deleteByPhotoFile("photo.jpg");
+        Photo photo = bookWithPhoto.getPhoto();
 
         Book result = bookService.removeBookPhoto(validIsbn, 0L);
 
         assertNotNull(result);
         verify(bookRepository).findByIsbn(validIsbn);
         verify(bookRepository).save(bookWithPhoto);
-        verify(photoRepository).deleteByPhotoFile("photo.jpg");
+        verify(photoRepository).delete(photo);
     }
 
     // Service test: Remove book photo when no photo exists throws exception
@@ -289,7 +304,7 @@ class BookServiceImplTest {
 
         assertThrows(NotFoundException.class, () -> bookService.removeBookPhoto(validIsbn, 0L));
         verify(bookRepository).findByIsbn(validIsbn);
-        verify(photoRepository, never()).deleteByPhotoFile(anyString());
+        verify(photoRepository, never()).delete(any(Photo.class));
     }
 
     // Service test: Get book suggestions for reader
@@ -312,6 +327,24 @@ class BookServiceImplTest {
         verify(bookRepository).findByGenre("Fiction");
     }
 
+    // Service test: Get book suggestions from the recommendation index once it is built
+    @Test
+    void testGetBooksSuggestionsForReaderUsesRecommendations() {
+        Reader reader = Reader.newReader("test@test.com", "Pass123!", "Test User");
+        ReaderDetails readerDetails = new ReaderDetails(1, reader, "2000-01-01", "912345678",
+            true, true, true, null, new ArrayList<>(List.of(validGenre)));
+
+        when(readerRepository.findByReaderNumber(anyString())).thenReturn(Optional.of(readerDetails));
+        when(recommendationService.isReady()).thenReturn(true);
+        when(recommendationService.suggest(eq("2024/1"), eq(List.of("Fiction")), anyInt())).thenReturn(List.of(validIsbn));
+        when(bookRepository.findByIsbns(Set.of(validIsbn))).thenReturn(List.of(validBook));
+
+        List<Book> result = bookService.getBooksSuggestionsForReader("2024/1");
+
+        assertEquals(List.of(validBook), result);
+        verify(bookRepository, never()).findByGenre(anyString());
+    }
+
     // Service test: Get book suggestions when reader not found throws exception
     @Test
     void testGetBooksSuggestionsWhenReaderNotFoundThrowsException() {
@@ -373,18 +406,19 @@ class BookServiceImplTest {
         request.setAuthors(List.of(1L, 2L));
 
         Author author2 = new Author("Second Author", "Bio 2", null);
+        ReflectionTestUtils.setField(author2, "authorNumber", 2L);
 
         when(bookRepository.findByIsbn(validIsbn)).thenReturn(Optional.empty());
-        when(genreRepository.findByString("Fiction")).thenReturn(Optional.of(validGenre));
-        when(authorRepository.findByAuthorNumber(1L)).thenReturn(Optional.of(validAuthor));
-        when(authorRepository.findByAuthorNumber(2L)).thenReturn(Optional.of(author2));
+        when(genreRepository.findByGenreIn(Set.of("Fiction"))).thenReturn(List.of(validGenre));
+        when(authorRepository.findByAuthorNumberIn(Set.of(1L, 2L))).thenReturn(List.of(author2, validAuthor));
         when(bookRepository.save(any(Book.class))).thenReturn(validBook);
 
         Book result = bookService.create(request, validIsbn);
 
         assertNotNull(result);
-        verify(authorRepository).findByAuthorNumber(1L);
-        verify(authorRepository).findByAuthorNumber(2L);
+        // all authors are fetched with one query, whatever order it returns them in
+        verify(authorRepository).findByAuthorNumberIn(Set.of(1L, 2L));
+        verify(authorRepository, never()).findByAuthorNumber(any());
     }
 
     // Service test: Create book skips non-existent authors
@@ -396,15 +430,13 @@ class BookServiceImplTest {
         request.setAuthors(List.of(1L, 999L));
 
         when(bookRepository.findByIsbn(validIsbn)).thenReturn(Optional.empty());
-        when(genreRepository.findByString("Fiction")).thenReturn(Optional.of(validGenre));
-        when(authorRepository.findByAuthorNumber(1L)).thenReturn(Optional.of(validAuthor));
-        when(authorRepository.findByAuthorNumber(999L)).thenReturn(Optional.empty());
+        when(genreRepository.findByGenreIn(Set.of("Fiction"))).thenReturn(List.of(validGenre));
+        when(authorRepository.findByAuthorNumberIn(Set.of(1L, 999L))).thenReturn(List.of(validAuthor));
         when(bookRepository.save(any(Book.class))).thenReturn(validBook);
 
         Book result = bookService.create(request, validIsbn);
 
         assertNotNull(result);
-        verify(authorRepository).findByAuthorNumber(1L);
-        verify(authorRepository).findByAuthorNumber(999L);
+        verify(authorRepository).findByAuthorNumberIn(Set.of(1L, 999L));
     }
 }
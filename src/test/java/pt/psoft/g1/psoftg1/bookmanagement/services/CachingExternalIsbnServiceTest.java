@@ -0,0 +1,171 @@
+package pt.psoft.g1.psoftg1.bookmanagement.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Flux;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CachingExternalIsbnServiceTest {
+
+    private static final IsbnSearchResult CLEAN_CODE =
+            new IsbnSearchResult("9780132350884", "Clean Code", "Google Books", List.of("Robert C. Martin"), "2008");
+
+    @TempDir
+    Path dir;
+
+    private ExternalIsbnServiceImpl delegate;
+    private MutableClock clock;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(ExternalIsbnServiceImpl.class);
+        clock = new MutableClock();
+    }
+
+    private CachingExternalIsbnService cache(Path file) {
+        return new CachingExternalIsbnService(delegate, Duration.ofHours(24), Duration.ofHours(1), 100, file, clock);
+    }
+
+    @Test
+    void ensureRepeatedTitleIsServedFromCacheRegardlessOfFormatting() {
+        when(delegate.search("Clean Code")).thenReturn(new ExternalIsbnServiceImpl.SearchOutcome(List.of(CLEAN_CODE), true));
+        CachingExternalIsbnService service = cache(null);
+
+        service.searchIsbnByTitle("Clean Code");
+        List<IsbnSearchResult> results = service.searchIsbnByTitle("  clean-CODE ");
+
+        assertEquals(List.of(CLEAN_CODE), results);
+        verify(delegate, times(1)).search(anyString());
+    }
+
+    @Test
+    void ensureStreamIsServedFromCacheWhenTitleIsKnown() {
+        when(delegate.search("Clean Code")).thenReturn(new ExternalIsbnServiceImpl.SearchOutcome(List.of(CLEAN_CODE), true));
+        CachingExternalIsbnService service = cache(null);
+
+        service.searchIsbnByTitle("Clean Code");
+
+        assertEquals(List.of(CLEAN_CODE), service.streamIsbnByTitle("clean code").collectList().block());
+        verify(delegate, never()).streamIsbnByTitle(anyString());
+    }
+
+    @Test
+    void ensureStreamedResultsAreKeptOnlyForNegativeTtl() {
+        when(delegate.streamIsbnByTitle("Clean Code")).thenReturn(Flux.just(CLEAN_CODE));
+        CachingExternalIsbnService service = cache(null);
+
+        service.streamIsbnByTitle("Clean Code").collectList().block();
+        assertEquals(List.of(CLEAN_CODE), service.searchIsbnByTitle("Clean Code"));
+
+        clock.advance(Duration.ofMinutes(61));
+        when(delegate.search("Clean Code")).thenReturn(new ExternalIsbnServiceImpl.SearchOutcome(List.of(), true));
+        assertEquals(List.of(), service.searchIsbnByTitle("Clean Code"));
+        verify(delegate, times(1)).search("Clean Code");
+    }
+
+    @Test
+    void ensureTitleSearchFillsIsbnCache() {
+        when(delegate.search("Clean Code")).thenReturn(new ExternalIsbnServiceImpl.SearchOutcome(List.of(CLEAN_CODE), true));
+        CachingExternalIsbnService service = cache(null);
+
+        service.searchIsbnByTitle("Clean Code");
+
+        assertEquals(Optional.of(CLEAN_CODE), service.findByIsbn("978-0-13-235088-4"));
+        verify(delegate, never()).lookupIsbn(anyString());
+    }
+
+    @Test
+    void ensureEntriesExpireAfterTtl() {
+        when(delegate.search("Clean Code")).thenReturn(new ExternalIsbnServiceImpl.SearchOutcome(List.of(CLEAN_CODE), true));
+        CachingExternalIsbnService service = cache(null);
+
+        service.searchIsbnByTitle("Clean Code");
+        clock.advance(Duration.ofHours(25));
+        service.searchIsbnByTitle("Clean Code");
+
+        verify(delegate, times(2)).search("Clean Code");
+    }
+
+    @Test
+    void ensureEmptyResultIsCachedForNegativeTtlOnlyWhenAllSourcesAnswered() {
+        when(delegate.search("Nothing")).thenReturn(new ExternalIsbnServiceImpl.SearchOutcome(List.of(), true));
+        when(delegate.search("Outage")).thenReturn(new ExternalIsbnServiceImpl.SearchOutcome(List.of(), false));
+        CachingExternalIsbnService service = cache(null);
+
+        service.searchIsbnByTitle("Nothing");
+        service.searchIsbnByTitle("Nothing");
+        service.searchIsbnByTitle("Outage");
+        service.searchIsbnByTitle("Outage");
+        clock.advance(Duration.ofMinutes(61));
+        service.searchIsbnByTitle("Nothing");
+
+        verify(delegate, times(2)).search("Nothing");
+        verify(delegate, times(2)).search("Outage");
+    }
+
+    @Test
+    void ensureCacheSurvivesRestart() {
+        Path file = dir.resolve("cache.json");
+        when(delegate.search("Clean Code")).thenReturn(new ExternalIsbnServiceImpl.SearchOutcome(List.of(CLEAN_CODE), true));
+        CachingExternalIsbnService first = cache(file);
+        first.searchIsbnByTitle("Clean Code");
+        first.flushIfDirty();
+
+        CachingExternalIsbnService second = cache(file);
+
+        assertEquals(List.of(CLEAN_CODE), second.searchIsbnByTitle("clean code"));
+        verify(delegate, times(1)).search(anyString());
+    }
+
+    @Test
+    void ensureLeastRecentlyUsedEntryIsEvicted() {
+        CachingExternalIsbnService service =
+                new CachingExternalIsbnService(delegate, Duration.ofHours(24), Duration.ofHours(1), 2, null, clock);
+        when(delegate.search(anyString())).thenReturn(new ExternalIsbnServiceImpl.SearchOutcome(List.of(), true));
+
+        service.searchIsbnByTitle("a");
+        service.searchIsbnByTitle("b");
+        service.searchIsbnByTitle("a");
+        service.searchIsbnByTitle("c");
+        service.searchIsbnByTitle("a");
+        service.searchIsbnByTitle("b");
+
+        verify(delegate, times(1)).search("a");
+        verify(delegate, times(2)).search("b");
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package pt.psoft.g1.psoftg1.bookmanagement.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ApplicationEventPublisher;
+import pt.psoft.g1.psoftg1.authormanagement.model.Author;
+import pt.psoft.g1.psoftg1.authormanagement.repositories.AuthorRepository;
+import pt.psoft.g1.psoftg1.bookmanagement.model.Book;
+import pt.psoft.g1.psoftg1.bookmanagement.repositories.BookRepository;
+import pt.psoft.g1.psoftg1.exceptions.ConflictException;
+import pt.psoft.g1.psoftg1.genremanagement.model.Genre;
+import pt.psoft.g1.psoftg1.genremanagement.repositories.GenreRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class CatalogImportServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private ExternalIsbnService externalIsbnService;
+    private BookRepository bookRepository;
+    private AuthorRepository authorRepository;
+    private GenreRepository genreRepository;
+    private final List<Book> saved = new ArrayList<>();
+    private final List<Author> authors = new ArrayList<>();
+    private CatalogImportService service;
+
+    @BeforeEach
+    void setUp() {
+        externalIsbnService = mock(ExternalIsbnService.class);
+        bookRepository = mock(BookRepository.class);
+        authorRepository = mock(AuthorRepository.class);
+        genreRepository = mock(GenreRepository.class);
+
+        when(bookRepository.findExistingIsbns(anyCollection())).thenReturn(List.of());
+        when(bookRepository.saveAll(any())).thenAnswer(invocation -> {
+            List<Book> books = new ArrayList<>();
+            invocation.<Iterable<Book>>getArgument(0).forEach(books::add);
+            saved.addAll(books);
+            return books;
+        });
+        when(authorRepository.searchByNameNameIn(anyCollection())).thenAnswer(invocation -> authors.stream()
+                .filter(a -> invocation.<java.util.Collection<String>>getArgument(0).contains(a.getName()))
+                .toList());
+        when(authorRepository.save(any())).thenAnswer(invocation -> {
+            authors.add(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+        when(genreRepository.findAll()).thenReturn(List.of(new Genre("Programming")));
+        when(genreRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        service = newService();
+    }
+
+    private CatalogImportService newService() {
+        return new CatalogImportService(externalIsbnService, bookRepository, authorRepository, genreRepository,
+                mock(ApplicationEventPublisher.class), dir.toString(), 2, 1000, 2, "Uncategorized");
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    private static IsbnSearchResult book(String isbn, String title, String... authors) {
+        return new IsbnSearchResult(isbn, title, "Google Books", List.of(authors), "2008");
+    }
+
+    private CatalogImportStatus startAndWait(String file) throws IOException, InterruptedException {
+        CatalogImportStatus status = service.start(new ByteArrayInputStream(file.getBytes(StandardCharsets.UTF_8)));
+        return await(status.id());
+    }
+
+    private CatalogImportStatus await(String id) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            CatalogImportStatus status = service.status(id);
+            if (status.state() != CatalogImportStatus.State.RUNNING) {
+                return status;
+            }
+            Thread.sleep(25);
+        }
+        fail("Import did not finish");
+        return null;
+    }
+
+    @Test
+    void ensureTitlesAndIsbnsAreImportedWithGenresAndAuthors() throws Exception {
+        when(externalIsbnService.searchIsbnByTitle("Clean Code"))
+                .thenReturn(List.of(book("9780132350884", "Clean Code", "Robert C. Martin")));
+        when(externalIsbnService.findByIsbn("9780134685991"))
+                .thenReturn(Optional.of(book("9780134685991", "Effective Java", "Joshua Bloch")));
+        when(externalIsbnService.searchIsbnByTitle("Clean Coder"))
+                .thenReturn(List.of(book("9780137081073", "The Clean Coder", "Robert C. Martin")));
+
+        CatalogImportStatus status = startAndWait("""
+                # comment
+                Clean Code; programming
+                978-0-13-468599-1
+
+                Clean Coder; Software Craft
+                """);
+
+        assertEquals(CatalogImportStatus.State.COMPLETED, status.state());
+        assertEquals(3, status.total());
+        assertEquals(3, status.processed());
+        assertEquals(3, status.imported());
+        assertEquals(List.of("Programming", "Uncategorized", "Software Craft"),
+                saved.stream().map(b -> b.getGenre().toString()).toList());
+        // One author for two books in different batches, with the initial's dot dropped
+        verify(authorRepository, times(2)).save(any(Author.class));
+        assertEquals("Robert C Martin", saved.get(0).getAuthors().get(0).getName());
+        assertSame(saved.get(0).getAuthors().get(0), saved.get(2).getAuthors().get(0));
+        verify(genreRepository, times(2)).save(any(Genre.class));
+    }
+
+    @Test
+    void ensureCataloguedIsbnsAreNotLookedUp() throws Exception {
+        when(bookRepository.findExistingIsbns(anyCollection())).thenAnswer(invocation ->
+                invocation.<java.util.Collection<String>>getArgument(0).contains("9780132350884")
+                        ? List.of("9780132350884") : List.of());
+        when(externalIsbnService.searchIsbnByTitle("Missing")).thenReturn(List.of());
+
+        CatalogImportStatus status = startAndWait("9780132350884\nMissing\n");
+
+        assertEquals(1, status.alreadyInCatalog());
+        assertEquals(1, status.notFound());
+        assertEquals(0, status.imported());
+        verify(externalIsbnService, never()).findByIsbn(any());
+        verify(bookRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void ensureFailedImportResumesAfterLastCheckpointedBatch() throws Exception {
+        when(externalIsbnService.findByIsbn(any())).thenAnswer(invocation -> {
+            String isbn = invocation.getArgument(0);
+            return Optional.of(book(isbn, "Book " + isbn, "Some Author"));
+        });
+        AtomicInteger batches = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (batches.incrementAndGet() == 2) {
+                throw new IllegalStateException("database down");
+            }
+            List<Book> books = new ArrayList<>();
+            invocation.<Iterable<Book>>getArgument(0).forEach(books::add);
+            saved.addAll(books);
+            return books;
+        }).when(bookRepository).saveAll(any());
+
+        CatalogImportStatus failed = startAndWait("9780132350884\n9780201633610\n9780134685991\n9780596009205\n");
+
+        assertEquals(CatalogImportStatus.State.FAILED, failed.state());
+        assertEquals(2, failed.processed());
+
+        // A new instance only has the checkpoint on disk, as after a restart
+        service.shutdown();
+        service = newService();
+        service.resume(failed.id());
+        CatalogImportStatus resumed = await(failed.id());
+
+        assertEquals(CatalogImportStatus.State.COMPLETED, resumed.state());
+        assertEquals(4, resumed.processed());
+        assertEquals(4, resumed.imported());
+        verify(externalIsbnService, times(1)).findByIsbn("9780132350884");
+        verify(externalIsbnService, times(2)).findByIsbn("9780134685991");
+        assertThrows(ConflictException.class, () -> service.resume(failed.id()));
+    }
+}
@@ -0,0 +1,177 @@
+package pt.psoft.g1.psoftg1.bookmanagement.services;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import pt.psoft.g1.psoftg1.external.resilience.ResilienceProperties;
+import pt.psoft.g1.psoftg1.external.resilience.ResilienceRegistry;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs ExternalIsbnServiceImpl against local HTTP servers standing in for Google Books and
+ * Open Library, to check timing behaviour that mocked WebClients cannot show.
+ */
+class ExternalIsbnServiceImplStubServerTest {
+
+    private static final String GOOGLE_RESPONSE = """
+            {"items": [
+              {"volumeInfo": {"title": "Shared", "industryIdentifiers": [{"type": "ISBN_13", "identifier": "9780000000001"}]}},
+              {"volumeInfo": {"title": "Google only", "industryIdentifiers": [{"type": "ISBN_13", "identifier": "9780000000002"}]}}
+            ]}
+            """;
+    private static final String OPEN_LIBRARY_RESPONSE = """
+            {"docs": [
+              {"title": "Shared", "isbn": ["9780000000001"]},
+              {"title": "Open Library only", "isbn": ["9780000000003"]}
+            ]}
+            """;
+
+    private HttpServer server;
+    private final AtomicInteger googleRequests = new AtomicInteger();
+    private volatile IntSupplier googleDelay = () -> 0;
+    private volatile IntSupplier openLibraryDelay = () -> 0;
+    private ExternalIsbnServiceImpl service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/google/volumes", exchange -> {
+            googleRequests.incrementAndGet();
+            respond(exchange, googleDelay.getAsInt(), GOOGLE_RESPONSE);
+        });
+        server.createContext("/openlibrary/search.json",
+                exchange -> respond(exchange, openLibraryDelay.getAsInt(), OPEN_LIBRARY_RESPONSE));
+        server.start();
+
+        String base = "http://localhost:" + server.getAddress().getPort();
+        service = new ExternalIsbnServiceImpl(WebClient.builder(),
+                new ResilienceRegistry(new ResilienceProperties(), new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(service, "googleBooksUrl", base + "/google");
+        ReflectionTestUtils.setField(service, "googleBooksApiKey", "");
+        ReflectionTestUtils.setField(service, "openLibraryUrl", base + "/openlibrary");
+        ReflectionTestUtils.setField(service, "apiTimeout", 5000L);
+        ReflectionTestUtils.setField(service, "apiDeadline", 5000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private static void respond(HttpExchange exchange, int delayMillis, String body) throws IOException {
+        try {
+            Thread.sleep(delayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        try {
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (IOException e) {
+            // Client gave up on this request (deadline or losing hedge)
+        }
+    }
+
+    @Test
+    void ensureSourcesAreQueriedConcurrently() {
+        googleDelay = () -> 600;
+        openLibraryDelay = () -> 600;
+        service.searchIsbnByTitle("warmup");
+
+        long start = System.nanoTime();
+        List<IsbnSearchResult> results = service.searchIsbnByTitle("Shared");
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(3, results.size());
+        assertTrue(elapsedMillis < 1100, "Sources should overlap, took " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void ensureResultsAreDeduplicatedByIsbnKeepingFirstSource() {
+        List<IsbnSearchResult> results = service.searchIsbnByTitle("Shared");
+
+        assertEquals(List.of("9780000000001", "9780000000002", "9780000000003"),
+                results.stream().map(IsbnSearchResult::getIsbn).toList());
+        assertEquals("Google Books", results.get(0).getSource());
+    }
+
+    @Test
+    void ensureSlowSourceIsLeftOutAfterDeadline() {
+        ReflectionTestUtils.setField(service, "apiDeadline", 700L);
+        openLibraryDelay = () -> 3000;
+
+        long start = System.nanoTime();
+        List<IsbnSearchResult> results = service.searchIsbnByTitle("Shared");
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(2, results.size());
+        assertTrue(results.stream().allMatch(r -> "Google Books".equals(r.getSource())));
+        assertTrue(elapsedMillis < 2000, "Search should stop at the deadline, took " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void ensureSlowCallIsHedgedOnceLatencyIsKnown() {
+        for (int i = 0; i < 25; i++) {
+            service.searchIsbnByTitle("warmup");
+        }
+        AtomicInteger calls = new AtomicInteger();
+        // Only the next request is slow; the hedge sent after the p95 answers immediately
+        googleDelay = () -> calls.getAndIncrement() == 0 ? 3000 : 0;
+        int before = googleRequests.get();
+
+        long start = System.nanoTime();
+        List<IsbnSearchResult> results = service.searchIsbnByTitle("Shared");
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(3, results.size());
+        assertEquals(2, googleRequests.get() - before);
+        assertTrue(elapsedMillis < 2000, "Hedge should win over the slow request, took " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void ensureStreamEmitsFastSourceBeforeSlowSourceAnswers() {
+        openLibraryDelay = () -> 1500;
+
+        var timed = service.streamIsbnByTitle("Shared").elapsed().collectList().block();
+
+        assertNotNull(timed);
+        assertEquals(List.of("9780000000001", "9780000000002", "9780000000003"),
+                timed.stream().map(t -> t.getT2().getIsbn()).toList());
+        long firstMillis = timed.get(0).getT1();
+        assertTrue(firstMillis < 1000, "First result should not wait for the slow source, took " + firstMillis + " ms");
+    }
+
+    @Test
+    void ensureStreamCompletesAtDeadline() {
+        ReflectionTestUtils.setField(service, "apiDeadline", 700L);
+        openLibraryDelay = () -> 3000;
+
+        long start = System.nanoTime();
+        List<IsbnSearchResult> results = service.streamIsbnByTitle("Shared").collectList().block();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertNotNull(results);
+        assertEquals(2, results.size());
+        assertTrue(elapsedMillis < 2000, "Stream should complete at the deadline, took " + elapsedMillis + " ms");
+    }
+}
@@ -2,6 +2,7 @@ package pt.psoft.g1.psoftg1.bookmanagement.services;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -9,6 +10,8 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.reactive.function.client.WebClient;
+import pt.psoft.g1.psoftg1.external.resilience.ResilienceProperties;
+import pt.psoft.g1.psoftg1.external.resilience.ResilienceRegistry;
 import reactor.core.publisher.Mono;
 
 import java.time.Duration;
@@ -46,7 +49,8 @@ class ExternalIsbnServiceImplTest {
     @BeforeEach
     void setUp() {
         when(webClientBuilder.build()).thenReturn(webClient);
-        externalIsbnService = new ExternalIsbnServiceImpl(webClientBuilder);
+        externalIsbnService = new ExternalIsbnServiceImpl(webClientBuilder,
+                new ResilienceRegistry(new ResilienceProperties(), new SimpleMeterRegistry()));
         
         // Set test values using reflection
         ReflectionTestUtils.setField(externalIsbnService, "googleBooksUrl", "https://www.googleapis.com/books/v1");
@@ -0,0 +1,45 @@
+package pt.psoft.g1.psoftg1.exportmanagement.api;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import pt.psoft.g1.psoftg1.configuration.TestSecurityConfig;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration Test - SUT = ExportController + ExportService + EntityCursor
+ */
+@SpringBootTest(properties = "export.timeout=90s")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestSecurityConfig.class)
+class ExportControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @WithMockUser(roles = "LIBRARIAN")
+    void ensureExportStreamsWithItsOwnTimeout() throws Exception {
+        final MvcResult started = mockMvc.perform(get("/api/exports/books").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertEquals(90_000, started.getRequest().getAsyncContext().getTimeout());
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", startsWith("text/csv")))
+                .andExpect(header().string("Content-Disposition", containsString("books.csv")))
+                .andExpect(content().string(startsWith("isbn,")));
+    }
+}
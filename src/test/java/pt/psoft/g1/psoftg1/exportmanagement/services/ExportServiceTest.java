@@ -0,0 +1,102 @@
+package pt.psoft.g1.psoftg1.exportmanagement.services;
+
+import org.junit.jupiter.api.Test;
+import pt.psoft.g1.psoftg1.authormanagement.model.Author;
+import pt.psoft.g1.psoftg1.bookmanagement.model.Book;
+import pt.psoft.g1.psoftg1.bookmanagement.model.Title;
+import pt.psoft.g1.psoftg1.genremanagement.model.Genre;
+import pt.psoft.g1.psoftg1.shared.repositories.EntityCursor;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ExportServiceTest {
+
+    /** Hands out the given entities and records the fetch size it was asked for. */
+    private static class ListCursor implements EntityCursor {
+        private final List<?> entities;
+        private int fetchSize;
+
+        ListCursor(List<?> entities) {
+            this.entities = entities;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> long forEach(Class<T> type, List<String> fetch, int fetchSize, Consumer<? super T> action) {
+            this.fetchSize = fetchSize;
+            entities.forEach(entity -> action.accept((T) entity));
+            return entities.size();
+        }
+    }
+
+    private static Book book(String isbn, String title, String genre, String... authors) {
+        final Book book = mock(Book.class);
+        when(book.getIsbn()).thenReturn(isbn);
+        when(book.getTitle()).thenReturn(new Title(title));
+        when(book.getGenre()).thenReturn(new Genre(genre));
+        final List<Author> bookAuthors = new ArrayList<>();
+        for (String name : authors) {
+            final Author author = mock(Author.class);
+            when(author.getName()).thenReturn(name);
+            bookAuthors.add(author);
+        }
+        when(book.getAuthors()).thenReturn(bookAuthors);
+        return book;
+    }
+
+    @Test
+    void ensureCsvHasHeaderAndQuotesFields() throws Exception {
+        final var cursor = new ListCursor(List.of(
+                book("9782826012092", "O Principezinho", "Infantil", "Antoine de Saint-Exupéry"),
+                book("9789720706386", "Sapiens, \"History\"", "Ensaio", "Yuval Harari", "Outro Autor")));
+        final var service = new ExportService(cursor, 50);
+        final var out = new ByteArrayOutputStream();
+
+        assertEquals(2, service.exportBooks(ExportFormat.CSV, out));
+        assertEquals(50, cursor.fetchSize);
+        assertEquals("isbn,title,genre,authors\r\n"
+                        + "9782826012092,O Principezinho,Infantil,Antoine de Saint-Exupéry\r\n"
+                        + "9789720706386,\"Sapiens, \"\"History\"\"\",Ensaio,Yuval Harari; Outro Autor\r\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void ensureNdjsonWritesOneObjectPerLine() throws Exception {
+        final var cursor = new ListCursor(List.of(
+                book("9782826012092", "O Principezinho", "Infantil", "Antoine de Saint-Exupéry"),
+                book("9789720706386", "Sapiens", "Ensaio")));
+        final var service = new ExportService(cursor, 1);
+        final var out = new ByteArrayOutputStream();
+
+        service.exportBooks(ExportFormat.NDJSON, out);
+
+        final String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("{\"isbn\":\"9782826012092\",\"title\":\"O Principezinho\",\"genre\":\"Infantil\","
+                + "\"authors\":\"Antoine de Saint-Exupéry\"}", lines[0]);
+        assertEquals("{\"isbn\":\"9789720706386\",\"title\":\"Sapiens\",\"genre\":\"Ensaio\",\"authors\":\"\"}", lines[1]);
+    }
+
+    @Test
+    void ensureEmptyExportStillHasCsvHeader() throws Exception {
+        final var service = new ExportService(new ListCursor(List.of()), 10);
+        final var out = new ByteArrayOutputStream();
+
+        assertEquals(0, service.exportBooks(ExportFormat.CSV, out));
+        assertEquals("isbn,title,genre,authors\r\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void ensureUnknownFormatIsRejected() {
+        assertEquals(ExportFormat.NDJSON, ExportFormat.parse("ndjson"));
+        assertThrows(IllegalArgumentException.class, () -> ExportFormat.parse("xml"));
+    }
+}
@@ -0,0 +1,108 @@
+package pt.psoft.g1.psoftg1.external.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private CircuitBreaker breaker() {
+        return new CircuitBreaker(10, 4, 50, Duration.ofSeconds(30), 2, now::get);
+    }
+
+    private static void call(CircuitBreaker breaker, boolean fails) {
+        assertTrue(breaker.tryAcquirePermission());
+        if (fails) {
+            breaker.onFailure();
+        } else {
+            breaker.onSuccess();
+        }
+    }
+
+    @Test
+    void ensureCircuitStaysClosedBelowMinimumCalls() {
+        CircuitBreaker breaker = breaker();
+
+        call(breaker, true);
+        call(breaker, true);
+        call(breaker, true);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void ensureCircuitOpensAtFailureRateThreshold() {
+        CircuitBreaker breaker = breaker();
+
+        call(breaker, false);
+        call(breaker, false);
+        call(breaker, true);
+        call(breaker, true);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    void ensureOldOutcomesLeaveTheWindow() {
+        CircuitBreaker breaker = new CircuitBreaker(10, 10, 50, Duration.ofSeconds(30), 2, now::get);
+        call(breaker, true);
+        call(breaker, true);
+        assertEquals(100f, breaker.failureRate());
+
+        for (int i = 0; i < 10; i++) {
+            call(breaker, false);
+        }
+
+        assertEquals(0f, breaker.failureRate());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void ensureHalfOpenClosesAfterSuccessfulTrials() {
+        CircuitBreaker breaker = breaker();
+        for (int i = 0; i < 4; i++) {
+            call(breaker, true);
+        }
+        now.addAndGet(Duration.ofSeconds(31).toNanos());
+
+        call(breaker, false);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        call(breaker, false);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void ensureHalfOpenFailureReopens() {
+        CircuitBreaker breaker = breaker();
+        for (int i = 0; i < 4; i++) {
+            call(breaker, true);
+        }
+        now.addAndGet(Duration.ofSeconds(31).toNanos());
+
+        call(breaker, true);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void ensureHalfOpenLimitsTrialsAndReturnsCancelledPermits() {
+        CircuitBreaker breaker = breaker();
+        for (int i = 0; i < 4; i++) {
+            call(breaker, true);
+        }
+        now.addAndGet(Duration.ofSeconds(31).toNanos());
+
+        assertTrue(breaker.tryAcquirePermission());
+        assertTrue(breaker.tryAcquirePermission());
+        assertFalse(breaker.tryAcquirePermission());
+        breaker.releasePermission();
+        assertTrue(breaker.tryAcquirePermission());
+    }
+}
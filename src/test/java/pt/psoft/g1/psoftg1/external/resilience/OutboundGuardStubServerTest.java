@@ -0,0 +1,129 @@
+package pt.psoft.g1.psoftg1.external.resilience;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Injects failures and latency with a local HTTP server and checks how {@link OutboundGuard}
+ * isolates the caller.
+ */
+class OutboundGuardStubServerTest {
+
+    private HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile int status = 200;
+    private volatile int delayMillis = 0;
+    private WebClient webClient;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+            try {
+                exchange.sendResponseHeaders(status, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (IOException e) {
+                // client went away
+            }
+        });
+        server.start();
+        webClient = WebClient.builder().baseUrl("http://localhost:" + server.getAddress().getPort()).build();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private OutboundGuard guard(ResilienceProperties.Policy policy) {
+        ResilienceProperties properties = new ResilienceProperties();
+        properties.setDefaults(policy);
+        return new ResilienceRegistry(properties, meterRegistry).guard("stub");
+    }
+
+    private Mono<String> get() {
+        return webClient.get().uri("/").retrieve().bodyToMono(String.class);
+    }
+
+    @Test
+    void ensureCircuitOpensOnFailuresAndStopsCallingUpstream() {
+        ResilienceProperties.Policy policy = new ResilienceProperties.Policy();
+        policy.setMinimumCalls(5);
+        policy.setSlidingWindowSize(10);
+        OutboundGuard guard = guard(policy);
+        status = 500;
+
+        for (int i = 0; i < 5; i++) {
+            assertThrows(RuntimeException.class, () -> guard.guard(get()).block());
+        }
+        assertEquals(CircuitBreaker.State.OPEN, guard.getCircuitBreaker().getState());
+
+        int before = requests.get();
+        assertThrows(CallNotPermittedException.class, () -> guard.guard(get()).block());
+        assertEquals(before, requests.get());
+        assertEquals(1.0, meterRegistry.get("external.circuitbreaker.state").tag("dependency", "stub").gauge().value());
+        assertEquals(1.0, meterRegistry.get("external.calls").tag("outcome", "rejected").counter().count());
+    }
+
+    @Test
+    void ensureSlowCallsTimeOutAndCountAsFailures() {
+        ResilienceProperties.Policy policy = new ResilienceProperties.Policy();
+        policy.setTimeout(Duration.ofMillis(200));
+        OutboundGuard guard = guard(policy);
+        delayMillis = 1000;
+
+        long start = System.nanoTime();
+        assertThrows(RuntimeException.class, () -> guard.guard(get()).block());
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMillis < 900, "Call should give up at its budget, took " + elapsedMillis + " ms");
+        assertEquals(100f, guard.getCircuitBreaker().failureRate());
+    }
+
+    @Test
+    void ensureBulkheadRefusesCallsOverTheLimitAndFreesSlots() {
+        ResilienceProperties.Policy policy = new ResilienceProperties.Policy();
+        policy.setMaxConcurrentCalls(2);
+        OutboundGuard guard = guard(policy);
+        delayMillis = 500;
+
+        List<Mono<String>> calls = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            calls.add(guard.guard(get()).onErrorReturn(CallNotPermittedException.class, "rejected"));
+        }
+        List<String> results = Mono.zip(calls, values -> List.of(values).stream().map(String::valueOf).toList()).block();
+
+        assertEquals(2, results.stream().filter("rejected"::equals).count());
+        assertEquals(2, guard.getBulkhead().availablePermits());
+        assertTrue(requests.get() <= 2, "Refused calls must not reach the upstream");
+    }
+}
@@ -0,0 +1,96 @@
+package pt.psoft.g1.psoftg1.external.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pt.psoft.g1.psoftg1.readermanagement.repositories.ReaderRepository;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HistoricalEventsProviderTest {
+
+    private ApiNinjasService apiNinjasService;
+    private HistoricalEventsProvider provider;
+
+    @BeforeEach
+    void setUp() {
+        apiNinjasService = mock(ApiNinjasService.class);
+        provider = new HistoricalEventsProvider(apiNinjasService, mock(ReaderRepository.class),
+                Duration.ofMillis(100), false);
+    }
+
+    @Test
+    void servesApiEventsAndCachesThem() {
+        when(apiNinjasService.historicalEvents(1990, 2))
+                .thenReturn(Mono.just(List.of(new HistoricalEventsResponse("1990", "02", "11", "Event A"))));
+
+        assertThat(provider.eventFor(1990, 2, "2024/1")).isEqualTo(new HistoricalEvent("Event A", false));
+        assertThat(provider.eventFor(1990, 2, "2024/1")).isEqualTo(new HistoricalEvent("Event A", false));
+
+        verify(apiNinjasService, times(1)).historicalEvents(1990, 2);
+    }
+
+    @Test
+    void fallsBackToBundledEventsWhenApiIsSlow() {
+        when(apiNinjasService.historicalEvents(1990, 4)).thenReturn(Mono.never());
+
+        final long start = System.nanoTime();
+        final HistoricalEvent event = provider.eventFor(1990, 4, "2024/1");
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+        assertThat(event.text()).isNotBlank();
+        assertThat(event.approximate()).isTrue();
+    }
+
+    @Test
+    void fallsBackToBundledEventsWhenApiFailsOrIsEmpty() {
+        when(apiNinjasService.historicalEvents(1980, 7)).thenReturn(Mono.error(new IllegalStateException("down")));
+        when(apiNinjasService.historicalEvents(1981, 7)).thenReturn(Mono.just(List.of()));
+
+        assertThat(provider.eventFor(1980, 7, "2024/1").text()).isNotBlank();
+        assertThat(provider.eventFor(1981, 7, "2024/1").text()).isNotBlank();
+    }
+
+    @Test
+    void failuresAreNotCached() {
+        when(apiNinjasService.historicalEvents(1975, 10))
+                .thenReturn(Mono.error(new IllegalStateException("down")))
+                .thenReturn(Mono.just(List.of(new HistoricalEventsResponse("1975", "10", "01", "Event B"))));
+
+        provider.eventFor(1975, 10, "2024/1");
+
+        assertThat(provider.eventFor(1975, 10, "2024/1").text()).isEqualTo("Event B");
+    }
+
+    @Test
+    void prefersBundledEventsOfTheSameYear() {
+        when(apiNinjasService.historicalEvents(1974, 4)).thenReturn(Mono.just(List.of()));
+
+        final HistoricalEvent event = provider.eventFor(1974, 4, "2024/1");
+
+        assertThat(event.text()).contains("Carnation Revolution");
+        assertThat(event.approximate()).isFalse();
+    }
+
+    @Test
+    void picksTheSameEventForTheSameSeed() {
+        when(apiNinjasService.historicalEvents(1960, 3)).thenReturn(Mono.just(List.of(
+                new HistoricalEventsResponse("1960", "03", "01", "Event C"),
+                new HistoricalEventsResponse("1960", "03", "02", "Event D"),
+                new HistoricalEventsResponse("1960", "03", "03", "Event E"))));
+
+        final HistoricalEvent first = provider.eventFor(1960, 3, "2024/7");
+
+        assertThat(provider.isCached(1960, 3)).isTrue();
+        for (int i = 0; i < 10; i++) {
+            assertThat(provider.eventFor(1960, 3, "2024/7")).isEqualTo(first);
+        }
+    }
+}
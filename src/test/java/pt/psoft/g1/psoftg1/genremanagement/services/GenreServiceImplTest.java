@@ -6,14 +6,19 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import pt.psoft.g1.psoftg1.analytics.services.GenreAnalyticsService;
+import pt.psoft.g1.psoftg1.analytics.services.LeaderboardService;
 import pt.psoft.g1.psoftg1.genremanagement.model.Genre;
 import pt.psoft.g1.psoftg1.genremanagement.repositories.GenreRepository;
 
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -27,6 +32,12 @@ class GenreServiceImplTest {
     @Mock
     private GenreRepository genreRepository;
 
+    @Mock
+    private LeaderboardService leaderboardService;
+
+    @Mock
+    private GenreAnalyticsService genreAnalyticsService;
+
     @InjectMocks
     private GenreServiceImpl genreService;
 
@@ -145,4 +156,27 @@ class GenreServiceImplTest {
         verify(genreRepository, times(1)).save(newGenre);
         verifyNoMoreInteractions(genreRepository);
     }
+
+    /**
+     *  Service Unit Test
+     * Tests that lendings of the first, partial month are counted from its exact start only
+     */
+    @Test
+    void testLendingsPerMonthLastYear_ClipsFirstMonth() {
+        LocalDate now = LocalDate.now();
+        LocalDate twelveMonthsAgo = now.minusMonths(12);
+        assumeTrue(twelveMonthsAgo.getDayOfMonth() != 1);
+        YearMonth firstMonth = YearMonth.from(twelveMonthsAgo);
+        GenreLendingsPerMonthDTO clipped = new GenreLendingsPerMonthDTO(firstMonth.getYear(), firstMonth.getMonthValue(),
+                List.of(new GenreLendingsDTO("Fiction", 1L)));
+        GenreLendingsPerMonthDTO whole = new GenreLendingsPerMonthDTO(now.getYear(), now.getMonthValue(),
+                List.of(new GenreLendingsDTO("Fiction", 4L)));
+        when(genreAnalyticsService.isReady()).thenReturn(true);
+        when(genreRepository.getLendingsPerMonthByGenre(twelveMonthsAgo, firstMonth.atEndOfMonth())).thenReturn(List.of(clipped));
+        when(genreAnalyticsService.lendingsPerMonth(firstMonth.plusMonths(1), YearMonth.from(now))).thenReturn(List.of(whole));
+
+        List<GenreLendingsPerMonthDTO> result = genreService.getLendingsPerMonthLastYearByGenre();
+
+        assertEquals(List.of(clipped, whole), result);
+    }
 }
@@ -22,6 +22,7 @@ import pt.psoft.g1.psoftg1.usermanagement.repositories.UserRepository;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -227,4 +228,37 @@ public class LendingRepositoryIntegrationTest {
         assertThat(overdueLendings).contains(notReturnedLending);
         assertThat(overdueLendings).doesNotContain(notReturnedAndNotOverdueLending);
     }
+
+    @Test
+    public void testCountPerReader() {
+        lendingRepository.save(Lending.newBootstrappingLending(book,
+                readerDetails,
+                2024,
+                998,
+                LocalDate.of(2024, 2,1),
+                null,
+                15,
+                300));
+        lendingRepository.save(Lending.newBootstrappingLending(book,
+                readerDetails,
+                2024,
+                997,
+                LocalDate.of(2024, 3,31),
+                null,
+                15,
+                300));
+        lendingRepository.save(Lending.newBootstrappingLending(book,
+                readerDetails,
+                2024,
+                996,
+                LocalDate.of(2024, 4,1),
+                null,
+                15,
+                300));
+
+        List<Map.Entry<String, Long>> counts = lendingRepository.countPerReader(LocalDate.of(2024, 2, 1),
+                LocalDate.of(2024, 3, 31), new Page(1, 10));
+
+        assertThat(counts).containsExactly(Map.entry(readerDetails.getReaderNumber(), 2L));
+    }
 }
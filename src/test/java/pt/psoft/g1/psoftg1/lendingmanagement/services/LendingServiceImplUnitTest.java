@@ -6,7 +6,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.test.util.ReflectionTestUtils;
+import pt.psoft.g1.psoftg1.analytics.services.LendingSnapshotService;
+import pt.psoft.g1.psoftg1.analytics.services.ReaderActivityService;
 import pt.psoft.g1.psoftg1.authormanagement.model.Author;
 import pt.psoft.g1.psoftg1.bookmanagement.model.Book;
 import pt.psoft.g1.psoftg1.bookmanagement.repositories.BookRepository;
@@ -18,13 +21,17 @@ import pt.psoft.g1.psoftg1.lendingmanagement.repositories.FineRepository;
 import pt.psoft.g1.psoftg1.lendingmanagement.repositories.LendingRepository;
 import pt.psoft.g1.psoftg1.readermanagement.model.ReaderDetails;
 import pt.psoft.g1.psoftg1.readermanagement.repositories.ReaderRepository;
+import pt.psoft.g1.psoftg1.readermanagement.services.ReaderAverageDto;
 import pt.psoft.g1.psoftg1.shared.services.Page;
 import pt.psoft.g1.psoftg1.usermanagement.model.Reader;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -51,6 +58,15 @@ class LendingServiceImplUnitTest {
     @Mock
     private ReaderRepository readerRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private LendingSnapshotService lendingSnapshotService;
+
+    @Mock
+    private ReaderActivityService readerActivityService;
+
     @InjectMocks
     private LendingServiceImpl lendingService;
 
@@ -570,4 +586,67 @@ class LendingServiceImplUnitTest {
             isNull()
         );
     }
+
+    /**
+     *  Service Unit Test
+     * Tests the monthly average per reader read from the reader histograms
+     */
+    @Test
+    void testGetAverageMonthlyPerReader_FromHistograms() {
+        String readerNumber = testReader.getReaderNumber();
+        when(readerActivityService.isReady()).thenReturn(true);
+        when(readerActivityService.lendingsPerReader(eq(YearMonth.of(2024, 1)), eq(YearMonth.of(2024, 3)), any(Page.class)))
+            .thenReturn(List.of(Map.entry(readerNumber, 6L)));
+        when(readerRepository.findByReaderNumbers(Set.of(readerNumber))).thenReturn(List.of(testReader));
+
+        List<ReaderAverageDto> result = lendingService.getAverageMonthlyPerReader("2024-01-01", "2024-03-31", null);
+
+        assertEquals(1, result.size());
+        assertEquals(6L, result.get(0).getLendingCount());
+        assertEquals(2.0, result.get(0).getMonthlyAverage());
+        verify(lendingRepository, never()).findAll();
+    }
+
+    /**
+     *  Service Unit Test
+     * Tests the monthly average per reader while the histograms are not built yet
+     */
+    @Test
+    void testGetAverageMonthlyPerReader_FallsBackToRepositoryQuery() {
+        Page page = new Page(1, 10);
+        when(readerActivityService.isReady()).thenReturn(false);
+        when(lendingRepository.countPerReader(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 2, 29), page))
+            .thenReturn(List.of(Map.entry(testReader.getReaderNumber(), 1L)));
+        when(readerRepository.findByReaderNumbers(Set.of(testReader.getReaderNumber()))).thenReturn(List.of(testReader));
+
+        List<ReaderAverageDto> result = lendingService.getAverageMonthlyPerReader("2024-01-01", "2024-02-29", page);
+
+        assertEquals(1, result.size());
+        assertEquals(1L, result.get(0).getLendingCount());
+        assertEquals(0.5, result.get(0).getMonthlyAverage());
+        verify(lendingRepository, never()).findAll();
+    }
+
+    /**
+     *  Service Unit Test
+     * Tests the monthly average per reader rejects a start date after the end date
+     */
+    @Test
+    void testGetAverageMonthlyPerReader_InvalidRange() {
+        assertThrows(IllegalArgumentException.class,
+            () -> lendingService.getAverageMonthlyPerReader("2024-03-01", "2024-01-01", null));
+    }
+
+    /**
+     *  Service Unit Test
+     * Tests the monthly average per reader rejects dates that are not month bounds
+     */
+    @Test
+    void testGetAverageMonthlyPerReader_PartialMonths() {
+        assertThrows(IllegalArgumentException.class,
+            () -> lendingService.getAverageMonthlyPerReader("2024-01-15", "2024-03-31", null));
+        assertThrows(IllegalArgumentException.class,
+            () -> lendingService.getAverageMonthlyPerReader("2024-01-01", "2024-03-02", null));
+        verifyNoInteractions(readerActivityService);
+    }
 }
@@ -6,11 +6,17 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import pt.psoft.g1.psoftg1.analytics.services.LeaderboardService;
+import pt.psoft.g1.psoftg1.genremanagement.repositories.GenreRepository;
 import pt.psoft.g1.psoftg1.readermanagement.model.BirthDate;
 import pt.psoft.g1.psoftg1.readermanagement.model.PhoneNumber;
 import pt.psoft.g1.psoftg1.readermanagement.model.ReaderDetails;
 import pt.psoft.g1.psoftg1.readermanagement.repositories.ReaderRepository;
 import pt.psoft.g1.psoftg1.usermanagement.model.Reader;
+import pt.psoft.g1.psoftg1.usermanagement.repositories.UserRepository;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -30,6 +36,21 @@ class ReaderServiceImplTest {
     @Mock
     private ReaderRepository readerRepository;
 
+    @Mock
+    private GenreRepository genreRepository;
+
+    @Mock
+    private LeaderboardService leaderboardService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
     @InjectMocks
     private ReaderServiceImpl readerService;
 
@@ -189,4 +210,41 @@ class ReaderServiceImplTest {
         verify(readerRepository, times(1)).findByReaderNumber("2024/1");
         verifyNoMoreInteractions(readerRepository);
     }
+
+    /**
+     *  Service Unit Test
+     * Tests that a name search is answered by a single repository query
+     */
+    @Test
+    void testFindByReaderName_SingleRepositoryCall() {
+
+        when(readerRepository.findByReaderNameContains("John")).thenReturn(List.of(readerDetails));
+
+
+        List<ReaderDetails> result = readerService.findByReaderName("John");
+
+
+        assertEquals(List.of(readerDetails), result);
+        verify(readerRepository, times(1)).findByReaderNameContains("John");
+        verifyNoMoreInteractions(readerRepository);
+    }
+
+    /**
+     *  Service Unit Test
+     * Tests that an update stores the password hash on the reader and leaves the request as sent
+     */
+    @Test
+    void testUpdateStoresPasswordHashWithoutChangingTheRequest() {
+        UpdateReaderRequest request = new UpdateReaderRequest();
+        request.setPassword("NewPassword1!");
+        ReflectionTestUtils.setField(readerDetails, "version", 1L); // as once persisted
+        when(readerRepository.findByUserId(1L)).thenReturn(Optional.of(readerDetails));
+        when(readerRepository.save(readerDetails)).thenReturn(readerDetails);
+        when(passwordEncoder.encode("NewPassword1!")).thenReturn("{hash}");
+
+        readerService.update(1L, request, 1L, null);
+
+        assertEquals("{hash}", reader.getPassword());
+        assertEquals("NewPassword1!", request.getPassword());
+    }
 }
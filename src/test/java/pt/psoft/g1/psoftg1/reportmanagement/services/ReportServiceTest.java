@@ -0,0 +1,158 @@
+package pt.psoft.g1.psoftg1.reportmanagement.services;
+
+import jakarta.validation.ValidationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import pt.psoft.g1.psoftg1.exceptions.NotFoundException;
+import pt.psoft.g1.psoftg1.genremanagement.services.GenreService;
+import pt.psoft.g1.psoftg1.readermanagement.services.ReaderService;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReportServiceTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+    private static final LocalDate END = LocalDate.of(2024, 12, 31);
+
+    private final GenreService genreService = mock(GenreService.class);
+    private final ReaderService readerService = mock(ReaderService.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final List<String> ran = new CopyOnWriteArrayList<>();
+    private ReportService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ReportService(genreService, readerService, transactionManager, 1, 2, Duration.ofSeconds(5), Duration.ofHours(1));
+        when(readerService.findTopByGenre(anyString(), any(), any())).thenAnswer(invocation -> {
+            ran.add(invocation.getArgument(0));
+            return List.of();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        service.shutdown();
+    }
+
+    // occupies the only worker until released, so later reports stay queued behind it
+    private ReportStatus blockWorker() {
+        when(genreService.getLendingsAverageDurationPerMonth(anyString(), anyString())).thenAnswer(invocation -> {
+            release.await();
+            return List.of();
+        });
+        return service.submit(new ReportRequest(ReportRequest.Type.LENDINGS_AVERAGE_DURATION_PER_MONTH,
+                START, END, null, ReportRequest.Priority.NORMAL));
+    }
+
+    private ReportStatus top5(String genre, ReportRequest.Priority priority) {
+        return service.submit(new ReportRequest(ReportRequest.Type.READERS_TOP5_BY_GENRE, START, END, genre, priority));
+    }
+
+    private ReportStatus await(String id) throws InterruptedException {
+        for (int i = 0; i < 200 && service.status(id).isPending(); i++) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        return service.status(id);
+    }
+
+    @Test
+    void ensureCompletedReportKeepsRowsAndEtag() throws Exception {
+        when(genreService.getLendingsAverageDurationPerMonth(eq("2024-01-01"), eq("2024-12-31"))).thenReturn(List.of());
+
+        final ReportStatus submitted = service.submit(new ReportRequest(
+                ReportRequest.Type.LENDINGS_AVERAGE_DURATION_PER_MONTH, START, END, null, ReportRequest.Priority.NORMAL));
+        final ReportStatus finished = await(submitted.id());
+
+        assertEquals(ReportStatus.State.COMPLETED, finished.state());
+        assertNotNull(finished.etag());
+        assertEquals(finished.etag(), service.status(submitted.id()).etag());
+        assertEquals(List.of(), service.result(submitted.id()).rows());
+    }
+
+    @Test
+    void ensureHigherPriorityRunsFirst() throws Exception {
+        blockWorker();
+        final ReportStatus low = top5("low", ReportRequest.Priority.LOW);
+        final ReportStatus high = top5("high", ReportRequest.Priority.HIGH);
+        assertEquals(ReportStatus.State.QUEUED, service.status(low.id()).state());
+
+        release.countDown();
+        await(low.id());
+        await(high.id());
+
+        assertEquals(List.of("high", "low"), ran);
+    }
+
+    @Test
+    void ensureQueueIsBounded() {
+        blockWorker();
+        top5("a", ReportRequest.Priority.NORMAL);
+        top5("b", ReportRequest.Priority.NORMAL);
+
+        assertThrows(RejectedExecutionException.class, () -> top5("c", ReportRequest.Priority.NORMAL));
+    }
+
+    @Test
+    void ensureCancelledReportNeverRunsAndIsDiscarded() throws Exception {
+        blockWorker();
+        final ReportStatus queued = top5("cancelled", ReportRequest.Priority.NORMAL);
+
+        service.cancel(queued.id());
+        release.countDown();
+        final ReportStatus other = top5("other", ReportRequest.Priority.NORMAL);
+        await(other.id());
+
+        assertEquals(List.of("other"), ran);
+        assertThrows(NotFoundException.class, () -> service.status(queued.id()));
+    }
+
+    @Test
+    void ensureFailureIsReported() throws Exception {
+        when(genreService.getLendingsAverageDurationPerMonth(anyString(), anyString()))
+                .thenThrow(new IllegalArgumentException("boom"));
+
+        final ReportStatus submitted = service.submit(new ReportRequest(
+                ReportRequest.Type.LENDINGS_AVERAGE_DURATION_PER_MONTH, START, END, null, ReportRequest.Priority.NORMAL));
+        final ReportStatus finished = await(submitted.id());
+
+        assertEquals(ReportStatus.State.FAILED, finished.state());
+        assertEquals("boom", finished.message());
+        assertNull(service.result(submitted.id()).rows());
+    }
+
+    @Test
+    void ensureReportQueriesRunWithTheReportTimeout() throws Exception {
+        final ReportStatus finished = await(top5("timed", ReportRequest.Priority.NORMAL).id());
+
+        assertEquals(ReportStatus.State.COMPLETED, finished.state());
+        assertNotNull(finished.finishedAt());
+        verify(transactionManager).getTransaction(argThat(definition ->
+                definition.isReadOnly() && definition.getTimeout() == 5));
+    }
+
+    @Test
+    void ensureInvalidRequestsAreRejected() {
+        assertThrows(ValidationException.class, () -> top5(" ", ReportRequest.Priority.NORMAL));
+        assertThrows(ValidationException.class, () -> service.submit(new ReportRequest(
+                ReportRequest.Type.LENDINGS_AVERAGE_DURATION_PER_MONTH, END, START, null, ReportRequest.Priority.NORMAL)));
+    }
+}
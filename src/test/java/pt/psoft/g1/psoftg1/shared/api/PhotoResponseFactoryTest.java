@@ -0,0 +1,126 @@
+package pt.psoft.g1.psoftg1.shared.api;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import pt.psoft.g1.psoftg1.shared.repositories.PhotoRepository;
+import pt.psoft.g1.psoftg1.shared.services.EtagService;
+import pt.psoft.g1.psoftg1.shared.services.FileStorageProperties;
+import pt.psoft.g1.psoftg1.shared.services.FileStorageService;
+import pt.psoft.g1.psoftg1.shared.services.PhotoSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class PhotoResponseFactoryTest {
+
+    @TempDir
+    Path uploadDir;
+
+    private PhotoResponseFactory factory;
+
+    @BeforeEach
+    void setUp() {
+        FileStorageProperties properties = new FileStorageProperties();
+        properties.setUploadDir(uploadDir.toString());
+        properties.setPhotoMaxSize(20000);
+        properties.setPhotoCacheMaxAge(600);
+        factory = new PhotoResponseFactory(new FileStorageService(properties, mock(PhotoRepository.class)), properties, new EtagService(mock(ObjectProvider.class)));
+    }
+
+    private static ServletWebRequest request(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books/1/photo");
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        return new ServletWebRequest(request);
+    }
+
+    @Test
+    void ensurePhotoIsStreamedWithCachingHeaders() throws IOException {
+        Files.write(uploadDir.resolve("photo.png"), new byte[]{1, 2, 3});
+
+        ResponseEntity<Resource> response = factory.photo("photo.png", request(null));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.IMAGE_PNG, response.getHeaders().getContentType());
+        assertEquals("\"photo.png\"", response.getHeaders().getETag());
+        assertTrue(response.getHeaders().getLastModified() > 0);
+        assertEquals("max-age=600, private", response.getHeaders().getCacheControl());
+        assertEquals(3, response.getBody().contentLength());
+    }
+
+    @Test
+    void ensureMatchingEtagIsNotModified() throws IOException {
+        Files.write(uploadDir.resolve("photo.jpg"), new byte[]{1});
+
+        ResponseEntity<Resource> response = factory.photo("photo.jpg", request("\"photo.jpg\""));
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+    }
+
+    @Test
+    void ensureMissingDerivativeFallsBackToUncachedOriginal() throws IOException {
+        Files.write(uploadDir.resolve("photo.jpg"), new byte[]{1, 2});
+
+        ResponseEntity<Resource> response = factory.photo("photo.jpg", Optional.of(PhotoSize.THUMB), request(null));
+
+        assertEquals("\"photo.jpg\"", response.getHeaders().getETag());
+        assertEquals("no-cache", response.getHeaders().getCacheControl());
+    }
+
+    @Test
+    void ensureExistingDerivativeIsServed() throws IOException {
+        Files.write(uploadDir.resolve("photo.jpg"), new byte[]{1, 2});
+        Files.write(uploadDir.resolve("photo_thumb.jpg"), new byte[]{1});
+
+        ResponseEntity<Resource> response = factory.photo("photo.jpg", Optional.of(PhotoSize.THUMB), request(null));
+
+        assertEquals("\"photo_thumb.jpg\"", response.getHeaders().getETag());
+        assertEquals("max-age=600, private", response.getHeaders().getCacheControl());
+        assertEquals(1, response.getBody().contentLength());
+    }
+
+    @Test
+    void ensureMissingFileHasNoBody() {
+        ResponseEntity<Resource> response = factory.photo("missing.jpg", request(null));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNull(response.getBody());
+    }
+
+    @Test
+    void ensurePathsOutsideTheUploadDirAreRejected() throws IOException {
+        Files.write(uploadDir.getParent().resolve("outside.jpg"), new byte[]{1});
+
+        ResponseEntity<Resource> response = factory.photo("../outside.jpg", request(null));
+
+        assertNull(response.getBody());
+    }
+
+    @Test
+    void ensureMatchingEtagIsAnsweredWithoutReadingTheDisk() {
+        // neither file exists: a 304 here shows the disk was not consulted
+        ResponseEntity<Resource> original = factory.photo("ab/cd/photo.jpg", request("\"photo.jpg\""));
+        ResponseEntity<Resource> thumb = factory.photo("ab/cd/photo.jpg", Optional.of(PhotoSize.THUMB),
+                request("\"photo_thumb.jpg\""));
+
+        assertEquals(HttpStatus.NOT_MODIFIED, original.getStatusCode());
+        assertEquals(HttpStatus.NOT_MODIFIED, thumb.getStatusCode());
+        assertEquals("\"photo_thumb.jpg\"", thumb.getHeaders().getETag());
+        assertEquals("max-age=600, private", thumb.getHeaders().getCacheControl());
+    }
+}
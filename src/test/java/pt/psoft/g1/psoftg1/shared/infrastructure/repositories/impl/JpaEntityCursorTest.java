@@ -0,0 +1,117 @@
+package pt.psoft.g1.psoftg1.shared.infrastructure.repositories.impl;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.transaction.annotation.Transactional;
+import pt.psoft.g1.psoftg1.authormanagement.model.Author;
+import pt.psoft.g1.psoftg1.authormanagement.repositories.AuthorRepository;
+import pt.psoft.g1.psoftg1.bookmanagement.model.Book;
+import pt.psoft.g1.psoftg1.bookmanagement.repositories.BookRepository;
+import pt.psoft.g1.psoftg1.genremanagement.model.Genre;
+import pt.psoft.g1.psoftg1.genremanagement.repositories.GenreRepository;
+import pt.psoft.g1.psoftg1.lendingmanagement.model.Lending;
+import pt.psoft.g1.psoftg1.lendingmanagement.repositories.LendingRepository;
+import pt.psoft.g1.psoftg1.readermanagement.model.ReaderDetails;
+import pt.psoft.g1.psoftg1.readermanagement.repositories.ReaderRepository;
+import pt.psoft.g1.psoftg1.shared.repositories.EntityCursor;
+import pt.psoft.g1.psoftg1.usermanagement.model.Reader;
+import pt.psoft.g1.psoftg1.usermanagement.repositories.UserRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Transactional
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class JpaEntityCursorTest {
+
+    private static final List<String> ISBNS =
+            List.of("9782826012092", "9789720706386", "9780306406157", "9780262033848", "9780131103627");
+
+    @Autowired
+    private EntityCursor entityCursor;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private AuthorRepository authorRepository;
+    @Autowired
+    private GenreRepository genreRepository;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ReaderRepository readerRepository;
+    @Autowired
+    private LendingRepository lendingRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        final Genre genre = genreRepository.save(new Genre("Cursor"));
+        final List<Author> authors = List.of(
+                authorRepository.save(new Author("Ana Silva", "bio", null)),
+                authorRepository.save(new Author("Bruno Costa", "bio", null)),
+                authorRepository.save(new Author("Carla Reis", "bio", null)));
+        final List<Book> books = new ArrayList<>();
+        for (int i = 0; i < ISBNS.size(); i++) {
+            books.add(bookRepository.save(new Book(ISBNS.get(i), "Title " + i, "description", genre,
+                    i % 2 == 0 ? authors : authors.subList(1, 2), null)));
+        }
+        final Reader reader = Reader.newReader("cursor@gmail.com", "Manuelino123!", "Manuel Cursor");
+        userRepository.save(reader);
+        final ReaderDetails readerDetails = readerRepository.save(new ReaderDetails(1, reader, "2000-01-01",
+                "919191919", true, true, true, null, List.of(genre)));
+        for (int i = 0; i < 7; i++) {
+            lendingRepository.save(Lending.newBootstrappingLending(books.get(i % books.size()), readerDetails, 2024, 900 + i, LocalDate.of(2024, 1, 1 + i), null, 15, 300));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void ensureFetchedCollectionsAreCompleteAcrossBatches() {
+        final Map<String, Integer> authorCounts = new HashMap<>();
+
+        final long rows = entityCursor.forEach(Book.class, List.of("genre", "photo", "authors", "authors.photo"), 1,
+                book -> authorCounts.merge(book.getIsbn(), book.getAuthors().size(), Integer::sum));
+
+        assertEquals(ISBNS.size(), rows);
+        for (int i = 0; i < ISBNS.size(); i++) {
+            assertEquals(i % 2 == 0 ? 3 : 1, authorCounts.get(ISBNS.get(i)));
+        }
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void ensureFetchedAssociationsNeedNoFurtherQueries() {
+        final long rows = entityCursor.forEach(Lending.class, List.of("book", "book.genre", "book.photo",
+                "readerDetails", "readerDetails.reader", "readerDetails.photo"), 3, lending -> {
+            assertNotNull(lending.getBook().getGenre().getGenre());
+            assertNotNull(lending.getReaderDetails().getReader().getName());
+        });
+
+        assertEquals(7, rows);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void ensureNestedFetchNeedsItsParent() {
+        assertThrows(InvalidDataAccessApiUsageException.class,
+                () -> entityCursor.forEach(Book.class, List.of("authors.photo"), 10, book -> {
+                }));
+    }
+}
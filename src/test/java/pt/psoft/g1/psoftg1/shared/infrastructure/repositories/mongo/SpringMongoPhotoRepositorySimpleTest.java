@@ -79,17 +79,6 @@ class SpringMongoPhotoRepositorySimpleTest {
         assertEquals(3, repository.count());
     }
 
-    @Test
-    void testDeleteByPhotoFile() {
-        Path photoPath = Paths.get("/uploads/delete-me.jpg");
-        Photo photo = new Photo(photoPath);
-        saveToMongo(photo);
-
-        repository.deleteByPhotoFile("/uploads/delete-me.jpg");
-
-        assertEquals(0, repository.count());
-    }
-
     @Test
     void testDeleteById() {
         Photo photo = new Photo(Paths.get("/uploads/delete-by-id.jpg"));
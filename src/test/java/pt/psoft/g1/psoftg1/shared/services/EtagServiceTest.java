@@ -0,0 +1,126 @@
+package pt.psoft.g1.psoftg1.shared.services;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class EtagServiceTest {
+
+    private static ServletWebRequest requestWithIfNoneMatch(String value) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books/1");
+        if (value != null) {
+            request.addHeader("If-None-Match", value);
+        }
+        return new ServletWebRequest(request);
+    }
+
+    @Test
+    void ensureMatchingVersionIsNotModified() {
+        EtagService service = new EtagService((StringRedisTemplate) null);
+        String etag = service.entityTag(3);
+
+        assertTrue(service.isNotModified(requestWithIfNoneMatch("\"3\""), etag));
+        assertTrue(service.isNotModified(requestWithIfNoneMatch("W/\"3\""), etag));
+        assertTrue(service.isNotModified(requestWithIfNoneMatch("\"1\", \"3\""), etag));
+    }
+
+    @Test
+    void ensureOtherVersionIsModified() {
+        EtagService service = new EtagService((StringRedisTemplate) null);
+
+        assertFalse(service.isNotModified(requestWithIfNoneMatch("\"2\""), service.entityTag(3)));
+        assertFalse(service.isNotModified(requestWithIfNoneMatch(null), service.entityTag(3)));
+    }
+
+    @Test
+    void ensureCollectionTagIsWeakAndStableUntilBumped() {
+        EtagService service = new EtagService((StringRedisTemplate) null);
+        String before = service.collectionTag(EtagService.BOOKS, EtagService.LENDINGS);
+
+        assertTrue(before.startsWith("W/\""));
+        assertEquals(before, service.collectionTag(EtagService.BOOKS, EtagService.LENDINGS));
+        assertTrue(service.isNotModified(requestWithIfNoneMatch(before), before));
+
+        service.bump(EtagService.LENDINGS);
+
+        String after = service.collectionTag(EtagService.BOOKS, EtagService.LENDINGS);
+        assertNotEquals(before, after);
+        assertFalse(service.isNotModified(requestWithIfNoneMatch(before), after));
+    }
+
+    @Test
+    void ensureUnrelatedCollectionDoesNotChangeTag() {
+        EtagService service = new EtagService((StringRedisTemplate) null);
+        String before = service.collectionTag(EtagService.AUTHORS);
+
+        service.bump(EtagService.READERS);
+
+        assertEquals(before, service.collectionTag(EtagService.AUTHORS));
+    }
+
+    @Test
+    void ensureRelatedVersionsArePartOfTheTag() {
+        EtagService service = new EtagService((StringRedisTemplate) null);
+
+        assertEquals("4.7", service.entityTag(4, 7));
+        assertFalse(service.isNotModified(requestWithIfNoneMatch("\"4.7\""), service.entityTag(4, 8)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ValueOperations<String, String> redisValues(StringRedisTemplate redis) {
+        ValueOperations<String, String> values = mock(ValueOperations.class);
+        when(redis.opsForValue()).thenReturn(values);
+        return values;
+    }
+
+    @Test
+    void ensureCollectionVersionsAreSharedThroughRedis() {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> values = redisValues(redis);
+        when(values.multiGet(List.of("etag:epoch", "etag:collection:books"))).thenReturn(Arrays.asList("e1", "3"));
+        EtagService service = new EtagService(redis);
+
+        assertEquals("W/\"e1-3\"", service.collectionTag(EtagService.BOOKS));
+
+        service.bump(EtagService.BOOKS);
+
+        verify(values).increment("etag:collection:books");
+    }
+
+    @Test
+    void ensureMissedBumpReplacesTheSharedEpoch() {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> values = redisValues(redis);
+        when(values.increment(anyString())).thenThrow(new RedisConnectionFailureException("down"));
+        when(values.multiGet(anyList())).thenReturn(Arrays.asList("e1", "3"));
+        EtagService service = new EtagService(redis);
+
+        service.bump(EtagService.BOOKS);
+        service.collectionTag(EtagService.BOOKS);
+        service.collectionTag(EtagService.BOOKS);
+
+        verify(values, times(1)).set(eq("etag:epoch"), anyString());
+    }
+
+    @Test
+    void ensureTagNeverMatchesWhenRedisIsDown() {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> values = redisValues(redis);
+        when(values.multiGet(anyList())).thenThrow(new RedisConnectionFailureException("down"));
+        EtagService service = new EtagService(redis);
+
+        String first = service.collectionTag(EtagService.BOOKS);
+
+        assertFalse(service.isNotModified(requestWithIfNoneMatch(first), service.collectionTag(EtagService.BOOKS)));
+    }
+}
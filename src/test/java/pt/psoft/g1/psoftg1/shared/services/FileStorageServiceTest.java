@@ -0,0 +1,165 @@
+package pt.psoft.g1.psoftg1.shared.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import pt.psoft.g1.psoftg1.shared.model.Photo;
+import pt.psoft.g1.psoftg1.shared.repositories.PhotoRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class FileStorageServiceTest {
+
+    @TempDir
+    Path uploadDir;
+
+    private PhotoRepository photoRepository;
+    private FileStorageService service;
+
+    @BeforeEach
+    void setUp() {
+        FileStorageProperties properties = new FileStorageProperties();
+        properties.setUploadDir(uploadDir.toString());
+        properties.setPhotoMaxSize(20000);
+        properties.setPhotoReleaseGraceSeconds(60);
+        photoRepository = mock(PhotoRepository.class);
+        service = new FileStorageService(properties, photoRepository);
+    }
+
+    private static MockMultipartFile upload(String name, byte[] content) {
+        return new MockMultipartFile("photo", name, "image/png", content);
+    }
+
+    private void age(String fileName) throws IOException {
+        Files.setLastModifiedTime(uploadDir.resolve(fileName), FileTime.from(Instant.now().minusSeconds(3600)));
+    }
+
+    @Test
+    void ensureFileIsStoredUnderItsContentHash() {
+        String fileName = service.storeFile(upload("cover.PNG", "abc".getBytes()));
+
+        // SHA-256 of "abc"
+        assertEquals("ba/78/ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad.png", fileName);
+        assertTrue(Files.isRegularFile(uploadDir.resolve(fileName)));
+    }
+
+    @Test
+    void ensureIdenticalUploadsAreDeduplicated() throws IOException {
+        String first = service.storeFile(upload("a.png", new byte[]{1, 2, 3}));
+        String second = service.storeFile(upload("b.png", new byte[]{1, 2, 3}));
+
+        assertEquals(first, second);
+        try (var files = Files.list(uploadDir.resolve(first).getParent())) {
+            assertEquals(1, files.filter(f -> !PhotoDerivativeGenerator.isDerivativeName(f.getFileName().toString())).count());
+        }
+    }
+
+    @Test
+    void ensureReferencedFileIsNotReleased() throws IOException {
+        String fileName = service.storeFile(upload("a.png", new byte[]{4}));
+        age(fileName);
+        when(photoRepository.countByPhotoFile(fileName)).thenReturn(1L);
+
+        service.releaseFile(fileName);
+
+        assertTrue(Files.exists(uploadDir.resolve(fileName)));
+    }
+
+    @Test
+    void ensureUnreferencedFileIsReleased() throws IOException {
+        String fileName = service.storeFile(upload("a.png", new byte[]{5}));
+        age(fileName);
+        when(photoRepository.countByPhotoFile(fileName)).thenReturn(0L);
+
+        service.releaseFile(fileName);
+
+        assertFalse(Files.exists(uploadDir.resolve(fileName)));
+    }
+
+    @Test
+    void ensureRecentlyStoredFileIsKeptDuringGracePeriod() {
+        String fileName = service.storeFile(upload("a.png", new byte[]{6}));
+        when(photoRepository.countByPhotoFile(fileName)).thenReturn(0L);
+
+        service.releaseFile(fileName);
+
+        assertTrue(Files.exists(uploadDir.resolve(fileName)));
+    }
+
+    @Test
+    void ensureLegacyFilesAreMigratedAndRowsRepointed() throws IOException {
+        Files.write(uploadDir.resolve("legacy.jpg"), "abc".getBytes());
+        Files.write(uploadDir.resolve("legacy_thumb.jpg"), new byte[]{1});
+        Photo photo = new Photo(Paths.get("legacy.jpg"));
+        when(photoRepository.findByPhotoFile("legacy.jpg")).thenReturn(List.of(photo));
+        FileStorageProperties properties = new FileStorageProperties();
+
+        int migrated = new LegacyPhotoMigration(service, properties, photoRepository).migrate();
+
+        assertEquals(1, migrated);
+        assertEquals("ba/78/ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad.jpg", photo.getPhotoFile());
+        verify(photoRepository).save(any(Photo.class));
+        assertTrue(Files.exists(uploadDir.resolve(photo.getPhotoFile())));
+        assertFalse(Files.exists(uploadDir.resolve("legacy.jpg")));
+        assertFalse(Files.exists(uploadDir.resolve("legacy_thumb.jpg")));
+    }
+
+    @Test
+    void ensureReleaseWithinGracePeriodIsRetriedAfterIt() throws IOException {
+        String fileName = service.storeFile(upload("a.png", new byte[]{7}));
+        when(photoRepository.countByPhotoFile(fileName)).thenReturn(0L);
+
+        service.releaseFile(fileName);
+        service.retryPendingReleases();
+        assertTrue(Files.exists(uploadDir.resolve(fileName)));
+
+        age(fileName);
+        service.retryPendingReleases();
+        assertFalse(Files.exists(uploadDir.resolve(fileName)));
+    }
+
+    @Test
+    void ensureSweepDeletesOnlyOldUnreferencedFiles() throws IOException {
+        String orphan = service.storeFile(upload("a.png", new byte[]{8}));
+        String referenced = service.storeFile(upload("b.png", new byte[]{9}));
+        String recent = service.storeFile(upload("c.png", new byte[]{10}));
+        age(orphan);
+        age(referenced);
+        when(photoRepository.findReferencedPhotoFiles(anyCollection())).thenReturn(Set.of(referenced));
+
+        assertEquals(1, service.sweepUnreferencedFiles());
+        verify(photoRepository).findReferencedPhotoFiles(anyCollection());
+        verify(photoRepository, never()).countByPhotoFile(anyString());
+
+        assertFalse(Files.exists(uploadDir.resolve(orphan)));
+        assertTrue(Files.exists(uploadDir.resolve(referenced)));
+        assertTrue(Files.exists(uploadDir.resolve(recent)));
+    }
+
+    @Test
+    void ensureExtensionComesFromDetectedImageType() {
+        byte[] jpeg = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 1};
+
+        String asJpg = service.storeFile(new MockMultipartFile("photo", "a.jpg", "image/jpeg", jpeg));
+        String asJpeg = service.storeFile(new MockMultipartFile("photo", "a.JPEG", "image/jpeg", jpeg));
+        String mislabelled = service.storeFile(new MockMultipartFile("photo", "a.png", "image/png", jpeg));
+
+        assertTrue(asJpg.endsWith(".jpg"));
+        assertEquals(asJpg, asJpeg);
+        assertEquals(asJpg, mislabelled);
+    }
+}
@@ -0,0 +1,83 @@
+package pt.psoft.g1.psoftg1.shared.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PhotoDerivativeGeneratorTest {
+
+    @TempDir
+    Path uploadDir;
+
+    @Test
+    void ensureDerivativeNameKeepsExtension() {
+        assertEquals("abc_thumb.png", PhotoDerivativeGenerator.derivativeName("abc.png", PhotoSize.THUMB));
+        assertEquals("abc_medium", PhotoDerivativeGenerator.derivativeName("abc", PhotoSize.MEDIUM));
+    }
+
+    @Test
+    void ensureDerivativesFitTheirSizeAndKeepAspectRatio() throws IOException {
+        ImageIO.write(new BufferedImage(960, 480, BufferedImage.TYPE_INT_RGB), "png", uploadDir.resolve("a.png").toFile());
+        PhotoDerivativeGenerator generator = new PhotoDerivativeGenerator(uploadDir, 1, 1);
+
+        generator.generate("a.png");
+
+        BufferedImage thumb = ImageIO.read(uploadDir.resolve("a_thumb.png").toFile());
+        assertEquals(96, thumb.getWidth());
+        assertEquals(48, thumb.getHeight());
+        BufferedImage medium = ImageIO.read(uploadDir.resolve("a_medium.png").toFile());
+        assertEquals(480, medium.getWidth());
+        generator.shutdown();
+    }
+
+    @Test
+    void ensureSmallOriginalIsCopiedInsteadOfUpscaled() throws IOException {
+        ImageIO.write(new BufferedImage(50, 40, BufferedImage.TYPE_INT_RGB), "jpg", uploadDir.resolve("b.jpg").toFile());
+        PhotoDerivativeGenerator generator = new PhotoDerivativeGenerator(uploadDir, 1, 1);
+
+        generator.generate("b.jpg");
+
+        assertArrayEquals(Files.readAllBytes(uploadDir.resolve("b.jpg")), Files.readAllBytes(uploadDir.resolve("b_small.jpg")));
+        generator.shutdown();
+    }
+
+    @Test
+    void ensureDeleteRemovesAllDerivatives() throws IOException {
+        ImageIO.write(new BufferedImage(300, 300, BufferedImage.TYPE_INT_RGB), "png", uploadDir.resolve("c.png").toFile());
+        PhotoDerivativeGenerator generator = new PhotoDerivativeGenerator(uploadDir, 1, 1);
+        generator.generate("c.png");
+
+        generator.delete("c.png");
+
+        for (PhotoSize size : PhotoSize.values()) {
+            assertFalse(Files.exists(uploadDir.resolve(PhotoDerivativeGenerator.derivativeName("c.png", size))));
+        }
+        assertTrue(Files.exists(uploadDir.resolve("c.png")));
+        generator.shutdown();
+    }
+
+    @Test
+    void ensureUndecodablePhotoIsNotQueuedAgain() throws IOException {
+        Files.write(uploadDir.resolve("d.jpg"), new byte[]{1, 2, 3});
+        PhotoDerivativeGenerator generator = new PhotoDerivativeGenerator(uploadDir, 1, 1);
+
+        generator.generate("d.jpg");
+        assertTrue(generator.isUnreadable("d.jpg"));
+
+        // stored files never change, so a valid image under that name is not decoded again
+        ImageIO.write(new BufferedImage(300, 300, BufferedImage.TYPE_INT_RGB), "jpg", uploadDir.resolve("d.jpg").toFile());
+        generator.submit("d.jpg");
+        generator.shutdown();
+        assertFalse(Files.exists(uploadDir.resolve("d_thumb.jpg")));
+
+        generator.delete("d.jpg");
+        assertFalse(generator.isUnreadable("d.jpg"));
+    }
+}
@@ -0,0 +1,76 @@
+package pt.psoft.g1.psoftg1.shared.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestScopedLoaderTest {
+
+    private final List<Set<String>> batches = new ArrayList<>();
+
+    // "found" keys resolve to their upper case value, every other key has none
+    private final RequestScopedLoader<String, String> loader = new RequestScopedLoader<>(
+            "test", this::find, value -> value.toLowerCase());
+
+    private List<String> find(Collection<String> keys) {
+        batches.add(Set.copyOf(keys));
+        return keys.stream().filter(key -> key.startsWith("found")).map(String::toUpperCase).toList();
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void ensureResolvesDistinctKeysWithOneBatchInKeyOrder() {
+        final Map<String, String> result = loader.loadMany(List.of("found-b", "missing", "found-a", "found-b"));
+
+        assertEquals(List.of("found-b", "found-a"), List.copyOf(result.keySet()));
+        assertEquals("FOUND-A", result.get("found-a"));
+        assertEquals(List.of(Set.of("found-b", "missing", "found-a")), batches);
+    }
+
+    @Test
+    void ensureRemembersFoundAndMissingKeysWithinARequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        loader.loadAll(List.of("found-a", "missing"));
+        final List<String> result = loader.loadAll(List.of("missing", "found-a", "found-b"));
+        final Optional<String> single = loader.load("found-b");
+
+        assertEquals(List.of("FOUND-A", "FOUND-B"), result);
+        assertEquals(Optional.of("FOUND-B"), single);
+        assertEquals(List.of(Set.of("found-a", "missing"), Set.of("found-b")), batches);
+    }
+
+    @Test
+    void ensureLoadersWithTheSameNameShareARequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        final var other = new RequestScopedLoader<String, String>("test", this::find, value -> value.toLowerCase());
+
+        loader.load("found-a");
+
+        assertEquals(Optional.of("FOUND-A"), other.load("found-a"));
+        assertEquals(1, batches.size());
+    }
+
+    @Test
+    void ensureRemembersNothingOutsideARequest() {
+        loader.load("found-a");
+        loader.load("found-a");
+
+        assertEquals(2, batches.size());
+    }
+}
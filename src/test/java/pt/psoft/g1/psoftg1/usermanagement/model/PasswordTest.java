@@ -0,0 +1,35 @@
+package pt.psoft.g1.psoftg1.usermanagement.model;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordTest {
+
+    private final PasswordEncoder encoder = new BCryptPasswordEncoder(4);
+
+    @Test
+    void ensureWeakPasswordIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new Password("password"));
+        assertThrows(IllegalArgumentException.class, () -> new Password(null));
+    }
+
+    @Test
+    void ensureEncodeHashesWithTheGivenEncoder() {
+        final String hash = new Password("Password123!").encode(encoder);
+
+        assertNotEquals("Password123!", hash);
+        assertTrue(encoder.matches("Password123!", hash));
+    }
+
+    @Test
+    void ensureUserKeepsTheHashItIsGiven() {
+        final String hash = new Password("Password123!").encode(encoder);
+
+        final User user = User.newUser("user@mail.com", hash, "User Name");
+
+        assertEquals(hash, user.getPassword());
+    }
+}